@@ -0,0 +1,35 @@
+package com.cars24.fraud_detection.config;
+
+import com.cars24.fraud_detection.data.dao.FileDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Uploads made before deactivation was atomic could leave several active files of one type for a
+ * lead. Only the latest is kept active, which also lets the one-active-file index be created.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActiveFileRepair {
+
+    private final FileDao fileDao;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void repair() {
+        try {
+            long deactivated = fileDao.repairActiveFiles();
+            if (deactivated > 0) {
+                log.warn("Deactivated {} superseded files that were still marked active", deactivated);
+            }
+        } catch (Exception e) {
+            log.error("Active file repair failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.cars24.fraud_detection.config;
+
+import com.cars24.fraud_detection.data.dao.DocumentDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings documents saved before document types were canonicalised ("Aadhaar", "pan") in line with
+ * what is written today. Once every stored type is canonical this is a single distinct query.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DocumentTypeMigration {
+
+    private final DocumentDao documentDao;
+
+    @Value("${documents.type-migration.enabled:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long normalized = documentDao.normalizeDocumentTypes();
+            if (normalized > 0) {
+                log.info("Canonicalised documentType on {} documents", normalized);
+            }
+        } catch (Exception e) {
+            // Lookups by type miss the unmigrated documents until this succeeds on a later start
+            log.error("Document type migration failed: {}", e.getMessage(), e);
+        }
+    }
+}
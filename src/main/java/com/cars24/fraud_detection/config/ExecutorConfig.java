@@ -1,16 +1,44 @@
 package com.cars24.fraud_detection.config;
 
+import com.cars24.fraud_detection.utils.WorkerThreads;
+import com.cars24.fraud_detection.workflow.StageExecutor;
+import com.cars24.fraud_detection.workflow.WorkflowStage;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 
 @Configuration
 public class ExecutorConfig {
 
-    @Bean
-    public ExecutorService executorService() {
-        return Executors.newFixedThreadPool(10); // Adjust thread count as needed
+    private static final int DEFAULT_STAGE_CONCURRENCY = 2;
+    private static final int DEFAULT_STAGE_QUEUE_CAPACITY = 20;
+    private static final long DEFAULT_STAGE_TIMEOUT_SECONDS = 45;
+
+    /**
+     * Threads behind every workflow stage. Sized to the sum of the per-stage limits, so a
+     * stage admitted by its lane always finds a free thread. With virtual threads every admitted
+     * task gets its own thread; the lanes still cap how many run.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public StageExecutor stageExecutor(Environment environment, WorkerThreads workerThreads) {
+        Map<WorkflowStage, Integer> concurrency = new EnumMap<>(WorkflowStage.class);
+        Map<WorkflowStage, Integer> queueCapacity = new EnumMap<>(WorkflowStage.class);
+        Map<WorkflowStage, Duration> timeouts = new EnumMap<>(WorkflowStage.class);
+        int totalThreads = 0;
+        for (WorkflowStage stage : WorkflowStage.values()) {
+            int stageConcurrency = environment.getProperty(
+                    "workflow.stage." + stage.getKey() + ".concurrency", Integer.class, DEFAULT_STAGE_CONCURRENCY);
+            concurrency.put(stage, stageConcurrency);
+            queueCapacity.put(stage, environment.getProperty(
+                    "workflow.stage." + stage.getKey() + ".queue-capacity", Integer.class, DEFAULT_STAGE_QUEUE_CAPACITY));
+            timeouts.put(stage, Duration.ofSeconds(environment.getProperty(
+                    "workflow.stage." + stage.getKey() + ".timeout-seconds", Long.class, DEFAULT_STAGE_TIMEOUT_SECONDS)));
+            totalThreads += stageConcurrency;
+        }
+        return new StageExecutor(workerThreads.executor("WorkflowStage", totalThreads), concurrency, queueCapacity, timeouts);
     }
 }
@@ -0,0 +1,277 @@
+package com.cars24.fraud_detection.config;
+
+import com.cars24.fraud_detection.data.entity.AgentEntity;
+import com.cars24.fraud_detection.data.entity.AudioEntity;
+import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.entity.DocumentJobEntity;
+import com.cars24.fraud_detection.data.entity.FileEntity;
+import com.cars24.fraud_detection.data.entity.FileJobEntity;
+import com.cars24.fraud_detection.data.entity.LeadEntity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Declares the compound indexes behind the repository and DAO finders and creates them at startup,
+ * before the job worker starts polling. Each finder's query shape is then explained and any that
+ * still plans a COLLSCAN is logged, so a new finder without a matching index shows up in the logs.
+ * Startup fails if an index cannot be created, unless {@code mongo.indexes.fail-on-error} is off,
+ * and always if an index that correctness depends on is missing.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexProvisioner {
+
+    static final String ONE_ACTIVE_FILE_INDEX = "one_active_file_per_type";
+
+    static final List<IndexSpec> INDEXES = List.of(
+            // findByEmail at login; same name and options as the entity's @Indexed, so the two never conflict
+            new IndexSpec(AgentEntity.class, new Index().on("email", Direction.ASC).named("email").unique()),
+
+            // findByLeadId, findByLeadIdOrderByTimestampDesc
+            new IndexSpec(AudioEntity.class, new Index().on("leadId", Direction.ASC).on("timestamp", Direction.DESC)),
+            // findByAgentIdAndLeadId and the per-agent analysis aggregation
+            new IndexSpec(AudioEntity.class, new Index().on("agentId", Direction.ASC).on("leadId", Direction.ASC)),
+
+            // findByLeadId, findByLeadIdOrderByTimestampDesc
+            new IndexSpec(DocumentEntity.class, new Index().on("leadId", Direction.ASC).on("timestamp", Direction.DESC)),
+            // findByLeadIdAndDocumentType, getRecentDocumentsByLeadIdAndType (equality on the canonical type, sorted by time)
+            new IndexSpec(DocumentEntity.class, new Index().on("leadId", Direction.ASC).on("documentType", Direction.ASC).on("timestamp", Direction.DESC)),
+            // findByAgentIdAndLeadId and the per-agent analysis aggregation
+            new IndexSpec(DocumentEntity.class, new Index().on("agentId", Direction.ASC).on("leadId", Direction.ASC)),
+
+            // findByAgentIdAndLeadId, findByAgentIdAndLeadIdAndFileType. Its keys differ from the unique index
+            // below, as servers before 7.0 refuse two indexes on the same key pattern
+            new IndexSpec(FileEntity.class, new Index().on("agentId", Direction.ASC).on("leadId", Direction.ASC).on("fileType", Direction.ASC)
+                    .on("uploadedAt", Direction.DESC)),
+            // findByAgentIdAndLeadIdAndIsActive, findByAgentIdAndLeadIdAndIsActiveTrue
+            new IndexSpec(FileEntity.class, new Index().on("agentId", Direction.ASC).on("leadId", Direction.ASC).on("isActive", Direction.ASC)),
+            // At most one active file per agent, lead and type; insertActive relies on it under concurrent uploads
+            new IndexSpec(FileEntity.class, new Index().on("agentId", Direction.ASC).on("leadId", Direction.ASC).on("fileType", Direction.ASC)
+                    .named(ONE_ACTIVE_FILE_INDEX).unique().partial(PartialIndexFilter.of(Criteria.where("isActive").is(true))), true),
+            // findByStatusIn, used when resuming interrupted jobs
+            new IndexSpec(FileEntity.class, new Index().on("status", Direction.ASC)),
+
+            // findByAgentId
+            new IndexSpec(LeadEntity.class, new Index().on("agentId", Direction.ASC)),
+
+            // claimNext: due pending jobs and running jobs with an expired lease; releaseExpiredLeases
+            new IndexSpec(FileJobEntity.class, new Index().on("status", Direction.ASC).on("nextAttemptAt", Direction.ASC)),
+            new IndexSpec(FileJobEntity.class, new Index().on("status", Direction.ASC).on("leaseExpiresAt", Direction.ASC)),
+
+            // claimAbandoned: unfinished jobs with a stale or cleared heartbeat
+            new IndexSpec(DocumentJobEntity.class, new Index().on("status", Direction.ASC).on("heartbeatAt", Direction.ASC)),
+            // deleteFinishedBefore
+            new IndexSpec(DocumentJobEntity.class, new Index().on("completedAt", Direction.ASC))
+    );
+
+    /**
+     * Query shapes of the finders above; the probe values only need the right type.
+     */
+    static final List<FinderProbe> FINDERS = List.of(
+            new FinderProbe("AudioRepository.findByLeadId", AudioEntity.class,
+                    new Document("leadId", "probe"), null),
+            new FinderProbe("AudioRepository.findByLeadIdOrderByTimestampDesc", AudioEntity.class,
+                    new Document("leadId", "probe"), new Document("timestamp", -1)),
+            new FinderProbe("AudioRepository.findByAgentIdAndLeadId", AudioEntity.class,
+                    new Document("agentId", "probe").append("leadId", "probe"), null),
+
+            new FinderProbe("DocumentRepository.findByLeadId", DocumentEntity.class,
+                    new Document("leadId", "probe"), null),
+            new FinderProbe("DocumentRepository.findByLeadIdAndDocumentType", DocumentEntity.class,
+                    new Document("leadId", "probe").append("documentType", "AADHAAR"), null),
+            new FinderProbe("DocumentRepository.findByLeadIdOrderByTimestampDesc", DocumentEntity.class,
+                    new Document("leadId", "probe"), new Document("timestamp", -1)),
+            new FinderProbe("DocumentRepository.findByAgentIdAndLeadId", DocumentEntity.class,
+                    new Document("agentId", "probe").append("leadId", "probe"), null),
+            new FinderProbe("DocumentRepository.getRecentDocumentsByLeadIdAndType", DocumentEntity.class,
+                    new Document("leadId", "probe").append("documentType", "AADHAAR"), new Document("timestamp", -1)),
+
+            new FinderProbe("FileRepository.findByAgentIdAndLeadIdAndFileType", FileEntity.class,
+                    new Document("agentId", "probe").append("leadId", "probe").append("fileType", "AADHAAR"), null),
+            new FinderProbe("FileRepository.findByAgentIdAndLeadIdAndIsActive", FileEntity.class,
+                    new Document("agentId", "probe").append("leadId", "probe").append("isActive", true), null),
+            new FinderProbe("FileRepository.findByAgentIdAndLeadId", FileEntity.class,
+                    new Document("agentId", "probe").append("leadId", "probe"), null),
+            new FinderProbe("FileRepository.findByStatusIn", FileEntity.class,
+                    new Document("status", new Document("$in", List.of("PENDING", "PROCESSING"))), null),
+
+            new FinderProbe("LeadRepository.findByAgentId", LeadEntity.class,
+                    new Document("agentId", "probe"), null),
+            new FinderProbe("LeadRepository.findByAgentIdAndId", LeadEntity.class,
+                    new Document("agentId", "probe").append("_id", "probe"), null),
+
+            new FinderProbe("AgentRepository.findByEmail", AgentEntity.class,
+                    new Document("email", "probe"), null),
+
+            // Results of a lead's active files, looked up by the files' resultId
+            new FinderProbe("AudioRepository.findByIdIn", AudioEntity.class,
+                    new Document("_id", new Document("$in", List.of("probe"))), null),
+            new FinderProbe("DocumentRepository.findByIdIn", DocumentEntity.class,
+                    new Document("_id", new Document("$in", List.of("probe"))), null),
+            new FinderProbe("DocumentRepository.findByIdAndDocumentType", DocumentEntity.class,
+                    new Document("_id", "probe").append("documentType", "AADHAAR"), null),
+
+            new FinderProbe("AgentStatsDao.aggregateFromSource (audio)", AudioEntity.class,
+                    new Document("agentId", "probe"), null),
+            new FinderProbe("AgentStatsDao.aggregateFromSource (documents)", DocumentEntity.class,
+                    new Document("agentId", "probe").append("documentType", new Document("$in", List.of("AADHAAR", "PAN"))), null),
+
+            new FinderProbe("FileDao.insertActive", FileEntity.class,
+                    new Document("agentId", "probe").append("leadId", "probe").append("fileType", "AADHAAR")
+                            .append("isActive", true).append("_id", new Document("$ne", "probe")), null),
+            new FinderProbe("FileDao.updateStatus", FileEntity.class,
+                    new Document("_id", "probe").append("status", new Document("$in", List.of("PENDING"))), null),
+
+            new FinderProbe("FileJobDao.claimNext", FileJobEntity.class,
+                    new Document("$or", List.of(
+                            new Document("status", "PENDING").append("nextAttemptAt", new Document("$lte", new Date())),
+                            new Document("status", "RUNNING").append("leaseExpiresAt", new Document("$lte", new Date())))),
+                    new Document("nextAttemptAt", 1)),
+            new FinderProbe("FileJobDao.releaseExpiredLeases", FileJobEntity.class,
+                    new Document("status", "RUNNING").append("leaseExpiresAt", new Document("$lte", new Date())), null),
+            new FinderProbe("FileJobDao lease updates", FileJobEntity.class,
+                    new Document("_id", "probe").append("status", "RUNNING").append("leaseOwner", "probe"), null),
+
+            new FinderProbe("DocumentJobDao.claimAbandoned", DocumentJobEntity.class,
+                    new Document("status", new Document("$in", List.of("QUEUED", "RUNNING")))
+                            .append("$or", List.of(new Document("heartbeatAt", new Document("$lte", new Date())),
+                                    new Document("heartbeatAt", null))),
+                    new Document("submittedAt", 1)),
+            new FinderProbe("DocumentJobDao.deleteFinishedBefore", DocumentJobEntity.class,
+                    new Document("completedAt", new Document("$lt", new Date())), null)
+    );
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${mongo.indexes.provision:true}")
+    private boolean provision;
+
+    @Value("${mongo.indexes.explain-on-startup:true}")
+    private boolean explainOnStartup;
+
+    // Off only where the application user may not create indexes and they are managed elsewhere
+    @Value("${mongo.indexes.fail-on-error:true}")
+    private boolean failOnError;
+
+    // After the startup data repairs, so a unique index is not refused over data they fix
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onStartup() {
+        if (provision) {
+            int provisioned = provisionIndexes();
+            if (failOnError && provisioned < INDEXES.size()) {
+                throw new IllegalStateException((INDEXES.size() - provisioned) + " of " + INDEXES.size()
+                        + " indexes could not be created; see the errors above, or set mongo.indexes.fail-on-error=false to start without them");
+            }
+        }
+        requireIndexes();
+        if (explainOnStartup) {
+            findCollectionScans();
+        }
+    }
+
+    /**
+     * Creates any missing index; existing ones are left alone. A failed index is logged and the rest
+     * are still created, so one run reports every failure. Returns the number present afterwards.
+     */
+    int provisionIndexes() {
+        int provisioned = 0;
+        for (IndexSpec spec : INDEXES) {
+            try {
+                String name = mongoTemplate.indexOps(spec.entity()).ensureIndex(spec.index());
+                log.debug("Index {} present on {}", name, mongoTemplate.getCollectionName(spec.entity()));
+                provisioned++;
+            } catch (Exception e) {
+                log.error("Could not create index {} on {}: {}", spec.index().getIndexKeys().toJson(),
+                        mongoTemplate.getCollectionName(spec.entity()), e.getMessage());
+            }
+        }
+        log.info("Provisioned {}/{} repository indexes", provisioned, INDEXES.size());
+        return provisioned;
+    }
+
+    /**
+     * Fails when a required index is absent, whether it could not be created or provisioning is off,
+     * rather than let the application run without the guarantee it gives.
+     */
+    void requireIndexes() {
+        for (IndexSpec spec : INDEXES) {
+            if (!spec.required()) {
+                continue;
+            }
+            String name = (String) spec.index().getIndexOptions().get("name");
+            boolean present = mongoTemplate.indexOps(spec.entity()).getIndexInfo().stream()
+                    .anyMatch(index -> index.getName().equals(name));
+            if (!present) {
+                throw new IllegalStateException("Required index " + name + " is missing on "
+                        + mongoTemplate.getCollectionName(spec.entity()) + "; see the errors above for why it could not be created");
+            }
+        }
+    }
+
+    /**
+     * Returns the finders whose winning plan still scans the whole collection.
+     */
+    List<String> findCollectionScans() {
+        List<String> collectionScans = new ArrayList<>();
+        for (FinderProbe finder : FINDERS) {
+            try {
+                Document plan = explain(finder);
+                if (plan.toJson().contains("\"COLLSCAN\"")) {
+                    collectionScans.add(finder.name());
+                    log.warn("{} falls back to COLLSCAN on {}: {}", finder.name(),
+                            mongoTemplate.getCollectionName(finder.entity()), finder.filter().toJson());
+                }
+            } catch (Exception e) {
+                log.warn("Could not explain {}: {}", finder.name(), e.getMessage());
+            }
+        }
+        if (collectionScans.isEmpty()) {
+            log.info("All {} repository finders are served by an index", FINDERS.size());
+        }
+        return collectionScans;
+    }
+
+    private Document explain(FinderProbe finder) {
+        Document find = new Document("find", mongoTemplate.getCollectionName(finder.entity()))
+                .append("filter", finder.filter());
+        if (finder.sort() != null) {
+            find.append("sort", finder.sort());
+        }
+        Document explained = mongoTemplate.getDb().runCommand(
+                new Document("explain", find).append("verbosity", "queryPlanner"));
+        Document queryPlanner = explained.get("queryPlanner", Document.class);
+        Object winningPlan = queryPlanner == null ? null : queryPlanner.get("winningPlan");
+        return winningPlan instanceof Document ? (Document) winningPlan : explained;
+    }
+
+    /**
+     * {@code required} marks an index the application relies on for correctness, such as a unique constraint.
+     */
+    record IndexSpec(Class<?> entity, Index index, boolean required) {
+
+        IndexSpec(Class<?> entity, Index index) {
+            this(entity, index, false);
+        }
+    }
+
+    record FinderProbe(String name, Class<?> entity, Document filter, Document sort) {
+    }
+}
@@ -11,6 +11,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/agents")
 @RequiredArgsConstructor
@@ -46,4 +48,15 @@ public class AgentController {
         AgentAnalysis analysis = agentService.analyzeAgent(agentId);
         return ResponseEntity.ok(analysis);
     }
+
+    // Admin: recompute the agent_stats rollup from the raw audio and document collections
+    @PostMapping("/{agentId}/analysis/rebuild")
+    public ResponseEntity<AgentAnalysis> rebuildAgentAnalysis(@PathVariable String agentId) {
+        return ResponseEntity.ok(agentService.rebuildAgentAnalysis(agentId));
+    }
+
+    @PostMapping("/analysis/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildAllAgentAnalyses() {
+        return ResponseEntity.ok(Map.of("agentsRebuilt", agentService.rebuildAllAgentAnalyses()));
+    }
 }
\ No newline at end of file
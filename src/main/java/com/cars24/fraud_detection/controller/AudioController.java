@@ -4,15 +4,19 @@ import com.cars24.fraud_detection.data.request.AudioRequest;
 import com.cars24.fraud_detection.data.response.AudioResponse;
 import com.cars24.fraud_detection.exception.AudioProcessingException;
 import com.cars24.fraud_detection.service.AudioService;
+import com.cars24.fraud_detection.service.AudioService.StoredAudio;
+import com.cars24.fraud_detection.service.MediaService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Slf4j
 @RestController
@@ -22,9 +26,11 @@ import java.io.IOException;
 public class AudioController {
 
     private final AudioService audioService;
+    private final MediaService mediaService;
 
-    public AudioController(AudioService audioService) {
+    public AudioController(AudioService audioService, MediaService mediaService) {
         this.audioService = audioService;
+        this.mediaService = mediaService;
     }
 
     @PostMapping("/upload")
@@ -71,9 +77,16 @@ public class AudioController {
 
 
     @GetMapping("/file/{audioId}")
-    public ResponseEntity<FileSystemResource> getAudioFile(@PathVariable String audioId) {
+    public void getAudioFile(@PathVariable String audioId, HttpServletRequest request, HttpServletResponse response) throws IOException {
         log.info("Received get request for audio file ID: {}", audioId);
-        return audioService.getAudioFile(audioId);
+        Optional<StoredAudio> audioFile = audioService.findAudioFile(audioId);
+        if (audioFile.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // Served with Range support, so the player can seek without downloading the whole call again
+        StoredAudio audio = audioFile.get();
+        mediaService.serve(audio.path(), audio.fileName(), audio.contentHash(), request, response);
     }
 
     @GetMapping("/recent/{leadId}")
@@ -3,24 +3,32 @@ package com.cars24.fraud_detection.controller;
 import com.cars24.fraud_detection.config.DocumentTypeConfig;
 import com.cars24.fraud_detection.data.entity.DocumentEntity;
 import com.cars24.fraud_detection.data.request.DocumentRequest;
+import com.cars24.fraud_detection.data.response.DocumentJobResponse;
+import com.cars24.fraud_detection.data.response.DocumentPipelineStats;
 import com.cars24.fraud_detection.data.response.DocumentResponse;
+import com.cars24.fraud_detection.service.BlobStore;
+import com.cars24.fraud_detection.service.BlobStore.StoredBlob;
+import com.cars24.fraud_detection.service.DocumentPipelineService;
 import com.cars24.fraud_detection.service.DocumentService;
+import com.cars24.fraud_detection.service.MediaService;
+import com.cars24.fraud_detection.utils.FileSignature;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InputStream;
+import java.net.URI;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -29,16 +37,29 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DocumentController {
 
+    private static final int PIPELINE_RETRY_AFTER_SECONDS = 5;
+
     private final DocumentService documentService;
     private final DocumentTypeConfig documentTypeConfig;
+    private final BlobStore blobStore;
+    private final MediaService mediaService;
+    private final DocumentPipelineService documentPipelineService;
 
-    public DocumentController(DocumentService documentService, DocumentTypeConfig documentTypeConfig) {
+    public DocumentController(DocumentService documentService, DocumentTypeConfig documentTypeConfig, BlobStore blobStore,
+                              MediaService mediaService, DocumentPipelineService documentPipelineService) {
         this.documentService = documentService;
         this.documentTypeConfig = documentTypeConfig;
+        this.blobStore = blobStore;
+        this.mediaService = mediaService;
+        this.documentPipelineService = documentPipelineService;
     }
 
+    /**
+     * Stores the document and queues it for processing. Answers 202 with the job, whose progress
+     * and result are polled from the Location, or 503 while the pipeline is full.
+     */
     @PostMapping("/upload")
-    public ResponseEntity<DocumentResponse> uploadDocument(
+    public ResponseEntity<DocumentJobResponse> uploadDocument(
             @RequestParam("file") MultipartFile file,
             @RequestParam("agentId") String agentId,
             @RequestParam("leadId") String leadId,
@@ -50,13 +71,44 @@ public class DocumentController {
 
         DocumentRequest request = new DocumentRequest();
         request.setFileName(file.getOriginalFilename());
-        request.setDocumentData(file.getBytes());
         request.setAgentId(agentId);
         request.setLeadId(leadId);
         request.setDocumentType(documentType);
 
-        DocumentResponse response = documentService.processDocument(request);
-        return ResponseEntity.ok(response);
+        // Streamed to storage rather than read into memory; the workflow reads the stored copy in place
+        StoredBlob blob;
+        try (InputStream in = file.getInputStream()) {
+            blob = blobStore.put(in, FileSignature.DOCUMENTS);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        request.setDocumentPath(blob.path());
+        request.setContentHash(blob.sha256());
+
+        DocumentJobResponse job;
+        try {
+            job = documentPipelineService.submit(request);
+        } catch (RejectedExecutionException e) {
+            blobStore.release(blob.sha256());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(PIPELINE_RETRY_AFTER_SECONDS))
+                    .build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/documents/jobs/" + job.getJobId()))
+                .body(job);
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<DocumentJobResponse> getDocumentJob(@PathVariable String jobId) {
+        return documentPipelineService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/pipeline/stats")
+    public ResponseEntity<DocumentPipelineStats> getPipelineStats() {
+        return ResponseEntity.ok(documentPipelineService.getStats());
     }
 
     @GetMapping("/{documentId}")
@@ -66,35 +118,15 @@ public class DocumentController {
     }
 
     @GetMapping("/image/{documentId}")
-    public ResponseEntity<Resource> getDocumentImage(@PathVariable String documentId) {
-        try {
-            DocumentResponse document = documentService.getDocumentById(documentId);
-
-            if (document == null || document.getDocumentId() == null) {
-                log.warn("Document not found or file path is null for document ID: {}", documentId);
-                return ResponseEntity.notFound().build();
-            }
-
-            String filePath = documentService.findDocumentEntityById(documentId).getFilePath();
-
-            Path imagePath = Paths.get(filePath);
-
-            if (!Files.exists(imagePath)) {
-                log.warn("Image file not found at path: {}", imagePath.toAbsolutePath());
-                return ResponseEntity.notFound().build();
-            }
-
-            Resource imageResource = new ByteArrayResource(Files.readAllBytes(imagePath));
-
-            return ResponseEntity.ok()
-                    .contentLength(Files.size(imagePath))
-                    .contentType(MediaType.IMAGE_JPEG) // Adjust MediaType based on your image type (e.g., IMAGE_PNG)
-                    .body(imageResource);
-
-        } catch (IOException e) {
-            log.error("Error reading image file for document ID: {}", documentId, e);
-            return ResponseEntity.internalServerError().build();
+    public void getDocumentImage(@PathVariable String documentId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        DocumentEntity document = documentService.findDocumentEntityById(documentId);
+        if (document == null || document.getFilePath() == null) {
+            log.warn("Document not found or file path is null for document ID: {}", documentId);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+        // Streamed from disk with its detected content type instead of being read into memory
+        mediaService.serve(Paths.get(document.getFilePath()), document.getFileName(), document.getContentHash(), request, response);
     }
 
     @GetMapping("/recent/{leadId}")
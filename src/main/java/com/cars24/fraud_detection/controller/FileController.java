@@ -2,6 +2,7 @@ package com.cars24.fraud_detection.controller;
 
 import com.cars24.fraud_detection.data.entity.FileEntity;
 import com.cars24.fraud_detection.data.response.FileResponse;
+import com.cars24.fraud_detection.data.response.FileUploadResult;
 import com.cars24.fraud_detection.service.FileService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -39,13 +40,12 @@ public class FileController {
         }
 
         try {
-            byte[] fileData = file.getBytes();
-
             // Get or generate secure IDs
             String safeAgentId = getOrGenerateSecureId(agentId);
             String safeLeadId = getOrGenerateSecureId(leadId);
 
-            FileEntity savedFile = fileService.uploadFile(safeAgentId, safeLeadId, fileType, file.getOriginalFilename(), fileData);
+            // The multipart part is already spooled to disk; stream it on instead of buffering it
+            FileEntity savedFile = fileService.uploadFile(safeAgentId, safeLeadId, fileType, file.getOriginalFilename(), file.getInputStream());
 
             FileResponse fileResponse = new FileResponse(
                     savedFile.getFileId(),
@@ -70,7 +70,7 @@ public class FileController {
     }
 
     @PostMapping("/upload-multiple")
-    public ResponseEntity<List<FileResponse>> uploadMultipleFiles(
+    public ResponseEntity<List<FileUploadResult>> uploadMultipleFiles(
             @RequestParam("agentId") String agentId,
             @RequestParam("leadId") String leadId,
             @RequestParam("fileTypes") List<String> fileTypes,
@@ -85,8 +85,14 @@ public class FileController {
         String safeAgentId = getOrGenerateSecureId(agentId);
         String safeLeadId = getOrGenerateSecureId(leadId);
 
-        List<FileResponse> uploadedFiles = fileService.uploadMultipleFiles(safeAgentId, safeLeadId, fileTypes, files);
-        return ResponseEntity.ok(uploadedFiles);
+        if (fileTypes.size() != files.size()) {
+            return ResponseEntity.badRequest().body(Collections.emptyList());
+        }
+
+        // Each file is reported on its own; 207 tells the client that some of them failed
+        List<FileUploadResult> results = fileService.uploadMultipleFiles(safeAgentId, safeLeadId, fileTypes, files);
+        boolean allUploaded = results.stream().allMatch(FileUploadResult::isUploaded);
+        return ResponseEntity.status(allUploaded ? HttpStatus.OK : HttpStatus.MULTI_STATUS).body(results);
     }
 
 
@@ -0,0 +1,33 @@
+package com.cars24.fraud_detection.data.dao;
+
+import com.cars24.fraud_detection.data.entity.AgentStatsEntity;
+
+import java.util.Optional;
+import java.util.Set;
+
+public interface AgentStatsDao {
+
+    Optional<AgentStatsEntity> findByAgentId(String agentId);
+
+    /**
+     * Adds every counter and sum of the delta to the agent's rollup in a single $inc. Returns false,
+     * changing nothing, when the agent has no rollup yet.
+     */
+    boolean increment(AgentStatsEntity delta);
+
+    /**
+     * Computes the rollup from audio_entities and documents without touching agent_stats.
+     */
+    AgentStatsEntity aggregateFromSource(String agentId);
+
+    /**
+     * Replaces the rollup in one write if it is still at {@code expectedRevision}, or creates it when
+     * {@code expectedRevision} is null. Returns false when an increment or another rebuild got there first.
+     */
+    boolean replace(AgentStatsEntity stats, Long expectedRevision);
+
+    /**
+     * Agents that own at least one reference call or document.
+     */
+    Set<String> findAgentIdsWithResults();
+}
@@ -1,6 +1,8 @@
 package com.cars24.fraud_detection.data.dao;
 
 import com.cars24.fraud_detection.data.entity.AudioEntity;
+import com.cars24.fraud_detection.data.projection.AudioSummary;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,5 +10,8 @@ public interface AudioDao {
     AudioEntity saveAudio(AudioEntity audio);
     Optional<AudioEntity> getAudioById(String audioId);
     List<AudioEntity> findByLeadId(String leadId);
+    List<AudioEntity> findByIds(Collection<String> ids);
     List<AudioEntity> getRecentAudiosByLeadId(String leadId, int limit);
+    List<AudioSummary> getAudioSummariesByLeadId(String leadId);
+    List<AudioSummary> getRecentAudioSummariesByLeadId(String leadId, int limit);
 }
\ No newline at end of file
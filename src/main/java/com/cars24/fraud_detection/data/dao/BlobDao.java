@@ -0,0 +1,25 @@
+package com.cars24.fraud_detection.data.dao;
+
+import com.cars24.fraud_detection.data.entity.BlobEntity;
+
+import java.util.Optional;
+
+public interface BlobDao {
+
+    Optional<BlobEntity> findById(String sha256);
+
+    /**
+     * Adds one reference, creating the blob record on its first upload. Returns true if it was created.
+     */
+    boolean addReference(String sha256, long size, String signature);
+
+    /**
+     * Removes one reference and returns the record as it is afterwards, or empty if it does not exist.
+     */
+    Optional<BlobEntity> removeReference(String sha256);
+
+    /**
+     * Deletes the record only while nothing references it. Returns true if it was deleted.
+     */
+    boolean deleteIfUnreferenced(String sha256);
+}
@@ -1,8 +1,10 @@
 package com.cars24.fraud_detection.data.dao;
 
 import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.projection.DocumentSummary;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,6 +13,8 @@ public interface DocumentDao {
     DocumentEntity updateDocument(DocumentEntity document);
     Optional<DocumentEntity> getDocumentById(String documentId);
     List<DocumentEntity> findByLeadId(String leadId);
+
+    List<DocumentEntity> findByIds(Collection<String> ids);
     List<DocumentEntity> getRecentDocumentsByLeadId(String leadId, int limit);
     List<DocumentEntity> findByLeadIdAndDocumentType(String leadId, String documentType);
 
@@ -18,4 +22,15 @@ public interface DocumentDao {
 
 
     List<DocumentEntity> getRecentDocumentsByLeadIdAndType(String leadId, String doctype, Pageable pageable);
+
+    List<DocumentSummary> getDocumentSummariesByLeadId(String leadId);
+
+    List<DocumentSummary> getRecentDocumentSummariesByLeadId(String leadId, int limit);
+
+    List<DocumentSummary> getRecentDocumentSummariesByLeadIdAndType(String leadId, String documentType, int limit);
+
+    /**
+     * Rewrites stored document types that are not in their canonical form. Returns the number of documents changed.
+     */
+    long normalizeDocumentTypes();
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.cars24.fraud_detection.data.dao;
+
+import com.cars24.fraud_detection.data.entity.DocumentJobEntity;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface DocumentJobDao {
+
+    DocumentJobEntity insert(DocumentJobEntity job);
+
+    void deleteById(String jobId);
+
+    Optional<DocumentJobEntity> findById(String jobId);
+
+    // The updates below only apply while the job is unfinished
+
+    boolean markRunning(String jobId, String stage);
+
+    boolean finish(String jobId, DocumentJobEntity.Status status, String resultJson, String error, LocalDateTime completedAt);
+
+    /**
+     * Refreshes the heartbeat of the jobs a pipeline still holds.
+     */
+    long heartbeat(Collection<String> jobIds, LocalDateTime now);
+
+    /**
+     * Hands jobs back without finishing them, so the next pipeline to look takes them up at once.
+     */
+    long release(Collection<String> jobIds);
+
+    /**
+     * Atomically takes up the oldest unfinished job whose heartbeat is older than {@code staleBefore}
+     * or was handed back. The attempt counter is incremented as part of the claim.
+     */
+    Optional<DocumentJobEntity> claimAbandoned(LocalDateTime staleBefore, LocalDateTime now);
+
+    long deleteFinishedBefore(LocalDateTime cutoff);
+}
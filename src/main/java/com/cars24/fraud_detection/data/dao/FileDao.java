@@ -3,15 +3,42 @@ package com.cars24.fraud_detection.data.dao;
 import com.cars24.fraud_detection.data.entity.FileEntity;
 import com.cars24.fraud_detection.data.response.FileResponse;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface FileDao {
     FileEntity save(FileEntity fileEntity);
 
+    /**
+     * Inserts a new upload as the one active file of its agent, lead and type, deactivating the files
+     * it supersedes in the same transaction, so the deployment must support transactions (a replica
+     * set, as on Atlas). Returns the file as stored, active.
+     */
+    FileEntity insertActive(FileEntity fileEntity);
+
+    /**
+     * Leaves only the most recent upload active where several files of one agent, lead and type are
+     * active. Returns the number of files deactivated.
+     */
+    long repairActiveFiles();
+
     Optional<FileEntity> findById(String id);
 
-    void updateStatus(String fileId, String status);
+    /**
+     * Moves the file to the given status if its current status allows it, and stamps the transition.
+     * Returns the updated file, or empty when the transition was not allowed.
+     */
+    Optional<FileEntity> updateStatus(String fileId, String status);
+
+    /**
+     * Restamps the start of processing on a file left PROCESSING by an earlier attempt, when the job
+     * queue hands its job out again after a lost lease or a retry backoff. Returns empty when the
+     * file is not PROCESSING.
+     */
+    Optional<FileEntity> reclaimProcessing(String fileId);
+
+    void linkResult(String fileId, String resultId);
 
     List<FileEntity> findByAgentIdAndLeadIdAndFileType(String agentId, String leadId, String fileType);
 
@@ -20,4 +47,6 @@ public interface FileDao {
     List<FileEntity> findByAgentIdAndLeadId(String agentId, String leadId);
 
     List<FileEntity> findByAgentIdAndLeadIdAndIsActiveTrue(String agentId, String leadId);
+
+    List<FileEntity> findByStatusIn(Collection<String> statuses);
 }
\ No newline at end of file
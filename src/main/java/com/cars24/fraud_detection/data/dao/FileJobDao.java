@@ -0,0 +1,43 @@
+package com.cars24.fraud_detection.data.dao;
+
+import com.cars24.fraud_detection.data.entity.FileJobEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface FileJobDao {
+
+    /**
+     * Inserts the job unless one already exists for the same file. Returns true if it was inserted.
+     */
+    boolean enqueue(FileJobEntity job);
+
+    /**
+     * Inserts the jobs in one bulk write, skipping files that already have a job. Returns the number inserted.
+     */
+    int enqueueAll(List<FileJobEntity> jobs);
+
+    Optional<FileJobEntity> findById(String jobId);
+
+    /**
+     * Atomically leases the oldest due job: a pending job whose retry time has come, or a running
+     * job whose lease has expired. The attempt counter is incremented as part of the claim.
+     */
+    Optional<FileJobEntity> claimNext(String workerId, LocalDateTime now, LocalDateTime leaseExpiresAt);
+
+    // The updates below only apply while the worker still holds the lease
+
+    boolean extendLease(String jobId, String workerId, LocalDateTime leaseExpiresAt);
+
+    boolean complete(String jobId, String workerId, LocalDateTime now);
+
+    boolean reschedule(String jobId, String workerId, LocalDateTime nextAttemptAt, String error);
+
+    boolean deadLetter(String jobId, String workerId, String error);
+
+    /**
+     * Returns running jobs with an expired lease to the pending state so they are picked up first.
+     */
+    long releaseExpiredLeases(LocalDateTime now);
+}
@@ -0,0 +1,10 @@
+package com.cars24.fraud_detection.data.dao;
+
+import com.cars24.fraud_detection.data.entity.StageResultEntity;
+
+import java.util.Optional;
+
+public interface StageResultDao {
+    Optional<StageResultEntity> findById(String id);
+    StageResultEntity save(StageResultEntity stageResult);
+}
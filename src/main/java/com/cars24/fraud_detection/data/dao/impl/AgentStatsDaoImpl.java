@@ -0,0 +1,200 @@
+package com.cars24.fraud_detection.data.dao.impl;
+
+import com.cars24.fraud_detection.data.dao.AgentStatsDao;
+import com.cars24.fraud_detection.data.entity.AgentStatsEntity;
+import com.cars24.fraud_detection.data.entity.AudioEntity;
+import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.entity.DocumentType;
+import com.cars24.fraud_detection.repository.AgentStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class AgentStatsDaoImpl implements AgentStatsDao {
+
+    // Utterances by this diarization label are the agent; everyone else is the reference
+    private static final String AGENT_SPEAKER_PREFIX = "SPEAKER_00";
+
+    private final AgentStatsRepository agentStatsRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<AgentStatsEntity> findByAgentId(String agentId) {
+        return agentStatsRepository.findById(agentId);
+    }
+
+    @Override
+    public boolean increment(AgentStatsEntity delta) {
+        Update update = new Update().set("updatedAt", LocalDateTime.now()).inc("revision", 1);
+        inc(update, "totalReferenceCalls", delta.getTotalReferenceCalls());
+        inc(update, "acceptedReferenceCalls", delta.getAcceptedReferenceCalls());
+        inc(update, "rejectedReferenceCalls", delta.getRejectedReferenceCalls());
+        inc(update, "transcribedReferenceCalls", delta.getTranscribedReferenceCalls());
+        inc(update, "agentTalkTime", delta.getAgentTalkTime());
+        inc(update, "referenceTalkTime", delta.getReferenceTalkTime());
+        inc(update, "totalAadhars", delta.getTotalAadhars());
+        inc(update, "rejectedAadhars", delta.getRejectedAadhars());
+        inc(update, "totalPans", delta.getTotalPans());
+        inc(update, "rejectedPans", delta.getRejectedPans());
+        // No upsert: a rollup created from one delta would hide the agent's earlier results from the backfill
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(delta.getId())), update, AgentStatsEntity.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public AgentStatsEntity aggregateFromSource(String agentId) {
+        AgentStatsEntity stats = new AgentStatsEntity();
+        stats.setId(agentId);
+        applyReferenceCallTotals(stats, agentId);
+        applyDocumentTotals(stats, agentId);
+        return stats;
+    }
+
+    @Override
+    public boolean replace(AgentStatsEntity stats, Long expectedRevision) {
+        if (expectedRevision == null) {
+            stats.setRevision(0);
+            try {
+                mongoTemplate.insert(stats);
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        }
+        stats.setRevision(expectedRevision + 1);
+        Query current = Query.query(Criteria.where("_id").is(stats.getId()).and("revision").is(expectedRevision));
+        return mongoTemplate.findAndReplace(current, stats) != null;
+    }
+
+    @Override
+    public Set<String> findAgentIdsWithResults() {
+        Set<String> agentIds = new HashSet<>();
+        agentIds.addAll(mongoTemplate.findDistinct(new Query(), "agentId", AudioEntity.class, String.class));
+        agentIds.addAll(mongoTemplate.findDistinct(new Query(), "agentId", DocumentEntity.class, String.class));
+        agentIds.removeIf(Objects::isNull);
+        return agentIds;
+    }
+
+    /**
+     * One pass over audio_entities: accept/reject counts and talk time summed from the transcript
+     * inside llmExtraction, so the transcripts never leave the database.
+     */
+    private void applyReferenceCallTotals(AgentStatsEntity stats, String agentId) {
+        Document transcript = new Document("$cond", List.of(
+                new Document("$isArray", "$llmExtraction.transcript"), "$llmExtraction.transcript", List.of()));
+        Document timedUtterances = new Document("$filter", new Document("input", transcript)
+                .append("as", "u")
+                .append("cond", new Document("$and", List.of(
+                        new Document("$isNumber", "$$u.start_time"),
+                        new Document("$isNumber", "$$u.end_time")))));
+        Document agentSpeaker = new Document("$eq", List.of(
+                new Document("$indexOfCP", List.of(new Document("$ifNull", List.of("$$u.speaker", "")), AGENT_SPEAKER_PREFIX)), 0));
+        Document duration = new Document("$subtract", List.of("$$u.end_time", "$$u.start_time"));
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("agentId").is(agentId)),
+                stage("$project", new Document("status", new Document("$toLower", new Document("$ifNull", List.of("$status", ""))))
+                        .append("hasTranscript", new Document("$isArray", "$llmExtraction.transcript"))
+                        .append("agentTalkTime", talkTime(timedUtterances, agentSpeaker, duration, true))
+                        .append("referenceTalkTime", talkTime(timedUtterances, agentSpeaker, duration, false))),
+                stage("$group", new Document("_id", null)
+                        .append("total", new Document("$sum", 1))
+                        .append("accepted", countWhere(new Document("$eq", List.of("$status", "accept"))))
+                        .append("rejected", countWhere(new Document("$eq", List.of("$status", "reject"))))
+                        .append("withTranscript", countWhere("$hasTranscript"))
+                        .append("agentTalkTime", new Document("$sum", "$agentTalkTime"))
+                        .append("referenceTalkTime", new Document("$sum", "$referenceTalkTime")))
+        );
+
+        Document totals = mongoTemplate.aggregate(aggregation, AudioEntity.class, Document.class).getUniqueMappedResult();
+        if (totals == null) {
+            return;
+        }
+
+        stats.setTotalReferenceCalls(longValue(totals, "total"));
+        stats.setAcceptedReferenceCalls(longValue(totals, "accepted"));
+        stats.setRejectedReferenceCalls(longValue(totals, "rejected"));
+        stats.setTranscribedReferenceCalls(longValue(totals, "withTranscript"));
+        stats.setAgentTalkTime(doubleValue(totals, "agentTalkTime"));
+        stats.setReferenceTalkTime(doubleValue(totals, "referenceTalkTime"));
+    }
+
+    /**
+     * Aadhaar and PAN totals per type; anything not explicitly rejected counts as accepted.
+     */
+    private void applyDocumentTotals(AgentStatsEntity stats, String agentId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("agentId").is(agentId)
+                        .and("documentType").in(DocumentType.AADHAAR.name(), DocumentType.PAN.name())),
+                stage("$project", new Document("documentType", 1)
+                        .append("rejected", new Document("$eq", List.of(
+                                new Document("$toUpper", new Document("$ifNull", List.of("$decision", ""))), "REJECT")))),
+                stage("$group", new Document("_id", "$documentType")
+                        .append("total", new Document("$sum", 1))
+                        .append("rejected", countWhere("$rejected")))
+        );
+
+        for (Document totals : mongoTemplate.aggregate(aggregation, DocumentEntity.class, Document.class)) {
+            if (DocumentType.AADHAAR.name().equals(totals.getString("_id"))) {
+                stats.setTotalAadhars(longValue(totals, "total"));
+                stats.setRejectedAadhars(longValue(totals, "rejected"));
+            } else {
+                stats.setTotalPans(longValue(totals, "total"));
+                stats.setRejectedPans(longValue(totals, "rejected"));
+            }
+        }
+    }
+
+    private static void inc(Update update, String field, long delta) {
+        if (delta != 0) {
+            update.inc(field, delta);
+        }
+    }
+
+    private static void inc(Update update, String field, double delta) {
+        if (delta != 0) {
+            update.inc(field, delta);
+        }
+    }
+
+    private static Document talkTime(Document utterances, Document agentSpeaker, Document duration, boolean agent) {
+        List<Object> byRole = agent ? List.of(agentSpeaker, duration, 0) : List.of(agentSpeaker, 0, duration);
+        return new Document("$sum", new Document("$map", new Document("input", utterances)
+                .append("as", "u")
+                .append("in", new Document("$cond", byRole))));
+    }
+
+    private static Document countWhere(Object condition) {
+        return new Document("$sum", new Document("$cond", List.of(condition, 1, 0)));
+    }
+
+    private static AggregationOperation stage(String operator, Document body) {
+        return context -> new Document(operator, body);
+    }
+
+    private static long longValue(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static double doubleValue(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+}
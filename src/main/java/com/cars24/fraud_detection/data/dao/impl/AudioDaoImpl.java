@@ -2,11 +2,13 @@ package com.cars24.fraud_detection.data.dao.impl;
 
 import com.cars24.fraud_detection.data.dao.AudioDao;
 import com.cars24.fraud_detection.data.entity.AudioEntity;
+import com.cars24.fraud_detection.data.projection.AudioSummary;
 import com.cars24.fraud_detection.repository.AudioRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,8 +33,23 @@ public class AudioDaoImpl implements AudioDao {
         return audioRepository.findByLeadId(leadId);
     }
 
+    @Override
+    public List<AudioEntity> findByIds(Collection<String> ids) {
+        return ids.isEmpty() ? List.of() : audioRepository.findByIdIn(ids);
+    }
+
     @Override
     public List<AudioEntity> getRecentAudiosByLeadId(String leadId, int limit) {
         return audioRepository.findByLeadIdOrderByTimestampDesc(leadId, PageRequest.of(0, limit));
     }
+
+    @Override
+    public List<AudioSummary> getAudioSummariesByLeadId(String leadId) {
+        return audioRepository.findSummariesByLeadId(leadId);
+    }
+
+    @Override
+    public List<AudioSummary> getRecentAudioSummariesByLeadId(String leadId, int limit) {
+        return audioRepository.findSummariesByLeadIdOrderByTimestampDesc(leadId, PageRequest.of(0, limit));
+    }
 }
\ No newline at end of file
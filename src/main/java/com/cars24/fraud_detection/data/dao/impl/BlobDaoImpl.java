@@ -0,0 +1,57 @@
+package com.cars24.fraud_detection.data.dao.impl;
+
+import com.cars24.fraud_detection.data.dao.BlobDao;
+import com.cars24.fraud_detection.data.entity.BlobEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class BlobDaoImpl implements BlobDao {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<BlobEntity> findById(String sha256) {
+        return Optional.ofNullable(mongoTemplate.findById(sha256, BlobEntity.class));
+    }
+
+    @Override
+    public boolean addReference(String sha256, long size, String signature) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .inc("refCount", 1)
+                .set("updatedAt", now)
+                .setOnInsert("size", size)
+                .setOnInsert("signature", signature)
+                .setOnInsert("createdAt", now);
+        return mongoTemplate.upsert(byId(sha256), update, BlobEntity.class).getUpsertedId() != null;
+    }
+
+    @Override
+    public Optional<BlobEntity> removeReference(String sha256) {
+        Update update = new Update()
+                .inc("refCount", -1)
+                .set("updatedAt", LocalDateTime.now());
+        return Optional.ofNullable(mongoTemplate.findAndModify(byId(sha256), update,
+                FindAndModifyOptions.options().returnNew(true), BlobEntity.class));
+    }
+
+    @Override
+    public boolean deleteIfUnreferenced(String sha256) {
+        Query query = Query.query(Criteria.where("_id").is(sha256).and("refCount").lte(0));
+        return mongoTemplate.remove(query, BlobEntity.class).getDeletedCount() > 0;
+    }
+
+    private static Query byId(String sha256) {
+        return Query.query(Criteria.where("_id").is(sha256));
+    }
+}
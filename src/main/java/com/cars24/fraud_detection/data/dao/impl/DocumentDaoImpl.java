@@ -2,28 +2,41 @@ package com.cars24.fraud_detection.data.dao.impl;
 
 import com.cars24.fraud_detection.data.dao.DocumentDao;
 import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.entity.DocumentType;
+import com.cars24.fraud_detection.data.projection.DocumentSummary;
 import com.cars24.fraud_detection.repository.DocumentRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
+@Slf4j
 @Repository
 @RequiredArgsConstructor
 public class DocumentDaoImpl implements DocumentDao {
 
     private final DocumentRepository documentRepository;
+    private final MongoTemplate mongoTemplate;
 
     @Override
     public DocumentEntity saveDocument(DocumentEntity document) {
+        document.setDocumentType(DocumentType.canonical(document.getDocumentType()));
         return documentRepository.save(document);
     }
 
     @Override
     public DocumentEntity updateDocument(DocumentEntity document) {
+        document.setDocumentType(DocumentType.canonical(document.getDocumentType()));
         return documentRepository.save(document);
     }
 
@@ -37,6 +50,11 @@ public class DocumentDaoImpl implements DocumentDao {
         return documentRepository.findByLeadId(leadId);
     }
 
+    @Override
+    public List<DocumentEntity> findByIds(Collection<String> ids) {
+        return ids.isEmpty() ? List.of() : documentRepository.findByIdIn(ids);
+    }
+
     @Override
     public List<DocumentEntity> getRecentDocumentsByLeadId(String leadId, int limit) {
         return documentRepository.findByLeadIdOrderByTimestampDesc(leadId, PageRequest.of(0, limit));
@@ -46,15 +64,47 @@ public class DocumentDaoImpl implements DocumentDao {
 
     @Override
     public List<DocumentEntity> findByLeadIdAndDocumentType(String leadId, String documentType) {
-        return documentRepository.findByLeadIdAndDocumentType(leadId, documentType);
+        return documentRepository.findByLeadIdAndDocumentType(leadId, DocumentType.canonical(documentType));
     }
 
     public Optional<DocumentEntity> findByIdAndDocumentType(String documentId, String documentType) {
-        return documentRepository.findByIdAndDocumentType(documentId, documentType);
+        return documentRepository.findByIdAndDocumentType(documentId, DocumentType.canonical(documentType));
     }
 
     @Override
     public List<DocumentEntity> getRecentDocumentsByLeadIdAndType(String leadId, String doctype, Pageable pageable) {
-        return documentRepository.getRecentDocumentsByLeadIdAndType(leadId, doctype, pageable);
+        return documentRepository.getRecentDocumentsByLeadIdAndType(leadId, DocumentType.canonical(doctype), pageable);
+    }
+
+    @Override
+    public List<DocumentSummary> getDocumentSummariesByLeadId(String leadId) {
+        return documentRepository.findSummariesByLeadId(leadId);
+    }
+
+    @Override
+    public List<DocumentSummary> getRecentDocumentSummariesByLeadId(String leadId, int limit) {
+        return documentRepository.findSummariesByLeadIdOrderByTimestampDesc(leadId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<DocumentSummary> getRecentDocumentSummariesByLeadIdAndType(String leadId, String documentType, int limit) {
+        return documentRepository.findSummariesByLeadIdAndDocumentTypeOrderByTimestampDesc(
+                leadId, DocumentType.canonical(documentType), PageRequest.of(0, limit));
+    }
+
+    @Override
+    public long normalizeDocumentTypes() {
+        long normalized = 0;
+        for (String stored : mongoTemplate.findDistinct(new Query(), "documentType", DocumentEntity.class, String.class)) {
+            String canonical = DocumentType.canonical(stored);
+            if (stored == null || Objects.equals(stored, canonical)) {
+                continue;
+            }
+            long modified = mongoTemplate.updateMulti(Query.query(Criteria.where("documentType").is(stored)),
+                    Update.update("documentType", canonical), DocumentEntity.class).getModifiedCount();
+            log.info("Normalized documentType '{}' to '{}' on {} documents", stored, canonical, modified);
+            normalized += modified;
+        }
+        return normalized;
     }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.cars24.fraud_detection.data.dao.impl;
+
+import com.cars24.fraud_detection.data.dao.DocumentJobDao;
+import com.cars24.fraud_detection.data.entity.DocumentJobEntity;
+import com.cars24.fraud_detection.data.entity.DocumentJobEntity.Status;
+import com.cars24.fraud_detection.repository.DocumentJobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class DocumentJobDaoImpl implements DocumentJobDao {
+
+    private static final List<Status> UNFINISHED = List.of(Status.QUEUED, Status.RUNNING);
+
+    private final DocumentJobRepository documentJobRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public DocumentJobEntity insert(DocumentJobEntity job) {
+        return documentJobRepository.insert(job);
+    }
+
+    @Override
+    public void deleteById(String jobId) {
+        documentJobRepository.deleteById(jobId);
+    }
+
+    @Override
+    public Optional<DocumentJobEntity> findById(String jobId) {
+        return documentJobRepository.findById(jobId);
+    }
+
+    @Override
+    public boolean markRunning(String jobId, String stage) {
+        return updateUnfinished(Criteria.where("_id").is(jobId), new Update()
+                .set("status", Status.RUNNING)
+                .set("stage", stage)) > 0;
+    }
+
+    @Override
+    public boolean finish(String jobId, Status status, String resultJson, String error, LocalDateTime completedAt) {
+        return updateUnfinished(Criteria.where("_id").is(jobId), new Update()
+                .set("status", status)
+                .set("resultJson", resultJson)
+                .set("error", error)
+                .set("completedAt", completedAt)
+                .unset("heartbeatAt")) > 0;
+    }
+
+    @Override
+    public long heartbeat(Collection<String> jobIds, LocalDateTime now) {
+        return jobIds.isEmpty() ? 0 : updateUnfinished(Criteria.where("_id").in(jobIds), new Update().set("heartbeatAt", now));
+    }
+
+    @Override
+    public long release(Collection<String> jobIds) {
+        return jobIds.isEmpty() ? 0 : updateUnfinished(Criteria.where("_id").in(jobIds), new Update().unset("heartbeatAt"));
+    }
+
+    @Override
+    public Optional<DocumentJobEntity> claimAbandoned(LocalDateTime staleBefore, LocalDateTime now) {
+        Query query = Query.query(Criteria.where("status").in(UNFINISHED).orOperator(
+                        Criteria.where("heartbeatAt").lte(staleBefore),
+                        Criteria.where("heartbeatAt").is(null)))
+                .with(Sort.by(Sort.Direction.ASC, "submittedAt"));
+        Update update = new Update()
+                .set("status", Status.QUEUED)
+                .set("heartbeatAt", now)
+                .inc("attempts", 1);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), DocumentJobEntity.class));
+    }
+
+    @Override
+    public long deleteFinishedBefore(LocalDateTime cutoff) {
+        Query query = Query.query(Criteria.where("completedAt").lt(cutoff));
+        return mongoTemplate.remove(query, DocumentJobEntity.class).getDeletedCount();
+    }
+
+    private long updateUnfinished(Criteria criteria, Update update) {
+        Query query = Query.query(criteria.and("status").in(UNFINISHED));
+        return mongoTemplate.updateMulti(query, update, DocumentJobEntity.class).getModifiedCount();
+    }
+}
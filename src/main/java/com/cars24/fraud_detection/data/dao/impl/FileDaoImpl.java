@@ -4,37 +4,188 @@ import com.cars24.fraud_detection.data.dao.FileDao;
 import com.cars24.fraud_detection.data.entity.FileEntity;
 import com.cars24.fraud_detection.data.response.FileResponse;
 import com.cars24.fraud_detection.repository.FileRepository;
+import com.mongodb.MongoException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.mongodb.repository.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class FileDaoImpl implements FileDao {
 
+    /**
+     * Target status -> statuses it may be entered from. PROCESSING is re-entered when a job whose
+     * lease expired is claimed again; PENDING is re-entered when a failed attempt is retried.
+     */
+    // PENDING -> PROCESSING -> PROCESSED or FAILED; a file re-enters PROCESSING only through reclaimProcessing
+    static final Map<String, List<String>> ALLOWED_TRANSITIONS = Map.of(
+            "PROCESSING", List.of("PENDING"),
+            "PROCESSED", List.of("PROCESSING"),
+            "FAILED", List.of("PROCESSING")
+    );
+
+    private static final Map<String, String> TRANSITION_TIMESTAMPS = Map.of(
+            "PROCESSING", "processingStartedAt",
+            "PROCESSED", "processedAt",
+            "FAILED", "failedAt"
+    );
+
+    private static final int MAX_ACTIVATION_ATTEMPTS = 5;
+
     private final FileRepository fileRepository;
+    private final MongoTemplate mongoTemplate;
+    private volatile TransactionTemplate activationTransactions;
 
     @Override
     public FileEntity save(FileEntity fileEntity) {
         return fileRepository.save(fileEntity);
     }
 
+    /**
+     * The files it supersedes are deactivated with one updateMulti and the new file is inserted active,
+     * in one transaction, so readers see either the previous active file or the new one and never
+     * neither. The unique partial index on active files rejects the insert if a concurrent upload of
+     * the same type committed first, and a write conflict aborts one of two overlapping uploads; the
+     * transaction is then run again, so the upload that commits last stays the single active file.
+     */
+    @Override
+    public FileEntity insertActive(FileEntity fileEntity) {
+        Query superseded = Query.query(Criteria.where("agentId").is(fileEntity.getAgentId())
+                .and("leadId").is(fileEntity.getLeadId())
+                .and("fileType").is(fileEntity.getFileType())
+                .and("isActive").is(true)
+                .and("_id").ne(fileEntity.getFileId()));
+        fileEntity.setIsActive(Boolean.TRUE);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Long deactivated = transactions().execute(status -> {
+                    long modified = mongoTemplate.updateMulti(superseded, Update.update("isActive", false), FileEntity.class)
+                            .getModifiedCount();
+                    mongoTemplate.insert(fileEntity);
+                    return modified;
+                });
+                log.debug("File {} is now active, {} superseded files deactivated", fileEntity.getFileId(), deactivated);
+                return fileEntity;
+            } catch (RuntimeException e) {
+                if (!(e instanceof DuplicateKeyException) && !isTransient(e)) {
+                    throw e;
+                }
+                if (attempt >= MAX_ACTIVATION_ATTEMPTS) {
+                    throw new IllegalStateException("Could not activate file " + fileEntity.getFileId()
+                            + ": concurrent uploads kept superseding it", e);
+                }
+                log.info("Concurrent upload of {} for lead {} committed first, superseding it",
+                        fileEntity.getFileType(), fileEntity.getLeadId());
+            }
+        }
+    }
+
+    // Built here rather than as a bean, so only this switch-over runs in a transaction
+    private TransactionTemplate transactions() {
+        TransactionTemplate transactions = activationTransactions;
+        if (transactions == null) {
+            transactions = new TransactionTemplate(new MongoTransactionManager(mongoTemplate.getMongoDatabaseFactory()));
+            activationTransactions = transactions;
+        }
+        return transactions;
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long repairActiveFiles() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("isActive").is(true)),
+                stage("$sort", new Document("uploadedAt", -1)),
+                stage("$group", new Document("_id", new Document("agentId", "$agentId")
+                        .append("leadId", "$leadId")
+                        .append("fileType", "$fileType"))
+                        .append("fileIds", new Document("$push", "$_id"))
+                        .append("active", new Document("$sum", 1))),
+                Aggregation.match(Criteria.where("active").gt(1))
+        );
+
+        List<Object> superseded = new ArrayList<>();
+        for (Document group : mongoTemplate.aggregate(aggregation, FileEntity.class, Document.class)) {
+            List<?> fileIds = group.getList("fileIds", Object.class);
+            superseded.addAll(fileIds.subList(1, fileIds.size()));
+        }
+        if (superseded.isEmpty()) {
+            return 0;
+        }
+        return mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(superseded)),
+                Update.update("isActive", false), FileEntity.class).getModifiedCount();
+    }
+
     @Override
     public Optional<FileEntity> findById(String id) {
         return fileRepository.findById(id);
     }
 
     @Override
-    public void updateStatus(String fileId, String status) {
-        fileRepository.findById(fileId).ifPresent(file -> {
-            file.setStatus(status);
-            fileRepository.save(file);
-        });
+    public Optional<FileEntity> updateStatus(String fileId, String status) {
+        List<String> allowedFrom = ALLOWED_TRANSITIONS.get(status);
+        if (allowedFrom == null) {
+            throw new IllegalArgumentException("Unknown file status: " + status);
+        }
+
+        return transition(fileId, status, allowedFrom);
+    }
+
+    @Override
+    public Optional<FileEntity> reclaimProcessing(String fileId) {
+        return transition(fileId, "PROCESSING", List.of("PROCESSING"));
+    }
+
+    private Optional<FileEntity> transition(String fileId, String status, List<String> allowedFrom) {
+        Update update = Update.update("status", status);
+        String timestampField = TRANSITION_TIMESTAMPS.get(status);
+        if (timestampField != null) {
+            update.set(timestampField, LocalDateTime.now());
+        }
+        FileEntity updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(fileId).and("status").in(allowedFrom)),
+                update, FindAndModifyOptions.options().returnNew(true), FileEntity.class);
+        if (updated == null) {
+            log.warn("File {} not moved to {}: missing or not in {}", fileId, status, allowedFrom);
+        }
+        return Optional.ofNullable(updated);
+    }
+
+    @Override
+    public void linkResult(String fileId, String resultId) {
+        // Only the link is written, so a concurrent status change is not overwritten
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(fileId)),
+                Update.update("resultId", resultId), FileEntity.class);
     }
 
     @Override
@@ -58,6 +209,15 @@ public class FileDaoImpl implements FileDao {
         return fileRepository.findByAgentIdAndLeadIdAndIsActiveTrue(agentId, leadId);
     }
 
+    @Override
+    public List<FileEntity> findByStatusIn(Collection<String> statuses) {
+        return fileRepository.findByStatusIn(statuses);
+    }
+
+    private static AggregationOperation stage(String operator, Document body) {
+        return context -> new Document(operator, body);
+    }
+
 
 
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.cars24.fraud_detection.data.dao.impl;
+
+import com.cars24.fraud_detection.data.dao.FileJobDao;
+import com.cars24.fraud_detection.data.entity.FileJobEntity;
+import com.cars24.fraud_detection.data.entity.FileJobEntity.Status;
+import com.cars24.fraud_detection.repository.FileJobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class FileJobDaoImpl implements FileJobDao {
+
+    private final FileJobRepository fileJobRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean enqueue(FileJobEntity job) {
+        return mongoTemplate.upsert(byId(job), insertOnly(job), FileJobEntity.class).getUpsertedId() != null;
+    }
+
+    @Override
+    public int enqueueAll(List<FileJobEntity> jobs) {
+        if (jobs.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FileJobEntity.class);
+        for (FileJobEntity job : jobs) {
+            bulk.upsert(byId(job), insertOnly(job));
+        }
+        return bulk.execute().getUpserts().size();
+    }
+
+    private static Query byId(FileJobEntity job) {
+        return Query.query(Criteria.where("_id").is(job.getId()));
+    }
+
+    /**
+     * Only sets fields when the upsert inserts, so an existing job for the file is left untouched.
+     */
+    private static Update insertOnly(FileJobEntity job) {
+        return new Update()
+                .setOnInsert("fileId", job.getFileId())
+                .setOnInsert("jobType", job.getJobType())
+                .setOnInsert("status", job.getStatus())
+                .setOnInsert("attempts", job.getAttempts())
+                .setOnInsert("maxAttempts", job.getMaxAttempts())
+                .setOnInsert("nextAttemptAt", job.getNextAttemptAt())
+                .setOnInsert("createdAt", job.getCreatedAt())
+                .setOnInsert("updatedAt", job.getUpdatedAt());
+    }
+
+    @Override
+    public Optional<FileJobEntity> findById(String jobId) {
+        return fileJobRepository.findById(jobId);
+    }
+
+    @Override
+    public Optional<FileJobEntity> claimNext(String workerId, LocalDateTime now, LocalDateTime leaseExpiresAt) {
+        Query query = Query.query(new Criteria().orOperator(
+                        Criteria.where("status").is(Status.PENDING).and("nextAttemptAt").lte(now),
+                        Criteria.where("status").is(Status.RUNNING).and("leaseExpiresAt").lte(now)))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update update = new Update()
+                .set("status", Status.RUNNING)
+                .set("leaseOwner", workerId)
+                .set("leaseExpiresAt", leaseExpiresAt)
+                .set("updatedAt", now)
+                .inc("attempts", 1);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), FileJobEntity.class));
+    }
+
+    @Override
+    public boolean extendLease(String jobId, String workerId, LocalDateTime leaseExpiresAt) {
+        return updateLeased(jobId, workerId, new Update().set("leaseExpiresAt", leaseExpiresAt));
+    }
+
+    @Override
+    public boolean complete(String jobId, String workerId, LocalDateTime now) {
+        return updateLeased(jobId, workerId, new Update()
+                .set("status", Status.SUCCEEDED)
+                .set("completedAt", now)
+                .set("updatedAt", now)
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt"));
+    }
+
+    @Override
+    public boolean reschedule(String jobId, String workerId, LocalDateTime nextAttemptAt, String error) {
+        return updateLeased(jobId, workerId, new Update()
+                .set("status", Status.PENDING)
+                .set("nextAttemptAt", nextAttemptAt)
+                .set("lastError", error)
+                .set("updatedAt", LocalDateTime.now())
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt"));
+    }
+
+    @Override
+    public boolean deadLetter(String jobId, String workerId, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        return updateLeased(jobId, workerId, new Update()
+                .set("status", Status.DEAD)
+                .set("lastError", error)
+                .set("completedAt", now)
+                .set("updatedAt", now)
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt"));
+    }
+
+    @Override
+    public long releaseExpiredLeases(LocalDateTime now) {
+        Query query = Query.query(Criteria.where("status").is(Status.RUNNING).and("leaseExpiresAt").lte(now));
+        Update update = new Update()
+                .set("status", Status.PENDING)
+                .set("nextAttemptAt", now)
+                .set("updatedAt", now)
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt");
+        return mongoTemplate.updateMulti(query, update, FileJobEntity.class).getModifiedCount();
+    }
+
+    private boolean updateLeased(String jobId, String workerId, Update update) {
+        Query query = Query.query(Criteria.where("_id").is(jobId)
+                .and("status").is(Status.RUNNING)
+                .and("leaseOwner").is(workerId));
+        return mongoTemplate.updateFirst(query, update, FileJobEntity.class).getModifiedCount() > 0;
+    }
+}
@@ -0,0 +1,26 @@
+package com.cars24.fraud_detection.data.dao.impl;
+
+import com.cars24.fraud_detection.data.dao.StageResultDao;
+import com.cars24.fraud_detection.data.entity.StageResultEntity;
+import com.cars24.fraud_detection.repository.StageResultRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class StageResultDaoImpl implements StageResultDao {
+
+    private final StageResultRepository stageResultRepository;
+
+    @Override
+    public Optional<StageResultEntity> findById(String id) {
+        return stageResultRepository.findById(id);
+    }
+
+    @Override
+    public StageResultEntity save(StageResultEntity stageResult) {
+        return stageResultRepository.save(stageResult);
+    }
+}
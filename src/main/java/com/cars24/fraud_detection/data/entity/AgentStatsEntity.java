@@ -0,0 +1,57 @@
+package com.cars24.fraud_detection.data.entity;
+
+import com.cars24.fraud_detection.data.response.AgentAnalysis;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running totals behind the agent analysis dashboard, one document per agent. Counters and talk-time
+ * sums are bumped with $inc as results are saved; averages are only derived when the analysis is read.
+ */
+@Data
+@Document(collection = "agent_stats")
+public class AgentStatsEntity {
+
+    @Id
+    private String id; // agentId
+
+    private long totalReferenceCalls;
+    private long acceptedReferenceCalls;
+    private long rejectedReferenceCalls;
+    private long transcribedReferenceCalls; // Calls with a transcript, the divisor for the talk-time averages
+    private double agentTalkTime;
+    private double referenceTalkTime;
+
+    private long totalAadhars;
+    private long rejectedAadhars;
+    private long totalPans;
+    private long rejectedPans;
+
+    private long revision; // Bumped by every increment, so a rebuild can tell that one landed while it ran
+
+    private LocalDateTime rebuiltAt;
+    private LocalDateTime updatedAt;
+
+    public AgentAnalysis toAnalysis() {
+        AgentAnalysis analysis = new AgentAnalysis();
+        if (transcribedReferenceCalls > 0) {
+            analysis.setAverageAgentTalkTime(agentTalkTime / transcribedReferenceCalls);
+            analysis.setAverageReferenceTalkTime(referenceTalkTime / transcribedReferenceCalls);
+        }
+        analysis.setTotalReferenceCalls((int) totalReferenceCalls);
+        analysis.setAcceptedReferenceCalls((int) acceptedReferenceCalls);
+        analysis.setRejectedReferenceCalls((int) rejectedReferenceCalls);
+
+        analysis.setTotalAadhars((int) totalAadhars);
+        analysis.setAcceptedAadhars((int) (totalAadhars - rejectedAadhars));
+        analysis.setRejectedAadhars((int) rejectedAadhars);
+
+        analysis.setTotalPans((int) totalPans);
+        analysis.setAcceptedPans((int) (totalPans - rejectedPans));
+        analysis.setRejectedPans((int) rejectedPans);
+        return analysis;
+    }
+}
@@ -33,6 +33,7 @@ public class AudioEntity {
     private Map<String, Double> fieldByFieldScores;
     private Map<String, Object> audioAnalysis;
     private String status;
+    private String contentHash; // SHA-256 of the recording in the blob store
 
     @CreatedDate
     private LocalDateTime timestamp;
@@ -0,0 +1,25 @@
+package com.cars24.fraud_detection.data.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored content blob and the number of uploads that currently reference it. The content is
+ * removed from the backend once the count reaches zero.
+ */
+@Data
+@Document(collection = "blobs")
+public class BlobEntity {
+
+    @Id
+    private String sha256;
+
+    private long size;
+    private String signature; // FileSignature of the content, which also gives the stored extension
+    private long refCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -27,6 +27,7 @@ public class DocumentEntity {
 
     private String fileName;
     private String filePath;
+    private String contentHash; // SHA-256 of the stored upload, served as its ETag
     private String status;  // PROCESSING, COMPLETED, FAILED
     private String remarks; // Additional comments on processing status
 
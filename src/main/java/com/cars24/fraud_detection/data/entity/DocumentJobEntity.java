@@ -0,0 +1,41 @@
+package com.cars24.fraud_detection.data.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A document accepted by the pipeline, kept so that polling survives a restart and unfinished
+ * jobs can be taken up again. The saved result is kept as JSON text because OCR results carry
+ * arbitrary keys that Mongo field names cannot always hold.
+ */
+@Data
+@Document(collection = "document_jobs")
+public class DocumentJobEntity {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    @Id
+    private String id;
+
+    private Status status;
+    private String stage;
+    private int attempts; // Times a pipeline has taken the job up, the first submission included
+
+    // Enough of the request to run it again; the ground truth is resolved from the lead on ingest
+    private String agentId;
+    private String leadId;
+    private String documentType;
+    private String fileName;
+    private String documentPath;
+    private String contentHash;
+
+    private String resultJson;
+    private String error;
+
+    private LocalDateTime submittedAt;
+    private LocalDateTime heartbeatAt; // Refreshed while a pipeline holds the job; unset once handed back
+    private LocalDateTime completedAt;
+}
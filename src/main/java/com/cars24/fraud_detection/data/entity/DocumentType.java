@@ -0,0 +1,38 @@
+package com.cars24.fraud_detection.data.entity;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Canonical document types. Callers send display names such as "Aadhaar" or "Pan"; documents are
+ * stored under the enum name so lookups can be plain equality matches on an index.
+ */
+public enum DocumentType {
+
+    AADHAAR,
+    PAN,
+    REFERENCE_CALL;
+
+    /**
+     * Resolves a type regardless of case, spacing or hyphens, e.g. "Reference Call" or "reference-call".
+     */
+    public static Optional<DocumentType> from(String value) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        String key = value.trim().toUpperCase(Locale.ROOT).replaceAll("[\\s-]+", "_");
+        for (DocumentType type : values()) {
+            if (type.name().equals(key)) {
+                return Optional.of(type);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The stored form of a type: the enum name when recognised, otherwise the value unchanged.
+     */
+    public static String canonical(String value) {
+        return from(value).map(Enum::name).orElse(value);
+    }
+}
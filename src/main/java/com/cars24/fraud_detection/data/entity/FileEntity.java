@@ -5,6 +5,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -21,9 +22,15 @@ public class FileEntity {
     private String originalFilename; // Original file name
     private String fileType; // AUDIO / DOCUMENT
     private String filePath; // Location where the file is stored
+    private String contentHash; // SHA-256 of the stored content, computed while it was written
+    private Long sizeBytes; // Size of the stored content
     private String status; // PENDING, PROCESSING, COMPLETED, FAILED
     private Boolean isActive; // Soft delete flag
     private LocalDateTime uploadedAt; // Upload timestamp
+    private String resultId; // ID of the audio or document result produced from this file, set once processed
+    private LocalDateTime processingStartedAt; // Last move to PROCESSING
+    private LocalDateTime processedAt; // Move to PROCESSED
+    private LocalDateTime failedAt; // Move to FAILED
 
     public FileEntity(String agentId, String leadId, String originalFilename, String fileType, String filePath) {
         this.fileId = UUID.randomUUID().toString(); // Generate a unique file ID
@@ -40,4 +47,22 @@ public class FileEntity {
     public FileEntity() {
 
     }
+
+    // Stage durations in milliseconds, null until the stage has been reached
+
+    public Long getQueuedMillis() {
+        return millisBetween(uploadedAt, processingStartedAt);
+    }
+
+    public Long getProcessingMillis() {
+        return millisBetween(processingStartedAt, processedAt != null ? processedAt : failedAt);
+    }
+
+    public Long getTotalMillis() {
+        return millisBetween(uploadedAt, processedAt != null ? processedAt : failedAt);
+    }
+
+    private static Long millisBetween(LocalDateTime from, LocalDateTime to) {
+        return from == null || to == null ? null : Duration.between(from, to).toMillis();
+    }
 }
@@ -0,0 +1,35 @@
+package com.cars24.fraud_detection.data.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@Document(collection = "file_jobs")
+public class FileJobEntity {
+
+    public enum JobType { AUDIO, DOCUMENT }
+
+    public enum Status { PENDING, RUNNING, SUCCEEDED, DEAD }
+
+    @Id
+    private String id; // Same as the file id, so a file has at most one job
+
+    private String fileId;
+    private JobType jobType;
+    private Status status;
+
+    private int attempts;
+    private int maxAttempts;
+    private LocalDateTime nextAttemptAt;
+
+    private String leaseOwner; // Worker currently holding the job
+    private LocalDateTime leaseExpiresAt;
+
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+}
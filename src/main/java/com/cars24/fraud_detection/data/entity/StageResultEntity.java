@@ -0,0 +1,30 @@
+package com.cars24.fraud_detection.data.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cached output of one Python stage, keyed by the SHA-256 of the analysed file, the stage,
+ * the script version, the lead and, for stages that read it, the hash of the ground truth. The output is kept as JSON text because OCR and LLM
+ * results carry arbitrary keys that Mongo field names cannot always hold.
+ */
+@Data
+@Document(collection = "stage_results")
+public class StageResultEntity {
+
+    @Id
+    private String id; // contentHash:stage:scriptVersion:leadId[:inputsHash]
+
+    private String contentHash;
+    private String stage;
+    private String scriptVersion;
+    private String leadId;
+    private String inputsHash;
+    private String resultJson;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime lastHitAt;
+}
@@ -0,0 +1,24 @@
+package com.cars24.fraud_detection.data.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Closed projection of an audio result for list views. Spring Data turns it into a field projection,
+ * so the transcript, llmExtraction and audioAnalysis payloads are never read from Mongo.
+ */
+public interface AudioSummary {
+
+    String getId();
+
+    String getLeadId();
+
+    String getAgentId();
+
+    String getDocumentType();
+
+    String getStatus();
+
+    double getOverallScore();
+
+    LocalDateTime getTimestamp();
+}
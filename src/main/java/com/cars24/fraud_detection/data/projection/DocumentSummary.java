@@ -0,0 +1,30 @@
+package com.cars24.fraud_detection.data.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Closed projection of a document result for list views, without the OCR, quality, forgery and
+ * validation result maps.
+ */
+public interface DocumentSummary {
+
+    String getId();
+
+    String getLeadId();
+
+    String getAgentId();
+
+    String getDocumentType();
+
+    String getFileName();
+
+    String getStatus();
+
+    String getDecision();
+
+    String getRiskLevel();
+
+    double getFinalRiskScore();
+
+    LocalDateTime getTimestamp();
+}
@@ -1,8 +1,11 @@
 package com.cars24.fraud_detection.data.request;
 
+import com.cars24.fraud_detection.data.response.AudioGroundTruth;
 import lombok.Data;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+
 @Data
 public class AudioRequest {
 
@@ -12,6 +15,10 @@ public class AudioRequest {
         private String leadId;
 
         private MultipartFile audioFile;
+        private Path audioPath;  // Already stored upload, used instead of audioFile when set
+        private String contentHash;  // SHA-256 of the stored upload, set once it is known
 
         private String documentType;
+
+        private AudioGroundTruth groundTruth;  // Resolved from the lead before the workflow runs
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package com.cars24.fraud_detection.data.request;
 import lombok.Data;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+
 @Data
 public class DocumentRequest {
 
@@ -12,5 +14,8 @@ public class DocumentRequest {
     private String documentType;
 
     private String fileName;
-    private byte[] documentData;  // Directly store the byte data
+    private Path documentPath;  // Already stored upload, read in place
+    private String contentHash;  // SHA-256 of the stored upload when already known, saves hashing it again
+
+    private Object groundTruth;  // AadhaarGroundTruth or PanGroundTruth, resolved from the lead
 }
\ No newline at end of file
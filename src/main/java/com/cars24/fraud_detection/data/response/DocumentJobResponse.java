@@ -0,0 +1,27 @@
+package com.cars24.fraud_detection.data.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a document accepted by the pipeline. {@code result} is set once the job has
+ * completed and {@code error} once it has failed.
+ */
+@Data
+@NoArgsConstructor
+public class DocumentJobResponse {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private String jobId;
+    private Status status;
+    private String stage; // Pipeline stage the job is in or last ran
+    private String leadId;
+    private String documentType;
+    private DocumentResponse result;
+    private String error;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,24 @@
+package com.cars24.fraud_detection.data.response;
+
+import com.cars24.fraud_detection.service.DocumentPipelineService;
+import com.cars24.fraud_detection.workflow.StageExecutor;
+import com.cars24.fraud_detection.workflow.WorkflowStage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Queue depth and throughput of the document pipeline stages, and of the script lanes the
+ * analysis stage runs on.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentPipelineStats {
+
+    private Map<DocumentPipelineService.Stage, DocumentPipelineService.StageStats> stages;
+    private Map<WorkflowStage, StageExecutor.StageStats> scripts;
+    private long rejected; // Uploads turned away because the ingest queue was full
+}
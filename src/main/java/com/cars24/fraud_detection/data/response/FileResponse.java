@@ -1,5 +1,6 @@
 package com.cars24.fraud_detection.data.response;
 
+import com.cars24.fraud_detection.data.entity.FileEntity;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -21,4 +22,18 @@ public class FileResponse {
     private String status; // PENDING, PROCESSING, COMPLETED, FAILED
     private Boolean isActive;
     private LocalDateTime uploadedAt;
+
+    public static FileResponse from(FileEntity file) {
+        return new FileResponse(
+                file.getFileId(),
+                file.getAgentId(),
+                file.getLeadId(),
+                file.getOriginalFilename(),
+                file.getFileType(),
+                file.getFilePath(),
+                file.getStatus(),
+                file.getIsActive(),
+                file.getUploadedAt()
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.cars24.fraud_detection.data.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one file in a multi-file upload. Either {@code file} or {@code error} is set.
+ */
+@Data
+@NoArgsConstructor
+public class FileUploadResult {
+
+    private String originalFilename;
+    private String fileType;
+    private boolean uploaded;
+    private FileResponse file;
+    private String error;
+
+    public static FileUploadResult uploaded(String originalFilename, FileResponse file) {
+        FileUploadResult result = new FileUploadResult();
+        result.setOriginalFilename(originalFilename);
+        result.setFileType(file.getFileType());
+        result.setUploaded(true);
+        result.setFile(file);
+        return result;
+    }
+
+    public static FileUploadResult failed(String originalFilename, String fileType, String error) {
+        FileUploadResult result = new FileUploadResult();
+        result.setOriginalFilename(originalFilename);
+        result.setFileType(fileType);
+        result.setError(error);
+        return result;
+    }
+}
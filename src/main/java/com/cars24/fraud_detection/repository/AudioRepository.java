@@ -1,13 +1,18 @@
 package com.cars24.fraud_detection.repository;
 
 import com.cars24.fraud_detection.data.entity.AudioEntity;
+import com.cars24.fraud_detection.data.projection.AudioSummary;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface AudioRepository extends MongoRepository<AudioEntity, String> {
     List<AudioEntity> findByLeadId(String leadId);
     List<AudioEntity> findByLeadIdOrderByTimestampDesc(String leadId, Pageable pageable);
     List<AudioEntity> findByAgentIdAndLeadId(String agentId,String leadId);
+    List<AudioEntity> findByIdIn(Collection<String> ids);
+    List<AudioSummary> findSummariesByLeadId(String leadId);
+    List<AudioSummary> findSummariesByLeadIdOrderByTimestampDesc(String leadId, Pageable pageable);
 }
\ No newline at end of file
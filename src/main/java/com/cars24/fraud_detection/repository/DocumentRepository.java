@@ -1,10 +1,12 @@
 package com.cars24.fraud_detection.repository;
 
 import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.projection.DocumentSummary;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,7 +16,14 @@ public interface DocumentRepository extends MongoRepository<DocumentEntity, Stri
     List<DocumentEntity> findByLeadIdOrderByTimestampDesc(String leadId, Pageable pageable);
     List<DocumentEntity> findByAgentIdAndLeadId(String agentId,String leadId);
     Optional<DocumentEntity> findByIdAndDocumentType(String documentId, String documentType);
-    @Query(value = "{ 'leadId': ?0, 'documentType': { $regex: ?1, $options: 'i' } }", sort = "{ 'timestamp': -1 }")
+    @Query(value = "{ 'leadId': ?0, 'documentType': ?1 }", sort = "{ 'timestamp': -1 }")
     List<DocumentEntity> getRecentDocumentsByLeadIdAndType(String leadId, String doctype, Pageable pageable);
 
+    List<DocumentEntity> findByIdIn(Collection<String> ids);
+
+    // Summary views for list endpoints; only the projected fields are fetched
+    List<DocumentSummary> findSummariesByLeadId(String leadId);
+    List<DocumentSummary> findSummariesByLeadIdOrderByTimestampDesc(String leadId, Pageable pageable);
+    List<DocumentSummary> findSummariesByLeadIdAndDocumentTypeOrderByTimestampDesc(String leadId, String documentType, Pageable pageable);
+
 }
\ No newline at end of file
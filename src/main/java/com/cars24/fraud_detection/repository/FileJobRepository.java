@@ -0,0 +1,7 @@
+package com.cars24.fraud_detection.repository;
+
+import com.cars24.fraud_detection.data.entity.FileJobEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface FileJobRepository extends MongoRepository<FileJobEntity, String> {
+}
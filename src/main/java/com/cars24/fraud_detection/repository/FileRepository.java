@@ -5,6 +5,7 @@ import com.cars24.fraud_detection.data.response.FileResponse;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 
@@ -13,4 +14,5 @@ public interface FileRepository extends MongoRepository<FileEntity, String> {
     List<FileEntity> findByAgentIdAndLeadIdAndIsActive(String agentId, String leadId, Boolean isActive);
     List<FileEntity> findByAgentIdAndLeadId(String agentId, String leadId);
     List<FileEntity> findByAgentIdAndLeadIdAndIsActiveTrue(String agentId, String leadId);
+    List<FileEntity> findByStatusIn(Collection<String> statuses);
 }
\ No newline at end of file
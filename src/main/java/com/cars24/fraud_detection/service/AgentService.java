@@ -12,4 +12,6 @@ public interface AgentService {
     LoginResponse loginAgent(LoginRequest loginRequest);
     AgentEntity getAgentById(String agentId); //returns AgentEntity
     AgentAnalysis analyzeAgent(String agentId);
+    AgentAnalysis rebuildAgentAnalysis(String agentId);
+    int rebuildAllAgentAnalyses();
 }
\ No newline at end of file
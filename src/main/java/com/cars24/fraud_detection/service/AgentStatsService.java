@@ -0,0 +1,22 @@
+package com.cars24.fraud_detection.service;
+
+import com.cars24.fraud_detection.data.entity.AudioEntity;
+import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.response.AgentAnalysis;
+
+public interface AgentStatsService {
+
+    /**
+     * Folds a saved reference call into its agent's rollup. When the call overwrote an earlier result
+     * for the same id, that result is taken back out so retried jobs are not counted twice.
+     */
+    void recordAudio(AudioEntity previous, AudioEntity saved);
+
+    void recordDocument(DocumentEntity saved);
+
+    AgentAnalysis getAnalysis(String agentId);
+
+    AgentAnalysis rebuild(String agentId);
+
+    int rebuildAll();
+}
@@ -6,11 +6,11 @@ import com.cars24.fraud_detection.data.request.AudioRequest;
 import com.cars24.fraud_detection.data.response.AudioResponse;
 import com.cars24.fraud_detection.exception.AudioProcessingException;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 public interface AudioService {
 
@@ -24,7 +24,16 @@ public interface AudioService {
 
     String saveAudio(MultipartFile file, String uuid) throws AudioProcessingException;
 
-    ResponseEntity<FileSystemResource> getAudioFile(String audioId);
+    /**
+     * The stored recording of an audio result, with the name it is served under.
+     */
+    Optional<StoredAudio> findAudioFile(String audioId);
 
     InsightsEntity getAudioInsights(String audioId) throws AudioProcessingException;
+
+    /**
+     * @param contentHash SHA-256 of the recording, or null when only the audio storage copy is known
+     */
+    record StoredAudio(Path path, String fileName, String contentHash) {
+    }
 }
\ No newline at end of file
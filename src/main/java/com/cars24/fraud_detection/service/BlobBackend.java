@@ -0,0 +1,39 @@
+package com.cars24.fraud_detection.service;
+
+import com.cars24.fraud_detection.utils.FileSignature;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Where {@link BlobStore} keeps the bytes of a blob, selected with {@code blob.store.backend}.
+ * Reference counting is done by the store; a backend only writes, reads and deletes content.
+ */
+public interface BlobBackend {
+
+    boolean contains(String sha256, FileSignature signature) throws IOException;
+
+    /**
+     * Takes over the staged file as the blob's content and returns its local path.
+     */
+    Path write(String sha256, FileSignature signature, Path staged) throws IOException;
+
+    /**
+     * A readable local file with the content, fetched from the backend first if needed.
+     */
+    Path localPath(String sha256, FileSignature signature) throws IOException;
+
+    /**
+     * Deletes the content together with files derived from it, such as the OCR output written next to it.
+     */
+    void delete(String sha256, FileSignature signature) throws IOException;
+
+    /**
+     * {@code <root>/ab/cd/abcd....ext}: two levels of 256 directories keep every directory small.
+     */
+    static Path fanOutPath(Path root, String sha256, FileSignature signature) {
+        return root.resolve(sha256.substring(0, 2))
+                .resolve(sha256.substring(2, 4))
+                .resolve(sha256 + signature.getExtensions().get(0));
+    }
+}
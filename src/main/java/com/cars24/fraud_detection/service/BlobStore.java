@@ -0,0 +1,43 @@
+package com.cars24.fraud_detection.service;
+
+import com.cars24.fraud_detection.utils.FileSignature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Content-addressed storage for uploaded media. Content is keyed by its SHA-256, so identical
+ * uploads are stored once; every {@link #put} adds a reference and every {@link #release} takes one
+ * away, and the content is deleted with its last reference. Where the bytes live is up to the
+ * configured {@link BlobBackend}; readers always get a local file for the Python scripts.
+ */
+public interface BlobStore {
+
+    /**
+     * Streams the content into the store and adds a reference to it. The caller closes the stream.
+     *
+     * @throws IllegalArgumentException when the content is empty, too large or not one of the accepted types
+     */
+    StoredBlob put(InputStream content, Set<FileSignature> accepted) throws IOException;
+
+    /**
+     * A readable local file with the blob's content, or empty if the store does not know the hash.
+     */
+    Optional<Path> localPath(String sha256) throws IOException;
+
+    /**
+     * The hash of the blob stored at this path, or empty if the path is not a blob of this store.
+     */
+    Optional<String> keyOf(Path path);
+
+    /**
+     * Removes one reference; the content is deleted once nothing references it.
+     */
+    void release(String sha256);
+
+    record StoredBlob(String sha256, long size, FileSignature signature, Path path, boolean deduplicated) {
+    }
+}
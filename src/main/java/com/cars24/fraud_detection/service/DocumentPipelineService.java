@@ -0,0 +1,66 @@
+package com.cars24.fraud_detection.service;
+
+import com.cars24.fraud_detection.data.request.DocumentRequest;
+import com.cars24.fraud_detection.data.response.DocumentJobResponse;
+import com.cars24.fraud_detection.data.response.DocumentPipelineStats;
+
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Processes uploaded documents off the request thread, as a chain of stages with a bounded queue
+ * and their own workers in front of each. A stage whose successor's queue is full waits instead of
+ * taking more work, so under load documents back up towards the intake and throughput is set
+ * by the slowest stage. Every job is also recorded in Mongo, so it can be polled after a restart
+ * and an unfinished one is taken up again, from the intake, once no pipeline holds it.
+ */
+public interface DocumentPipelineService {
+
+    /**
+     * Accepts a stored document for processing. Once accepted, the pipeline releases the stored
+     * file when the job finishes.
+     *
+     * @throws RejectedExecutionException when the intake queue is full; the file stays with the caller
+     */
+    DocumentJobResponse submit(DocumentRequest request);
+
+    Optional<DocumentJobResponse> getJob(String jobId);
+
+    DocumentPipelineStats getStats();
+
+    /**
+     * Stages in processing order, sized under {@code document.pipeline.<key>.*}. OCR, quality,
+     * forgery and validation run inside ANALYSIS on their own script lanes.
+     */
+    enum Stage {
+        INGEST("ingest", 2, 100),
+        ANALYSIS("analysis", 4, 50),
+        PERSIST("persist", 2, 100);
+
+        private final String key;
+        private final int defaultWorkers;
+        private final int defaultQueueCapacity;
+
+        Stage(String key, int defaultWorkers, int defaultQueueCapacity) {
+            this.key = key;
+            this.defaultWorkers = defaultWorkers;
+            this.defaultQueueCapacity = defaultQueueCapacity;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public int getDefaultWorkers() {
+            return defaultWorkers;
+        }
+
+        public int getDefaultQueueCapacity() {
+            return defaultQueueCapacity;
+        }
+    }
+
+    record StageStats(int workers, int queueCapacity, int queued, int active,
+                      long completed, long failed, long completedLastMinute) {
+    }
+}
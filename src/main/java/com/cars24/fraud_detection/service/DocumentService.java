@@ -10,6 +10,23 @@ import java.util.Optional;
 
 public interface DocumentService {
     DocumentResponse processDocument(DocumentRequest request);
+
+    // The steps of processDocument, run one after another by the document pipeline
+
+    /**
+     * Checks the lead exists and attaches its ground truth to the request.
+     */
+    void prepareDocument(DocumentRequest request);
+
+    /**
+     * Runs the OCR, quality, forgery and validation scripts and scores the result.
+     */
+    DocumentResponse analyseDocument(DocumentRequest request);
+
+    /**
+     * Saves the scored result and updates the lead's rollups.
+     */
+    DocumentResponse saveDocumentResult(DocumentRequest request, DocumentResponse response);
     DocumentResponse getDocumentById(String documentId);
     DocumentEntity findDocumentEntityById(String documentId);
     List<DocumentEntity> getDocumentsByLeadId(String leadId);
@@ -0,0 +1,23 @@
+package com.cars24.fraud_detection.service;
+
+import com.cars24.fraud_detection.data.entity.FileEntity;
+
+import java.util.List;
+
+public interface FileJobService {
+
+    /**
+     * Records a processing job for the file. The job survives restarts and is picked up by a worker.
+     */
+    void enqueue(FileEntity file);
+
+    /**
+     * Records processing jobs for several files with a single write.
+     */
+    void enqueueAll(List<FileEntity> files);
+
+    /**
+     * Makes work interrupted by a restart runnable again. Returns the number of jobs resumed.
+     */
+    int resumeInterruptedJobs();
+}
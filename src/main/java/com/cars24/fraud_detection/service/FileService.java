@@ -1,20 +1,24 @@
 package com.cars24.fraud_detection.service;
 
 import com.cars24.fraud_detection.data.entity.FileEntity;
-import com.cars24.fraud_detection.data.response.FileResponse;
+import com.cars24.fraud_detection.data.response.FileUploadResult;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 public interface FileService {
-    FileEntity uploadFile(String agentId, String leadId, String fileType, String originalFilename, byte[] fileData);
+    FileEntity uploadFile(String agentId, String leadId, String fileType, String originalFilename, InputStream content);
 
     FileEntity getFile(String fileId);
 
     List<FileEntity> getFilesByAgentAndLead(String agentId, String leadId, String fileType);
 
-    List<FileResponse> uploadMultipleFiles(String agentId, String leadId, List<String> fileTypes, List<MultipartFile> files);
+    /**
+     * Stores the files concurrently and reports each one separately; a file that fails does not fail the others.
+     */
+    List<FileUploadResult> uploadMultipleFiles(String agentId, String leadId, List<String> fileTypes, List<MultipartFile> files);
 
     List<FileEntity> getFilesByAgentAndLead(String agentId, String leadId);
 
@@ -0,0 +1,17 @@
+package com.cars24.fraud_detection.service;
+
+import com.cars24.fraud_detection.data.entity.InsightsEntity;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the assembled insights of recently viewed leads. An entry lives until a document or audio
+ * result for its lead is saved, or until it ages out.
+ */
+public interface LeadInsightsCacheService {
+
+    List<InsightsEntity> get(String leadId, Supplier<List<InsightsEntity>> loader);
+
+    void evict(String leadId);
+}
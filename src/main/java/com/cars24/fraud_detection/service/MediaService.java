@@ -0,0 +1,21 @@
+package com.cars24.fraud_detection.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Serves stored audio and document files to the reviewer UI. Supports single byte ranges (206),
+ * conditional requests against the stored content hash as ETag and Last-Modified (304), and takes the content
+ * type from the file's magic bytes. The body is handed to the container's sendfile when it offers
+ * it, otherwise transferred from the file channel.
+ */
+public interface MediaService {
+
+    /**
+     * @param contentHash SHA-256 recorded when the file was stored; null gives a weak ETag from size and modification time
+     */
+    void serve(Path file, String downloadName, String contentHash, HttpServletRequest request, HttpServletResponse response) throws IOException;
+}
@@ -0,0 +1,36 @@
+package com.cars24.fraud_detection.service;
+
+import com.cars24.fraud_detection.workflow.WorkflowStage;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Remembers stage outputs for content that has already been analysed, so a re-upload of the
+ * same image or recording skips OCR, forgery and the paid LLM calls.
+ */
+public interface StageResultCacheService {
+
+    String hashContent(byte[] content);
+
+    Optional<String> hashFile(Path file);
+
+    default Optional<Map<String, Object>> lookup(WorkflowStage stage, String scriptPath, String contentHash, String leadId) {
+        return lookup(stage, scriptPath, contentHash, leadId, null);
+    }
+
+    default void store(WorkflowStage stage, String scriptPath, String contentHash, String leadId, Map<String, Object> result) {
+        store(stage, scriptPath, contentHash, leadId, null, result);
+    }
+
+    /**
+     * For stages whose output also depends on inputs other than the file, such as the lead's ground
+     * truth: {@code inputsHash} identifies those inputs and is part of the key when not null.
+     */
+    Optional<Map<String, Object>> lookup(WorkflowStage stage, String scriptPath, String contentHash, String leadId,
+                                         String inputsHash);
+
+    void store(WorkflowStage stage, String scriptPath, String contentHash, String leadId, String inputsHash,
+               Map<String, Object> result);
+}
@@ -0,0 +1,160 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.AgentStatsDao;
+import com.cars24.fraud_detection.data.entity.AgentStatsEntity;
+import com.cars24.fraud_detection.data.entity.AudioEntity;
+import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.entity.DocumentType;
+import com.cars24.fraud_detection.data.response.AgentAnalysis;
+import com.cars24.fraud_detection.service.AgentStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AgentStatsServiceImpl implements AgentStatsService {
+
+    private static final String AGENT_SPEAKER_PREFIX = "SPEAKER_00";
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final AgentStatsDao agentStatsDao;
+
+    @Override
+    public void recordAudio(AudioEntity previous, AudioEntity saved) {
+        if (previous != null && !Objects.equals(previous.getAgentId(), saved.getAgentId())) {
+            apply(contribution(previous, -1));
+            previous = null;
+        }
+        AgentStatsEntity delta = contribution(saved, 1);
+        if (previous != null) {
+            subtract(delta, contribution(previous, 1));
+        }
+        apply(delta);
+    }
+
+    @Override
+    public void recordDocument(DocumentEntity saved) {
+        DocumentType type = DocumentType.from(saved.getDocumentType()).orElse(null);
+        boolean rejected = "REJECT".equalsIgnoreCase(saved.getDecision());
+
+        AgentStatsEntity delta = new AgentStatsEntity();
+        delta.setId(saved.getAgentId());
+        if (type == DocumentType.AADHAAR) {
+            delta.setTotalAadhars(1);
+            delta.setRejectedAadhars(rejected ? 1 : 0);
+        } else if (type == DocumentType.PAN) {
+            delta.setTotalPans(1);
+            delta.setRejectedPans(rejected ? 1 : 0);
+        } else {
+            return;
+        }
+        apply(delta);
+    }
+
+    @Override
+    public AgentAnalysis getAnalysis(String agentId) {
+        // Agents whose results predate the rollup are backfilled on first read
+        return agentStatsDao.findByAgentId(agentId)
+                .map(AgentStatsEntity::toAnalysis)
+                .orElseGet(() -> rebuild(agentId));
+    }
+
+    @Override
+    public AgentAnalysis rebuild(String agentId) {
+        AgentStatsEntity stats = null;
+        for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+            // An increment landing between the aggregation and the replace moves the revision on,
+            // so the replace misses and the aggregation is run again rather than overwriting it
+            Long revision = agentStatsDao.findByAgentId(agentId).map(AgentStatsEntity::getRevision).orElse(null);
+            stats = agentStatsDao.aggregateFromSource(agentId);
+            LocalDateTime now = LocalDateTime.now();
+            stats.setRebuiltAt(now);
+            stats.setUpdatedAt(now);
+            if (agentStatsDao.replace(stats, revision)) {
+                log.info("Rebuilt agent_stats for agent {}: {} reference calls, {} Aadhaar, {} PAN",
+                        agentId, stats.getTotalReferenceCalls(), stats.getTotalAadhars(), stats.getTotalPans());
+                return stats.toAnalysis();
+            }
+        }
+        log.warn("agent_stats for agent {} kept changing during {} rebuild attempts; left as it is", agentId, MAX_REBUILD_ATTEMPTS);
+        return stats.toAnalysis();
+    }
+
+    @Override
+    public int rebuildAll() {
+        int rebuilt = 0;
+        for (String agentId : agentStatsDao.findAgentIdsWithResults()) {
+            rebuild(agentId);
+            rebuilt++;
+        }
+        return rebuilt;
+    }
+
+    /**
+     * The rollup can always be rebuilt from the raw collections, so a failed update is logged
+     * rather than failing the upload that produced it.
+     */
+    private void apply(AgentStatsEntity delta) {
+        if (delta.getId() == null) {
+            return;
+        }
+        try {
+            if (!agentStatsDao.increment(delta)) {
+                // First result since the rollup was introduced; the raw collections already hold it
+                rebuild(delta.getId());
+            }
+        } catch (Exception e) {
+            log.error("Could not update agent_stats for agent {}; rebuild it to recover: {}", delta.getId(), e.getMessage());
+        }
+    }
+
+    private AgentStatsEntity contribution(AudioEntity audio, int sign) {
+        AgentStatsEntity delta = new AgentStatsEntity();
+        delta.setId(audio.getAgentId());
+        delta.setTotalReferenceCalls(sign);
+        if ("accept".equalsIgnoreCase(audio.getStatus())) {
+            delta.setAcceptedReferenceCalls(sign);
+        } else if ("reject".equalsIgnoreCase(audio.getStatus())) {
+            delta.setRejectedReferenceCalls(sign);
+        }
+
+        Object transcript = audio.getLlmExtraction() == null ? null : audio.getLlmExtraction().get("transcript");
+        if (transcript instanceof List<?> utterances) {
+            delta.setTranscribedReferenceCalls(sign);
+            double agentTalkTime = 0;
+            double referenceTalkTime = 0;
+            for (Object item : utterances) {
+                if (!(item instanceof Map<?, ?> utterance)
+                        || !(utterance.get("start_time") instanceof Number start)
+                        || !(utterance.get("end_time") instanceof Number end)) {
+                    continue;
+                }
+                double duration = end.doubleValue() - start.doubleValue();
+                if (utterance.get("speaker") instanceof String speaker && speaker.startsWith(AGENT_SPEAKER_PREFIX)) {
+                    agentTalkTime += duration;
+                } else {
+                    referenceTalkTime += duration;
+                }
+            }
+            delta.setAgentTalkTime(sign * agentTalkTime);
+            delta.setReferenceTalkTime(sign * referenceTalkTime);
+        }
+        return delta;
+    }
+
+    private static void subtract(AgentStatsEntity delta, AgentStatsEntity earlier) {
+        delta.setTotalReferenceCalls(delta.getTotalReferenceCalls() - earlier.getTotalReferenceCalls());
+        delta.setAcceptedReferenceCalls(delta.getAcceptedReferenceCalls() - earlier.getAcceptedReferenceCalls());
+        delta.setRejectedReferenceCalls(delta.getRejectedReferenceCalls() - earlier.getRejectedReferenceCalls());
+        delta.setTranscribedReferenceCalls(delta.getTranscribedReferenceCalls() - earlier.getTranscribedReferenceCalls());
+        delta.setAgentTalkTime(delta.getAgentTalkTime() - earlier.getAgentTalkTime());
+        delta.setReferenceTalkTime(delta.getReferenceTalkTime() - earlier.getReferenceTalkTime());
+    }
+}
@@ -226,28 +226,32 @@ import com.cars24.fraud_detection.data.dao.LeadDao;
 import com.cars24.fraud_detection.data.entity.AudioEntity;
 import com.cars24.fraud_detection.data.entity.LeadEntity;
 import com.cars24.fraud_detection.data.entity.InsightsEntity;
+import com.cars24.fraud_detection.data.projection.AudioSummary;
 import com.cars24.fraud_detection.data.request.AudioRequest;
+import com.cars24.fraud_detection.data.response.AudioGroundTruth;
 import com.cars24.fraud_detection.data.response.AudioResponse;
 import com.cars24.fraud_detection.exception.AudioProcessingException;
+import com.cars24.fraud_detection.service.AgentStatsService;
 import com.cars24.fraud_detection.service.AudioService;
+import com.cars24.fraud_detection.service.AudioService.StoredAudio;
+import com.cars24.fraud_detection.service.BlobStore;
+import com.cars24.fraud_detection.service.BlobStore.StoredBlob;
+import com.cars24.fraud_detection.service.LeadInsightsCacheService;
+import com.cars24.fraud_detection.utils.FileSignature;
 import com.cars24.fraud_detection.workflow.WorkflowInitiator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -267,6 +271,9 @@ public class AudioServiceImpl implements AudioService {
     private static final Logger logger = Logger.getLogger(AudioServiceImpl.class.getName());
 
     private final DocumentTypeConfig documentTypeConfig;
+    private final AgentStatsService agentStatsService;
+    private final LeadInsightsCacheService leadInsightsCache;
+    private final BlobStore blobStore;
 
     @Override
     public AudioResponse processAudioRequest(AudioRequest audioRequest) throws JsonProcessingException, AudioProcessingException {
@@ -275,12 +282,20 @@ public class AudioServiceImpl implements AudioService {
         // 1. Validate Lead Existence
         LeadEntity lead = leadDao.findLeadById(audioRequest.getLeadId())
                 .orElseThrow(() -> new AudioProcessingException("Lead not found with ID: " + audioRequest.getLeadId()));
+        audioRequest.setGroundTruth(AudioGroundTruth.fromLeadEntity(lead));
 
         MultipartFile file = audioRequest.getAudioFile();
 
         // 2. Save the audio file
         // String filePath = saveAudio(file);
-        String filePath = saveAudio(file, audioRequest.getUuid().toString()); // Pass correct UUID
+        String filePath;
+        if (audioRequest.getAudioPath() != null) {
+            filePath = placeAudio(audioRequest.getAudioPath(), audioRequest.getUuid());
+        } else {
+            StoredBlob blob = storeAudio(file);
+            audioRequest.setContentHash(blob.sha256());
+            filePath = placeAudio(blob, audioRequest.getUuid()); // Pass correct UUID
+        }
 
         Path path = Paths.get(filePath);
         String fileName = path.getFileName().toString();
@@ -307,11 +322,15 @@ public class AudioServiceImpl implements AudioService {
         audioEntity.setFieldByFieldScores(audioResponse.getFieldByFieldScores());
         audioEntity.setAudioAnalysis(audioResponse.getAudioAnalysis());
         audioEntity.setStatus(audioResponse.getStatus());
+        audioEntity.setContentHash(audioRequest.getContentHash());
         audioEntity.setTimestamp(LocalDateTime.now());
 
-        // 5. Save AudioEntity
+        // 5. Save AudioEntity; a retried job overwrites its earlier result, which the rollup has to take back
+        Optional<AudioEntity> previousResult = audioDao.getAudioById(audioEntity.getId());
         audioDao.saveAudio(audioEntity);
         logger.info("Saved AudioEntity object to database with ID: " + audioEntity.getId());
+        agentStatsService.recordAudio(previousResult.orElse(null), audioEntity);
+        leadInsightsCache.evict(audioEntity.getLeadId());
 
         // 6. Return response with UUID
         audioResponse.setId(audioEntity.getId()); // Set the generated UUID
@@ -376,41 +395,32 @@ public class AudioServiceImpl implements AudioService {
     public List<String> getRecentAudios(String leadId, int limit) {
         log.info("Fetching recent audio UUIDs for lead ID: {} with limit: {}", leadId, limit);
 
-        List<AudioEntity> audios = audioDao.getRecentAudiosByLeadId(leadId, limit);
+        List<AudioSummary> audios = audioDao.getRecentAudioSummariesByLeadId(leadId, limit);
 
         log.info("Total audios fetched: " + audios.size());
 
         return audios.stream()
-                .map(AudioEntity::getId)
+                .map(AudioSummary::getId)
                 .collect(Collectors.toList());
     }
     @Override
-    public ResponseEntity<FileSystemResource> getAudioFile(String audioId){
-        try {
-            // Construct the file path
-            Path filePath = Paths.get(AUDIO_STORAGE_PATH, audioId + ".mp3");
-            File audioFile = filePath.toFile();
-
-            if (!audioFile.exists()) {
-//                log.warn("Audio file not found for id: {}", id);
-                return ResponseEntity.notFound().build();
+    public Optional<StoredAudio> findAudioFile(String audioId) {
+        // The blob keeps the recording under its real extension, so WAV audio is served as WAV
+        String contentHash = audioDao.getAudioById(audioId).map(AudioEntity::getContentHash).orElse(null);
+        if (contentHash != null) {
+            try {
+                Optional<Path> blob = blobStore.localPath(contentHash);
+                if (blob.isPresent()) {
+                    String blobName = blob.get().getFileName().toString();
+                    return Optional.of(new StoredAudio(blob.get(), audioId + blobName.substring(blobName.lastIndexOf('.')), contentHash));
+                }
+            } catch (IOException e) {
+                logger.warning("Could not read blob " + contentHash + " of audio " + audioId + ": " + e.getMessage());
             }
-
-            FileSystemResource resource = new FileSystemResource(audioFile);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("audio/mpeg")); // Set content type to audio/mpeg
-            headers.setContentLength(audioFile.length());
-            headers.setContentDispositionFormData("attachment", audioId + ".mp3"); // Optional:  Suggest a filename
-
-
-            return new ResponseEntity<>(resource, headers, HttpStatus.OK);
-
-
-        } catch (Exception e) {
-//            log.error("Error retrieving audio file for id: {}", id, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
+        // Results stored before the hash was recorded only have the copy in the audio storage
+        Path filePath = Paths.get(AUDIO_STORAGE_PATH, audioId + ".mp3");
+        return Files.isRegularFile(filePath) ? Optional.of(new StoredAudio(filePath, audioId + ".mp3", null)) : Optional.empty();
     }
 
     @Override
@@ -464,32 +474,69 @@ public class AudioServiceImpl implements AudioService {
 //        }
 //    }
 
-    public String saveAudio(MultipartFile file, String uuid) throws AudioProcessingException {
+    /**
+     * Exposes an already stored upload as {@code <uuid>.mp3} in the audio storage, where the scripts
+     * and the playback endpoint look for it. A hard link avoids copying the recording; a retried
+     * job finds the link already in place.
+     */
+    public String placeAudio(Path storedFile, String uuid) throws AudioProcessingException {
         try {
-            // Check if file is empty
-            if (file.isEmpty()) {
-                logger.severe("Failed to save audio file: File is empty");
-                throw new AudioProcessingException("Failed to store audio file: File is empty");
-            }
-
-            // Ensure the storage directory exists
             Path storagePath = Paths.get(AUDIO_STORAGE_PATH);
             Files.createDirectories(storagePath);
+            Path destinationFile = storagePath.resolve(uuid + ".mp3");
 
-            // Use the correct UUID from audioRequest
-            String uniqueFileName = uuid + ".mp3";
-
-            // Properly construct path using Path API
-            Path destinationFile = storagePath.resolve(uniqueFileName);
+            if (Files.exists(destinationFile) && Files.isSameFile(destinationFile, storedFile)) {
+                return destinationFile.toString();
+            }
+            Files.deleteIfExists(destinationFile);
+            try {
+                Files.createLink(destinationFile, storedFile);
+            } catch (UnsupportedOperationException | IOException e) {
+                // Different file store or no hard link support: let the file system copy it
+                logger.info("Hard link not possible for " + storedFile + ", copying instead: " + e.getMessage());
+                Files.copy(storedFile, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return destinationFile.toString();
+        } catch (IOException e) {
+            logger.log(java.util.logging.Level.SEVERE, "Error placing audio file", e);
+            throw new AudioProcessingException("Failed to store audio file: " + e.getMessage());
+        }
+    }
 
-            logger.info("Attempting to save file to: " + destinationFile.toString());
+    public String saveAudio(MultipartFile file, String uuid) throws AudioProcessingException {
+        return placeAudio(storeAudio(file), uuid);
+    }
 
-            // Save the file to disk
-            Files.copy(file.getInputStream(), destinationFile);
+    /**
+     * Places a freshly stored upload, giving its reference back if that fails.
+     */
+    private String placeAudio(StoredBlob blob, String uuid) throws AudioProcessingException {
+        // The scripts still find the recording as <uuid>.mp3 in the audio storage
+        try {
+            String destinationFile = placeAudio(blob.path(), uuid);
+            logger.info("Audio file saved successfully to " + destinationFile);
+            return destinationFile;
+        } catch (AudioProcessingException e) {
+            blobStore.release(blob.sha256());
+            throw e;
+        }
+    }
 
-            logger.info("Audio file saved successfully to " + destinationFile.toString());
+    private StoredBlob storeAudio(MultipartFile file) throws AudioProcessingException {
+        try {
+            // Check if file is empty
+            if (file.isEmpty()) {
+                logger.severe("Failed to save audio file: File is empty");
+                throw new AudioProcessingException("Failed to store audio file: File is empty");
+            }
 
-            return destinationFile.toString();
+            // Stream the file into the blob store, rejecting content that is not MP3 or WAV audio
+            try (InputStream in = file.getInputStream()) {
+                return blobStore.put(in, FileSignature.AUDIO);
+            }
+        } catch (IllegalArgumentException e) {
+            logger.severe("Rejected audio upload: " + e.getMessage());
+            throw new AudioProcessingException("Failed to store audio file: " + e.getMessage());
         } catch (IOException e) {
             logger.log(java.util.logging.Level.SEVERE, "Error saving audio file", e);
             throw new AudioProcessingException("Failed to store audio file: " + e.getMessage());
@@ -0,0 +1,120 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.BlobDao;
+import com.cars24.fraud_detection.data.entity.BlobEntity;
+import com.cars24.fraud_detection.service.BlobBackend;
+import com.cars24.fraud_detection.service.BlobStore;
+import com.cars24.fraud_detection.utils.FileSignature;
+import com.cars24.fraud_detection.utils.UploadIngestor;
+import com.cars24.fraud_detection.utils.UploadIngestor.IngestedUpload;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BlobStoreImpl implements BlobStore {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    private final BlobBackend backend;
+    private final BlobDao blobDao;
+    private final UploadIngestor uploadIngestor;
+
+    // Reference changes and content writes of one hash are serialised, so a release cannot delete content a put has just counted
+    private final Object[] locks = IntStream.range(0, LOCK_STRIPES).mapToObj(i -> new Object()).toArray();
+
+    @Value("${blob.store.path:src/main/resources/blob_store}")
+    private String storePath;
+
+    @Override
+    public StoredBlob put(InputStream content, Set<FileSignature> accepted) throws IOException {
+        // The hash is only known once the content has been read, so it is staged first
+        Path staged = Paths.get(storePath, "staging", UUID.randomUUID() + ".upload");
+        try {
+            IngestedUpload upload = uploadIngestor.ingest(content, staged, accepted);
+            String sha256 = upload.sha256();
+            FileSignature signature = upload.signature();
+            synchronized (lockFor(sha256)) {
+                boolean created = blobDao.addReference(sha256, upload.size(), signature.name());
+                try {
+                    boolean deduplicated = !created && backend.contains(sha256, signature);
+                    Path path = deduplicated
+                            ? backend.localPath(sha256, signature)
+                            : backend.write(sha256, signature, staged);
+                    log.debug("Stored blob {} ({} bytes, {}){}", sha256, upload.size(), signature, deduplicated ? " as a duplicate" : "");
+                    return new StoredBlob(sha256, upload.size(), signature, path, deduplicated);
+                } catch (IOException | RuntimeException e) {
+                    removeReference(sha256);
+                    throw e;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String sha256) throws IOException {
+        Optional<BlobEntity> blob = blobDao.findById(sha256);
+        if (blob.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(backend.localPath(sha256, FileSignature.valueOf(blob.get().getSignature())));
+    }
+
+    @Override
+    public Optional<String> keyOf(Path path) {
+        if (path == null || path.getFileName() == null) {
+            return Optional.empty();
+        }
+        String fileName = path.getFileName().toString();
+        int extension = fileName.indexOf('.');
+        String name = extension > 0 ? fileName.substring(0, extension) : fileName;
+        boolean inStore = path.toAbsolutePath().normalize().startsWith(Paths.get(storePath).toAbsolutePath().normalize());
+        return inStore && SHA256.matcher(name).matches() ? Optional.of(name) : Optional.empty();
+    }
+
+    @Override
+    public void release(String sha256) {
+        synchronized (lockFor(sha256)) {
+            removeReference(sha256);
+        }
+    }
+
+    private void removeReference(String sha256) {
+        try {
+            Optional<BlobEntity> blob = blobDao.removeReference(sha256);
+            if (blob.isEmpty()) {
+                log.warn("Released blob {} which is not in the store", sha256);
+                return;
+            }
+            if (blob.get().getRefCount() > 0 || !blobDao.deleteIfUnreferenced(sha256)) {
+                return;
+            }
+            backend.delete(sha256, FileSignature.valueOf(blob.get().getSignature()));
+            log.info("Deleted blob {} after its last reference was released", sha256);
+        } catch (Exception e) {
+            // A blob left behind is only wasted space; the next upload of the same content rewrites it
+            log.warn("Could not release blob {}: {}", sha256, e.getMessage(), e);
+        }
+    }
+
+    private Object lockFor(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+}
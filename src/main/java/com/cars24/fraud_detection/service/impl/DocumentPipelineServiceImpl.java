@@ -0,0 +1,497 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.DocumentJobDao;
+import com.cars24.fraud_detection.data.entity.DocumentJobEntity;
+import com.cars24.fraud_detection.data.request.DocumentRequest;
+import com.cars24.fraud_detection.data.response.DocumentJobResponse;
+import com.cars24.fraud_detection.data.response.DocumentJobResponse.Status;
+import com.cars24.fraud_detection.data.response.DocumentPipelineStats;
+import com.cars24.fraud_detection.data.response.DocumentResponse;
+import com.cars24.fraud_detection.service.BlobStore;
+import com.cars24.fraud_detection.service.DocumentPipelineService;
+import com.cars24.fraud_detection.service.DocumentService;
+import com.cars24.fraud_detection.utils.WorkerThreads;
+import com.cars24.fraud_detection.workflow.StageExecutor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentPipelineServiceImpl implements DocumentPipelineService {
+
+    private static final String FAILED = "Document processing failed";
+    private static final long MAX_PURGE_INTERVAL_SECONDS = 60;
+
+    private final DocumentService documentService;
+    private final BlobStore blobStore;
+    private final StageExecutor stageExecutor;
+    private final DocumentJobDao documentJobDao;
+    private final Environment environment;
+    private final WorkerThreads workerThreads;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Stage, StageWorkers> stages = new EnumMap<>(Stage.class);
+    private final Map<String, DocumentJob> jobs = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean running;
+    private ScheduledExecutorService housekeeping;
+
+    // Finished jobs stay queryable this long after they complete or fail
+    @Value("${document.pipeline.job-retention-seconds:3600}")
+    private long jobRetentionSeconds;
+
+    // An unfinished job whose heartbeat is older than this is taken up by another pipeline, or by this one after a restart
+    @Value("${document.pipeline.job-lease-seconds:120}")
+    private long jobLeaseSeconds;
+
+    // Times a job is taken up before it is failed, in case the document itself brings the pipeline down
+    @Value("${document.pipeline.job-max-attempts:3}")
+    private int jobMaxAttempts;
+
+    @PostConstruct
+    public synchronized void start() {
+        StageWorkers next = null;
+        for (int i = Stage.values().length - 1; i >= 0; i--) {
+            Stage stage = Stage.values()[i];
+            StageWorkers workers = new StageWorkers(stage,
+                    environment.getProperty("document.pipeline." + stage.getKey() + ".workers", Integer.class, stage.getDefaultWorkers()),
+                    environment.getProperty("document.pipeline." + stage.getKey() + ".queue-capacity", Integer.class, stage.getDefaultQueueCapacity()),
+                    next);
+            stages.put(stage, workers);
+            next = workers;
+        }
+        running = true;
+        stages.values().forEach(StageWorkers::start);
+        long purgeInterval = Math.max(1, Math.min(jobRetentionSeconds, MAX_PURGE_INTERVAL_SECONDS));
+        long heartbeatInterval = Math.max(1, jobLeaseSeconds / 3);
+        housekeeping = Executors.newSingleThreadScheduledExecutor(workerThreads.factory("DocumentPipeline-housekeeping"));
+        housekeeping.scheduleWithFixedDelay(this::purgeFinishedJobs, purgeInterval, purgeInterval, TimeUnit.SECONDS);
+        // Jobs left unfinished by a previous run are taken up straight away, then whenever their holder goes quiet
+        housekeeping.scheduleWithFixedDelay(this::heartbeatAndResume, 0, heartbeatInterval, TimeUnit.SECONDS);
+        log.info("Document pipeline started: {}", getStats().getStages());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (housekeeping != null) {
+            housekeeping.shutdownNow();
+        }
+        stages.values().forEach(StageWorkers::stop);
+        // Queued jobs are handed back unfinished, uploads included, for the next pipeline to take up at once.
+        // Jobs interrupted mid-stage are taken up once their heartbeat goes stale.
+        List<String> queued = new ArrayList<>();
+        stages.values().forEach(workers -> {
+            List<DocumentJob> drained = new ArrayList<>();
+            workers.queue.drainTo(drained);
+            drained.forEach(job -> queued.add(job.id));
+        });
+        jobs.keySet().removeAll(queued);
+        try {
+            documentJobDao.release(queued);
+        } catch (RuntimeException e) {
+            log.warn("Could not hand back {} queued document jobs: {}", queued.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public DocumentJobResponse submit(DocumentRequest request) {
+        DocumentJob job = new DocumentJob(UUID.randomUUID().toString(), request, LocalDateTime.now());
+        documentJobDao.insert(job.toEntity());
+        jobs.put(job.id, job);
+        if (!offer(job)) {
+            jobs.remove(job.id);
+            documentJobDao.deleteById(job.id);
+            rejected.increment();
+            log.warn("Document pipeline rejected an upload for lead {}: intake queue is full", request.getLeadId());
+            throw new RejectedExecutionException("Document pipeline is at capacity, try again later");
+        }
+        log.info("Accepted document job {} for lead {}", job.id, request.getLeadId());
+        return job.toResponse();
+    }
+
+    // Synchronised with stop, so a job cannot be queued after the queues were drained
+    private synchronized boolean offer(DocumentJob job) {
+        return running && stages.get(Stage.INGEST).queue.offer(job);
+    }
+
+    @Override
+    public Optional<DocumentJobResponse> getJob(String jobId) {
+        DocumentJob job = jobs.get(jobId);
+        if (job != null) {
+            return Optional.of(job.toResponse());
+        }
+        // Jobs from before a restart, or held by another pipeline
+        return documentJobDao.findById(jobId).map(this::toResponse);
+    }
+
+    @Override
+    public DocumentPipelineStats getStats() {
+        Map<Stage, StageStats> stageStats = new EnumMap<>(Stage.class);
+        stages.forEach((stage, workers) -> stageStats.put(stage, workers.snapshot()));
+        return new DocumentPipelineStats(stageStats, stageExecutor.getStats(), rejected.sum());
+    }
+
+    private void handle(Stage stage, DocumentJob job) {
+        switch (stage) {
+            case INGEST -> documentService.prepareDocument(job.request);
+            case ANALYSIS -> job.result = documentService.analyseDocument(job.request);
+            case PERSIST -> job.result = documentService.saveDocumentResult(job.request, job.result);
+        }
+    }
+
+    private void finish(DocumentJob job, DocumentResponse result, String error) {
+        if (!job.finished.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            documentJobDao.finish(job.id, error == null ? DocumentJobEntity.Status.COMPLETED : DocumentJobEntity.Status.FAILED,
+                    error == null ? toJson(result) : null, error, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            // The job is still finished here; only polling from elsewhere misses the outcome
+            log.warn("Could not record the outcome of document job {}: {}", job.id, e.getMessage());
+        }
+        // A saved document keeps the upload's blob reference; a job that ends without one gives it back
+        if (error != null && job.request.getContentHash() != null) {
+            blobStore.release(job.request.getContentHash());
+        }
+        job.result = result;
+        job.error = error;
+        job.completedAt = LocalDateTime.now();
+        job.status = error == null ? Status.COMPLETED : Status.FAILED;
+        if (error == null) {
+            log.info("Document job {} completed in {} ms", job.id, Duration.between(job.submittedAt, job.completedAt).toMillis());
+        }
+    }
+
+    /**
+     * Leaves a job unfinished, upload included, for whichever pipeline next looks for abandoned jobs.
+     */
+    private void handBack(DocumentJob job) {
+        jobs.remove(job.id);
+        try {
+            documentJobDao.release(List.of(job.id));
+        } catch (RuntimeException e) {
+            log.warn("Could not hand back document job {}: {}", job.id, e.getMessage());
+        }
+    }
+
+    void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(jobRetentionSeconds);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+        try {
+            documentJobDao.deleteFinishedBefore(cutoff);
+        } catch (RuntimeException e) {
+            log.warn("Could not purge finished document jobs: {}", e.getMessage());
+        }
+    }
+
+    void heartbeatAndResume() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> held = jobs.values().stream().filter(job -> !job.finished.get()).map(job -> job.id).toList();
+            documentJobDao.heartbeat(held, now);
+            resumeAbandonedJobs(now);
+        } catch (RuntimeException e) {
+            log.warn("Document job heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Takes up unfinished jobs nobody holds any more, from the intake, while it has room.
+     * Returns the number of jobs resumed.
+     */
+    int resumeAbandonedJobs(LocalDateTime now) {
+        int resumed = 0;
+        while (running && stages.get(Stage.INGEST).queue.remainingCapacity() > 0) {
+            Optional<DocumentJobEntity> claimed = documentJobDao.claimAbandoned(now.minusSeconds(jobLeaseSeconds), now);
+            if (claimed.isEmpty()) {
+                break;
+            }
+            DocumentJobEntity entity = claimed.get();
+            DocumentJob job = new DocumentJob(entity.getId(), toRequest(entity), entity.getSubmittedAt());
+            if (entity.getAttempts() > jobMaxAttempts) {
+                log.error("Document job {} was interrupted {} times, giving up", job.id, entity.getAttempts() - 1);
+                finish(job, null, FAILED);
+                continue;
+            }
+            if (job.request.getDocumentPath() == null || !Files.exists(job.request.getDocumentPath())) {
+                log.error("Document job {} cannot be resumed: its upload {} is gone", job.id, entity.getDocumentPath());
+                finish(job, null, FAILED);
+                continue;
+            }
+            jobs.put(job.id, job);
+            if (!offer(job)) {
+                jobs.remove(job.id);
+                documentJobDao.release(List.of(job.id));
+                break;
+            }
+            log.warn("Resumed document job {} for lead {} (attempt {})", job.id, entity.getLeadId(), entity.getAttempts());
+            resumed++;
+        }
+        return resumed;
+    }
+
+    private static DocumentRequest toRequest(DocumentJobEntity entity) {
+        DocumentRequest request = new DocumentRequest();
+        request.setAgentId(entity.getAgentId());
+        request.setLeadId(entity.getLeadId());
+        request.setDocumentType(entity.getDocumentType());
+        request.setFileName(entity.getFileName());
+        request.setDocumentPath(entity.getDocumentPath() == null ? null : Path.of(entity.getDocumentPath()));
+        request.setContentHash(entity.getContentHash());
+        return request;
+    }
+
+    private DocumentJobResponse toResponse(DocumentJobEntity entity) {
+        DocumentJobResponse response = new DocumentJobResponse();
+        response.setJobId(entity.getId());
+        response.setStatus(DocumentJobResponse.Status.valueOf(entity.getStatus().name()));
+        response.setStage(entity.getStage());
+        response.setLeadId(entity.getLeadId());
+        response.setDocumentType(entity.getDocumentType());
+        response.setSubmittedAt(entity.getSubmittedAt());
+        response.setCompletedAt(entity.getCompletedAt());
+        response.setResult(fromJson(entity.getResultJson()));
+        response.setError(entity.getError());
+        return response;
+    }
+
+    private String toJson(DocumentResponse result) {
+        try {
+            return result == null ? null : objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialise a document result: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private DocumentResponse fromJson(String resultJson) {
+        try {
+            return resultJson == null ? null : objectMapper.readValue(resultJson, DocumentResponse.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not read a stored document result: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The bounded queue in front of one stage and the threads that work it.
+     */
+    private final class StageWorkers {
+
+        private final Stage stage;
+        private final int workerCount;
+        private final int queueCapacity;
+        private final BlockingQueue<DocumentJob> queue;
+        private final StageWorkers next;
+        private final List<Thread> threads = new ArrayList<>();
+
+        private final AtomicInteger active = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final RecentCompletions recent = new RecentCompletions();
+
+        private StageWorkers(Stage stage, int workerCount, int queueCapacity, StageWorkers next) {
+            this.stage = stage;
+            this.workerCount = Math.max(1, workerCount);
+            this.queueCapacity = Math.max(1, queueCapacity);
+            this.queue = new ArrayBlockingQueue<>(this.queueCapacity);
+            this.next = next;
+        }
+
+        private void start() {
+            ThreadFactory threadFactory = workerThreads.factory("DocumentPipeline-" + stage.getKey());
+            for (int i = 1; i <= workerCount; i++) {
+                Thread thread = threadFactory.newThread(this::work);
+                thread.start();
+                threads.add(thread);
+            }
+        }
+
+        private void stop() {
+            threads.forEach(Thread::interrupt);
+            threads.clear();
+        }
+
+        private void work() {
+            while (running) {
+                DocumentJob job;
+                try {
+                    job = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    if (!run(job)) {
+                        continue;
+                    }
+                    if (next == null) {
+                        finish(job, job.result, null);
+                    } else if (!running) {
+                        handBack(job);
+                    } else {
+                        job.status = Status.QUEUED;
+                        job.stage = next.stage;
+                        // Blocks while the next stage is full, which is what holds back the stages before it
+                        next.queue.put(job);
+                    }
+                } catch (InterruptedException e) {
+                    handBack(job);
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Throwable t) {
+                    // A worker that died here would leave its job running forever and the stage a thread short
+                    log.error("Document job {} failed after the {} stage: {}", job.id, stage.getKey(), t.getMessage(), t);
+                    finish(job, null, FAILED);
+                }
+            }
+        }
+
+        private boolean run(DocumentJob job) {
+            job.status = Status.RUNNING;
+            job.stage = stage;
+            active.incrementAndGet();
+            try {
+                documentJobDao.markRunning(job.id, stage.getKey());
+                handle(stage, job);
+                completed.increment();
+                recent.record();
+                return true;
+            } catch (Throwable e) {
+                if (!running) {
+                    // Interrupted by a shutdown rather than failed by the document
+                    log.warn("Document job {} was stopped in the {} stage", job.id, stage.getKey());
+                    handBack(job);
+                    return false;
+                }
+                failed.increment();
+                // The detail stays in the log; the job only tells the client which stage failed
+                log.error("Document job {} failed in the {} stage: {}", job.id, stage.getKey(), e.getMessage(), e);
+                finish(job, null, "Document processing failed in the " + stage.getKey() + " stage");
+                return false;
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        private StageStats snapshot() {
+            return new StageStats(workerCount, queueCapacity, queue.size(), active.get(),
+                    completed.sum(), failed.sum(), recent.lastMinute());
+        }
+    }
+
+    /**
+     * Completions in the last minute, counted in one bucket per second.
+     */
+    private static final class RecentCompletions {
+
+        private static final int SECONDS = 60;
+
+        private final long[] bucketSecond = new long[SECONDS];
+        private final long[] bucketCount = new long[SECONDS];
+
+        private synchronized void record() {
+            long now = System.currentTimeMillis() / 1000;
+            int bucket = (int) (now % SECONDS);
+            if (bucketSecond[bucket] != now) {
+                bucketSecond[bucket] = now;
+                bucketCount[bucket] = 0;
+            }
+            bucketCount[bucket]++;
+        }
+
+        private synchronized long lastMinute() {
+            long now = System.currentTimeMillis() / 1000;
+            long total = 0;
+            for (int i = 0; i < SECONDS; i++) {
+                if (now - bucketSecond[i] < SECONDS) {
+                    total += bucketCount[i];
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final class DocumentJob {
+
+        private final String id;
+        private final DocumentRequest request;
+        private final LocalDateTime submittedAt;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile Status status = Status.QUEUED;
+        private volatile Stage stage = Stage.INGEST;
+        private volatile DocumentResponse result;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+
+        private DocumentJob(String id, DocumentRequest request, LocalDateTime submittedAt) {
+            this.id = id;
+            this.request = request;
+            this.submittedAt = submittedAt;
+        }
+
+        private DocumentJobEntity toEntity() {
+            DocumentJobEntity entity = new DocumentJobEntity();
+            entity.setId(id);
+            entity.setStatus(DocumentJobEntity.Status.QUEUED);
+            entity.setStage(stage.getKey());
+            entity.setAttempts(1);
+            entity.setAgentId(request.getAgentId());
+            entity.setLeadId(request.getLeadId());
+            entity.setDocumentType(request.getDocumentType());
+            entity.setFileName(request.getFileName());
+            entity.setDocumentPath(request.getDocumentPath() == null ? null : request.getDocumentPath().toString());
+            entity.setContentHash(request.getContentHash());
+            entity.setSubmittedAt(submittedAt);
+            entity.setHeartbeatAt(submittedAt);
+            return entity;
+        }
+
+        private DocumentJobResponse toResponse() {
+            DocumentJobResponse response = new DocumentJobResponse();
+            response.setJobId(id);
+            response.setStatus(status);
+            response.setStage(stage.getKey());
+            response.setLeadId(request.getLeadId());
+            response.setDocumentType(request.getDocumentType());
+            response.setSubmittedAt(submittedAt);
+            response.setCompletedAt(completedAt);
+            // The intermediate analysis result is only shown once it has been saved
+            response.setResult(status == Status.COMPLETED ? result : null);
+            response.setError(error);
+            return response;
+        }
+    }
+}
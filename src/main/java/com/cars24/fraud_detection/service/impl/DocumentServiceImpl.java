@@ -4,23 +4,24 @@ import com.cars24.fraud_detection.config.DocumentTypeConfig;
 import com.cars24.fraud_detection.data.dao.DocumentDao;
 import com.cars24.fraud_detection.data.dao.LeadDao;
 import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.entity.DocumentType;
 import com.cars24.fraud_detection.data.entity.LeadEntity;
 import com.cars24.fraud_detection.data.entity.InsightsEntity;
+import com.cars24.fraud_detection.data.projection.DocumentSummary;
 import com.cars24.fraud_detection.data.request.DocumentRequest;
+import com.cars24.fraud_detection.data.response.AadhaarGroundTruth;
 import com.cars24.fraud_detection.data.response.DocumentResponse;
+import com.cars24.fraud_detection.data.response.PanGroundTruth;
 import com.cars24.fraud_detection.exception.DocumentProcessingException;
+import com.cars24.fraud_detection.service.AgentStatsService;
+import com.cars24.fraud_detection.service.LeadInsightsCacheService;
 import com.cars24.fraud_detection.service.DocumentService;
 import com.cars24.fraud_detection.workflow.WorkflowInitiator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -37,61 +38,97 @@ public class DocumentServiceImpl implements DocumentService {
     private String storagePath;
 
     private final DocumentTypeConfig documentTypeConfig;
+    private final AgentStatsService agentStatsService;
+    private final LeadInsightsCacheService leadInsightsCache;
 
     public DocumentServiceImpl(DocumentDao documentDao, LeadDao leadDao,
                                @Qualifier("documentWorkflow") WorkflowInitiator workflowInitiator,
-                               DocumentTypeConfig documentTypeConfig) { // Include docTypeConfig
+                               DocumentTypeConfig documentTypeConfig, // Include docTypeConfig
+                               AgentStatsService agentStatsService,
+                               LeadInsightsCacheService leadInsightsCache) {
         this.documentDao = documentDao;
         this.leadDao = leadDao;
         this.workflowInitiator = workflowInitiator;
         this.documentTypeConfig = documentTypeConfig; // Include docTypeConfig
+        this.agentStatsService = agentStatsService;
+        this.leadInsightsCache = leadInsightsCache;
     }
 
     @Override
     public DocumentResponse processDocument(DocumentRequest request) {
 
         try {
-            // 1. Validate Lead Existence
-            LeadEntity lead = leadDao.findLeadById(request.getLeadId())
-                    .orElseThrow(() -> new DocumentProcessingException("Lead not found with ID: " + request.getLeadId()));
-
-            // 2.  Generate unique file path
-            String archivePath = findDocumentPath(request.getFileName());
-
-            // 3. Run workflow (OCR, Validation, Quality, Forgery Detection)
-            DocumentResponse response = workflowInitiator.processDocument(request);
-            log.debug("Workflow execution completed for file: {}, Result: {}", request.getFileName(), response);
-
-            // 4. Create and save the DocumentEntity
-            DocumentEntity documentEntity = DocumentEntity.builder()
-                    .leadId(request.getLeadId())
-                    .agentId(request.getAgentId())
-                    .documentType(request.getDocumentType())
-                    .fileName(request.getFileName())
-                    .filePath(archivePath)
-                    .ocrResults(response.getOcrResults())
-                    .qualityResults(response.getQualityResults())
-                    .forgeryResults(response.getForgeryResults())
-                    .validationResults(response.getValidationResults())
-                    .finalRiskScore(response.getFinalRiskScore())
-                    .riskLevel(response.getRiskLevel())
-                    .decision(response.getDecision())
-                    .nextSteps(response.getNextSteps())
-                    .status(response.isValid() ? "COMPLETED" : "FAILED")
-                    .remarks(response.getRemarks())
-                    .build();
-
-            DocumentEntity savedDocument = documentDao.saveDocument(documentEntity);
-
-            // 5. Map saved entity to DTO and return
-            return savedDocument.toResponse();
-
+            prepareDocument(request);
+            DocumentResponse response = analyseDocument(request);
+            return saveDocumentResult(request, response);
         } catch (Exception e) {
             log.error("Error processing document for lead {}: {}", request.getLeadId(), e.getMessage(), e);
             throw new DocumentProcessingException("Failed to process document: " + e.getMessage());
         }
     }
 
+    @Override
+    public void prepareDocument(DocumentRequest request) {
+        // 1. Validate Lead Existence
+        LeadEntity lead = leadDao.findLeadById(request.getLeadId())
+                .orElseThrow(() -> new DocumentProcessingException("Lead not found with ID: " + request.getLeadId()));
+
+        // Validation compares OCR output with the lead's own record, so hand it over with the request
+        request.setGroundTruth(groundTruthFor(lead, request.getDocumentType()));
+    }
+
+    @Override
+    public DocumentResponse analyseDocument(DocumentRequest request) {
+        // 2. Run workflow (OCR, Validation, Quality, Forgery Detection)
+        DocumentResponse response = workflowInitiator.processDocument(request);
+        log.debug("Workflow execution completed for file: {}, Result: {}", request.getFileName(), response);
+        return response;
+    }
+
+    @Override
+    public DocumentResponse saveDocumentResult(DocumentRequest request, DocumentResponse response) {
+        // 3. The request carries the stored file, resolved by the blob store
+        String filePath = request.getDocumentPath() != null ? request.getDocumentPath().toString() : null;
+
+        // 4. Create and save the DocumentEntity
+        DocumentEntity documentEntity = DocumentEntity.builder()
+                .leadId(request.getLeadId())
+                .agentId(request.getAgentId())
+                .documentType(request.getDocumentType())
+                .fileName(request.getFileName())
+                .filePath(filePath)
+                .contentHash(request.getContentHash())
+                .ocrResults(response.getOcrResults())
+                .qualityResults(response.getQualityResults())
+                .forgeryResults(response.getForgeryResults())
+                .validationResults(response.getValidationResults())
+                .finalRiskScore(response.getFinalRiskScore())
+                .riskLevel(response.getRiskLevel())
+                .decision(response.getDecision())
+                .nextSteps(response.getNextSteps())
+                .status(response.isValid() ? "COMPLETED" : "FAILED")
+                .remarks(response.getRemarks())
+                .build();
+
+        DocumentEntity savedDocument = documentDao.saveDocument(documentEntity);
+        agentStatsService.recordDocument(savedDocument);
+        leadInsightsCache.evict(savedDocument.getLeadId());
+
+        // 5. Map saved entity to DTO and return
+        return savedDocument.toResponse();
+    }
+
+    private Object groundTruthFor(LeadEntity lead, String documentType) {
+        DocumentType type = DocumentType.from(documentType).orElse(null);
+        if (type == DocumentType.AADHAAR) {
+            return AadhaarGroundTruth.fromLeadEntity(lead);
+        }
+        if (type == DocumentType.PAN) {
+            return PanGroundTruth.fromLeadEntity(lead);
+        }
+        throw new DocumentProcessingException("No ground truth for document type: " + documentType);
+    }
+
     @Override
     public DocumentResponse getDocumentById(String documentId) {
         DocumentEntity entity = documentDao.getDocumentById(documentId)
@@ -113,15 +150,15 @@ public class DocumentServiceImpl implements DocumentService {
     public List<String> getRecentDocumentNames(String leadId, int limit) {
         log.info("Fetching last {} documents for lead ID: {}", limit, leadId);
 
-        List<DocumentEntity> recentDocs = documentDao.getRecentDocumentsByLeadId(leadId, limit);
+        List<DocumentSummary> recentDocs = documentDao.getRecentDocumentSummariesByLeadId(leadId, limit);
 
         log.info("Total documents fetched: {}", recentDocs.size());
-        for (DocumentEntity doc : recentDocs) {
+        for (DocumentSummary doc : recentDocs) {
             log.info("Found Document: {} with timestamp: {}", doc.getFileName(), doc.getTimestamp());
         }
 
         return recentDocs.stream()
-                .map(DocumentEntity::getFileName) // Extract only the file names
+                .map(DocumentSummary::getFileName) // Extract only the file names
                 .collect(Collectors.toList());
     }
 
@@ -151,17 +188,6 @@ public class DocumentServiceImpl implements DocumentService {
     }
 
 
-    private String findDocumentPath(String fileName) {
-        String archiveDir = "src/main/resources/document_storage/archive";
-        File folder = new File(archiveDir);
-        Optional<File> matchingFile = Arrays.stream(folder.listFiles())
-                .filter(file -> file.getName().endsWith(fileName))
-                .findFirst();
-
-        return matchingFile.map(file -> file.getAbsolutePath()
-                        .replace(new File("").getAbsolutePath() + File.separator, ""))
-                .orElse(null);
-    }
     public Optional<DocumentEntity> getDocumentByIdAndType(String documentId, String documentType) {
         return documentDao.findByIdAndDocumentType(documentId, documentType);
     }
@@ -170,16 +196,15 @@ public class DocumentServiceImpl implements DocumentService {
     public List<String> getRecentPanId(String leadId, int limit, String pan) {
         log.info("Fetching last {} {} docs for lead ID: {}", limit, pan, leadId);
 
-        Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "timestamp"));
-        List<DocumentEntity> recentDocs = documentDao.getRecentDocumentsByLeadIdAndType(leadId, pan, pageable);
+        List<DocumentSummary> recentDocs = documentDao.getRecentDocumentSummariesByLeadIdAndType(leadId, pan, limit);
 
         log.info("Total {} pan docs fetched: {}", pan, recentDocs.size());
-        for (DocumentEntity doc : recentDocs) {
+        for (DocumentSummary doc : recentDocs) {
             log.info("Found {} pan doc: {} with timestamp: {}", pan, doc.getId(), doc.getTimestamp());
         }
 
         return recentDocs.stream()
-                .map(DocumentEntity::getId) // Extract only the file names
+                .map(DocumentSummary::getId) // Extract only the file names
                 .collect(Collectors.toList());
     }
 
@@ -187,16 +212,15 @@ public class DocumentServiceImpl implements DocumentService {
     public List<String> getRecentAadharId(String leadId, int limit, String aadhaar) {
         log.info("Fetching last {} {} aadhar docs for lead ID: {}", limit, aadhaar, leadId);
 
-        Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "timestamp"));
-        List<DocumentEntity> recentDocs = documentDao.getRecentDocumentsByLeadIdAndType(leadId, aadhaar, pageable);
+        List<DocumentSummary> recentDocs = documentDao.getRecentDocumentSummariesByLeadIdAndType(leadId, aadhaar, limit);
 
         log.info("Total {} aadhars docs fetched: {}", aadhaar, recentDocs.size());
-        for (DocumentEntity doc : recentDocs) {
+        for (DocumentSummary doc : recentDocs) {
             log.info("Found {} aadhar doc: {} with timestamp: {}", aadhaar, doc.getId(), doc.getTimestamp());
         }
 
         return recentDocs.stream()
-                .map(DocumentEntity::getId) // Extract only the file names
+                .map(DocumentSummary::getId) // Extract only the file names
                 .collect(Collectors.toList());
     }
 
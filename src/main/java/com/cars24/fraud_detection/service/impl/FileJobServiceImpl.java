@@ -0,0 +1,92 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.FileDao;
+import com.cars24.fraud_detection.data.dao.FileJobDao;
+import com.cars24.fraud_detection.data.entity.DocumentType;
+import com.cars24.fraud_detection.data.entity.FileEntity;
+import com.cars24.fraud_detection.data.entity.FileJobEntity;
+import com.cars24.fraud_detection.service.FileJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileJobServiceImpl implements FileJobService {
+
+    private static final List<String> UNFINISHED_FILE_STATUSES = List.of("PENDING", "PROCESSING");
+
+    private final FileJobDao fileJobDao;
+    private final FileDao fileDao;
+
+    @Value("${file.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Override
+    public void enqueue(FileEntity file) {
+        FileJobEntity job = newJob(file, LocalDateTime.now());
+        if (fileJobDao.enqueue(job)) {
+            log.info("Queued {} job for file {}", job.getJobType(), file.getFileId());
+        } else {
+            log.info("File {} already has a job, not queueing again", file.getFileId());
+        }
+    }
+
+    @Override
+    public void enqueueAll(List<FileEntity> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<FileJobEntity> jobs = files.stream().map(file -> newJob(file, now)).toList();
+        int queued = fileJobDao.enqueueAll(jobs);
+        log.info("Queued {} of {} file jobs in one batch", queued, jobs.size());
+    }
+
+    private FileJobEntity newJob(FileEntity file, LocalDateTime now) {
+        FileJobEntity.JobType jobType = jobTypeFor(file.getFileType());
+        FileJobEntity job = new FileJobEntity();
+        job.setId(file.getFileId());
+        job.setFileId(file.getFileId());
+        job.setJobType(jobType);
+        job.setStatus(FileJobEntity.Status.PENDING);
+        job.setMaxAttempts(maxAttempts);
+        job.setNextAttemptAt(now);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        return job;
+    }
+
+    @Override
+    public int resumeInterruptedJobs() {
+        long released = fileJobDao.releaseExpiredLeases(LocalDateTime.now());
+        if (released > 0) {
+            log.warn("Resuming {} file jobs whose worker lease expired", released);
+        }
+
+        // Files uploaded before the job queue existed have no job yet
+        int queued = 0;
+        for (FileEntity file : fileDao.findByStatusIn(UNFINISHED_FILE_STATUSES)) {
+            if (fileJobDao.findById(file.getFileId()).isEmpty()) {
+                enqueue(file);
+                queued++;
+            }
+        }
+        if (queued > 0) {
+            log.warn("Queued {} unfinished files that had no job", queued);
+        }
+        return (int) released + queued;
+    }
+
+    // Uploads store the type's key, e.g. REFERENCE_CALL; older files may carry the display name
+    private static FileJobEntity.JobType jobTypeFor(String fileType) {
+        return DocumentType.from(fileType).filter(type -> type == DocumentType.REFERENCE_CALL).isPresent()
+                ? FileJobEntity.JobType.AUDIO
+                : FileJobEntity.JobType.DOCUMENT;
+    }
+}
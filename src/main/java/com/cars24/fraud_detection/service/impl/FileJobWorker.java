@@ -0,0 +1,213 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.FileDao;
+import com.cars24.fraud_detection.data.dao.FileJobDao;
+import com.cars24.fraud_detection.data.entity.FileEntity;
+import com.cars24.fraud_detection.data.entity.FileJobEntity;
+import com.cars24.fraud_detection.service.FileJobService;
+import com.cars24.fraud_detection.utils.WorkerThreads;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the file_jobs collection and runs claimed jobs. A job is leased while it runs and the lease
+ * is renewed by a heartbeat, so a job abandoned by a crashed instance is claimed again once the
+ * lease runs out. Failed jobs are retried with exponential backoff, then dead-lettered.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileJobWorker {
+
+    private final FileJobDao fileJobDao;
+    private final FileDao fileDao;
+    private final FileJobService fileJobService;
+    private final FileProcessingService fileProcessingService;
+    private final WorkerThreads workerThreads;
+
+    private final String workerId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    private volatile boolean running;
+    private ExecutorService pollers;
+    private ScheduledExecutorService heartbeats;
+
+    @Value("${file.jobs.worker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.jobs.worker.threads:4}")
+    private int threadCount;
+
+    @Value("${file.jobs.worker.poll-interval-ms:2000}")
+    private long pollIntervalMillis;
+
+    @Value("${file.jobs.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${file.jobs.retry.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${file.jobs.retry.max-backoff-seconds:900}")
+    private long maxBackoffSeconds;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        int resumed = fileJobService.resumeInterruptedJobs();
+        log.info("File job worker {} starting {} threads ({} interrupted jobs resumed)", workerId, threadCount, resumed);
+
+        running = true;
+        heartbeats = Executors.newSingleThreadScheduledExecutor(workerThreads.factory("FileJobHeartbeat"));
+        // Each poller runs one job at a time, so the poller count is the cap on concurrent jobs
+        pollers = workerThreads.executor("FileJobWorker", threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            pollers.execute(this::pollLoop);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (pollers != null) {
+            pollers.shutdownNow();
+        }
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+        }
+        // Jobs still in flight keep their lease until it expires, then another instance resumes them
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                if (!pollOnce()) {
+                    Thread.sleep(pollIntervalMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("File job poll failed, backing off", e);
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims and runs at most one job. Returns false when no job was due.
+     */
+    boolean pollOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<FileJobEntity> claimed = fileJobDao.claimNext(workerId, now, now.plusSeconds(leaseSeconds));
+        if (claimed.isEmpty()) {
+            return false;
+        }
+        runJob(claimed.get());
+        return true;
+    }
+
+    private void runJob(FileJobEntity job) {
+        // A job that keeps losing its lease (e.g. the process dies mid-run) must not loop forever
+        if (job.getAttempts() > job.getMaxAttempts()) {
+            deadLetter(job, "Gave up after " + job.getMaxAttempts() + " attempts; last error: " + job.getLastError());
+            return;
+        }
+
+        Optional<FileEntity> file = fileDao.findById(job.getFileId());
+        if (file.isEmpty()) {
+            deadLetter(job, "File not found: " + job.getFileId());
+            return;
+        }
+
+        log.info("Running {} job for file {} (attempt {}/{})", job.getJobType(), job.getFileId(), job.getAttempts(), job.getMaxAttempts());
+        // A job handed out again finds its file still PROCESSING from the attempt before
+        if (job.getAttempts() <= 1 || fileDao.reclaimProcessing(job.getFileId()).isEmpty()) {
+            fileDao.updateStatus(job.getFileId(), "PROCESSING");
+        }
+        ScheduledFuture<?> heartbeat = startHeartbeat(job);
+        try {
+            fileProcessingService.process(file.get(), job.getJobType());
+            if (fileJobDao.complete(job.getId(), workerId, LocalDateTime.now())) {
+                fileDao.updateStatus(job.getFileId(), "PROCESSED").ifPresentOrElse(
+                        processed -> log.info("File {} processed successfully (queued {} ms, processing {} ms, total {} ms)",
+                                job.getFileId(), processed.getQueuedMillis(), processed.getProcessingMillis(), processed.getTotalMillis()),
+                        () -> log.info("File {} processed successfully", job.getFileId()));
+            } else {
+                log.warn("Lease on job {} was lost before it completed; result left to the current owner", job.getId());
+            }
+        } catch (Exception e) {
+            handleFailure(job, e);
+        } finally {
+            if (heartbeat != null) {
+                heartbeat.cancel(false);
+            }
+        }
+    }
+
+    private void handleFailure(FileJobEntity job, Exception e) {
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        if (job.getAttempts() >= job.getMaxAttempts()) {
+            log.error("Job for file {} failed on its last attempt", job.getFileId(), e);
+            deadLetter(job, error);
+            return;
+        }
+
+        Duration backoff = backoff(job.getAttempts());
+        log.warn("Job for file {} failed (attempt {}/{}), retrying in {}s: {}",
+                job.getFileId(), job.getAttempts(), job.getMaxAttempts(), backoff.toSeconds(), error);
+        // The file stays PROCESSING; the retry reclaims it when the job is handed out again
+        fileJobDao.reschedule(job.getId(), workerId, LocalDateTime.now().plus(backoff), error);
+    }
+
+    private void deadLetter(FileJobEntity job, String error) {
+        if (fileJobDao.deadLetter(job.getId(), workerId, error)) {
+            fileDao.updateStatus(job.getFileId(), "FAILED");
+        }
+        log.error("Job for file {} dead-lettered: {}", job.getFileId(), error);
+    }
+
+    /**
+     * initial * 2^(attempt - 1), capped at the configured maximum.
+     */
+    Duration backoff(int attempt) {
+        long seconds = initialBackoffSeconds << Math.min(Math.max(attempt - 1, 0), 20);
+        return Duration.ofSeconds(Math.min(seconds, maxBackoffSeconds));
+    }
+
+    private ScheduledFuture<?> startHeartbeat(FileJobEntity job) {
+        if (heartbeats == null) {
+            return null;
+        }
+        long periodSeconds = Math.max(1, leaseSeconds / 3);
+        return heartbeats.scheduleAtFixedRate(() -> {
+            try {
+                if (!fileJobDao.extendLease(job.getId(), workerId, LocalDateTime.now().plusSeconds(leaseSeconds))) {
+                    log.warn("Could not extend lease on job {}; another worker may take it over", job.getId());
+                }
+            } catch (Exception e) {
+                log.warn("Heartbeat for job {} failed: {}", job.getId(), e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+}
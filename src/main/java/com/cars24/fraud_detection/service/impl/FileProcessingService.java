@@ -0,0 +1,103 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.FileDao;
+import com.cars24.fraud_detection.data.entity.FileEntity;
+import com.cars24.fraud_detection.data.entity.FileJobEntity;
+import com.cars24.fraud_detection.data.request.AudioRequest;
+import com.cars24.fraud_detection.data.request.DocumentRequest;
+import com.cars24.fraud_detection.data.response.AudioResponse;
+import com.cars24.fraud_detection.data.response.DocumentResponse;
+import com.cars24.fraud_detection.service.AudioService;
+import com.cars24.fraud_detection.service.BlobStore;
+import com.cars24.fraud_detection.service.DocumentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * Runs the workflow for an uploaded file on behalf of {@link FileJobWorker}. Failures are thrown
+ * so the worker can retry or dead-letter the job; file status is maintained by the worker.
+ * The stored upload is handed over by path and never loaded into memory here.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileProcessingService {
+
+    private final AudioService audioService;
+    private final DocumentService documentService;
+    private final FileDao fileDao;
+    private final BlobStore blobStore;
+
+    public void process(FileEntity fileEntity, FileJobEntity.JobType jobType) throws Exception {
+        if (jobType == FileJobEntity.JobType.AUDIO) {
+            processAudio(fileEntity);
+        } else {
+            processDocument(fileEntity);
+        }
+    }
+
+    public void processAudio(FileEntity fileEntity) throws Exception {
+        log.info("Processing audio file: {}", fileEntity.getFileId());
+
+        AudioRequest audioRequest = new AudioRequest();
+        audioRequest.setUuid(fileEntity.getFileId());
+        audioRequest.setAgentId(fileEntity.getAgentId());
+        audioRequest.setLeadId(fileEntity.getLeadId());
+        audioRequest.setAudioPath(storedFile(fileEntity));
+        audioRequest.setContentHash(fileEntity.getContentHash());
+        audioRequest.setDocumentType(fileEntity.getFileType());
+
+        // Call the audio processing service
+        AudioResponse response = audioService.processAudioRequest(audioRequest);
+        log.info("Audio processing completed: {}", response);
+        linkResult(fileEntity, response.getId());
+    }
+
+    public void processDocument(FileEntity fileEntity) throws Exception {
+        log.info("Processing document file: {}", fileEntity.getFileId());
+
+        DocumentRequest documentRequest = new DocumentRequest();
+        documentRequest.setAgentId(fileEntity.getAgentId());
+        documentRequest.setLeadId(fileEntity.getLeadId());
+        documentRequest.setDocumentType(fileEntity.getFileType());
+        documentRequest.setFileName(fileEntity.getOriginalFilename());
+        documentRequest.setDocumentPath(storedFile(fileEntity));
+        documentRequest.setContentHash(fileEntity.getContentHash());
+
+        // Call the document processing service
+        DocumentResponse response = documentService.processDocument(documentRequest);
+        log.info("Document processing completed: {}", response);
+        linkResult(fileEntity, response.getDocumentId());
+    }
+
+    /**
+     * Points the file at the result it produced, so the active results of a lead can be loaded by ID.
+     */
+    private void linkResult(FileEntity fileEntity, String resultId) {
+        if (resultId == null) {
+            log.warn("No result ID returned for file {}; it will not be linked", fileEntity.getFileId());
+            return;
+        }
+        fileDao.linkResult(fileEntity.getFileId(), resultId);
+        fileEntity.setResultId(resultId);
+    }
+
+    private Path storedFile(FileEntity fileEntity) throws IOException {
+        Path path = Paths.get(fileEntity.getFilePath());
+        if (path.toFile().isFile()) {
+            return path;
+        }
+        // A blob kept in GridFS may not be cached on this instance yet
+        Optional<Path> blob = fileEntity.getContentHash() != null
+                ? blobStore.localPath(fileEntity.getContentHash())
+                : Optional.empty();
+        return blob.orElseThrow(() -> new NoSuchFileException(fileEntity.getFilePath()));
+    }
+}
@@ -2,170 +2,199 @@ package com.cars24.fraud_detection.service.impl;
 
 import com.cars24.fraud_detection.data.dao.FileDao;
 import com.cars24.fraud_detection.data.entity.FileEntity;
-import com.cars24.fraud_detection.config.DocumentTypeConfig;
 import com.cars24.fraud_detection.data.request.AudioRequest;
 import com.cars24.fraud_detection.data.request.DocumentRequest;
 import com.cars24.fraud_detection.data.response.AudioResponse;
 import com.cars24.fraud_detection.data.response.DocumentResponse;
 import com.cars24.fraud_detection.data.response.FileResponse; // Import FileResponse
+import com.cars24.fraud_detection.data.response.FileUploadResult;
 import com.cars24.fraud_detection.exception.AudioProcessingException;
 import com.cars24.fraud_detection.service.AudioService;
+import com.cars24.fraud_detection.service.BlobStore;
+import com.cars24.fraud_detection.service.BlobStore.StoredBlob;
 import com.cars24.fraud_detection.service.DocumentService;
+import com.cars24.fraud_detection.service.FileJobService;
 import com.cars24.fraud_detection.service.FileService;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.cars24.fraud_detection.utils.FileSignature;
+import com.cars24.fraud_detection.utils.WorkerThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.mock.web.MockMultipartFile;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FileServiceImpl implements FileService {
 
-    private static final String AUDIO_STORAGE_PATH = "src/main/resources/audio_storage"; // Correct Path
-    private static final String DOCUMENT_STORAGE_PATH = "src/main/resources/document_storage";  // Correct Path
+    private static final String UPLOAD_FAILED = "File upload failed";
+    private static final String QUEUE_FAILED = "File was stored but could not be queued for processing";
+
     private final FileDao fileDao;
-    private final DocumentTypeConfig documentTypeConfig;
-    private final AsyncFileProcessingService asyncFileProcessingService;
+    private final FileJobService fileJobService;
+    private final BlobStore blobStore;
 
     private final DocumentService documentService;
     private final AudioService audioService;
+    private final WorkerThreads workerThreads;
+
+    // Shared by all multi-file uploads, so concurrent requests cannot open unbounded disk writes
+    @Value("${file.upload.parallelism:4}")
+    private int uploadParallelism;
+
+    private ExecutorService uploadExecutor;
+
+    @PostConstruct
+    void startUploadExecutor() {
+        uploadExecutor = workerThreads.boundedExecutor("FileUpload", uploadParallelism);
+    }
+
+    @PreDestroy
+    void stopUploadExecutor() {
+        uploadExecutor.shutdown();
+    }
 
     @Override
     @Transactional
-    public FileEntity uploadFile(String agentId, String leadId, String fileType, String originalFilename, byte[] fileData) {
+    public FileEntity uploadFile(String agentId, String leadId, String fileType, String originalFilename, InputStream content) {
+        FileEntity savedFile = storeFile(agentId, leadId, fileType, originalFilename, content);
+
+        // Queue processing; a worker picks the job up, even after a restart
+        fileJobService.enqueue(savedFile);
+
+        log.info("File uploaded successfully and queued for processing.");
+        return savedFile;
+    }
+
+    /**
+     * Writes the upload to storage and records it as the active file of its type, without queueing it.
+     */
+    private FileEntity storeFile(String agentId, String leadId, String fileType, String originalFilename, InputStream content) {
         // Validate file type against allowed values
         List<String> allowedTypes = List.of("REFERENCE_CALL", "AADHAAR", "PAN");
         if (!allowedTypes.contains(fileType.toUpperCase())) {
             throw new IllegalArgumentException("Invalid file type");
         }
 
-        // Get the designated storage path securely
-        String storagePath = determineStoragePath(fileType);
-
-        // Ensure directory exists
-        File storageDir = new File(storagePath);
-        if (!storageDir.exists() && !storageDir.mkdirs()) {
-            throw new RuntimeException("Failed to create storage directory: " + storagePath);
-        }
-
         // Validate and extract the file extension
         String fileExtension = extractFileExtension(originalFilename);
         if (fileExtension == null) {
             throw new IllegalArgumentException("Invalid file type");
         }
-
-        // Securely generate a unique file within the allowed directory
-        File tempFile;
-        try {
-            tempFile = File.createTempFile(UUID.randomUUID().toString() + "-" + fileType, fileExtension, storageDir);
+        FileSignature claimedType = FileSignature.fromFileName(originalFilename)
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported file type"));
+
+        // Stream the upload into the blob store; its content must really be the type the name claims,
+        // and content uploaded before is referenced again instead of stored twice
+        StoredBlob blob;
+        try (InputStream in = content) {
+            blob = blobStore.put(in, Set.of(claimedType));
         } catch (IOException e) {
-            log.error("Error creating temp file in directory: {}", storagePath, e);
-            throw new RuntimeException("File upload failed: Unable to create file.");
-        }
-
-        // Save file to secure location
-        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-            fos.write(fileData);
-        } catch (IOException e) {
-            log.error("Error saving file: {}", tempFile.getAbsolutePath(), e);
+            log.error("Error saving file {}", originalFilename, e);
             throw new RuntimeException("File upload failed");
         }
+        String storedName = UUID.randomUUID() + "-" + fileType + fileExtension;
 
-        // Mark all existing files as INACTIVE
-        List<FileEntity> existingFiles = fileDao.findByAgentIdAndLeadIdAndFileType(agentId, leadId, fileType);
-        for (FileEntity existingFile : existingFiles) {
-            existingFile.setIsActive(Boolean.FALSE);
-            fileDao.save(existingFile);
-        }
-
-        // Create and save new FileEntity
-        FileEntity newFile = new FileEntity(agentId, leadId, tempFile.getName(), fileType, originalFilename);
+        // Create the new FileEntity; saving it as active deactivates every earlier file of this type
+        FileEntity newFile = new FileEntity(agentId, leadId, storedName, fileType, originalFilename);
         newFile.setStatus("PENDING");
-        newFile.setIsActive(Boolean.TRUE);
         newFile.setUploadedAt(LocalDateTime.now());
-        newFile.setFilePath(tempFile.getAbsolutePath());
-
-        FileEntity savedFile = fileDao.save(newFile);
-
-        // Trigger async processing based on file type
-        if (documentTypeConfig.getDocumentDisplayName("REFERENCE_CALL").equalsIgnoreCase(fileType)) {
-            asyncFileProcessingService.processAsyncAudio(savedFile);
-        } else {
-            asyncFileProcessingService.processAsyncDocument(savedFile);
+        newFile.setFilePath(blob.path().toAbsolutePath().toString());
+        newFile.setContentHash(blob.sha256());
+        newFile.setSizeBytes(blob.size());
+        try {
+            return fileDao.insertActive(newFile);
+        } catch (RuntimeException e) {
+            blobStore.release(blob.sha256());
+            throw e;
         }
-
-        log.info("File uploaded successfully and async processing started.");
-        return savedFile;
     }
 
 
 
 
-    @Transactional
     @Override
-    public List<FileResponse> uploadMultipleFiles(String agentId, String leadId, List<String> fileTypes, List<MultipartFile> files) {
-        List<FileResponse> responses = new ArrayList<>();
+    public List<FileUploadResult> uploadMultipleFiles(String agentId, String leadId, List<String> fileTypes, List<MultipartFile> files) {
+        if (fileTypes.size() != files.size()) {
+            throw new IllegalArgumentException("Expected one file type per file, got " + fileTypes.size() + " for " + files.size() + " files");
+        }
 
+        List<CompletableFuture<FileEntity>> uploads = new ArrayList<>();
         for (int i = 0; i < files.size(); i++) {
             MultipartFile file = files.get(i);
             String fileType = fileTypes.get(i);  // Get corresponding file type
+            uploads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return storeFile(agentId, leadId, fileType, file.getOriginalFilename(), file.getInputStream());
+                } catch (IOException e) {
+                    throw new CompletionException(new RuntimeException("Failed to read file: " + file.getOriginalFilename(), e));
+                }
+            }, uploadExecutor));
+        }
 
+        List<FileUploadResult> results = new ArrayList<>();
+        List<FileEntity> storedFiles = new ArrayList<>();
+        List<Integer> storedIndexes = new ArrayList<>();
+        for (int i = 0; i < uploads.size(); i++) {
             try {
-                byte[] fileData = file.getBytes();
-                FileEntity savedFile = uploadFile(agentId, leadId, fileType, file.getOriginalFilename(), fileData);
-
-                responses.add(new FileResponse(
-                        savedFile.getFileId(),
-                        savedFile.getAgentId(),
-                        savedFile.getLeadId(),
-                        savedFile.getOriginalFilename(),
-                        savedFile.getFileType(),
-                        savedFile.getFilePath(),
-                        savedFile.getStatus(),
-                        savedFile.getIsActive(),
-                        savedFile.getUploadedAt()
-                ));
-            } catch (IOException e) {
-                log.error("Error reading file: {}", file.getOriginalFilename(), e);
-                throw new RuntimeException("Failed to read file: " + file.getOriginalFilename());
+                FileEntity savedFile = uploads.get(i).join();
+                storedFiles.add(savedFile);
+                storedIndexes.add(i);
+                results.add(FileUploadResult.uploaded(files.get(i).getOriginalFilename(), FileResponse.from(savedFile)));
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Upload of {} failed: {}", files.get(i).getOriginalFilename(), cause.getMessage(), cause);
+                results.add(FileUploadResult.failed(files.get(i).getOriginalFilename(), fileTypes.get(i), clientError(cause)));
             }
         }
 
-        return responses;
-    }
-
-
-    private String determineStoragePath(String fileType) {
-        List<String> allowedTypes = List.of("REFERENCE_CALL", "AADHAAR", "PAN"); // Define allowed types
-
-        if (!allowedTypes.contains(fileType.toUpperCase())) {
-            throw new IllegalArgumentException("Invalid file type");
-        }
-
-        if (documentTypeConfig.getDocumentDisplayName("REFERENCE_CALL").equalsIgnoreCase(fileType)) {
-            return AUDIO_STORAGE_PATH;
-        } else {
-            return DOCUMENT_STORAGE_PATH;
+        // One write for all jobs; if it fails, each file is queued on its own and a file that still
+        // has no job is reported as failed
+        try {
+            fileJobService.enqueueAll(storedFiles);
+        } catch (Exception e) {
+            log.error("Could not queue {} uploaded files in one batch, queueing them one by one: {}", storedFiles.size(), e.getMessage(), e);
+            for (int j = 0; j < storedFiles.size(); j++) {
+                try {
+                    fileJobService.enqueue(storedFiles.get(j));
+                } catch (Exception enqueueError) {
+                    int i = storedIndexes.get(j);
+                    log.error("Could not queue {} for processing: {}", files.get(i).getOriginalFilename(), enqueueError.getMessage(), enqueueError);
+                    results.set(i, FileUploadResult.failed(files.get(i).getOriginalFilename(), fileTypes.get(i), QUEUE_FAILED));
+                }
+            }
         }
+        return results;
     }
 
+    /**
+     * Message reported for a file that failed: validation errors are the service's own messages,
+     * anything else stays in the log.
+     */
+    private static String clientError(Throwable cause) {
+        return cause instanceof IllegalArgumentException ? cause.getMessage() : UPLOAD_FAILED;
+    }
 
 
     private String extractFileExtension(String originalFilename) {
@@ -173,20 +202,12 @@ public class FileServiceImpl implements FileService {
             throw new IllegalArgumentException("Invalid file name");
         }
 
-        String extension = originalFilename.substring(originalFilename.lastIndexOf(".")).toLowerCase();
-
-        List<String> allowedExtensions = List.of(".pdf", ".doc", ".docx", ".jpg", ".png", ".mp3", ".wav");
-
-        if (!allowedExtensions.contains(extension)) {
+        // Only extensions whose content FileSignature can verify are accepted
+        if (FileSignature.fromFileName(originalFilename).isEmpty()) {
             throw new IllegalArgumentException("Unsupported file type");
         }
 
-        return extension;
-    }
-
-    private byte[] readFileAsBytes(String filePath) throws IOException {
-        File file = new File(filePath);
-        return java.nio.file.Files.readAllBytes(file.toPath());
+        return originalFilename.substring(originalFilename.lastIndexOf(".")).toLowerCase(Locale.ROOT);
     }
 
     @Override
@@ -0,0 +1,103 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.service.BlobBackend;
+import com.cars24.fraud_detection.utils.FileSignature;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsCriteria;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps blob content in GridFS, named by its hash, so every instance sees the same uploads. The
+ * scripts need a file on disk, so a blob is also kept in a local cache under the same fan-out
+ * layout and fetched from GridFS when the cache does not have it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "blob.store.backend", havingValue = "gridfs")
+public class GridFsBlobBackend implements BlobBackend {
+
+    private final GridFsTemplate gridFsTemplate;
+
+    @Value("${blob.store.path:src/main/resources/blob_store}")
+    private String cachePath;
+
+    @Override
+    public boolean contains(String sha256, FileSignature signature) {
+        return gridFsTemplate.findOne(byName(sha256)) != null;
+    }
+
+    @Override
+    public Path write(String sha256, FileSignature signature, Path staged) throws IOException {
+        if (!contains(sha256, signature)) {
+            try (InputStream in = Files.newInputStream(staged)) {
+                gridFsTemplate.store(in, sha256, signature.getMediaType());
+            }
+        }
+        Path cached = cachedPath(sha256, signature);
+        Files.createDirectories(cached.getParent());
+        moveIntoPlace(staged, cached);
+        return cached;
+    }
+
+    @Override
+    public Path localPath(String sha256, FileSignature signature) throws IOException {
+        Path cached = cachedPath(sha256, signature);
+        if (Files.isRegularFile(cached)) {
+            return cached;
+        }
+        GridFSFile file = gridFsTemplate.findOne(byName(sha256));
+        if (file == null) {
+            throw new NoSuchFileException(sha256);
+        }
+        Files.createDirectories(cached.getParent());
+        Path partial = Files.createTempFile(cached.getParent(), sha256, ".part");
+        try {
+            try (InputStream in = gridFsTemplate.getResource(file).getInputStream()) {
+                Files.copy(in, partial, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moveIntoPlace(partial, cached);
+            log.debug("Fetched blob {} from GridFS into {}", sha256, cached);
+            return cached;
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    @Override
+    public void delete(String sha256, FileSignature signature) throws IOException {
+        gridFsTemplate.delete(byName(sha256));
+        LocalBlobBackend.deleteWithDerivedFiles(cachedPath(sha256, signature), sha256);
+    }
+
+    private Path cachedPath(String sha256, FileSignature signature) {
+        return BlobBackend.fanOutPath(Paths.get(cachePath), sha256, signature);
+    }
+
+    private static Query byName(String sha256) {
+        return Query.query(GridFsCriteria.whereFilename().is(sha256));
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
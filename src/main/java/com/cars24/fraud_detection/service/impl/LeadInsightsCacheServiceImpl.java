@@ -0,0 +1,82 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.entity.InsightsEntity;
+import com.cars24.fraud_detection.service.LeadInsightsCacheService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class LeadInsightsCacheServiceImpl implements LeadInsightsCacheService {
+
+    private final AtomicLong evictions = new AtomicLong();
+    private Map<String, CachedInsights> memory;
+
+    @Value("${leads.insights.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${leads.insights.cache.max-entries:1000}")
+    private int maxEntries;
+
+    // Saves on another instance do not evict here, so entries also expire
+    @Value("${leads.insights.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @PostConstruct
+    void init() {
+        int capacity = Math.max(1, maxEntries);
+        memory = Collections.synchronizedMap(new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedInsights> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    @Override
+    public List<InsightsEntity> get(String leadId, Supplier<List<InsightsEntity>> loader) {
+        if (!enabled || leadId == null) {
+            return loader.get();
+        }
+
+        CachedInsights cached = memory.get(leadId);
+        if (cached != null && !cached.isExpired(ttlSeconds)) {
+            log.debug("Insights for lead {} served from cache", leadId);
+            return cached.insights();
+        }
+
+        // A save that lands while the insights are being assembled may not be in them; such a
+        // result is returned but not cached
+        long evictionsBefore = evictions.get();
+        List<InsightsEntity> insights = List.copyOf(loader.get());
+        if (evictions.get() == evictionsBefore) {
+            memory.put(leadId, new CachedInsights(insights, System.nanoTime()));
+        }
+        return insights;
+    }
+
+    @Override
+    public void evict(String leadId) {
+        evictions.incrementAndGet();
+        if (leadId != null) {
+            memory.remove(leadId);
+        }
+    }
+
+    private record CachedInsights(List<InsightsEntity> insights, long loadedAtNanos) {
+
+        boolean isExpired(long ttlSeconds) {
+            return System.nanoTime() - loadedAtNanos >= Duration.ofSeconds(ttlSeconds).toNanos();
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package com.cars24.fraud_detection.service.impl;
 
+import com.cars24.fraud_detection.data.dao.AudioDao;
+import com.cars24.fraud_detection.data.dao.DocumentDao;
 import com.cars24.fraud_detection.data.dao.FileDao;
 import com.cars24.fraud_detection.data.dao.LeadDao;
 import com.cars24.fraud_detection.data.entity.*;
+import com.cars24.fraud_detection.data.projection.AudioSummary;
+import com.cars24.fraud_detection.data.projection.DocumentSummary;
 import com.cars24.fraud_detection.data.request.LeadRequest;
 import com.cars24.fraud_detection.data.response.LeadNameEmail;
 import com.cars24.fraud_detection.data.response.LeadResponse;
+import com.cars24.fraud_detection.service.LeadInsightsCacheService;
 import com.cars24.fraud_detection.service.LeadService;
-import com.cars24.fraud_detection.service.DocumentService;
-import com.cars24.fraud_detection.service.AudioService;
 import com.cars24.fraud_detection.config.DocumentTypeConfig;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -16,6 +19,7 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -26,9 +30,10 @@ public class LeadServiceImpl implements LeadService {
 
     private final LeadDao leadDao;
     private final FileDao fileDao;
-    private final DocumentService documentService;
-    private final AudioService audioService;
+    private final DocumentDao documentDao;
+    private final AudioDao audioDao;
     private final DocumentTypeConfig documentTypeConfig;
+    private final LeadInsightsCacheService leadInsightsCache;
 
     @Override
     public LeadResponse createLead(LeadRequest leadRequest) {
@@ -81,18 +86,28 @@ public class LeadServiceImpl implements LeadService {
 
     @Override
     public List<InsightsEntity> getLeadInsights(String leadId) {
+        return leadInsightsCache.get(leadId, () -> assembleLeadInsights(leadId));
+    }
+
+    /**
+     * One summary query per collection; documents are then grouped by their canonical type, so each
+     * configured type only lists its own documents.
+     */
+    private List<InsightsEntity> assembleLeadInsights(String leadId) {
         List<InsightsEntity> overallInsights = new ArrayList<>();
         Map<String, String> docConfig = documentTypeConfig.getMapping();
 
+        List<AudioSummary> audioSummaries = audioDao.getAudioSummariesByLeadId(leadId);
+        Map<String, List<DocumentSummary>> documentsByType = documentDao.getDocumentSummariesByLeadId(leadId).stream()
+                .collect(Collectors.groupingBy(document -> DocumentType.canonical(document.getDocumentType())));
+
         for (Map.Entry<String, String> entry : docConfig.entrySet()) {
             String documentType = entry.getKey();
             String documentName = entry.getValue();
 
             if (documentType.equals("REFERENCE_CALL")) {
-                // Fetch audio insights for the lead
-                List<AudioEntity> audioEntities = audioService.getAudiosByLeadId(leadId);
-                if (audioEntities != null && !audioEntities.isEmpty()) {
-                    for (AudioEntity audio : audioEntities) {
+                if (!audioSummaries.isEmpty()) {
+                    for (AudioSummary audio : audioSummaries) {
                         overallInsights.add(createAudioInsightsEntity(audio, documentName));
                     }
                 } else {
@@ -100,10 +115,9 @@ public class LeadServiceImpl implements LeadService {
                     overallInsights.add(createPendingAudioInsightsEntity(leadId, documentType, documentName));
                 }
             } else {
-                // Fetch document insights for the lead
-                List<DocumentEntity> documentEntities = documentService.getDocumentsByLeadId(leadId);
-                if (documentEntities != null && !documentEntities.isEmpty()) {
-                    for (DocumentEntity document : documentEntities) {
+                List<DocumentSummary> documents = documentsByType.getOrDefault(DocumentType.canonical(documentType), List.of());
+                if (!documents.isEmpty()) {
+                    for (DocumentSummary document : documents) {
                         overallInsights.add(createDocumentInsightsEntity(document, documentName));
                     }
                 } else {
@@ -117,7 +131,7 @@ public class LeadServiceImpl implements LeadService {
     }
 
 
-    private InsightsEntity createDocumentInsightsEntity(DocumentEntity document, String documentName) {
+    private InsightsEntity createDocumentInsightsEntity(DocumentSummary document, String documentName) {
         return InsightsEntity.builder()
                 .leadId(document.getLeadId())
                 .id(document.getId())
@@ -130,7 +144,7 @@ public class LeadServiceImpl implements LeadService {
                 .build();
     }
 
-    private InsightsEntity createAudioInsightsEntity(AudioEntity audio, String documentName) {
+    private InsightsEntity createAudioInsightsEntity(AudioSummary audio, String documentName) {
         return InsightsEntity.builder()
                 .leadId(audio.getLeadId())
                 .id(audio.getId())
@@ -203,32 +217,32 @@ public class LeadServiceImpl implements LeadService {
         // ✅ Fetch only active files
         List<FileEntity> activeFiles = fileDao.findByAgentIdAndLeadIdAndIsActive(agentId, leadId, true);
 
-        // ✅ Extract active file types mapped to agentId & leadId
-        Set<String> activeFileTypes = activeFiles.stream()
-                .map(FileEntity::getFileType)
-                .collect(Collectors.toSet());
-
-        // ✅ Fetch all Audio and Documents
-        List<AudioEntity> allAudio = leadDao.findAudioByAgentAndLead(agentId, leadId);
-        List<DocumentEntity> allDocuments = leadDao.findDocumentsByAgentAndLead(agentId, leadId);
-
-        // ✅ Filter only active AudioEntities that match agentId, leadId & fileType
-        List<AudioEntity> activeAudio = allAudio.stream()
-                .filter(audio -> activeFileTypes.contains(audio.getDocumentType()) &&
-                        activeFiles.stream().anyMatch(f ->
-                                f.getAgentId().equals(agentId) &&
-                                        f.getLeadId().equals(leadId) &&
-                                        f.getFileType().equals(audio.getDocumentType())))
-                .collect(Collectors.toList());
+        // ✅ Each processed file links to the result it produced, so active results are loaded by ID
+        Set<String> audioIds = new HashSet<>();
+        Set<String> documentIds = new HashSet<>();
+        Set<String> unlinkedTypes = new HashSet<>();
+        for (FileEntity file : activeFiles) {
+            boolean audio = isAudio(file);
+            if (file.getResultId() != null) {
+                (audio ? audioIds : documentIds).add(file.getResultId());
+            } else if ("PROCESSED".equals(file.getStatus())) {
+                // Processed before results were linked; matched by type below
+                unlinkedTypes.add(audio ? file.getFileType() : DocumentType.canonical(file.getFileType()));
+            }
+        }
 
-        // ✅ Filter only active DocumentEntities that match agentId, leadId & fileType
-        List<DocumentEntity> activeDocuments = allDocuments.stream()
-                .filter(doc -> activeFileTypes.contains(doc.getDocumentType()) &&
-                        activeFiles.stream().anyMatch(f ->
-                                f.getAgentId().equals(agentId) &&
-                                        f.getLeadId().equals(leadId) &&
-                                        f.getFileType().equals(doc.getDocumentType())))
-                .collect(Collectors.toList());
+        List<AudioEntity> activeAudio = new ArrayList<>(audioDao.findByIds(audioIds));
+        List<DocumentEntity> activeDocuments = new ArrayList<>(documentDao.findByIds(documentIds));
+
+        if (!unlinkedTypes.isEmpty()) {
+            leadDao.findAudioByAgentAndLead(agentId, leadId).stream()
+                    .filter(audio -> unlinkedTypes.contains(audio.getDocumentType()) && !audioIds.contains(audio.getId()))
+                    .forEach(activeAudio::add);
+            // Documents store the canonical type while files keep the type as uploaded ("Aadhaar")
+            leadDao.findDocumentsByAgentAndLead(agentId, leadId).stream()
+                    .filter(doc -> unlinkedTypes.contains(doc.getDocumentType()) && !documentIds.contains(doc.getId()))
+                    .forEach(activeDocuments::add);
+        }
 
         // ✅ Separate Aadhaar and PAN documents from active documents
         List<DocumentEntity> aadhaarDocs = activeDocuments.stream()
@@ -248,6 +262,10 @@ public class LeadServiceImpl implements LeadService {
         return response;
     }
 
+    private boolean isAudio(FileEntity file) {
+        return DocumentType.from(file.getFileType()).filter(type -> type == DocumentType.REFERENCE_CALL).isPresent();
+    }
+
 
 
 
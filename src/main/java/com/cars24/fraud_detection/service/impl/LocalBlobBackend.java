@@ -0,0 +1,81 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.service.BlobBackend;
+import com.cars24.fraud_detection.utils.FileSignature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "blob.store.backend", havingValue = "local", matchIfMissing = true)
+public class LocalBlobBackend implements BlobBackend {
+
+    @Value("${blob.store.path:src/main/resources/blob_store}")
+    private String storePath;
+
+    @Override
+    public boolean contains(String sha256, FileSignature signature) {
+        return Files.isRegularFile(pathOf(sha256, signature));
+    }
+
+    @Override
+    public Path write(String sha256, FileSignature signature, Path staged) throws IOException {
+        Path target = pathOf(sha256, signature);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    @Override
+    public Path localPath(String sha256, FileSignature signature) throws IOException {
+        Path path = pathOf(sha256, signature);
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException(path.toString());
+        }
+        return path;
+    }
+
+    @Override
+    public void delete(String sha256, FileSignature signature) throws IOException {
+        deleteWithDerivedFiles(pathOf(sha256, signature), sha256);
+    }
+
+    private Path pathOf(String sha256, FileSignature signature) {
+        return BlobBackend.fanOutPath(Paths.get(storePath), sha256, signature);
+    }
+
+    /**
+     * Deletes every file in the blob's directory whose name starts with its hash, which covers the
+     * content and outputs like {@code <hash>_ocr.json} that the scripts wrote next to it.
+     */
+    static void deleteWithDerivedFiles(Path blob, String sha256) throws IOException {
+        Path directory = blob.getParent();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().startsWith(sha256)).toList();
+        }
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+            log.debug("Deleted blob file {}", file);
+        }
+    }
+}
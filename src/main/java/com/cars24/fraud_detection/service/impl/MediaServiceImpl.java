@@ -0,0 +1,219 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.service.MediaService;
+import com.cars24.fraud_detection.utils.FileSignature;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class MediaServiceImpl implements MediaService {
+
+    // Set by Tomcat when the connector can send a file straight from the page cache to the socket
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private Map<Path, MediaMetadata> metadata;
+
+    @Value("${media.metadata-cache.entries:1000}")
+    private int metadataEntries;
+
+    @PostConstruct
+    void init() {
+        int capacity = Math.max(1, metadataEntries);
+        metadata = Collections.synchronizedMap(new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, MediaMetadata> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    @Override
+    public void serve(Path file, String downloadName, String contentHash, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            log.warn("Media file not found at path: {}", file.toAbsolutePath());
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        MediaMetadata media = metadata(file, contentHash);
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, media.etag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, media.lastModified());
+        // Cached by the browser, but revalidated against the ETag on every use
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (notModified(request, media)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(media.contentType());
+        if (downloadName != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.inline().filename(downloadName, StandardCharsets.UTF_8).build().toString());
+        }
+
+        long start = 0;
+        long end = media.size() - 1;
+        HttpRange range = requestedRange(request, media);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(media.size());
+                end = range.getRangeEnd(media.size());
+            } catch (IllegalArgumentException e) {
+                start = media.size();
+            }
+            if (start >= media.size() || end < start) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + media.size());
+                response.setContentLengthLong(0);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + media.size());
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || length == 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file itself once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        transfer(file, start, length, response);
+    }
+
+    /**
+     * The single range to send, or null for the whole file. Malformed and multi-range headers are
+     * answered with the whole file, as is a range whose If-Range no longer matches the file.
+     */
+    private HttpRange requestedRange(HttpServletRequest request, MediaMetadata media) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !ifRangeMatches(request, media)) {
+            return null;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed Range header {}: {}", header, e.getMessage());
+            return null;
+        }
+        return ranges.size() == 1 ? ranges.get(0) : null;
+    }
+
+    private boolean ifRangeMatches(HttpServletRequest request, MediaMetadata media) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Only a strong match may resume a partial download
+            return !media.etag().startsWith("W/") && ifRange.equals(media.etag());
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date != -1 && date / 1000 == media.lastModified() / 1000;
+    }
+
+    private boolean notModified(HttpServletRequest request, MediaMetadata media) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return Arrays.stream(ifNoneMatch.split(","))
+                    .map(String::trim)
+                    .anyMatch(tag -> tag.equals("*") || tag.equals(media.etag()) || tag.equals("W/" + media.etag()));
+        }
+        long since = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return since != -1 && media.lastModified() / 1000 <= since / 1000;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static void transfer(Path file, long start, long length, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    throw new IOException("File shrank while it was being sent: " + file);
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Size, modification time, ETag and content type of the file, cached until the file changes.
+     */
+    private MediaMetadata metadata(Path file, String contentHash) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        String etag = contentHash != null
+                ? "\"" + contentHash + "\""
+                // Without a hash the tag can only promise the same size and time, not the same bytes
+                : "W/\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+        MediaMetadata known = metadata.get(key);
+        if (known != null && known.size() == size && known.lastModified() == lastModified && known.etag().equals(etag)) {
+            return known;
+        }
+        MediaMetadata media = new MediaMetadata(size, lastModified, etag, contentType(key));
+        metadata.put(key, media);
+        return media;
+    }
+
+    private static String contentType(Path file) throws IOException {
+        byte[] header;
+        try (InputStream in = Files.newInputStream(file)) {
+            header = in.readNBytes(FileSignature.HEADER_BYTES);
+        }
+        return FileSignature.detect(header)
+                .map(FileSignature::getMediaType)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
+
+    private record MediaMetadata(long size, long lastModified, String etag, String contentType) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.StageResultDao;
+import com.cars24.fraud_detection.data.entity.StageResultEntity;
+import com.cars24.fraud_detection.service.StageResultCacheService;
+import com.cars24.fraud_detection.workflow.WorkflowStage;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StageResultCacheServiceImpl implements StageResultCacheService {
+
+    private static final TypeReference<Map<String, Object>> RESULT_TYPE = new TypeReference<>() {};
+    private static final int SCRIPT_VERSION_LENGTH = 16;
+
+    private final StageResultDao stageResultDao;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, ScriptVersion> scriptVersions = new ConcurrentHashMap<>();
+    private Map<String, Map<String, Object>> memory;
+    private Set<String> cachedStages;
+
+    @Value("${stage.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stage.cache.memory-entries:500}")
+    private int memoryEntries;
+
+    @Value("${stage.cache.stages:ocr,quality,forgery,llm-extraction,audio-analysis}")
+    private String stages;
+
+    @PostConstruct
+    void init() {
+        int capacity = Math.max(1, memoryEntries);
+        memory = Collections.synchronizedMap(new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+                return size() > capacity;
+            }
+        });
+        cachedStages = Arrays.stream(stages.split(","))
+                .map(String::trim)
+                .filter(stage -> !stage.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public String hashContent(byte[] content) {
+        MessageDigest digest = sha256();
+        return HexFormat.of().formatHex(digest.digest(content));
+    }
+
+    @Override
+    public Optional<String> hashFile(Path file) {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return Optional.of(HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException e) {
+            log.warn("Could not hash {} for the stage cache: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<Map<String, Object>> lookup(WorkflowStage stage, String scriptPath, String contentHash, String leadId,
+                                                String inputsHash) {
+        String key = cacheKey(stage, scriptPath, contentHash, leadId, inputsHash);
+        if (key == null) {
+            return Optional.empty();
+        }
+
+        Map<String, Object> hit = memory.get(key);
+        if (hit != null) {
+            log.info("{} served from in-memory cache for content {}", stage.getDisplayName(), contentHash);
+            return Optional.of(new HashMap<>(hit));
+        }
+
+        try {
+            Optional<StageResultEntity> stored = stageResultDao.findById(key);
+            if (stored.isEmpty()) {
+                return Optional.empty();
+            }
+            Map<String, Object> result = objectMapper.readValue(stored.get().getResultJson(), RESULT_TYPE);
+            memory.put(key, result);
+            log.info("{} served from stage_results for content {}", stage.getDisplayName(), contentHash);
+            return Optional.of(new HashMap<>(result));
+        } catch (Exception e) {
+            // A cache miss must never fail the workflow
+            log.warn("Stage cache lookup failed for {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void store(WorkflowStage stage, String scriptPath, String contentHash, String leadId, String inputsHash,
+                      Map<String, Object> result) {
+        String key = cacheKey(stage, scriptPath, contentHash, leadId, inputsHash);
+        if (key == null || !isCacheable(result)) {
+            return;
+        }
+
+        try {
+            StageResultEntity entity = new StageResultEntity();
+            entity.setId(key);
+            entity.setContentHash(contentHash);
+            entity.setStage(stage.name());
+            entity.setScriptVersion(scriptVersion(scriptPath));
+            entity.setLeadId(leadId);
+            entity.setInputsHash(inputsHash);
+            entity.setResultJson(objectMapper.writeValueAsString(result));
+            entity.setCreatedAt(LocalDateTime.now());
+            stageResultDao.save(entity);
+            memory.put(key, new HashMap<>(result));
+        } catch (Exception e) {
+            log.warn("Could not cache {} result for {}: {}", stage.getDisplayName(), key, e.getMessage());
+        }
+    }
+
+    /**
+     * Null when the stage should not be cached: caching is off, the stage is not listed,
+     * the content hash is unknown or the script cannot be read.
+     */
+    private String cacheKey(WorkflowStage stage, String scriptPath, String contentHash, String leadId, String inputsHash) {
+        if (!enabled || contentHash == null || !cachedStages.contains(stage.getKey())) {
+            return null;
+        }
+        String version = scriptVersion(scriptPath);
+        if (version == null) {
+            return null;
+        }
+        String key = String.join(":", contentHash, stage.name(), version, String.valueOf(leadId));
+        return inputsHash == null ? key : key + ":" + inputsHash;
+    }
+
+    /**
+     * Scripts are versioned by the hash of their source, so editing a script retires its old entries.
+     */
+    private String scriptVersion(String scriptPath) {
+        if (scriptPath == null) {
+            return null;
+        }
+        Path path = Paths.get(scriptPath);
+        try {
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            ScriptVersion known = scriptVersions.get(scriptPath);
+            if (known != null && known.lastModified() == lastModified) {
+                return known.version();
+            }
+            String version = hashContent(Files.readAllBytes(path)).substring(0, SCRIPT_VERSION_LENGTH);
+            scriptVersions.put(scriptPath, new ScriptVersion(lastModified, version));
+            return version;
+        } catch (IOException e) {
+            log.warn("Could not version script {} for the stage cache: {}", scriptPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Error payloads are printed with exit code 0 by several scripts and must not be replayed. A
+     * failed extraction call comes back as an empty extraction without an error key.
+     */
+    private boolean isCacheable(Map<String, Object> result) {
+        if (result == null || result.isEmpty() || Boolean.FALSE.equals(result.get("success"))) {
+            return false;
+        }
+        if (result.containsKey("error") || result.containsKey("parse_error")) {
+            return false;
+        }
+        if (result.containsKey("extracted_result") && isEmptyValue(result.get("extracted_result"))) {
+            return false;
+        }
+        return result.values().stream()
+                .noneMatch(value -> value instanceof Map && ((Map<?, ?>) value).containsKey("error"));
+    }
+
+    private static boolean isEmptyValue(Object value) {
+        return value == null
+                || (value instanceof Map && ((Map<?, ?>) value).isEmpty())
+                || (value instanceof Collection && ((Collection<?>) value).isEmpty())
+                || (value instanceof String && ((String) value).isBlank());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record ScriptVersion(long lastModified, String version) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.cars24.fraud_detection.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a child process stream until EOF so the child never blocks on a full pipe.
+ * At most {@code limit} bytes are retained: the head of the stream, or its tail when
+ * {@code keepTail} is set. Everything past the limit is read and discarded.
+ */
+class BoundedStreamCollector implements Runnable {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final InputStream stream;
+    private final int limit;
+    private final boolean keepTail;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private final ByteArrayOutputStream head = new ByteArrayOutputStream();
+    private byte[] ring;
+    private int ringPosition;
+    private long totalBytes;
+
+    BoundedStreamCollector(InputStream stream, int limit, boolean keepTail) {
+        this.stream = stream;
+        this.limit = Math.max(limit, 0);
+        this.keepTail = keepTail;
+    }
+
+    @Override
+    public void run() {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try (InputStream in = stream) {
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                append(chunk, read);
+            }
+        } catch (IOException e) {
+            // The stream is closed underneath us when the process is killed; keep what we have
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    synchronized boolean isTruncated() {
+        return totalBytes > limit;
+    }
+
+    synchronized String getContent() {
+        if (!keepTail) {
+            return head.toString(StandardCharsets.UTF_8);
+        }
+        if (ring == null) {
+            return "";
+        }
+        if (totalBytes < limit) {
+            return new String(ring, 0, ringPosition, StandardCharsets.UTF_8);
+        }
+        byte[] ordered = new byte[limit];
+        System.arraycopy(ring, ringPosition, ordered, 0, limit - ringPosition);
+        System.arraycopy(ring, 0, ordered, limit - ringPosition, ringPosition);
+        return new String(ordered, StandardCharsets.UTF_8);
+    }
+
+    private synchronized void append(byte[] chunk, int length) {
+        totalBytes += length;
+        if (limit == 0) {
+            return;
+        }
+        if (!keepTail) {
+            int room = limit - head.size();
+            if (room > 0) {
+                head.write(chunk, 0, Math.min(room, length));
+            }
+            return;
+        }
+        if (ring == null) {
+            ring = new byte[limit];
+        }
+        int offset = Math.max(0, length - limit);
+        for (int i = offset; i < length; ) {
+            int count = Math.min(length - i, limit - ringPosition);
+            System.arraycopy(chunk, i, ring, ringPosition, count);
+            ringPosition = (ringPosition + count) % limit;
+            i += count;
+        }
+    }
+}
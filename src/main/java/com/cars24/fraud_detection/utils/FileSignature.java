@@ -0,0 +1,111 @@
+package com.cars24.fraud_detection.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * File types accepted for upload, recognised by their leading magic bytes rather than by name.
+ * DOCX is a ZIP container and DOC an OLE2 compound file; neither is opened further.
+ */
+public enum FileSignature {
+
+    PDF("application/pdf", List.of(".pdf")),
+    DOC("application/msword", List.of(".doc")),
+    DOCX("application/vnd.openxmlformats-officedocument.wordprocessingml.document", List.of(".docx")),
+    JPEG("image/jpeg", List.of(".jpg", ".jpeg")),
+    PNG("image/png", List.of(".png")),
+    MP3("audio/mpeg", List.of(".mp3")),
+    WAV("audio/wav", List.of(".wav"));
+
+    /**
+     * Enough leading bytes to tell every type apart (RIFF....WAVE is the longest).
+     */
+    public static final int HEADER_BYTES = 12;
+
+    public static final Set<FileSignature> AUDIO = Collections.unmodifiableSet(EnumSet.of(MP3, WAV));
+    public static final Set<FileSignature> DOCUMENTS = Collections.unmodifiableSet(EnumSet.of(PDF, DOC, DOCX, JPEG, PNG));
+
+    private static final byte[] PDF_MAGIC = ascii("%PDF-");
+    private static final byte[] OLE2_MAGIC = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 0x03, 0x04};
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+    private static final byte[] ID3_MAGIC = ascii("ID3");
+    private static final byte[] RIFF_MAGIC = ascii("RIFF");
+    private static final byte[] WAVE_MAGIC = ascii("WAVE");
+
+    private final String mediaType;
+    private final List<String> extensions;
+
+    FileSignature(String mediaType, List<String> extensions) {
+        this.mediaType = mediaType;
+        this.extensions = extensions;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public List<String> getExtensions() {
+        return extensions;
+    }
+
+    /**
+     * The type a file name claims, from its extension.
+     */
+    public static Optional<FileSignature> fromFileName(String fileName) {
+        if (fileName == null || !fileName.contains(".")) {
+            return Optional.empty();
+        }
+        String extension = fileName.substring(fileName.lastIndexOf('.')).toLowerCase(Locale.ROOT);
+        return Arrays.stream(values())
+                .filter(signature -> signature.extensions.contains(extension))
+                .findFirst();
+    }
+
+    /**
+     * The type the content actually is, from the first {@link #HEADER_BYTES} bytes (fewer for a short file).
+     */
+    public static Optional<FileSignature> detect(byte[] header) {
+        if (startsWith(header, 0, PDF_MAGIC)) {
+            return Optional.of(PDF);
+        }
+        if (startsWith(header, 0, OLE2_MAGIC)) {
+            return Optional.of(DOC);
+        }
+        if (startsWith(header, 0, ZIP_MAGIC)) {
+            return Optional.of(DOCX);
+        }
+        if (startsWith(header, 0, JPEG_MAGIC)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(header, 0, PNG_MAGIC)) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(header, 0, RIFF_MAGIC) && startsWith(header, 8, WAVE_MAGIC)) {
+            return Optional.of(WAV);
+        }
+        // Tagged MP3s start with ID3; bare streams start with an MPEG frame sync (11 set bits)
+        if (startsWith(header, 0, ID3_MAGIC) || (header.length >= 2 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xE0) == 0xE0)) {
+            return Optional.of(MP3);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int offset, byte[] magic) {
+        if (header.length < offset + magic.length) {
+            return false;
+        }
+        return Arrays.equals(header, offset, offset + magic.length, magic, 0, magic.length);
+    }
+
+    private static byte[] ascii(String magic) {
+        return magic.getBytes(StandardCharsets.US_ASCII);
+    }
+}
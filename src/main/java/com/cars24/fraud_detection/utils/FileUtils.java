@@ -4,6 +4,7 @@ import com.cars24.fraud_detection.data.entity.DocumentEntity;
 import com.cars24.fraud_detection.data.request.DocumentRequest;
 import com.cars24.fraud_detection.data.response.DocumentResponse;
 import com.cars24.fraud_detection.exception.DocumentProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -13,10 +14,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.*;
 
 
 @Slf4j
@@ -26,16 +26,7 @@ public class FileUtils {
 
     private static final String JPG_EXTENSION = ".jpg";
     private static final String PNG_EXTENSION = ".png";
-    private final PythonExecutor pythonExecutor = new PythonExecutor();
-    private static final int FUTURE_TIMEOUT_SECONDS = 30;
-    private static final int MAX_ARCHIVE_RETRIES = 3;
-    private static final long EXECUTOR_TERMINATION_TIMEOUT_SECONDS = 5;
-
-    @Value("${document.storage.path:src/main/resources/document_storage/}")
-    private String storagePath;
-
-    @Value("${document.archive.path:src/main/resources/document_storage/archive/}")
-    private String archivePath;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     @Value("${python.scripts.ocr.path:src/main/resources/python_workflows/DocumentOcr.py}")
     private String ocrScriptPath;
@@ -86,14 +77,27 @@ public class FileUtils {
     }
 
 
-    public Map<String, Object> executeOcr(ExecutorService executor, String documentPath) {
-        long startOcr = System.currentTimeMillis();
-        Future<Map<String, Object>> ocrFuture = executor.submit(() -> pythonExecutor.runPythonScript(ocrScriptPath, documentPath));
-        Map<String, Object> ocrResult = getFutureResult(ocrFuture, "OCR Extraction");
-        long endOcr = System.currentTimeMillis();
-        log.info("OCR Extraction Completed in {} ms", (endOcr - startOcr));
-        log.info("OCR Extraction Completed: {}", ocrResult);
-        return ocrResult;
+    /**
+     * Writes a cached OCR payload next to a freshly saved document, so validation can read it
+     * exactly as if OCR had just run on this copy.
+     */
+    public Map<String, Object> restoreOcrJson(Map<String, Object> cachedOcrResult, String documentPath) {
+        Object structuredData = cachedOcrResult.get("structured_data");
+        if (structuredData == null) {
+            throw new DocumentProcessingException("Cached OCR result has no structured data.");
+        }
+        String fileName = Paths.get(documentPath).getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String baseName = extension > 0 ? fileName.substring(0, extension) : fileName;
+        Path ocrJsonPath = Paths.get(documentPath).resolveSibling(baseName + "_ocr.json");
+        try {
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(ocrJsonPath.toFile(), structuredData);
+        } catch (IOException e) {
+            throw new DocumentProcessingException("Failed to restore cached OCR output: " + e.getMessage(), e);
+        }
+        Map<String, Object> restored = new HashMap<>(cachedOcrResult);
+        restored.put("ocr_json_path", ocrJsonPath.toString());
+        return restored;
     }
 
     public String extractOcrJsonPath(Map<String, Object> ocrResult) {
@@ -105,15 +109,6 @@ public class FileUtils {
     }
 
 
-    public Map<String, Object> executePythonTask(ExecutorService executor, String scriptPath, String[] parameters, String taskName) {
-        long startTime = System.currentTimeMillis();
-        Future<Map<String, Object>> future = executor.submit(() -> pythonExecutor.runPythonScript(scriptPath, parameters));
-        Map<String, Object> result = getFutureResult(future, taskName);
-        long endTime = System.currentTimeMillis();
-        log.info("{} Completed in {} ms", taskName, (endTime - startTime));
-        return result;
-    }
-
     public DocumentResponse createResponse(String documentId,String userReportId, String documentType, double fraudRiskScore, Map<String, Object> ocrResult, Map<String, Object> qualityResult, Map<String, Object> forgeryResult, Map<String, Object> validationResult) {
         String riskLevel = fraudRiskScore > 0.7 ? "LOW" : fraudRiskScore > 0.4 ? "MEDIUM" : "HIGH";
         String decision = fraudRiskScore > 0.7 ? "APPROVE" : "REJECT";
@@ -142,70 +137,17 @@ public class FileUtils {
         if (request == null) {
             throw new IllegalArgumentException("Document request cannot be null");
         }
-        if (request.getDocumentData() == null || request.getDocumentData().length == 0) {
-            throw new IllegalArgumentException("Document data cannot be empty");
+        if (request.getDocumentPath() == null) {
+            throw new IllegalArgumentException("Document path cannot be null");
+        }
+        if (!Files.isRegularFile(request.getDocumentPath()) || !Files.isReadable(request.getDocumentPath())) {
+            throw new IllegalArgumentException("Document file not readable: " + request.getDocumentPath());
         }
         if (!StringUtils.hasText(request.getFileName())) {
             throw new IllegalArgumentException("File name cannot be empty");
         }
     }
 
-    public void moveToArchive(String documentPath) {
-        Path source = Paths.get(documentPath);
-        Path destination = Paths.get(archivePath, source.getFileName().toString());
-
-        Exception lastException = null;
-        for (int attempt = 0; attempt < MAX_ARCHIVE_RETRIES; attempt++) {
-            try {
-                Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
-                log.info("Document moved to archive: {}", destination);
-                Files.deleteIfExists(source);
-                return;
-            } catch (IOException e) {
-                lastException = e;
-                log.warn("Archive attempt {} failed: {}", attempt + 1, e.getMessage());
-                try {
-                    Thread.sleep(100L * (attempt + 1));
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new DocumentProcessingException("Archive operation interrupted", ie);
-                }
-            }
-        }
-        log.error("Failed to move document to archive after {} attempts", MAX_ARCHIVE_RETRIES, lastException);
-        throw new DocumentProcessingException("Failed to move document to archive", lastException);
-    }
-
-    private Map<String, Object> getFutureResult(Future<Map<String, Object>> future, String processName) {
-        try {
-            return future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-            log.error("{} processing timeout!", processName, e);
-            throw new DocumentProcessingException(processName + " processing timed out after " + FUTURE_TIMEOUT_SECONDS + " seconds");
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("{} processing interrupted", processName, e);
-            throw new DocumentProcessingException(processName + " processing was interrupted");
-        } catch (ExecutionException e) {
-            log.error("Error during {} processing: {}", processName, e.getMessage(), e);
-            Throwable cause = e.getCause() != null ? e.getCause() : e;  // Handle cases with null cause
-            throw new DocumentProcessingException(processName + " processing failed: " + cause.getMessage());
-        }
-    }
-
-    public String saveDocument(byte[] fileData, String fileName) {
-        try {
-            Files.createDirectories(Paths.get(storagePath));
-            String uniqueFileName = UUID.randomUUID().toString() + "_" + fileName;
-            Path filePath = Paths.get(storagePath, uniqueFileName);
-            Files.write(filePath, fileData);
-            return filePath.toString();
-        } catch (IOException e) {
-            log.error("Error storing document: {}", e.getMessage(), e);
-            throw new DocumentProcessingException("Failed to store document: " + e.getMessage(), e);
-        }
-    }
-
     public double computeRiskScore(Map<String, Object> quality, Map<String, Object> forgery, Map<String, Object> validation) {
         try {
             double qualityScore = parseDouble(quality.get("finalQualityScore"));
@@ -255,32 +197,6 @@ public class FileUtils {
         }
     }
 
-    public void shutdownExecutor(ExecutorService executor) {
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(EXECUTOR_TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                log.warn("Executor did not terminate in time, forcing shutdown...");
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Executor shutdown was interrupted", e);
-        }
-    }
-
-    public void cleanupFile(String documentPath) {
-        if (documentPath != null) {
-            try {
-                Path path = Paths.get(documentPath);
-                if (Files.exists(path)) {
-                    Files.delete(path);
-                    log.info("Cleaned up document file: {}", documentPath);
-                }
-            } catch (IOException e) {
-                log.warn("Failed to clean up document file: {}", documentPath, e);
-            }
-        }
-    }
     public String getQualityScriptPath() {
         return qualityScriptPath;
     }
@@ -0,0 +1,57 @@
+package com.cars24.fraud_detection.utils;
+
+import com.cars24.fraud_detection.exception.PythonExecutionException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A value written as JSON to a temp file so a Python script can read it by path. Pooled workers
+ * use stdin for their own protocol, so script inputs cannot be piped. The file is removed on close.
+ */
+@Slf4j
+public final class JsonInputFile implements AutoCloseable {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Path path;
+
+    private JsonInputFile(Path path) {
+        this.path = path;
+    }
+
+    public static JsonInputFile write(String prefix, Object value) {
+        Path path = null;
+        try {
+            path = Files.createTempFile(prefix, ".json");
+            OBJECT_MAPPER.writeValue(path.toFile(), value);
+            return new JsonInputFile(path);
+        } catch (IOException e) {
+            deleteQuietly(path);
+            throw new PythonExecutionException("Could not write " + prefix + " input file: " + e.getMessage(), e);
+        }
+    }
+
+    public String getPath() {
+        return path.toAbsolutePath().toString();
+    }
+
+    @Override
+    public void close() {
+        deleteQuietly(path);
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete input file {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -2,86 +2,245 @@ package com.cars24.fraud_detection.utils;
 
 import com.cars24.fraud_detection.exception.PythonExecutionException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 public class PythonExecutor {
 
+    private static final long STREAM_DRAIN_GRACE_MILLIS = 2000;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PythonWorkerPool workerPool;
+    private final Environment environment;
+    private final ExecutorService streamDrainers;
+    // Shared with the worker pool, whose live workers hold slots too
+    private final PythonProcessSlots processSlots;
+
+    @Value("${python.executable:python3}")
+    private String pythonCommand;
+
+    @Value("${python.script.timeout-seconds:120}")
+    private long defaultTimeoutSeconds;
+
+    @Value("${python.output.max-bytes:16777216}")
+    private int maxStdoutBytes;
+
+    @Value("${python.stderr.max-bytes:65536}")
+    private int maxStderrBytes;
+
+    public PythonExecutor(PythonWorkerPool workerPool, PythonProcessSlots processSlots, Environment environment,
+                          WorkerThreads workerThreads) {
+        this.workerPool = workerPool;
+        this.processSlots = processSlots;
+        this.environment = environment;
+        this.streamDrainers = Executors.newCachedThreadPool(workerThreads.factory("python-stream-drainer"));
+    }
 
     public Map<String, Object> runPythonScript(String scriptName, Object... args) {
-        try {
-            String pythonCommand = "C:\\Users\\dayad\\Downloads\\cars24\\fraud_detection\\venv\\Scripts\\python.exe";
-            List<String> command = new ArrayList<>();
-            command.add(pythonCommand);
-            command.add(scriptName);
+        return completed(scriptName, execute(scriptName, args));
+    }
 
-            for (Object arg : args) {
-                command.add(arg.toString());
-            }
+    /**
+     * Like {@link #runPythonScript}, but the script is killed after {@code timeout} if that is
+     * shorter than its configured timeout.
+     */
+    public Map<String, Object> runPythonScriptWithin(Duration timeout, String scriptName, Object... args) {
+        long timeoutMillis = Math.min(timeout.toMillis(), TimeUnit.SECONDS.toMillis(timeoutSecondsFor(scriptName)));
+        return completed(scriptName, execute(scriptName, timeoutMillis, args));
+    }
 
-            log.info("Executing Python script: {}", String.join(" ", command));
+    private Map<String, Object> completed(String scriptName, PythonScriptResult result) {
+        if (result.isTimedOut()) {
+            log.error("Python script {} timed out after {} ms", scriptName, result.getDurationMillis());
+            throw new PythonExecutionException("Python script " + scriptName + " timed out after " + result.getDurationMillis() + " ms");
+        }
+        return handleResult(result);
+    }
 
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
+    /**
+     * Runs the script and reports how it went without interpreting its output. Only a failure to
+     * launch the interpreter, or to get a process slot within the script's timeout, is thrown;
+     * non-zero exits and timeouts are part of the result.
+     */
+    public PythonScriptResult execute(String scriptName, Object... args) {
+        return execute(scriptName, TimeUnit.SECONDS.toMillis(timeoutSecondsFor(scriptName)), args);
+    }
 
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String scriptOutput = reader.lines().collect(Collectors.joining("\n"));
+    private PythonScriptResult execute(String scriptName, long timeoutMillis, Object... args) {
+        List<String> arguments = new ArrayList<>();
+        for (Object arg : args) {
+            arguments.add(arg.toString());
+        }
+        // Waiting for a worker or a process slot comes out of the script's timeout, not on top of it
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        // Prefer a preloaded worker; fall back to a fresh interpreter if none can take the call
+        if (workerPool != null && workerPool.isEnabled()) {
+            Optional<PythonScriptResult> pooled = workerPool.execute(scriptName, arguments, timeoutMillis);
+            if (pooled.isPresent()) {
+                log.info("Executed Python script on pooled worker in {} ms: {} {}",
+                        pooled.get().getDurationMillis(), scriptName, String.join(" ", arguments));
+                return pooled.get();
+            }
+        }
+        return forkWithSlot(scriptName, arguments, deadline);
+    }
 
-            BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            String errorOutput = errorReader.lines().collect(Collectors.joining("\n"));
+    @PreDestroy
+    void shutdown() {
+        streamDrainers.shutdownNow();
+    }
 
-            if (!errorOutput.isEmpty()) {
-                log.error("Python script error output: {}", errorOutput);
+    private PythonScriptResult forkWithSlot(String scriptName, List<String> arguments, long deadline) {
+        try {
+            boolean acquired = processSlots.tryAcquire();
+            if (!acquired) {
+                // An idle pooled worker gives its slot up to a script that would otherwise wait for one
+                if (workerPool != null) {
+                    workerPool.retireIdleWorker();
+                }
+                acquired = processSlots.tryAcquire(millisUntil(deadline));
             }
-
-            int exitCode;
-            try {
-                exitCode = process.waitFor();
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt(); // Re-interrupt the thread
-                throw new PythonExecutionException("Thread was interrupted while waiting for Python script execution", ie);
+            if (!acquired) {
+                log.error("No Python process slot became free in time for {}", scriptName);
+                throw new PythonExecutionException("Too many Python scripts running, " + scriptName + " was not started");
             }
-
-            if (exitCode != 0) {
-                log.error("Python script failed with exit code {}: {}", exitCode, scriptOutput);
-                throw new PythonExecutionException("Python script execution failed with exit code " + exitCode);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new PythonExecutionException("Thread was interrupted while waiting to start Python script", ie);
+        }
+        try {
+            long remainingMillis = millisUntil(deadline);
+            if (remainingMillis <= 0) {
+                log.error("Timeout for {} ran out while waiting for a Python process slot", scriptName);
+                throw new PythonExecutionException("Too many Python scripts running, " + scriptName + " was not started");
             }
+            return forkPythonScript(scriptName, arguments, remainingMillis);
+        } finally {
+            processSlots.release();
+        }
+    }
 
-            if (scriptOutput == null || scriptOutput.trim().isEmpty()) {
-                log.warn("Python script returned empty or null output.");
-                Map<String, Object> result = new HashMap<>();
-                result.put("output", "");
-                return result;
-            }
+    private static long millisUntil(long deadlineNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
 
-            try {
-                Map<String, Object> result = objectMapper.readValue(scriptOutput, Map.class);
-                log.info("script output:{}", scriptOutput);
-                log.info("Python script executed successfully with parsed JSON result: {}", result);
-                return result;
-            } catch (Exception jsonEx) {
-                log.warn("Failed to parse Python output as JSON. Raw output:\n{}", scriptOutput);
-                Map<String, Object> result = new HashMap<>();
-                result.put("output", scriptOutput);
-                result.put("parse_error", "Could not parse output as JSON");
-                return result;
-            }
+    private PythonScriptResult forkPythonScript(String scriptName, List<String> arguments, long timeoutMillis) {
+        List<String> command = new ArrayList<>();
+        command.add(pythonCommand);
+        command.add(scriptName);
+        command.addAll(arguments);
+
+        log.info("Executing Python script: {}", String.join(" ", command));
 
-        } catch (Exception e) {
+        long start = System.nanoTime();
+        Process process;
+        try {
+            process = new ProcessBuilder(command).start();
+        } catch (IOException e) {
             log.error("Error executing Python script: {}", e.getMessage(), e);
             throw new PythonExecutionException("Error executing Python script", e);
         }
+
+        // Both pipes are drained while the script runs so a chatty script cannot fill one and stall
+        BoundedStreamCollector stdout = new BoundedStreamCollector(process.getInputStream(), maxStdoutBytes, false);
+        BoundedStreamCollector stderr = new BoundedStreamCollector(process.getErrorStream(), maxStderrBytes, true);
+        streamDrainers.execute(stdout);
+        streamDrainers.execute(stderr);
+
+        boolean timedOut;
+        try {
+            timedOut = !process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (timedOut) {
+                log.error("Python script {} exceeded {} ms, killing pid {} and its children", scriptName, timeoutMillis, process.pid());
+                killProcessTree(process);
+            }
+            stdout.await(STREAM_DRAIN_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            stderr.await(STREAM_DRAIN_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ie) {
+            killProcessTree(process);
+            Thread.currentThread().interrupt(); // Re-interrupt the thread
+            throw new PythonExecutionException("Thread was interrupted while waiting for Python script execution", ie);
+        }
+
+        PythonScriptResult result = PythonScriptResult.builder()
+                .scriptName(scriptName)
+                .exitCode(timedOut ? -1 : process.exitValue())
+                .stdout(stdout.getContent())
+                .stderr(stderr.getContent())
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .timedOut(timedOut)
+                .stdoutTruncated(stdout.isTruncated())
+                .stderrTruncated(stderr.isTruncated())
+                .build();
+
+        if (!result.getStderr().isEmpty()) {
+            log.error("Python script error output{}: {}", result.isStderrTruncated() ? " (truncated)" : "", result.getStderr());
+        }
+        if (result.isStdoutTruncated()) {
+            log.warn("Python script {} wrote more than {} bytes to stdout, output truncated", scriptName, maxStdoutBytes);
+        }
+        log.info("Python script {} finished in {} ms with exit code {}", scriptName, result.getDurationMillis(), result.getExitCode());
+        return result;
+    }
+
+    private void killProcessTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * Per-script override via {@code python.script.timeout-seconds.<ScriptName>}, e.g.
+     * {@code python.script.timeout-seconds.LLMextractionvalidation=180}.
+     */
+    private long timeoutSecondsFor(String scriptName) {
+        String fileName = Paths.get(scriptName).getFileName().toString();
+        String baseName = fileName.endsWith(".py") ? fileName.substring(0, fileName.length() - 3) : fileName;
+        return environment.getProperty("python.script.timeout-seconds." + baseName, Long.class, defaultTimeoutSeconds);
+    }
+
+    private Map<String, Object> handleResult(PythonScriptResult result) {
+        String scriptOutput = result.getStdout();
+        if (result.getExitCode() != 0) {
+            log.error("Python script failed with exit code {}: {}\n{}", result.getExitCode(), scriptOutput, result.getStderr());
+            throw new PythonExecutionException("Python script execution failed with exit code " + result.getExitCode());
+        }
+
+        if (scriptOutput == null || scriptOutput.trim().isEmpty()) {
+            log.warn("Python script returned empty or null output.");
+            Map<String, Object> empty = new HashMap<>();
+            empty.put("output", "");
+            return empty;
+        }
+
+        try {
+            Map<String, Object> parsed = objectMapper.readValue(scriptOutput, Map.class);
+            log.info("script output:{}", scriptOutput);
+            log.info("Python script executed successfully with parsed JSON result: {}", parsed);
+            return parsed;
+        } catch (Exception jsonEx) {
+            log.warn("Failed to parse Python output as JSON. Raw output:\n{}", scriptOutput);
+            Map<String, Object> unparsed = new HashMap<>();
+            unparsed.put("output", scriptOutput);
+            unparsed.put("parse_error", "Could not parse output as JSON");
+            return unparsed;
+        }
     }
 }
@@ -0,0 +1,42 @@
+package com.cars24.fraud_detection.utils;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the Python interpreters alive at once across the application, forked per call or kept
+ * by the worker pool, at {@code python.process.max-concurrent}. A slot is held for as long as
+ * the interpreter's process exists, however many threads are waiting on it.
+ */
+@Component
+public class PythonProcessSlots {
+
+    static final String MAX_CONCURRENT_PROPERTY = "python.process.max-concurrent";
+    private static final int DEFAULT_MAX_CONCURRENT_PROCESSES = 8;
+
+    private final Semaphore slots;
+
+    public PythonProcessSlots(Environment environment) {
+        this.slots = new Semaphore(Math.max(1,
+                environment.getProperty(MAX_CONCURRENT_PROPERTY, Integer.class, DEFAULT_MAX_CONCURRENT_PROCESSES)), true);
+    }
+
+    public boolean tryAcquire() {
+        return slots.tryAcquire();
+    }
+
+    public boolean tryAcquire(long timeoutMillis) throws InterruptedException {
+        return slots.tryAcquire(Math.max(0, timeoutMillis), TimeUnit.MILLISECONDS);
+    }
+
+    public void release() {
+        slots.release();
+    }
+
+    public int available() {
+        return slots.availablePermits();
+    }
+}
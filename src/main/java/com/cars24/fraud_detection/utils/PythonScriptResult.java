@@ -0,0 +1,29 @@
+package com.cars24.fraud_detection.utils;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of a single Python script run, whether it was forked or served by a pooled worker.
+ * Stdout is kept from the start, stderr from the end, so tracebacks survive truncation.
+ */
+@Getter
+@Builder
+@ToString(exclude = "stdout")
+public class PythonScriptResult {
+
+    private final String scriptName;
+    private final int exitCode;
+    private final String stdout;
+    private final String stderr;
+    private final long durationMillis;
+    private final boolean timedOut;
+    private final boolean stdoutTruncated;
+    private final boolean stderrTruncated;
+    private final boolean pooled;
+
+    public boolean isSuccess() {
+        return !timedOut && exitCode == 0;
+    }
+}
@@ -0,0 +1,213 @@
+package com.cars24.fraud_detection.utils;
+
+import com.cars24.fraud_detection.exception.PythonExecutionException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A long-lived Python process that keeps its imports loaded and runs one script per request.
+ * Requests and responses are JSON frames prefixed with a 4-byte big-endian length.
+ */
+@Slf4j
+class PythonWorker {
+
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+    private static final AtomicLong REQUEST_IDS = new AtomicLong();
+
+    private final String scriptName;
+    private final Process process;
+    private final DataOutputStream toWorker;
+    private final DataInputStream fromWorker;
+    private final ObjectMapper objectMapper;
+    private int jobsCompleted;
+
+    private PythonWorker(String scriptName, Process process, ObjectMapper objectMapper) {
+        this.scriptName = scriptName;
+        this.process = process;
+        this.objectMapper = objectMapper;
+        this.toWorker = new DataOutputStream(process.getOutputStream());
+        this.fromWorker = new DataInputStream(process.getInputStream());
+    }
+
+    /**
+     * Starts a worker and waits for its ready frame. A worker that is not ready within
+     * {@code readyTimeoutMillis}, for example one stuck importing a module, is killed.
+     * {@code onExit} runs once the worker's process has exited, or straight away if it could not
+     * be started.
+     */
+    static PythonWorker start(String pythonCommand, String workerScript, String scriptName, String preloadModules,
+                              ObjectMapper objectMapper, ScheduledExecutorService scheduler, long readyTimeoutMillis,
+                              Runnable onExit) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder(pythonCommand, workerScript, scriptName, preloadModules);
+        Process process;
+        try {
+            process = processBuilder.start();
+        } catch (IOException | RuntimeException e) {
+            onExit.run();
+            throw e;
+        }
+        process.onExit().thenRun(onExit);
+        PythonWorker worker = new PythonWorker(scriptName, process, objectMapper);
+        worker.drainStderr();
+
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        ScheduledFuture<?> watchdog = scheduler.schedule(() -> {
+            timedOut.set(true);
+            worker.kill();
+        }, readyTimeoutMillis, TimeUnit.MILLISECONDS);
+        Map<String, Object> ready;
+        try {
+            ready = worker.readFrame();
+        } catch (IOException | RuntimeException e) {
+            worker.kill();
+            if (timedOut.get()) {
+                throw new IOException("Python worker for " + scriptName + " was not ready within " + readyTimeoutMillis + " ms", e);
+            }
+            throw e;
+        } finally {
+            watchdog.cancel(false);
+        }
+        if (!"ready".equals(ready.get("op"))) {
+            worker.destroy();
+            throw new IOException("Python worker for " + scriptName + " did not report ready: " + ready);
+        }
+        log.info("Started Python worker pid {} for script {}", process.pid(), scriptName);
+        return worker;
+    }
+
+    /**
+     * Runs the script inside this worker and returns what it printed along with its exit code.
+     * Throws {@link RequestNotDeliveredException} if the request could not be handed to the worker,
+     * in which case the script did not run; any other failure may come after it started.
+     */
+    synchronized WorkerResult run(List<String> args) throws IOException {
+        long requestId = REQUEST_IDS.incrementAndGet();
+        try {
+            writeFrame(Map.of("id", requestId, "args", args));
+        } catch (IOException e) {
+            // The worker only runs a request once it has read the whole frame
+            throw new RequestNotDeliveredException("Python worker for " + scriptName + " did not take the request", e);
+        }
+        Map<String, Object> response = readFrame();
+        jobsCompleted++;
+
+        Object id = response.get("id");
+        if (!(id instanceof Number) || ((Number) id).longValue() != requestId) {
+            throw new IOException("Python worker for " + scriptName + " answered out of order: " + id);
+        }
+        Object error = response.get("error");
+        if (error != null) {
+            log.error("Python worker for {} raised: {}", scriptName, error);
+        }
+        int exitCode = response.get("exit_code") instanceof Number ? ((Number) response.get("exit_code")).intValue() : 1;
+        String stdout = response.get("stdout") != null ? response.get("stdout").toString() : "";
+        return new WorkerResult(exitCode, stdout, error != null ? error.toString() : "");
+    }
+
+    synchronized boolean ping() {
+        if (!process.isAlive()) {
+            return false;
+        }
+        try {
+            writeFrame(Map.of("op", "ping"));
+            return "pong".equals(readFrame().get("op"));
+        } catch (IOException e) {
+            log.warn("Health check failed for Python worker pid {} ({}): {}", process.pid(), scriptName, e.getMessage());
+            return false;
+        }
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    int getJobsCompleted() {
+        return jobsCompleted;
+    }
+
+    String getScriptName() {
+        return scriptName;
+    }
+
+    void destroy() {
+        if (process.isAlive()) {
+            try {
+                writeFrame(Map.of("op", "shutdown"));
+                process.waitFor(1, TimeUnit.SECONDS);
+            } catch (IOException e) {
+                log.debug("Python worker pid {} closed before shutdown request", process.pid());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        kill();
+        log.info("Stopped Python worker pid {} for script {} after {} jobs", process.pid(), scriptName, jobsCompleted);
+    }
+
+    /**
+     * Kills the worker and anything it spawned without asking it to shut down first.
+     * Safe to call while another thread is blocked in {@link #run(List)}.
+     */
+    void kill() {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private void writeFrame(Map<String, Object> message) throws IOException {
+        byte[] payload = objectMapper.writeValueAsBytes(message);
+        toWorker.writeInt(payload.length);
+        toWorker.write(payload);
+        toWorker.flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readFrame() throws IOException {
+        int length = fromWorker.readInt();
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new PythonExecutionException("Invalid frame length " + length + " from Python worker for " + scriptName);
+        }
+        byte[] payload = new byte[length];
+        fromWorker.readFully(payload);
+        return objectMapper.readValue(payload, Map.class);
+    }
+
+    private void drainStderr() {
+        Thread drainer = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    log.debug("[python-worker {}] {}", process.pid(), line);
+                }
+            } catch (IOException e) {
+                log.debug("Stopped reading stderr of Python worker pid {}", process.pid());
+            }
+        }, "python-worker-stderr-" + process.pid());
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    record WorkerResult(int exitCode, String stdout, String error) {
+    }
+
+    static class RequestNotDeliveredException extends IOException {
+
+        RequestNotDeliveredException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.cars24.fraud_detection.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps up to {@code python.worker.pool.size} preloaded Python workers per script so that
+ * librosa, cv2, sklearn and friends are imported once instead of on every call.
+ * Workers are health-checked in the background, recycled after {@code max-jobs} runs and
+ * killed when a run overstays its timeout.
+ */
+@Slf4j
+@Component
+public class PythonWorkerPool {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, ScriptPool> pools = new ConcurrentHashMap<>();
+    // Each live worker holds one of the application-wide interpreter slots until its process exits
+    private final PythonProcessSlots processSlots;
+    private ScheduledExecutorService scheduler;
+
+    @Value("${python.worker.pool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${python.executable:python3}")
+    private String pythonCommand;
+
+    @Value("${python.worker.script:src/main/resources/python_workflows/PythonWorker.py}")
+    private String workerScript;
+
+    @Value("${python.worker.pool.size:2}")
+    private int poolSize;
+
+    @Value("${python.worker.pool.max-jobs:50}")
+    private int maxJobsPerWorker;
+
+    @Value("${python.worker.pool.acquire-timeout-seconds:5}")
+    private long acquireTimeoutSeconds;
+
+    // A worker still importing its modules after this long is killed and the call falls back to a fresh interpreter
+    @Value("${python.worker.pool.start-timeout-seconds:60}")
+    private long startTimeoutSeconds;
+
+    @Value("${python.worker.pool.health-check-interval-seconds:30}")
+    private long healthCheckIntervalSeconds;
+
+    @Value("${python.worker.preload:numpy,librosa,cv2,sklearn,skimage,PIL,requests}")
+    private String preloadModules;
+
+    public PythonWorkerPool(PythonProcessSlots processSlots) {
+        this.processSlots = processSlots;
+    }
+
+    @PostConstruct
+    void startHealthChecks() {
+        if (!enabled) {
+            log.info("Python worker pool disabled, scripts will run in a new process per call");
+            return;
+        }
+        // Two threads so a slow health-check ping never delays a timeout kill
+        scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "python-worker-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkIdleWorkers,
+                healthCheckIntervalSeconds, healthCheckIntervalSeconds, TimeUnit.SECONDS);
+        log.info("Python worker pool enabled: {} workers per script, recycled after {} jobs", poolSize, maxJobsPerWorker);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs the script on a pooled worker, killing it if it has not answered within {@code timeoutMillis}
+     * of the call, time spent waiting for the worker included.
+     * Returns empty only when the script never reached a worker, in which case the caller should
+     * fall back to forking a fresh interpreter. Once a worker has taken the request, a timeout or a
+     * worker dying mid-run is reported as a failed result, never as empty, so the script and any
+     * paid API calls it makes are not started a second time.
+     */
+    Optional<PythonScriptResult> execute(String scriptName, List<String> args, long timeoutMillis) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        ScriptPool pool = pools.computeIfAbsent(normalize(scriptName), ScriptPool::new);
+        PythonWorker worker = pool.acquire(start, timeoutMillis);
+        if (worker == null) {
+            return Optional.empty();
+        }
+        long remainingMillis = timeoutMillis - elapsedMillis(start);
+        if (remainingMillis <= 0) {
+            log.error("Timeout for {} ran out while waiting for a Python worker", scriptName);
+            pool.release(worker, true);
+            return Optional.of(failed(scriptName, start, true, ""));
+        }
+
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        ScheduledFuture<?> watchdog = scheduler.schedule(() -> {
+            timedOut.set(true);
+            log.error("Python worker for {} exceeded {} ms, killing it", scriptName, timeoutMillis);
+            worker.kill();
+        }, remainingMillis, TimeUnit.MILLISECONDS);
+
+        boolean healthy = false;
+        try {
+            PythonWorker.WorkerResult result = worker.run(args);
+            healthy = !timedOut.get();
+            return Optional.of(PythonScriptResult.builder()
+                    .scriptName(scriptName)
+                    .exitCode(result.exitCode())
+                    .stdout(result.stdout())
+                    .stderr(result.error())
+                    .durationMillis(elapsedMillis(start))
+                    .timedOut(timedOut.get())
+                    .pooled(true)
+                    .build());
+        } catch (PythonWorker.RequestNotDeliveredException e) {
+            log.warn("{}, falling back to a new process: {}", e.getMessage(), e.getCause().getMessage());
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            if (timedOut.get()) {
+                return Optional.of(failed(scriptName, start, true, ""));
+            }
+            log.error("Python worker for {} failed while running the script: {}", scriptName, e.getMessage());
+            return Optional.of(failed(scriptName, start, false, "Python worker failed while running the script: " + e.getMessage()));
+        } finally {
+            watchdog.cancel(false);
+            pool.release(worker, healthy);
+        }
+    }
+
+    private static PythonScriptResult failed(String scriptName, long startNanos, boolean timedOut, String stderr) {
+        return PythonScriptResult.builder()
+                .scriptName(scriptName)
+                .exitCode(-1)
+                .stdout("")
+                .stderr(stderr)
+                .durationMillis(elapsedMillis(startNanos))
+                .timedOut(timedOut)
+                .pooled(true)
+                .build();
+    }
+
+    /**
+     * Stops one idle worker, of any script, so that its process slot can go to a caller that needs
+     * one. Returns false when no worker was idle.
+     */
+    boolean retireIdleWorker() {
+        for (ScriptPool pool : pools.values()) {
+            if (pool.retireIdle()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        pools.values().forEach(ScriptPool::close);
+        pools.clear();
+    }
+
+    private void checkIdleWorkers() {
+        try {
+            pools.values().forEach(ScriptPool::checkIdle);
+        } catch (RuntimeException e) {
+            log.error("Python worker health check failed", e);
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private String normalize(String scriptName) {
+        return Paths.get(scriptName).toAbsolutePath().normalize().toString();
+    }
+
+    private final class ScriptPool {
+
+        private final String scriptName;
+        private final Semaphore permits;
+        private final LinkedBlockingDeque<PythonWorker> idle = new LinkedBlockingDeque<>();
+
+        private ScriptPool(String scriptName) {
+            this.scriptName = scriptName;
+            this.permits = new Semaphore(poolSize, true);
+        }
+
+        /**
+         * A worker for a call that started at {@code startNanos} and must finish within
+         * {@code timeoutMillis}; waiting for it, starting it included, never runs past that.
+         */
+        private PythonWorker acquire(long startNanos, long timeoutMillis) {
+            try {
+                long waitMillis = Math.min(TimeUnit.SECONDS.toMillis(acquireTimeoutSeconds), timeoutMillis);
+                if (!permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                    log.warn("All {} Python workers busy for {}", poolSize, scriptName);
+                    return null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+
+            PythonWorker worker;
+            while ((worker = idle.pollFirst()) != null) {
+                if (worker.isAlive()) {
+                    return worker;
+                }
+                worker.destroy();
+            }
+            // A worker still importing when the caller's time runs out is of no use to this call
+            long readyTimeoutMillis = Math.min(TimeUnit.SECONDS.toMillis(startTimeoutSeconds),
+                    timeoutMillis - elapsedMillis(startNanos));
+            if (readyTimeoutMillis <= 0) {
+                permits.release();
+                return null;
+            }
+            if (!reserveProcessSlot(Math.min(TimeUnit.SECONDS.toMillis(acquireTimeoutSeconds), readyTimeoutMillis))) {
+                log.warn("No Python process slot free to start a worker for {}", scriptName);
+                permits.release();
+                return null;
+            }
+            try {
+                return PythonWorker.start(pythonCommand, workerScript, scriptName, preloadModules, objectMapper,
+                        scheduler, readyTimeoutMillis, processSlots::release);
+            } catch (IOException | RuntimeException e) {
+                log.error("Could not start Python worker for {}: {}", scriptName, e.getMessage());
+                permits.release();
+                return null;
+            }
+        }
+
+        /**
+         * Takes a slot for a new worker, stopping an idle worker of another script if that frees one.
+         * Slots come back once a process has exited, so this waits up to {@code waitMillis} for one.
+         */
+        private boolean reserveProcessSlot(long waitMillis) {
+            if (processSlots.tryAcquire()) {
+                return true;
+            }
+            for (ScriptPool other : pools.values()) {
+                if (other != this && other.retireIdle()) {
+                    break;
+                }
+            }
+            try {
+                return processSlots.tryAcquire(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private boolean retireIdle() {
+            PythonWorker worker = idle.pollLast();
+            if (worker == null) {
+                return false;
+            }
+            log.info("Retiring idle Python worker for {} to free a process slot", scriptName);
+            worker.destroy();
+            return true;
+        }
+
+        private void release(PythonWorker worker, boolean healthy) {
+            try {
+                if (!healthy || !worker.isAlive() || worker.getJobsCompleted() >= maxJobsPerWorker) {
+                    worker.destroy();
+                } else {
+                    idle.offerFirst(worker);
+                }
+            } finally {
+                permits.release();
+            }
+        }
+
+        private void checkIdle() {
+            int toCheck = idle.size();
+            for (int i = 0; i < toCheck && permits.tryAcquire(); i++) {
+                try {
+                    PythonWorker worker = idle.pollLast();
+                    if (worker == null) {
+                        return;
+                    }
+                    if (worker.ping()) {
+                        idle.offerFirst(worker);
+                    } else {
+                        log.warn("Evicting unhealthy Python worker for {}", scriptName);
+                        worker.destroy();
+                    }
+                } finally {
+                    permits.release();
+                }
+            }
+        }
+
+        private void close() {
+            PythonWorker worker;
+            while ((worker = idle.pollFirst()) != null) {
+                worker.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.cars24.fraud_detection.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * Streams an upload to its final location through one fixed-size buffer, so memory per upload does
+ * not grow with the file. The content type is checked from the magic bytes before anything is
+ * written, and the SHA-256 and size are computed on the way through. The file is written next to
+ * its target and moved into place only once complete, so a rejected or broken upload leaves nothing behind.
+ */
+@Slf4j
+@Component
+public class UploadIngestor {
+
+    @Value("${file.upload.buffer-bytes:32768}")
+    private int bufferBytes;
+
+    @Value("${file.upload.max-bytes:104857600}")
+    private long maxBytes;
+
+    /**
+     * Writes the content to target, replacing any existing file. The caller closes the stream.
+     *
+     * @throws IllegalArgumentException when the upload is empty, too large or not one of the accepted types
+     */
+    public IngestedUpload ingest(InputStream content, Path target, Set<FileSignature> accepted) throws IOException {
+        byte[] header = content.readNBytes(FileSignature.HEADER_BYTES);
+        if (header.length == 0) {
+            throw new IllegalArgumentException("Uploaded file is empty");
+        }
+        FileSignature signature = FileSignature.detect(header)
+                .filter(accepted::contains)
+                .orElseThrow(() -> new IllegalArgumentException("File content is not one of " + accepted));
+
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path partial = Files.createTempFile(directory, target.getFileName().toString(), ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size = header.length;
+            digest.update(header);
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                out.write(header);
+                byte[] buffer = new byte[Math.max(FileSignature.HEADER_BYTES, bufferBytes)];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new IllegalArgumentException("Upload exceeds the limit of " + maxBytes + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            moveIntoPlace(partial, target);
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            log.debug("Ingested {} ({} bytes, {}, sha256 {})", target, size, signature, sha256);
+            return new IngestedUpload(target, size, sha256, signature);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private static void moveIntoPlace(Path partial, Path target) throws IOException {
+        try {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record IngestedUpload(Path path, long size, String sha256, FileSignature signature) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.cars24.fraud_detection.utils;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads behind the application's own executors and worker loops. With
+ * {@code spring.threads.virtual.enabled=true} they are virtual threads, the same switch that moves
+ * Tomcat's request threads; otherwise they are daemon platform threads. Concurrency limits stay
+ * with the callers, so the mode only changes what a blocked thread costs.
+ */
+@Component
+public class WorkerThreads {
+
+    static final String VIRTUAL_THREADS_PROPERTY = "spring.threads.virtual.enabled";
+
+    private final boolean virtual;
+
+    public WorkerThreads(Environment environment) {
+        virtual = environment.getProperty(VIRTUAL_THREADS_PROPERTY, Boolean.class, false);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Threads named {@code <prefix>-<n>}.
+     */
+    public ThreadFactory factory(String prefix) {
+        if (virtual) {
+            return Thread.ofVirtual().name(prefix + "-", 1).factory();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Executor for blocking work the caller already limits: a fixed pool of {@code platformThreads}
+     * threads, or, in virtual mode, a virtual thread for every task.
+     */
+    public ExecutorService executor(String prefix, int platformThreads) {
+        if (virtual) {
+            return Executors.newThreadPerTaskExecutor(factory(prefix));
+        }
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads), factory(prefix));
+    }
+
+    /**
+     * Executor that is itself the limit: at most {@code threads} tasks run at once in either mode,
+     * the rest wait in its queue.
+     */
+    public ExecutorService boundedExecutor(String prefix, int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), factory(prefix));
+    }
+}
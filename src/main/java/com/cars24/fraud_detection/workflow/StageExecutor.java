@@ -0,0 +1,241 @@
+package com.cars24.fraud_detection.workflow;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide executor for workflow stages. All stages share one thread pool, but each
+ * stage is admitted through its own lane that caps how many of its tasks run at once and how
+ * many may wait. A task arriving at a full lane is rejected and counted rather than queued
+ * without bound, so the number of Python processes in flight never exceeds the sum of the
+ * per-stage concurrency limits.
+ */
+@Slf4j
+public class StageExecutor {
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(45);
+
+    private final ExecutorService threads;
+    private final Map<WorkflowStage, Lane> lanes = new EnumMap<>(WorkflowStage.class);
+    private final Map<WorkflowStage, Duration> timeouts = new EnumMap<>(WorkflowStage.class);
+
+    public StageExecutor(ExecutorService threads, Map<WorkflowStage, Integer> concurrency,
+                         Map<WorkflowStage, Integer> queueCapacity, Map<WorkflowStage, Duration> timeouts) {
+        this.threads = threads;
+        this.timeouts.putAll(timeouts);
+        for (WorkflowStage stage : WorkflowStage.values()) {
+            lanes.put(stage, new Lane(stage,
+                    Math.max(1, concurrency.getOrDefault(stage, 1)),
+                    Math.max(0, queueCapacity.getOrDefault(stage, 0))));
+        }
+    }
+
+    /**
+     * Executor for a single stage. {@link Executor#execute} throws {@link RejectedExecutionException}
+     * when the stage already has its maximum number of tasks running and queued.
+     */
+    public Executor forStage(WorkflowStage stage) {
+        return lanes.get(stage);
+    }
+
+    /**
+     * Runs the task on the stage's lane and fails the returned future with a
+     * {@link java.util.concurrent.TimeoutException} once {@code timeout} has passed, or with a
+     * {@link RejectedExecutionException} if the lane is full. A task that times out while still
+     * queued is never started.
+     */
+    public <T> CompletableFuture<T> submit(WorkflowStage stage, Supplier<T> task, Duration timeout) {
+        try {
+            return CompletableFuture.supplyAsync(task, forStage(stage))
+                    .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Runs the task on the stage's lane and hands it whatever is left of {@code timeout} when it
+     * starts, queueing included. Unlike {@link #submit} the returned future completes only once the
+     * task has returned, so the task must stop by itself within the time it is given. The future
+     * fails with a {@link java.util.concurrent.TimeoutException} if the task overran that time or
+     * was still queued when it ran out, in which case it is taken off the lane's queue and never
+     * started.
+     */
+    public <T> CompletableFuture<T> submitWithin(WorkflowStage stage, Function<Duration, T> task, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Lane lane = lanes.get(stage);
+        Runnable run = () -> {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                future.completeExceptionally(timedOut(stage, timeout, null));
+                return;
+            }
+            try {
+                T result = task.apply(Duration.ofNanos(remaining));
+                if (System.nanoTime() - deadline > 0) {
+                    future.completeExceptionally(timedOut(stage, timeout, null));
+                } else {
+                    future.complete(result);
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(System.nanoTime() - deadline > 0 ? timedOut(stage, timeout, e) : e);
+            }
+        };
+        try {
+            lane.execute(run);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture.delayedExecutor(timeout.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+            if (started.compareAndSet(false, true)) {
+                // Give the queue slot back now rather than when a worker would have reached the task
+                lane.withdraw(run);
+                future.completeExceptionally(timedOut(stage, timeout, null));
+            }
+        });
+        return future;
+    }
+
+    private static TimeoutException timedOut(WorkflowStage stage, Duration timeout, Throwable cause) {
+        TimeoutException timedOut = new TimeoutException(stage.getDisplayName() + " did not finish within " + timeout.toMillis() + " ms");
+        timedOut.initCause(cause);
+        return timedOut;
+    }
+
+    /**
+     * How long a caller should wait for one task of the stage, queueing included.
+     */
+    public Duration getTimeout(WorkflowStage stage) {
+        return timeouts.getOrDefault(stage, DEFAULT_TIMEOUT);
+    }
+
+    public Map<WorkflowStage, StageStats> getStats() {
+        Map<WorkflowStage, StageStats> stats = new EnumMap<>(WorkflowStage.class);
+        lanes.forEach((stage, lane) -> stats.put(stage, lane.snapshot()));
+        return Collections.unmodifiableMap(stats);
+    }
+
+    public void shutdown() {
+        threads.shutdown();
+        try {
+            if (!threads.awaitTermination(5, TimeUnit.SECONDS)) {
+                threads.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            threads.shutdownNow();
+        }
+    }
+
+    public record StageStats(int maxConcurrency, int queueCapacity, int running, int queued,
+                             long completed, long rejected, long expired) {
+    }
+
+    private final class Lane implements Executor {
+
+        private final WorkflowStage stage;
+        private final int maxConcurrency;
+        private final int queueCapacity;
+        private final Deque<Runnable> pending = new ArrayDeque<>();
+        private int running;
+
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder expired = new LongAdder();
+
+        private Lane(WorkflowStage stage, int maxConcurrency, int queueCapacity) {
+            this.stage = stage;
+            this.maxConcurrency = maxConcurrency;
+            this.queueCapacity = queueCapacity;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            synchronized (this) {
+                if (running < maxConcurrency) {
+                    running++;
+                } else if (pending.size() < queueCapacity) {
+                    pending.addLast(task);
+                    return;
+                } else {
+                    rejected.increment();
+                    log.warn("{} stage rejected a task: {} running, {} queued (rejected so far: {})",
+                            stage.getDisplayName(), running, pending.size(), rejected.sum());
+                    throw new RejectedExecutionException(stage.getDisplayName() + " stage is at capacity");
+                }
+            }
+            dispatch(task);
+        }
+
+        /**
+         * Drops a task that is still waiting for a slot; one already dispatched is left alone.
+         */
+        private void withdraw(Runnable task) {
+            boolean removed;
+            synchronized (this) {
+                removed = pending.removeFirstOccurrence(task);
+            }
+            if (removed) {
+                expired.increment();
+            }
+        }
+
+        private void onFinished() {
+            Runnable next;
+            synchronized (this) {
+                next = pending.pollFirst();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            dispatch(next);
+        }
+
+        private void dispatch(Runnable task) {
+            try {
+                threads.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        completed.increment();
+                        onFinished();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Only happens once the shared pool is shutting down
+                synchronized (this) {
+                    running--;
+                }
+                rejected.increment();
+                throw e;
+            }
+        }
+
+        private synchronized StageStats snapshot() {
+            return new StageStats(maxConcurrency, queueCapacity, running, pending.size(),
+                    completed.sum(), rejected.sum(), expired.sum());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.cars24.fraud_detection.workflow;
+
+/**
+ * Python-backed stages that run on the shared {@link StageExecutor}. Each stage has its own
+ * concurrency and queue limits under {@code workflow.stage.<key>.*}.
+ */
+public enum WorkflowStage {
+
+    OCR("ocr", "OCR Extraction"),
+    QUALITY("quality", "Quality Analysis"),
+    FORGERY("forgery", "Forgery Detection"),
+    VALIDATION("validation", "Validation"),
+    LLM_EXTRACTION("llm-extraction", "LLM Extraction"),
+    AUDIO_ANALYSIS("audio-analysis", "Audio Analysis");
+
+    private final String key;
+    private final String displayName;
+
+    WorkflowStage(String key, String displayName) {
+        this.key = key;
+        this.displayName = displayName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -132,18 +132,30 @@ import com.cars24.fraud_detection.data.request.AudioRequest;
 import com.cars24.fraud_detection.data.request.DocumentRequest;
 import com.cars24.fraud_detection.data.response.AudioResponse;
 import com.cars24.fraud_detection.data.response.DocumentResponse;
+import com.cars24.fraud_detection.exception.PythonExecutionException;
+import com.cars24.fraud_detection.service.StageResultCacheService;
+import com.cars24.fraud_detection.utils.JsonInputFile;
 import com.cars24.fraud_detection.utils.PythonExecutor;
+import com.cars24.fraud_detection.workflow.StageExecutor;
 import com.cars24.fraud_detection.workflow.WorkflowInitiator;
+import com.cars24.fraud_detection.workflow.WorkflowStage;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -153,11 +165,25 @@ public class AudioWorkflow implements WorkflowInitiator {
 
     private static final Logger logger = LoggerFactory.getLogger(AudioWorkflow.class);
     private final PythonExecutor pythonExecutor;
+    private final StageExecutor stageExecutor;
+    private final StageResultCacheService resultCache;
     private static final String AUDIO_STORAGE_PATH = "src/main/resources/audio_storage";
 
+    @Value("${python.scripts.llm.path:src/main/resources/python_workflows/LLMextractionvalidation.py}")
+    private String llmScriptPath;
+
+    @Value("${python.scripts.audio-analysis.path:src/main/resources/python_workflows/AudioAnalysis.py}")
+    private String audioScriptPath;
+
+    // Both scripts must finish within this window, counted from the start of the request; only the LLM branch is required
+    @Value("${audio.workflow.deadline-seconds:200}")
+    private long deadlineSeconds;
+
     @Autowired
-    public AudioWorkflow(PythonExecutor pythonExecutor) {
+    public AudioWorkflow(PythonExecutor pythonExecutor, StageExecutor stageExecutor, StageResultCacheService resultCache) {
         this.pythonExecutor = pythonExecutor;
+        this.stageExecutor = stageExecutor;
+        this.resultCache = resultCache;
     }
 
     @Override
@@ -169,30 +195,54 @@ public class AudioWorkflow implements WorkflowInitiator {
     @Override
     public AudioResponse processAudio(AudioRequest request) throws JsonProcessingException {
         logger.info("Starting audio processing for requestId: {}", request.getUuid());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(deadlineSeconds);
 
-        // Run the LLM extraction script
-        String llmScriptPath = "src/main/resources/python_workflows/LLMextractionvalidation.py";
-        String audioScriptPath = "src/main/resources/python_workflows/AudioAnalysis.py";
        // String audioFilePath = AUDIO_STORAGE_PATH + "/" + request.getUuid() + ".mp3";  // Construct full path
         String audioFilePath =  request.getUuid() ;
         logger.info("Executing LLM extraction script: {} for audio file: {}", llmScriptPath, request.getAudioFile());
 
-        Map<String, Object> llmExtractionResult = processAudioScript(llmScriptPath, audioFilePath, request.getLeadId());
+        // A re-uploaded recording skips the paid transcription/LLM calls when its hash is already cached
+        String contentHash = request.getContentHash() != null
+                ? request.getContentHash()
+                : resultCache.hashFile(Paths.get(AUDIO_STORAGE_PATH, request.getUuid() + ".mp3")).orElse(null);
+
+        if (request.getGroundTruth() == null) {
+            throw new PythonExecutionException("Ground truth missing for lead: " + request.getLeadId());
+        }
+        try (JsonInputFile groundTruthFile = JsonInputFile.write("audio-ground-truth-", request.getGroundTruth())) {
+            return processAudio(request, audioFilePath, contentHash, groundTruthFile.getPath(), deadline);
+        }
+    }
+
+    private AudioResponse processAudio(AudioRequest request, String audioFilePath, String contentHash, String groundTruthPath,
+                                       long deadline) {
+        // The extraction is scored against the ground truth, so it is only cached together with the ground truth's hash
+        String groundTruthHash = resultCache.hashFile(Paths.get(groundTruthPath)).orElse(null);
+        String llmContentHash = groundTruthHash != null ? contentHash : null;
+
+        // Transcription/LLM extraction and acoustic analysis read the same MP3 independently, so start both at once
+        CompletableFuture<Map<String, Object>> llmFuture = runStage(WorkflowStage.LLM_EXTRACTION, llmScriptPath,
+                llmContentHash, request.getLeadId(), groundTruthHash, deadline, audioFilePath, groundTruthPath);
+        CompletableFuture<Map<String, Object>> analysisFuture = runStage(WorkflowStage.AUDIO_ANALYSIS, audioScriptPath,
+                contentHash, request.getLeadId(), null, deadline, request.getUuid(), request.getLeadId())
+                        .exceptionally(error -> {
+                            Throwable cause = unwrap(error);
+                            logger.warn("Audio analysis unavailable for requestId {}: {}", request.getUuid(), describe(cause));
+                            Map<String, Object> unavailable = new HashMap<>();
+                            unavailable.put("status", "unavailable");
+                            unavailable.put("error", describe(cause));
+                            return unavailable;
+                        });
+
+        Map<String, Object> llmExtractionResult = awaitLlmExtraction(llmFuture);
+        Map<String, Object> audioAnalysisMap = analysisFuture.join();
 
         if (llmExtractionResult == null || llmExtractionResult.isEmpty()) {
             logger.warn("LLM extraction script returned an empty response for requestId: {}", request.getUuid());
-            return new AudioResponse(request.getUuid(), null, new ArrayList<>(), null, null, null, null, null, 0.0, new ArrayList<>(), new HashMap<>(), "error");
+            return new AudioResponse(request.getUuid(), request.getAgentId(), llmExtractionResult, audioAnalysisMap, new ArrayList<>(), null, null, null, null, null, 0.0, new ArrayList<>(), new HashMap<>(), "error");
         }
 
-//        ObjectMapper objectMapper = new ObjectMapper();
-//        // Extract values directly from the map
-//        String outputJson = (String) llmExtractionResult.get("output"); // Get JSON string
         try {
-//            Map<String, Object> outputMap = objectMapper.readValue(outputJson, Map.class); // Parse JSON string
-//            List<Map<String, Object>> transcriptList = (List<Map<String, Object>>) outputMap.get("transcript");
-//
-//            Map<String, Object> extractedResultMap = (Map<String, Object>) outputMap.get("extracted_result");
-
             List<Map<String, Object>> transcriptList = (List<Map<String, Object>>) llmExtractionResult.get("transcript");
 
             Map<String, Object> extractedResultMap = (Map<String, Object>) llmExtractionResult.get("extracted_result");
@@ -203,8 +253,6 @@ public class AudioWorkflow implements WorkflowInitiator {
             String relationToSubject = (String) extractedResultMap.get("relation_to_subject");
             String subjectOccupation = (String) extractedResultMap.get("subject_occupation");
 
-            Map<String,Object> audioAnalysisMap = processAudioScript(audioScriptPath, request.getUuid(), request.getLeadId());
-
             Map<String, Object> scoringResultsMap = (Map<String, Object>) llmExtractionResult.get("scoring_results");
             Double overallScore = (Double) scoringResultsMap.get("overall_score");
 
@@ -252,16 +300,62 @@ public class AudioWorkflow implements WorkflowInitiator {
         }
     }
 
-    private Map<String, Object> processAudioScript(String scriptPath, String uuid, String leadId) {
-        logger.debug("Running Python script: {} with audio file: {} and lead id: {}", scriptPath, uuid, leadId);
-        Map<String, Object> result = pythonExecutor.runPythonScript(scriptPath, uuid, leadId);
+    /**
+     * Answers from the stage cache when possible; otherwise runs the script on its stage lane, bounded
+     * by the stage timeout and what is left of the request's deadline, whichever is shorter. The
+     * script is killed when that runs out, so the stage only completes once its script has stopped.
+     */
+    private CompletableFuture<Map<String, Object>> runStage(WorkflowStage stage, String scriptPath, String contentHash,
+                                                            String leadId, String inputsHash, long deadline, Object... args) {
+        Optional<Map<String, Object>> cached = resultCache.lookup(stage, scriptPath, contentHash, leadId, inputsHash);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        Duration untilDeadline = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+        Duration stageTimeout = stageExecutor.getTimeout(stage);
+        Duration timeout = stageTimeout.compareTo(untilDeadline) < 0 ? stageTimeout : untilDeadline;
+        return stageExecutor.submitWithin(stage, remaining -> processAudioScript(scriptPath, leadId, remaining, args), timeout)
+                .thenApply(result -> {
+                    resultCache.store(stage, scriptPath, contentHash, leadId, inputsHash, result);
+                    return result;
+                });
+    }
+
+    private Map<String, Object> awaitLlmExtraction(CompletableFuture<Map<String, Object>> llmFuture) {
+        try {
+            return llmFuture.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException && !(cause instanceof CompletionException)) {
+                throw (RuntimeException) cause;
+            }
+            throw new PythonExecutionException("LLM extraction failed: " + describe(cause), cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static String describe(Throwable cause) {
+        return cause instanceof TimeoutException ? "timed out" : String.valueOf(cause.getMessage());
+    }
+
+    private Map<String, Object> processAudioScript(String scriptPath, String leadId, Duration timeout, Object... args) {
+        logger.debug("Running Python script: {} with args: {} for lead id: {}", scriptPath, Arrays.toString(args), leadId);
+        Map<String, Object> result = pythonExecutor.runPythonScriptWithin(timeout, scriptPath, args);
 
         if (result == null || result.isEmpty()) {
-            logger.warn("Python script {} returned an empty result for audio file: {} for lead Id: {}", scriptPath, uuid, leadId);
+            logger.warn("Python script {} returned an empty result for args: {} for lead Id: {}", scriptPath, Arrays.toString(args), leadId);
         } else {
             logger.info("Python script {} execution successful for lead Id: {}", scriptPath, leadId);
         }
 
         return result;
     }
-}
\ No newline at end of file
+}
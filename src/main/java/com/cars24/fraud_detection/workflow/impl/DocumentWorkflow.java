@@ -5,8 +5,12 @@ import com.cars24.fraud_detection.data.request.DocumentRequest;
 import com.cars24.fraud_detection.data.response.AudioResponse;
 import com.cars24.fraud_detection.data.response.DocumentResponse;
 import com.cars24.fraud_detection.exception.DocumentProcessingException;
+import com.cars24.fraud_detection.service.StageResultCacheService;
+import com.cars24.fraud_detection.utils.JsonInputFile;
 import com.cars24.fraud_detection.utils.PythonExecutor;
+import com.cars24.fraud_detection.workflow.StageExecutor;
 import com.cars24.fraud_detection.workflow.WorkflowInitiator;
+import com.cars24.fraud_detection.workflow.WorkflowStage;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,12 +18,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import com.cars24.fraud_detection.utils.FileUtils;
 
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
 
 @Component
 public class DocumentWorkflow implements WorkflowInitiator {
@@ -28,13 +35,12 @@ public class DocumentWorkflow implements WorkflowInitiator {
 
     private final PythonExecutor pythonExecutor;
     private final FileUtils fileUtils;
+    private final StageExecutor stageExecutor;
+    private final StageResultCacheService resultCache;
 
     @Value("${document.storage.path:src/main/resources/document_storage/}")
     private String storagePath;
 
-    @Value("${document.archive.path:src/main/resources/document_storage/archive/}")
-    private String archivePath;
-
     @Value("${python.scripts.ocr.path:src/main/resources/python_workflows/DocumentOcr.py}")
     private String ocrScriptPath;
 
@@ -47,19 +53,20 @@ public class DocumentWorkflow implements WorkflowInitiator {
     @Value("${python.scripts.validation.path:src/main/resources/python_workflows/DocumentValidation.py}")
     private String validationScriptPath;
 
-    private static final int FUTURE_TIMEOUT_SECONDS = 30;
-    private static final int EXECUTOR_TERMINATION_TIMEOUT_SECONDS = 5;
-
-    public DocumentWorkflow(PythonExecutor pythonExecutor, FileUtils fileUtils) {
+    public DocumentWorkflow(PythonExecutor pythonExecutor, FileUtils fileUtils, StageExecutor stageExecutor,
+                            StageResultCacheService resultCache) {
         this.pythonExecutor = pythonExecutor;
         this.fileUtils = fileUtils;
+        this.stageExecutor = stageExecutor;
+        this.resultCache = resultCache;
     }
 
     @Override
     public DocumentResponse processDocument(DocumentRequest request) {
         fileUtils.validateRequest(request);
-        ExecutorService executor = Executors.newFixedThreadPool(3);
-        String documentPath = null;
+        // The upload is already stored; it is read in place and belongs to the caller
+        String documentPath = request.getDocumentPath().toString();
+        JsonInputFile groundTruthFile = null;
         DocumentResponse response = null;
 
         // Retrieve userReportId from the request.  Handle potential null/empty case.
@@ -79,26 +86,43 @@ public class DocumentWorkflow implements WorkflowInitiator {
         String documentType = request.getDocumentType();
         log.info("received document type: {}", documentType);
         try {
-            // Create necessary directories
-            Files.createDirectories(Paths.get(archivePath));
-
-            // Save the document and get its path, using the userReportId
-            documentPath = fileUtils.saveDocument(request.getDocumentData(), request.getFileName());
             log.info("Document stored at: {}", documentPath);
 
-            // Execute OCR
-            Map<String, Object> ocrResult = fileUtils.executeOcr(executor, documentPath);
-            log.info("OCR Result: {}", ocrResult);
-
-            if (ocrResult == null || ocrResult.isEmpty() || !ocrResult.containsKey("ocr_json_path")) {
-                throw new DocumentProcessingException("OCR JSON path not found in OCR result.");
+            if (request.getGroundTruth() == null) {
+                throw new DocumentProcessingException("Ground truth missing for lead: " + leadId);
             }
-            String ocrJsonPath = fileUtils.extractOcrJsonPath(ocrResult);
-
-            // Execute independent tasks in parallel
-            Map<String, Object> qualityResult = fileUtils.executePythonTask(executor, fileUtils.getQualityScriptPath(), new String[]{documentPath}, "Quality Analysis");
-            Map<String, Object> forgeryResult = fileUtils.executePythonTask(executor, fileUtils.getForgeryScriptPath(), new String[]{documentPath}, "Forgery Detection");
-            Map<String, Object> validationResult = fileUtils.executePythonTask(executor, fileUtils.getValidationScriptPath(), new String[]{ocrJsonPath, leadId, documentType}, "Validation");
+            groundTruthFile = JsonInputFile.write("ground-truth-", request.getGroundTruth());
+            String groundTruthPath = groundTruthFile.getPath();
+
+            // OCR, quality and forgery only read the image, so they start together;
+            // validation needs the OCR output and starts as soon as OCR finishes
+            // Stages whose inputs match an earlier upload of the same bytes are answered from the cache
+            String savedPath = documentPath;
+            String contentHash = request.getContentHash() != null
+                    ? request.getContentHash()
+                    : resultCache.hashFile(request.getDocumentPath()).orElse(null);
+            CompletableFuture<Map<String, Object>> ocrFuture = runCachedStage(WorkflowStage.OCR, ocrScriptPath, contentHash, leadId,
+                    cached -> fileUtils.restoreOcrJson(cached, savedPath), savedPath);
+            CompletableFuture<Map<String, Object>> qualityFuture = runCachedStage(WorkflowStage.QUALITY, qualityScriptPath, contentHash, leadId,
+                    UnaryOperator.identity(), savedPath);
+            CompletableFuture<Map<String, Object>> forgeryFuture = runCachedStage(WorkflowStage.FORGERY, forgeryScriptPath, contentHash, leadId,
+                    UnaryOperator.identity(), savedPath);
+            CompletableFuture<Map<String, Object>> validationFuture = ocrFuture.thenCompose(ocrResult -> {
+                log.info("OCR Result: {}", ocrResult);
+                if (ocrResult == null || ocrResult.isEmpty() || !ocrResult.containsKey("ocr_json_path")) {
+                    throw new DocumentProcessingException("OCR JSON path not found in OCR result.");
+                }
+                String ocrJsonPath = fileUtils.extractOcrJsonPath(ocrResult);
+                return runStage(WorkflowStage.VALIDATION, validationScriptPath, ocrJsonPath, groundTruthPath);
+            });
+
+            // Wait for every branch, even after a failure, so the document is not removed under a running script
+            awaitAll(ocrFuture, qualityFuture, forgeryFuture, validationFuture);
+
+            Map<String, Object> ocrResult = ocrFuture.join();
+            Map<String, Object> qualityResult = qualityFuture.join();
+            Map<String, Object> forgeryResult = forgeryFuture.join();
+            Map<String, Object> validationResult = validationFuture.join();
 
             // Compute fraud risk score
             double fraudRiskScore = fileUtils.computeRiskScore(qualityResult, forgeryResult, validationResult);
@@ -110,13 +134,82 @@ public class DocumentWorkflow implements WorkflowInitiator {
             log.error("Error processing document: {}", e.getMessage(), e);
             throw new DocumentProcessingException("Document processing failed: " + e.getMessage());
         } finally {
-            fileUtils.shutdownExecutor(executor);
-            fileUtils.cleanupFile(documentPath);
+            if (groundTruthFile != null) {
+                groundTruthFile.close();
+            }
         }
 
         return response;
     }
 
+    private CompletableFuture<Map<String, Object>> runCachedStage(WorkflowStage stage, String scriptPath, String contentHash,
+                                                                  String leadId, UnaryOperator<Map<String, Object>> onCacheHit,
+                                                                  Object... args) {
+        Optional<Map<String, Object>> cached = resultCache.lookup(stage, scriptPath, contentHash, leadId);
+        if (cached.isPresent()) {
+            try {
+                return CompletableFuture.completedFuture(onCacheHit.apply(cached.get()));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring cached {} result: {}", stage.getDisplayName(), e.getMessage());
+            }
+        }
+        return runStage(stage, scriptPath, args).thenApply(result -> {
+            resultCache.store(stage, scriptPath, contentHash, leadId, result);
+            return result;
+        });
+    }
+
+    /**
+     * Starts a stage on its lane of the shared executor. The script gets what is left of the stage
+     * timeout once it starts and is killed when that runs out, so the stage only completes once its
+     * script has stopped. The stage fails with a {@link DocumentProcessingException} if it is
+     * rejected, errors or overruns its timeout.
+     */
+    private CompletableFuture<Map<String, Object>> runStage(WorkflowStage stage, String scriptPath, Object... args) {
+        long startTime = System.currentTimeMillis();
+        Duration timeout = stageExecutor.getTimeout(stage);
+        CompletableFuture<Map<String, Object>> future =
+                stageExecutor.submitWithin(stage, remaining -> pythonExecutor.runPythonScriptWithin(remaining, scriptPath, args), timeout);
+
+        return future.handle((result, error) -> {
+            if (error == null) {
+                log.info("{} Completed in {} ms", stage.getDisplayName(), System.currentTimeMillis() - startTime);
+                return result;
+            }
+            Throwable cause = unwrap(error);
+            if (cause instanceof RejectedExecutionException) {
+                log.warn("{} rejected: {}", stage.getDisplayName(), cause.getMessage());
+                throw new DocumentProcessingException(stage.getDisplayName() + " is at capacity, try again later", cause);
+            }
+            if (cause instanceof TimeoutException) {
+                log.error("{} processing timeout after {} seconds", stage.getDisplayName(), timeout.toSeconds());
+                throw new DocumentProcessingException(stage.getDisplayName() + " processing timed out after " + timeout.toSeconds() + " seconds");
+            }
+            log.error("Error during {} processing: {}", stage.getDisplayName(), cause.getMessage(), cause);
+            if (cause instanceof DocumentProcessingException) {
+                throw (DocumentProcessingException) cause;
+            }
+            throw new DocumentProcessingException(stage.getDisplayName() + " processing failed: " + cause.getMessage(), cause);
+        });
+    }
+
+    private void awaitAll(CompletableFuture<?>... stages) throws Exception {
+        try {
+            CompletableFuture.allOf(stages).join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
     @Override
     public AudioResponse processAudio(AudioRequest request) throws JsonProcessingException {
         return null;
@@ -2,7 +2,6 @@ import json
 import sys
 import os
 import codecs
-import requests
 import warnings
 from difflib import SequenceMatcher
 from thefuzz import fuzz
@@ -14,17 +13,13 @@ warnings.filterwarnings("ignore")
 # Set output encoding to UTF-8
 sys.stdout = codecs.getwriter("utf-8")(sys.stdout.buffer, "strict")
 
-API_BASE_URL = "http://localhost:8080/leads"
-
-def fetch_ground_truth(lead_id, doc_type):
-    """Fetches ground truth from API based on lead ID and document type."""
-    url = f"{API_BASE_URL}/{lead_id}/{doc_type.lower()}"
+def load_ground_truth(ground_truth_path):
+    """Loads the lead's ground truth written by the Java service for this run."""
     try:
-        response = requests.get(url)
-        response.raise_for_status()
-        return response.json()
-    except requests.exceptions.RequestException as e:
-        sys.exit(json.dumps({"error": f"Failed to fetch ground truth: {str(e)}"}, ensure_ascii=False, indent=4))
+        with open(ground_truth_path, "r", encoding="utf-8") as ground_truth_file:
+            return json.load(ground_truth_file)
+    except (OSError, ValueError) as e:
+        sys.exit(json.dumps({"error": f"Failed to load ground truth: {str(e)}"}, ensure_ascii=False, indent=4))
 
 def normalize_text(text):
     """Normalizes text by lowercasing and removing extra spaces."""
@@ -101,10 +96,10 @@ def validate_document(ocr_data, reference_record):
     return output
 
 if __name__ == "__main__":
-    if len(sys.argv) != 4:
-        sys.exit(json.dumps({"error": "Usage: python DocumentValidation.py <ocr_json_path> <lead_id> <doc_type>"}, ensure_ascii=False, indent=4))
+    if len(sys.argv) != 3:
+        sys.exit(json.dumps({"error": "Usage: python DocumentValidation.py <ocr_json_path> <ground_truth_json_path>"}, ensure_ascii=False, indent=4))
 
-    ocr_json_path, lead_id, doc_type = sys.argv[1:4]
+    ocr_json_path, ground_truth_path = sys.argv[1:3]
     if not os.path.exists(ocr_json_path):
         sys.exit(json.dumps({"error": f"File not found: {ocr_json_path}"}, ensure_ascii=False, indent=4))
 
@@ -112,7 +107,7 @@ if __name__ == "__main__":
         with open(ocr_json_path, "r", encoding="utf-8") as json_file:
             ocr_data = json.load(json_file)
 
-        ground_truth = fetch_ground_truth(lead_id, doc_type)
+        ground_truth = load_ground_truth(ground_truth_path)
         result = validate_document(ocr_data, ground_truth)
 
         print(json.dumps(result, indent=4, ensure_ascii=False))
@@ -18,17 +18,13 @@ import config
 root_path = Path(__file__).resolve().parent.parent  # Moves up two levels
 base_path = root_path / "audio_storage"
 
-def get_ground_truth(lead_id):
-    api_url = f"http://localhost:8080/leads/{lead_id}/audio"
+def get_ground_truth(ground_truth_path):
+    """Loads the lead's audio ground truth written by the Java service for this run."""
     try:
-        response = requests.get(api_url)
-        if response.status_code == 200:
-            return response.json()
-        else:
-            print(f"Error: Failed to fetch ground truth for lead ID {lead_id}")
-            sys.exit(1)
+        with open(ground_truth_path, "r", encoding="utf-8") as ground_truth_file:
+            return json.load(ground_truth_file)
     except Exception as e:
-        print(f"Error fetching ground truth: {e}")
+        print(f"Error loading ground truth: {e}")
         sys.exit(1)
 
 def get_audio_file_path(uuid):
@@ -230,14 +226,14 @@ def output_json(data):
 # Example usage
 if __name__ == "__main__":
     if len(sys.argv) < 3:
-        print("Usage: python llmextractor.py <UUID> <LEAD_ID>")
+        print("Usage: python llmextractor.py <UUID> <GROUND_TRUTH_JSON>")
         sys.exit(1)
 
     uuid = sys.argv[1]
-    lead_id = sys.argv[2]
+    ground_truth_path = sys.argv[2]
     audio_path = get_audio_file_path(uuid)
 
-    ground_truth = get_ground_truth(lead_id)
+    ground_truth = get_ground_truth(ground_truth_path)
 
     # transcript = Transcription.get_transcripts(audio_path)
     transcript = """start   end    speaker                                                              utterance
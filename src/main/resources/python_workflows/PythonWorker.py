@@ -0,0 +1,120 @@
+import io
+import os
+import sys
+import json
+import struct
+import runpy
+import importlib
+import traceback
+import warnings
+
+warnings.filterwarnings("ignore")
+
+# Keep the real stdout for the protocol and send anything else written to fd 1
+# (native libraries, stray prints) to stderr so it cannot corrupt the frames.
+PROTOCOL_OUT = os.fdopen(os.dup(1), "wb", buffering=0)
+os.dup2(2, 1)
+sys.stdout = io.TextIOWrapper(os.fdopen(1, "wb", buffering=0), encoding="utf-8", write_through=True)
+PROTOCOL_IN = sys.stdin.buffer
+
+
+class CapturedOutput(io.BytesIO):
+    """Buffer for a job's stdout that survives the script closing or replacing its wrapper."""
+
+    def close(self):
+        pass
+
+
+def read_frame():
+    """Reads one length-prefixed JSON frame from stdin. Returns None on EOF."""
+    header = PROTOCOL_IN.read(4)
+    if not header or len(header) < 4:
+        return None
+    (length,) = struct.unpack(">I", header)
+    payload = PROTOCOL_IN.read(length)
+    if len(payload) < length:
+        return None
+    return json.loads(payload.decode("utf-8"))
+
+
+def write_frame(message):
+    """Writes one length-prefixed JSON frame to the protocol stream."""
+    payload = json.dumps(message, ensure_ascii=False).encode("utf-8")
+    PROTOCOL_OUT.write(struct.pack(">I", len(payload)) + payload)
+    PROTOCOL_OUT.flush()
+
+
+def preload(modules):
+    """Imports heavy modules once so every job reuses them."""
+    for module in modules:
+        module = module.strip()
+        if not module:
+            continue
+        try:
+            importlib.import_module(module)
+        except Exception as e:
+            sys.stderr.write(f"Preload of {module} skipped: {e}\n")
+
+
+def run_job(script_path, args):
+    """Runs the script as __main__ with the given argv and captures what it prints."""
+    captured = CapturedOutput()
+    real_stdout = sys.stdout
+    real_argv = sys.argv
+    exit_code = 0
+    error = None
+
+    sys.stdout = io.TextIOWrapper(captured, encoding="utf-8", write_through=True)
+    sys.argv = [script_path] + [str(arg) for arg in args]
+    try:
+        runpy.run_path(script_path, run_name="__main__")
+    except SystemExit as e:
+        if isinstance(e.code, int):
+            exit_code = e.code
+        elif e.code is None:
+            exit_code = 0
+        else:
+            # sys.exit("message") prints the message and exits with status 1
+            sys.stdout.write(str(e.code))
+            exit_code = 1
+    except Exception:
+        error = traceback.format_exc()
+        exit_code = 1
+    finally:
+        try:
+            sys.stdout.flush()
+        except Exception:
+            pass
+        sys.stdout = real_stdout
+        sys.argv = real_argv
+
+    return {
+        "exit_code": exit_code,
+        "stdout": captured.getvalue().decode("utf-8", errors="replace"),
+        "error": error,
+    }
+
+
+if __name__ == "__main__":
+    if len(sys.argv) < 2:
+        sys.stderr.write("Usage: python PythonWorker.py <script_path> [preload_modules]\n")
+        sys.exit(2)
+
+    script = os.path.abspath(sys.argv[1])
+    sys.path.insert(0, os.path.dirname(script))
+    preload(sys.argv[2].split(",") if len(sys.argv) > 2 else [])
+
+    write_frame({"op": "ready", "pid": os.getpid()})
+
+    while True:
+        request = read_frame()
+        if request is None:
+            break
+        if request.get("op") == "ping":
+            write_frame({"op": "pong"})
+            continue
+        if request.get("op") == "shutdown":
+            break
+        response = run_job(script, request.get("args", []))
+        response["id"] = request.get("id")
+        write_frame(response)
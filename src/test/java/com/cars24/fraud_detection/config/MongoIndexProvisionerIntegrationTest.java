@@ -0,0 +1,50 @@
+package com.cars24.fraud_detection.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Explains every finder against a real server once the indexes are in place. Runs only when
+ * MONGODB_TEST_URI points at a disposable server; a throwaway database is created and dropped.
+ */
+@EnabledIfEnvironmentVariable(named = "MONGODB_TEST_URI", matches = ".+")
+class MongoIndexProvisionerIntegrationTest {
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void connect() {
+        client = MongoClients.create(System.getenv("MONGODB_TEST_URI"));
+        mongoTemplate = new MongoTemplate(client, "index_plan_test_" + UUID.randomUUID().toString().substring(0, 8));
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        if (mongoTemplate != null) {
+            mongoTemplate.getDb().drop();
+        }
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    @Test
+    void testEveryFinderUsesAnIndex() {
+        MongoIndexProvisioner provisioner = new MongoIndexProvisioner(mongoTemplate);
+
+        assertEquals(MongoIndexProvisioner.INDEXES.size(), provisioner.provisionIndexes());
+        assertDoesNotThrow(provisioner::requireIndexes);
+        assertEquals(List.of(), provisioner.findCollectionScans());
+    }
+}
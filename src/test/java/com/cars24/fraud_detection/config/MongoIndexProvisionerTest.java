@@ -0,0 +1,175 @@
+package com.cars24.fraud_detection.config;
+
+import com.cars24.fraud_detection.data.entity.AudioEntity;
+import com.cars24.fraud_detection.data.entity.FileEntity;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MongoIndexProvisionerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    @Mock
+    private MongoDatabase database;
+
+    @InjectMocks
+    private MongoIndexProvisioner provisioner;
+
+    @Test
+    void testProvisionIndexes_CreatesEveryDeclaredIndex() {
+        when(mongoTemplate.indexOps(any(Class.class))).thenReturn(indexOperations);
+        when(indexOperations.ensureIndex(any(IndexDefinition.class))).thenReturn("idx");
+
+        assertEquals(MongoIndexProvisioner.INDEXES.size(), provisioner.provisionIndexes());
+        verify(indexOperations, times(MongoIndexProvisioner.INDEXES.size())).ensureIndex(any(IndexDefinition.class));
+    }
+
+    @Test
+    void testProvisionIndexes_FailureDoesNotStopTheRest() {
+        when(mongoTemplate.indexOps(any(Class.class))).thenReturn(indexOperations);
+        when(indexOperations.ensureIndex(any(IndexDefinition.class)))
+                .thenThrow(new RuntimeException("not authorized"))
+                .thenReturn("idx");
+
+        assertEquals(MongoIndexProvisioner.INDEXES.size() - 1, provisioner.provisionIndexes());
+    }
+
+    @Test
+    void testOnStartup_FailsWhenAnIndexCannotBeCreated() {
+        ReflectionTestUtils.setField(provisioner, "provision", true);
+        ReflectionTestUtils.setField(provisioner, "failOnError", true);
+        when(mongoTemplate.indexOps(any(Class.class))).thenReturn(indexOperations);
+        when(indexOperations.ensureIndex(any(IndexDefinition.class)))
+                .thenThrow(new RuntimeException("not authorized"))
+                .thenReturn("idx");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, provisioner::onStartup);
+        assertTrue(e.getMessage().startsWith("1 of " + MongoIndexProvisioner.INDEXES.size()));
+        verify(indexOperations, never()).getIndexInfo();
+    }
+
+    @Test
+    void testOnStartup_FailureToleratedWhenConfigured() {
+        ReflectionTestUtils.setField(provisioner, "provision", true);
+        ReflectionTestUtils.setField(provisioner, "failOnError", false);
+        when(mongoTemplate.indexOps(any(Class.class))).thenReturn(indexOperations);
+        when(indexOperations.ensureIndex(any(IndexDefinition.class)))
+                .thenThrow(new RuntimeException("not authorized"))
+                .thenReturn("idx");
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(indexNamed(MongoIndexProvisioner.ONE_ACTIVE_FILE_INDEX)));
+
+        assertDoesNotThrow(provisioner::onStartup);
+    }
+
+    @Test
+    void testEveryFinderHasADeclaredIndex() {
+        // Each branch a finder can match through must fix _id or the leading key of an index on its collection
+        for (MongoIndexProvisioner.FinderProbe finder : MongoIndexProvisioner.FINDERS) {
+            List<String> leadingKeys = MongoIndexProvisioner.INDEXES.stream()
+                    .filter(spec -> spec.entity() == finder.entity())
+                    .map(spec -> spec.index().getIndexKeys().keySet().iterator().next())
+                    .toList();
+            for (List<String> branch : branches(finder.filter())) {
+                assertTrue(branch.contains("_id") || branch.stream().anyMatch(leadingKeys::contains),
+                        finder.name() + " has no index for " + branch);
+            }
+        }
+    }
+
+    @Test
+    void testDeclaredIndexesHaveDistinctKeyPatterns() {
+        // Servers before 7.0 refuse a second index on the same keys, even when one is partial
+        for (Class<?> entity : MongoIndexProvisioner.INDEXES.stream().map(MongoIndexProvisioner.IndexSpec::entity).distinct().toList()) {
+            List<Document> keyPatterns = MongoIndexProvisioner.INDEXES.stream()
+                    .filter(spec -> spec.entity() == entity)
+                    .map(spec -> spec.index().getIndexKeys())
+                    .toList();
+            assertEquals(keyPatterns.size(), keyPatterns.stream().distinct().count(), entity.getSimpleName() + ": " + keyPatterns);
+        }
+    }
+
+    @Test
+    void testRequireIndexes_PassesWhenUniqueIndexExists() {
+        when(mongoTemplate.indexOps(FileEntity.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(indexNamed("_id_"), indexNamed(MongoIndexProvisioner.ONE_ACTIVE_FILE_INDEX)));
+
+        assertDoesNotThrow(provisioner::requireIndexes);
+    }
+
+    @Test
+    void testRequireIndexes_FailsStartupWithoutUniqueIndex() {
+        when(mongoTemplate.indexOps(FileEntity.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(indexNamed("_id_")));
+        when(mongoTemplate.getCollectionName(FileEntity.class)).thenReturn("files");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, provisioner::requireIndexes);
+        assertTrue(e.getMessage().contains(MongoIndexProvisioner.ONE_ACTIVE_FILE_INDEX));
+    }
+
+    private static IndexInfo indexNamed(String name) {
+        return new IndexInfo(List.of(), name, false, false, null);
+    }
+
+    /**
+     * The field names of each conjunction a filter matches through, one per {@code $or} branch.
+     */
+    private static List<List<String>> branches(Document filter) {
+        List<String> common = filter.keySet().stream().filter(key -> !key.equals("$or")).toList();
+        List<Document> alternatives = filter.getList("$or", Document.class, List.of());
+        if (alternatives.isEmpty()) {
+            return List.of(common);
+        }
+        List<List<String>> branches = new ArrayList<>();
+        for (Document alternative : alternatives) {
+            List<String> branch = new ArrayList<>(common);
+            branch.addAll(alternative.keySet());
+            branches.add(branch);
+        }
+        return branches;
+    }
+
+    @Test
+    void testFindCollectionScans_ReportsFindersWithoutIndex() {
+        when(mongoTemplate.getCollectionName(any(Class.class))).thenReturn("other");
+        when(mongoTemplate.getCollectionName(AudioEntity.class)).thenReturn("audio_entities");
+        when(mongoTemplate.getDb()).thenReturn(database);
+        Document indexed = new Document("queryPlanner", new Document("winningPlan",
+                new Document("stage", "FETCH").append("inputStage", new Document("stage", "IXSCAN"))));
+        Document collectionScan = new Document("queryPlanner", new Document("winningPlan", new Document("stage", "COLLSCAN")));
+        when(database.runCommand(any(Document.class))).thenAnswer(invocation -> {
+            Document find = invocation.<Document>getArgument(0).get("explain", Document.class);
+            return "audio_entities".equals(find.getString("find")) ? collectionScan : indexed;
+        });
+
+        List<String> collectionScans = provisioner.findCollectionScans();
+
+        assertEquals(List.of(
+                "AudioRepository.findByLeadId",
+                "AudioRepository.findByLeadIdOrderByTimestampDesc",
+                "AudioRepository.findByAgentIdAndLeadId",
+                "AudioRepository.findByIdIn",
+                "AgentStatsDao.aggregateFromSource (audio)"), collectionScans);
+    }
+}
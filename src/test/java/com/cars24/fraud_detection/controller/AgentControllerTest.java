@@ -14,6 +14,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -74,4 +76,14 @@ class AgentControllerTest {
         assertEquals(200, response.getStatusCodeValue());
         verify(agentService).analyzeAgent("123");
     }
+
+    @Test
+    void testRebuildAllAgentAnalyses() {
+        when(agentService.rebuildAllAgentAnalyses()).thenReturn(4);
+
+        ResponseEntity<Map<String, Integer>> response = agentController.rebuildAllAgentAnalyses();
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(4, response.getBody().get("agentsRebuilt"));
+    }
 }
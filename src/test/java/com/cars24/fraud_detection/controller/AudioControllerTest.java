@@ -4,19 +4,24 @@ import com.cars24.fraud_detection.data.request.AudioRequest;
 import com.cars24.fraud_detection.data.response.AudioResponse;
 import com.cars24.fraud_detection.exception.AudioProcessingException;
 import com.cars24.fraud_detection.service.AudioService;
+import com.cars24.fraud_detection.service.AudioService.StoredAudio;
+import com.cars24.fraud_detection.service.MediaService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,6 +33,9 @@ class AudioControllerTest {
     @Mock
     private AudioService audioService;
 
+    @Mock
+    private MediaService mediaService;
+
     @InjectMocks
     private AudioController audioController;
 
@@ -86,15 +94,26 @@ class AudioControllerTest {
     }
 
     @Test
-    void testGetAudioFile_Success() {
-        FileSystemResource mockFile = mock(FileSystemResource.class);
-        when(audioService.getAudioFile("123")).thenReturn(ResponseEntity.ok(mockFile));
+    void testGetAudioFile_Success() throws IOException {
+        Path audioFile = Path.of("src/main/resources/blob_store/ab/cd/abcd.wav");
+        when(audioService.findAudioFile("123")).thenReturn(Optional.of(new StoredAudio(audioFile, "123.wav", "abcd")));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/audio/file/123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
 
-        ResponseEntity<FileSystemResource> response = audioController.getAudioFile("123");
+        audioController.getAudioFile("123", request, response);
 
-        assertNotNull(response);
-        assertEquals(200, response.getStatusCodeValue());
-        verify(audioService).getAudioFile("123");
+        verify(mediaService).serve(audioFile, "123.wav", "abcd", request, response);
+    }
+
+    @Test
+    void testGetAudioFile_NotFound() throws IOException {
+        when(audioService.findAudioFile("123")).thenReturn(Optional.empty());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        audioController.getAudioFile("123", new MockHttpServletRequest(), response);
+
+        assertEquals(404, response.getStatus());
+        verifyNoInteractions(mediaService);
     }
 
     @Test
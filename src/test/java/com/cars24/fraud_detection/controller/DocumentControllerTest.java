@@ -1,10 +1,20 @@
 package com.cars24.fraud_detection.controller;
 
+import com.cars24.fraud_detection.data.response.DocumentJobResponse;
 import com.cars24.fraud_detection.data.response.DocumentResponse;
+import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.request.DocumentRequest;
+import com.cars24.fraud_detection.service.BlobStore;
+import com.cars24.fraud_detection.service.BlobStore.StoredBlob;
+import com.cars24.fraud_detection.service.DocumentPipelineService;
 import com.cars24.fraud_detection.service.DocumentService;
+import com.cars24.fraud_detection.service.MediaService;
+import com.cars24.fraud_detection.utils.FileSignature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -12,11 +22,16 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -28,9 +43,21 @@ class DocumentControllerTest {
     @Mock
     private DocumentService documentService;
 
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private MediaService mediaService;
+
+    @Mock
+    private DocumentPipelineService documentPipelineService;
+
     @InjectMocks
     private DocumentController documentController;
 
+    @TempDir
+    Path storageDir;
+
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.standaloneSetup(documentController).build();
@@ -47,6 +74,30 @@ class DocumentControllerTest {
                 .andExpect(jsonPath("$.documentId").value("123"));
     }
 
+    @Test
+    void testGetDocumentImage_ServedFromStoredPath() throws Exception {
+        DocumentEntity document = new DocumentEntity();
+        document.setFileName("aadhaar.png");
+        document.setFilePath("src/main/resources/document_storage/archive/aadhaar.png");
+        document.setContentHash("abc123");
+        when(documentService.findDocumentEntityById("123")).thenReturn(document);
+
+        mockMvc.perform(get("/documents/image/123").header("Range", "bytes=0-99"))
+                .andExpect(status().isOk());
+
+        verify(mediaService).serve(eq(Path.of("src/main/resources/document_storage/archive/aadhaar.png")), eq("aadhaar.png"), eq("abc123"), any(), any());
+    }
+
+    @Test
+    void testGetDocumentImage_UnknownDocumentIsNotFound() throws Exception {
+        when(documentService.findDocumentEntityById("404")).thenReturn(null);
+
+        mockMvc.perform(get("/documents/image/404"))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(mediaService);
+    }
+
     @Test
     void testGetRecentDocumentNames() throws Exception {
         List<String> mockFileNames = Collections.singletonList("document1.jpg");
@@ -58,8 +109,13 @@ class DocumentControllerTest {
     }
 
     @Test
-    void testUploadDocument() throws Exception {
-        when(documentService.processDocument(any())).thenReturn(new DocumentResponse());
+    void testUploadDocument_AcceptedWithJobId() throws Exception {
+        Path blobPath = storageDir.resolve("abc123.jpg");
+        when(blobStore.put(any(), eq(FileSignature.DOCUMENTS))).thenReturn(new StoredBlob("abc123", 13, FileSignature.JPEG, blobPath, false));
+        DocumentJobResponse job = new DocumentJobResponse();
+        job.setJobId("job1");
+        job.setStatus(DocumentJobResponse.Status.QUEUED);
+        when(documentPipelineService.submit(any())).thenReturn(job);
 
         mockMvc.perform(multipart("/documents/upload")
                         .file("file", "dummy content".getBytes())
@@ -67,6 +123,66 @@ class DocumentControllerTest {
                         .param("leadId", "lead1")
                         .param("documentType", "Aadhaar")
                         .contentType(MediaType.MULTIPART_FORM_DATA))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/documents/jobs/job1"))
+                .andExpect(jsonPath("$.jobId").value("job1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        // The upload reaches the pipeline as a stored file, not as bytes, and is not processed on the request thread
+        ArgumentCaptor<DocumentRequest> request = ArgumentCaptor.forClass(DocumentRequest.class);
+        verify(documentPipelineService).submit(request.capture());
+        assertEquals("abc123", request.getValue().getContentHash());
+        assertEquals(blobPath, request.getValue().getDocumentPath());
+        verifyNoInteractions(documentService);
+        verify(blobStore, never()).release(any());
+    }
+
+    @Test
+    void testUploadDocument_FullPipelineIsServiceUnavailable() throws Exception {
+        when(blobStore.put(any(), eq(FileSignature.DOCUMENTS)))
+                .thenReturn(new StoredBlob("abc123", 13, FileSignature.JPEG, storageDir.resolve("abc123.jpg"), false));
+        when(documentPipelineService.submit(any())).thenThrow(new RejectedExecutionException("Document pipeline is at capacity"));
+
+        mockMvc.perform(multipart("/documents/upload")
+                        .file("file", "dummy content".getBytes())
+                        .param("agentId", "agent1")
+                        .param("leadId", "lead1")
+                        .param("documentType", "Aadhaar")
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+
+        verify(blobStore).release("abc123");
+    }
+
+    @Test
+    void testGetDocumentJob() throws Exception {
+        DocumentJobResponse job = new DocumentJobResponse();
+        job.setJobId("job1");
+        job.setStatus(DocumentJobResponse.Status.COMPLETED);
+        when(documentPipelineService.getJob("job1")).thenReturn(Optional.of(job));
+        when(documentPipelineService.getJob("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/documents/jobs/job1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"));
+        mockMvc.perform(get("/documents/jobs/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testUploadDocument_RejectedContentIsBadRequest() throws Exception {
+        when(blobStore.put(any(), eq(FileSignature.DOCUMENTS)))
+                .thenThrow(new IllegalArgumentException("File content is not one of [PDF, DOC, DOCX, JPEG, PNG]"));
+
+        mockMvc.perform(multipart("/documents/upload")
+                        .file("file", "not an image".getBytes())
+                        .param("agentId", "agent1")
+                        .param("leadId", "lead1")
+                        .param("documentType", "Aadhaar")
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(documentService, documentPipelineService);
     }
 }
@@ -22,6 +22,10 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class FileControllerTest {
 
+    // The controller only accepts UUID-shaped agent and lead IDs
+    private static final String AGENT_ID = "11111111-1111-1111-1111-111111111111";
+    private static final String LEAD_ID = "22222222-2222-2222-2222-222222222222";
+
     @Mock
     private FileService fileService;
 
@@ -46,7 +50,7 @@ class FileControllerTest {
         MockMultipartFile file = new MockMultipartFile("file", "test.pdf", "application/pdf", new byte[]{});
         when(fileService.uploadFile(any(), any(), any(), any(), any())).thenReturn(fileEntity);
 
-        ResponseEntity<FileResponse> response = fileController.uploadFile(file, "agent1", "lead1", "pdf");
+        ResponseEntity<FileResponse> response = fileController.uploadFile(file, AGENT_ID, LEAD_ID, "pdf");
 
         assertNotNull(response);
         assertEquals(201, response.getStatusCodeValue());
@@ -76,21 +80,21 @@ class FileControllerTest {
 
     @Test
     void testGetFilesByAgentAndLead() {
-        when(fileService.getFilesByAgentAndLead("agent1", "lead1")).thenReturn(Collections.singletonList(fileEntity));
+        when(fileService.getFilesByAgentAndLead(AGENT_ID, LEAD_ID)).thenReturn(Collections.singletonList(fileEntity));
 
-        List<FileEntity> response = fileController.getFilesByAgentAndLead("agent1", "lead1");
+        ResponseEntity<List<FileEntity>> response = fileController.getFilesByAgentAndLead(AGENT_ID, LEAD_ID);
 
-        assertFalse(response.isEmpty());
-        assertEquals(1, response.size());
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(1, response.getBody().size());
     }
 
     @Test
     void testGetActiveFilesByAgentAndLead() {
-        when(fileService.getActiveFilesByAgentAndLead("agent1", "lead1")).thenReturn(Collections.singletonList(fileEntity));
+        when(fileService.getActiveFilesByAgentAndLead(AGENT_ID, LEAD_ID)).thenReturn(Collections.singletonList(fileEntity));
 
-        List<FileEntity> response = fileController.getActiveFilesByAgentAndLead("agent1", "lead1");
+        ResponseEntity<List<FileEntity>> response = fileController.getActiveFilesByAgentAndLead(AGENT_ID, LEAD_ID);
 
-        assertFalse(response.isEmpty());
-        assertEquals(1, response.size());
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(1, response.getBody().size());
     }
 }
@@ -0,0 +1,194 @@
+package com.cars24.fraud_detection.data.dao.impl;
+
+import com.cars24.fraud_detection.data.entity.AgentStatsEntity;
+import com.cars24.fraud_detection.data.entity.AudioEntity;
+import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.response.AgentAnalysis;
+import com.cars24.fraud_detection.repository.AgentStatsRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AgentStatsDaoImplTest {
+
+    @Mock
+    private AgentStatsRepository agentStatsRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private AgentStatsDaoImpl agentStatsDao;
+
+    @Test
+    void testIncrement_UpdatesOnlyNonZeroCounters() {
+        AgentStatsEntity delta = new AgentStatsEntity();
+        delta.setId("agent123");
+        delta.setTotalReferenceCalls(1);
+        delta.setAcceptedReferenceCalls(1);
+        delta.setAgentTalkTime(12.5);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(AgentStatsEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertTrue(agentStatsDao.increment(delta));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(AgentStatsEntity.class));
+        assertEquals(new Document("_id", "agent123"), query.getValue().getQueryObject());
+        Document inc = update.getValue().getUpdateObject().get("$inc", Document.class);
+        assertEquals(new Document("revision", 1).append("totalReferenceCalls", 1L).append("acceptedReferenceCalls", 1L)
+                .append("agentTalkTime", 12.5), inc);
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(AgentStatsEntity.class));
+    }
+
+    @Test
+    void testIncrement_MissingRollupIsNotCreated() {
+        AgentStatsEntity delta = new AgentStatsEntity();
+        delta.setId("agent123");
+        delta.setTotalPans(1);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(AgentStatsEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertFalse(agentStatsDao.increment(delta));
+    }
+
+    @Test
+    void testReplace_OnlyWhenRevisionUnchanged() {
+        AgentStatsEntity stats = new AgentStatsEntity();
+        stats.setId("agent123");
+        when(mongoTemplate.findAndReplace(any(Query.class), same(stats))).thenReturn(null);
+
+        assertFalse(agentStatsDao.replace(stats, 7L));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndReplace(query.capture(), same(stats));
+        assertEquals(new Document("_id", "agent123").append("revision", 7L), query.getValue().getQueryObject());
+        assertEquals(8, stats.getRevision());
+    }
+
+    @Test
+    void testReplace_CreatesMissingRollupOnce() {
+        AgentStatsEntity stats = new AgentStatsEntity();
+        stats.setId("agent123");
+        when(mongoTemplate.insert(stats)).thenReturn(stats).thenThrow(new DuplicateKeyException("agent123"));
+
+        assertTrue(agentStatsDao.replace(stats, null));
+        assertFalse(agentStatsDao.replace(stats, null));
+    }
+
+    @Test
+    void testAggregateFromSource() {
+        Document callTotals = new Document("total", 4).append("accepted", 2).append("rejected", 1)
+                .append("withTranscript", 2).append("agentTalkTime", 30.0).append("referenceTalkTime", 50.0);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(AudioEntity.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(callTotals), new Document()));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(DocumentEntity.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(
+                        new Document("_id", "AADHAAR").append("total", 3).append("rejected", 1),
+                        new Document("_id", "PAN").append("total", 2).append("rejected", 0)), new Document()));
+
+        AgentStatsEntity stats = agentStatsDao.aggregateFromSource("agent123");
+
+        assertEquals("agent123", stats.getId());
+        assertEquals(4, stats.getTotalReferenceCalls());
+        assertEquals(2, stats.getAcceptedReferenceCalls());
+        assertEquals(1, stats.getRejectedReferenceCalls());
+        assertEquals(2, stats.getTranscribedReferenceCalls());
+        assertEquals(30.0, stats.getAgentTalkTime());
+        assertEquals(50.0, stats.getReferenceTalkTime());
+        assertEquals(3, stats.getTotalAadhars());
+        assertEquals(1, stats.getRejectedAadhars());
+        assertEquals(2, stats.getTotalPans());
+        assertEquals(0, stats.getRejectedPans());
+
+        // The analysis a rebuild serves matches what the per-request aggregation used to return
+        AgentAnalysis analysis = stats.toAnalysis();
+        assertEquals(4, analysis.getTotalReferenceCalls());
+        assertEquals(2, analysis.getAcceptedReferenceCalls());
+        assertEquals(1, analysis.getRejectedReferenceCalls());
+        assertEquals(15.0, analysis.getAverageAgentTalkTime());
+        assertEquals(25.0, analysis.getAverageReferenceTalkTime());
+        assertEquals(3, analysis.getTotalAadhars());
+        assertEquals(2, analysis.getAcceptedAadhars());
+        assertEquals(1, analysis.getRejectedAadhars());
+        assertEquals(2, analysis.getTotalPans());
+        assertEquals(2, analysis.getAcceptedPans());
+        assertEquals(0, analysis.getRejectedPans());
+    }
+
+    @Test
+    void testAggregateFromSource_PipelineScopedToAgent() {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(AudioEntity.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(DocumentEntity.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        AgentStatsEntity stats = agentStatsDao.aggregateFromSource("agent123");
+
+        assertEquals(0, stats.getTotalReferenceCalls());
+        assertEquals(0, stats.getTotalAadhars());
+        assertEquals(0.0, stats.toAnalysis().getAverageAgentTalkTime());
+        ArgumentCaptor<Aggregation> pipeline = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(pipeline.capture(), eq(AudioEntity.class), eq(Document.class));
+        List<Document> stages = pipeline.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(new Document("$match", new Document("agentId", "agent123")), stages.get(0));
+        assertTrue(stages.get(1).toJson().contains("SPEAKER_00"));
+
+        verify(mongoTemplate).aggregate(pipeline.capture(), eq(DocumentEntity.class), eq(Document.class));
+        List<Document> documentStages = pipeline.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(new Document("$match", new Document("agentId", "agent123")
+                .append("documentType", new Document("$in", List.of("AADHAAR", "PAN")))), documentStages.get(0));
+        // Decisions are compared case-insensitively and grouped per document type
+        assertTrue(documentStages.get(1).toJson().contains("$toUpper"));
+        assertEquals("$documentType", documentStages.get(2).get("$group", Document.class).get("_id"));
+    }
+
+    @Test
+    void testAggregateFromSource_NoResultsLeavesZeroTotals() {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(AudioEntity.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(DocumentEntity.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(new Document("_id", "PAN").append("total", 1).append("rejected", 1)),
+                        new Document()));
+
+        AgentAnalysis analysis = agentStatsDao.aggregateFromSource("agent123").toAnalysis();
+
+        assertEquals(0, analysis.getTotalReferenceCalls());
+        assertEquals(0.0, analysis.getAverageReferenceTalkTime());
+        assertEquals(0, analysis.getTotalAadhars());
+        assertEquals(1, analysis.getTotalPans());
+        assertEquals(0, analysis.getAcceptedPans());
+        assertEquals(1, analysis.getRejectedPans());
+    }
+
+    @Test
+    void testFindAgentIdsWithResults() {
+        when(mongoTemplate.findDistinct(any(Query.class), eq("agentId"), eq(AudioEntity.class), eq(String.class)))
+                .thenReturn(List.of("agent1", "agent2"));
+        when(mongoTemplate.findDistinct(any(Query.class), eq("agentId"), eq(DocumentEntity.class), eq(String.class)))
+                .thenReturn(Arrays.asList("agent2", "agent3", null));
+
+        assertEquals(Set.of("agent1", "agent2", "agent3"), agentStatsDao.findAgentIdsWithResults());
+    }
+}
@@ -1,6 +1,7 @@
 package com.cars24.fraud_detection.data.dao.impl;
 
 import com.cars24.fraud_detection.data.entity.AudioEntity;
+import com.cars24.fraud_detection.data.projection.AudioSummary;
 import com.cars24.fraud_detection.repository.AudioRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -75,4 +76,16 @@ class AudioDaoImplTest {
         assertFalse(recentAudios.isEmpty());
         assertEquals(1, recentAudios.size());
     }
+
+    @Test
+    void testGetRecentAudioSummariesByLeadId() {
+        AudioSummary summary = mock(AudioSummary.class);
+        when(audioRepository.findSummariesByLeadIdOrderByTimestampDesc("lead123", PageRequest.of(0, 5)))
+                .thenReturn(List.of(summary));
+
+        List<AudioSummary> recentAudios = audioDao.getRecentAudioSummariesByLeadId("lead123", 5);
+
+        assertEquals(List.of(summary), recentAudios);
+        verify(audioRepository, never()).findByLeadIdOrderByTimestampDesc(anyString(), any());
+    }
 }
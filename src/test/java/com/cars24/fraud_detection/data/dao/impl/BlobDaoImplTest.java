@@ -0,0 +1,75 @@
+package com.cars24.fraud_detection.data.dao.impl;
+
+import com.cars24.fraud_detection.data.entity.BlobEntity;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BlobDaoImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private BlobDaoImpl blobDao;
+
+    @Test
+    void testAddReference_CountsEveryUploadAndReportsCreation() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(BlobEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, new BsonString("abc")))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertTrue(blobDao.addReference("abc", 10, "JPEG"));
+        assertFalse(blobDao.addReference("abc", 10, "JPEG"));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).upsert(any(Query.class), update.capture(), eq(BlobEntity.class));
+        assertEquals(1, update.getValue().getUpdateObject().get("$inc", org.bson.Document.class).get("refCount"));
+        assertEquals("JPEG", update.getValue().getUpdateObject().get("$setOnInsert", org.bson.Document.class).get("signature"));
+    }
+
+    @Test
+    void testRemoveReference_ReturnsCountAfterDecrement() {
+        BlobEntity blob = new BlobEntity();
+        blob.setRefCount(0);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(BlobEntity.class)))
+                .thenReturn(blob);
+
+        Optional<BlobEntity> released = blobDao.removeReference("abc");
+
+        assertEquals(0, released.orElseThrow().getRefCount());
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), options.capture(), eq(BlobEntity.class));
+        assertEquals(-1, update.getValue().getUpdateObject().get("$inc", org.bson.Document.class).get("refCount"));
+        assertTrue(options.getValue().isReturnNew());
+    }
+
+    @Test
+    void testDeleteIfUnreferenced_OnlyMatchesUnreferencedBlob() {
+        when(mongoTemplate.remove(any(Query.class), eq(BlobEntity.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        assertTrue(blobDao.deleteIfUnreferenced("abc"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(query.capture(), eq(BlobEntity.class));
+        assertTrue(query.getValue().getQueryObject().toString().contains("refCount"));
+    }
+}
@@ -1,7 +1,9 @@
 package com.cars24.fraud_detection.data.dao.impl;
 
 import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.projection.DocumentSummary;
 import com.cars24.fraud_detection.repository.DocumentRepository;
+import com.mongodb.client.result.UpdateResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,6 +12,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
 import java.util.Arrays;
 import java.util.List;
@@ -18,6 +24,10 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +36,9 @@ class DocumentDaoImplTest {
     @Mock
     private DocumentRepository documentRepository;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
     @InjectMocks
     private DocumentDaoImpl documentDao;
 
@@ -106,4 +119,52 @@ class DocumentDaoImplTest {
         assertFalse(docs.isEmpty());
         assertEquals("Aadhaar", docs.get(0).getDocumentType());
     }
+
+    @Test
+    void testSaveDocument_StoresCanonicalType() {
+        when(documentRepository.save(any(DocumentEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        DocumentEntity savedDoc = documentDao.saveDocument(documentEntity);
+        assertEquals("AADHAAR", savedDoc.getDocumentType());
+    }
+
+    @Test
+    void testGetRecentDocumentsByLeadIdAndType_QueriesCanonicalType() {
+        Pageable pageable = PageRequest.of(0, 5);
+        when(documentRepository.getRecentDocumentsByLeadIdAndType("lead1", "PAN", pageable)).thenReturn(List.of());
+        documentDao.getRecentDocumentsByLeadIdAndType("lead1", "Pan", pageable);
+        verify(documentRepository).getRecentDocumentsByLeadIdAndType("lead1", "PAN", pageable);
+    }
+
+    @Test
+    void testGetRecentDocumentSummariesByLeadId() {
+        DocumentSummary summary = mock(DocumentSummary.class);
+        when(documentRepository.findSummariesByLeadIdOrderByTimestampDesc("lead1", PageRequest.of(0, 5)))
+                .thenReturn(List.of(summary));
+        assertEquals(List.of(summary), documentDao.getRecentDocumentSummariesByLeadId("lead1", 5));
+    }
+
+    @Test
+    void testGetRecentDocumentSummariesByLeadIdAndType_QueriesCanonicalType() {
+        when(documentRepository.findSummariesByLeadIdAndDocumentTypeOrderByTimestampDesc("lead1", "PAN", PageRequest.of(0, 1)))
+                .thenReturn(List.of());
+        documentDao.getRecentDocumentSummariesByLeadIdAndType("lead1", "Pan", 1);
+        verify(documentRepository).findSummariesByLeadIdAndDocumentTypeOrderByTimestampDesc("lead1", "PAN", PageRequest.of(0, 1));
+    }
+
+    @Test
+    void testNormalizeDocumentTypes() {
+        when(mongoTemplate.findDistinct(any(Query.class), eq("documentType"), eq(DocumentEntity.class), eq(String.class)))
+                .thenReturn(Arrays.asList("AADHAAR", "Aadhaar", "pan", "DL"));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(DocumentEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(3, 3L, null))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+        assertEquals(5, documentDao.normalizeDocumentTypes());
+        verify(mongoTemplate).updateMulti(Query.query(Criteria.where("documentType").is("Aadhaar")),
+                Update.update("documentType", "AADHAAR"), DocumentEntity.class);
+        verify(mongoTemplate).updateMulti(Query.query(Criteria.where("documentType").is("pan")),
+                Update.update("documentType", "PAN"), DocumentEntity.class);
+        verify(mongoTemplate, never()).updateMulti(eq(Query.query(Criteria.where("documentType").is("DL"))),
+                any(Update.class), eq(DocumentEntity.class));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.cars24.fraud_detection.data.dao.impl;
+
+import com.cars24.fraud_detection.data.entity.DocumentJobEntity;
+import com.cars24.fraud_detection.repository.DocumentJobRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentJobDaoImplTest {
+
+    @Mock
+    private DocumentJobRepository documentJobRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private DocumentJobDaoImpl documentJobDao;
+
+    @Test
+    void testClaimAbandoned_TakesStaleOrReleasedJob() {
+        LocalDateTime now = LocalDateTime.now();
+        DocumentJobEntity job = new DocumentJobEntity();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(DocumentJobEntity.class)))
+                .thenReturn(job);
+
+        Optional<DocumentJobEntity> claimed = documentJobDao.claimAbandoned(now.minusSeconds(120), now);
+
+        assertTrue(claimed.isPresent());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(DocumentJobEntity.class));
+        String criteria = query.getValue().getQueryObject().toString();
+        assertTrue(criteria.contains("QUEUED") && criteria.contains("RUNNING"));
+        assertTrue(criteria.contains("heartbeatAt"));
+        assertEquals(now, update.getValue().getUpdateObject().get("$set", Document.class).get("heartbeatAt"));
+        assertEquals(1, update.getValue().getUpdateObject().get("$inc", Document.class).get("attempts"));
+    }
+
+    @Test
+    void testFinish_OnlyUnfinishedJob() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(DocumentJobEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertFalse(documentJobDao.finish("job1", DocumentJobEntity.Status.COMPLETED, "{}", null, LocalDateTime.now()));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(DocumentJobEntity.class));
+        assertEquals("job1", query.getValue().getQueryObject().get("_id"));
+        assertTrue(query.getValue().getQueryObject().toString().contains("RUNNING"));
+        assertTrue(update.getValue().getUpdateObject().get("$unset", Document.class).containsKey("heartbeatAt"));
+    }
+
+    @Test
+    void testHeartbeat_NoJobsSkipsWrite() {
+        assertEquals(0, documentJobDao.heartbeat(List.of(), LocalDateTime.now()));
+        assertEquals(0, documentJobDao.release(List.of()));
+
+        verifyNoInteractions(mongoTemplate);
+    }
+}
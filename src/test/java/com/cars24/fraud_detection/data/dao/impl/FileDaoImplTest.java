@@ -2,14 +2,31 @@ package com.cars24.fraud_detection.data.dao.impl;
 
 import com.cars24.fraud_detection.data.entity.FileEntity;
 import com.cars24.fraud_detection.repository.FileRepository;
+import com.mongodb.MongoException;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +38,15 @@ class FileDaoImplTest {
     @Mock
     private FileRepository fileRepository;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoDatabaseFactory databaseFactory;
+
+    @Mock
+    private ClientSession session;
+
     @InjectMocks
     private FileDaoImpl fileDao;
 
@@ -51,4 +77,161 @@ class FileDaoImplTest {
         assertTrue(foundFile.isPresent());
         assertEquals("file123", foundFile.get().getFileId());
     }
+
+    @Test
+    void testLinkResult_UpdatesOnlyTheLink() {
+        fileDao.linkResult("file123", "doc1");
+
+        verify(mongoTemplate).updateFirst(Query.query(Criteria.where("_id").is("file123")),
+                Update.update("resultId", "doc1"), FileEntity.class);
+        verifyNoInteractions(fileRepository);
+    }
+
+    @Test
+    void testUpdateStatus_AllowedTransitionIsStamped() {
+        FileEntity processing = new FileEntity("agent1", "lead1", "document.pdf", "PAN", "/tmp/document.pdf");
+        processing.setProcessingStartedAt(processing.getUploadedAt().plusSeconds(2));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FileEntity.class)))
+                .thenReturn(processing);
+
+        Optional<FileEntity> updated = fileDao.updateStatus("file123", "PROCESSING");
+
+        assertTrue(updated.isPresent());
+        assertEquals(2000L, updated.get().getQueuedMillis());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(FileEntity.class));
+        assertEquals(List.of("PENDING"),
+                query.getValue().getQueryObject().get("status", Document.class).get("$in"));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals("PROCESSING", set.get("status"));
+        assertNotNull(set.get("processingStartedAt"));
+        verifyNoInteractions(fileRepository);
+    }
+
+    @Test
+    void testUpdateStatus_DisallowedTransitionIsRejected() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FileEntity.class)))
+                .thenReturn(null);
+
+        assertTrue(fileDao.updateStatus("file123", "PROCESSED").isEmpty());
+    }
+
+    @Test
+    void testUpdateStatus_UnknownStatus() {
+        assertThrows(IllegalArgumentException.class, () -> fileDao.updateStatus("file123", "COMPLETED"));
+        // Back to PENDING is not a transition; retries keep the file PROCESSING
+        assertThrows(IllegalArgumentException.class, () -> fileDao.updateStatus("file123", "PENDING"));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testTransitions_OnlyForwardAndNeverFromFinished() {
+        assertEquals(Map.of(
+                "PROCESSING", List.of("PENDING"),
+                "PROCESSED", List.of("PROCESSING"),
+                "FAILED", List.of("PROCESSING")), FileDaoImpl.ALLOWED_TRANSITIONS);
+    }
+
+    @Test
+    void testReclaimProcessing_OnlyMatchesAFileAlreadyProcessing() {
+        FileEntity processing = new FileEntity("agent1", "lead1", "document.pdf", "PAN", "/tmp/document.pdf");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FileEntity.class)))
+                .thenReturn(processing);
+
+        assertTrue(fileDao.reclaimProcessing("file123").isPresent());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(FileEntity.class));
+        assertEquals(List.of("PROCESSING"), query.getValue().getQueryObject().get("status", Document.class).get("$in"));
+        assertNotNull(update.getValue().getUpdateObject().get("$set", Document.class).get("processingStartedAt"));
+    }
+
+    private void inTransaction() {
+        when(mongoTemplate.getMongoDatabaseFactory()).thenReturn(databaseFactory);
+        when(databaseFactory.getSession(any())).thenReturn(session);
+    }
+
+    @Test
+    void testInsertActive_SwitchesActiveFileInOneTransaction() {
+        inTransaction();
+        FileEntity upload = new FileEntity("agent1", "lead1", "pan.jpg", "PAN", "/tmp/pan.jpg");
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(FileEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+        FileEntity active = fileDao.insertActive(upload);
+
+        assertTrue(active.getIsActive());
+        ArgumentCaptor<Query> superseded = ArgumentCaptor.forClass(Query.class);
+        InOrder order = inOrder(session, mongoTemplate);
+        order.verify(session).startTransaction();
+        order.verify(mongoTemplate).updateMulti(superseded.capture(), eq(Update.update("isActive", false)), eq(FileEntity.class));
+        // Inserted already active, so there is no moment without an active file
+        order.verify(mongoTemplate).insert(argThat((FileEntity file) -> file == upload && file.getIsActive()));
+        order.verify(session).commitTransaction();
+        Document filter = superseded.getValue().getQueryObject();
+        assertEquals("PAN", filter.get("fileType"));
+        assertEquals(true, filter.get("isActive"));
+        assertEquals(new Document("$ne", upload.getFileId()), filter.get("_id"));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(FileEntity.class));
+        verifyNoInteractions(fileRepository);
+    }
+
+    @Test
+    void testInsertActive_ConcurrentUploadIsSupersededOnRetry() {
+        inTransaction();
+        FileEntity upload = new FileEntity("agent1", "lead1", "pan.jpg", "PAN", "/tmp/pan.jpg");
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(FileEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(mongoTemplate.insert(any(FileEntity.class)))
+                .thenThrow(new DuplicateKeyException("one_active_file_per_type"))
+                .thenReturn(upload);
+
+        assertTrue(fileDao.insertActive(upload).getIsActive());
+        verify(mongoTemplate, times(2)).updateMulti(any(Query.class), any(Update.class), eq(FileEntity.class));
+        verify(session, times(2)).startTransaction();
+    }
+
+    @Test
+    void testInsertActive_WriteConflictIsRetried() {
+        inTransaction();
+        FileEntity upload = new FileEntity("agent1", "lead1", "pan.jpg", "PAN", "/tmp/pan.jpg");
+        MongoException writeConflict = new MongoException(112, "WriteConflict");
+        writeConflict.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(FileEntity.class)))
+                .thenThrow(new UncategorizedMongoDbException("WriteConflict", writeConflict))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertTrue(fileDao.insertActive(upload).getIsActive());
+        verify(mongoTemplate, times(1)).insert(upload);
+    }
+
+    @Test
+    void testInsertActive_OtherFailureIsNotRetried() {
+        inTransaction();
+        FileEntity upload = new FileEntity("agent1", "lead1", "pan.jpg", "PAN", "/tmp/pan.jpg");
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(FileEntity.class)))
+                .thenThrow(new UncategorizedMongoDbException("not authorized", new MongoException(13, "not authorized")));
+
+        assertThrows(UncategorizedMongoDbException.class, () -> fileDao.insertActive(upload));
+        verify(mongoTemplate, times(1)).updateMulti(any(Query.class), any(Update.class), eq(FileEntity.class));
+        verify(mongoTemplate, never()).insert(any(FileEntity.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRepairActiveFiles_KeepsLatestPerType() {
+        AggregationResults<Document> results = mock(AggregationResults.class);
+        when(results.iterator()).thenReturn(List.of(
+                new Document("fileIds", List.of("newest", "older", "oldest")).append("active", 3)).iterator());
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(FileEntity.class), eq(Document.class))).thenReturn(results);
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(FileEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+        assertEquals(2, fileDao.repairActiveFiles());
+        verify(mongoTemplate).updateMulti(Query.query(Criteria.where("_id").in(List.of("older", "oldest"))),
+                Update.update("isActive", false), FileEntity.class);
+    }
 }
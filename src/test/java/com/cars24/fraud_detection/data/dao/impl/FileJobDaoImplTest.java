@@ -0,0 +1,123 @@
+package com.cars24.fraud_detection.data.dao.impl;
+
+import com.cars24.fraud_detection.data.entity.FileJobEntity;
+import com.cars24.fraud_detection.repository.FileJobRepository;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonString;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileJobDaoImplTest {
+
+    @Mock
+    private FileJobRepository fileJobRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private FileJobDaoImpl fileJobDao;
+
+    private FileJobEntity job;
+
+    @BeforeEach
+    void setUp() {
+        job = new FileJobEntity();
+        job.setId("file123");
+        job.setFileId("file123");
+        job.setJobType(FileJobEntity.JobType.DOCUMENT);
+        job.setStatus(FileJobEntity.Status.PENDING);
+    }
+
+    @Test
+    void testEnqueue_InsertsOnlyOnce() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(FileJobEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, new BsonString("file123")))
+                .thenReturn(UpdateResult.acknowledged(1, 0L, null));
+
+        assertTrue(fileJobDao.enqueue(job));
+        assertFalse(fileJobDao.enqueue(job));
+    }
+
+    @Test
+    void testClaimNext_LeasesDueOrExpiredJob() {
+        LocalDateTime now = LocalDateTime.now();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FileJobEntity.class)))
+                .thenReturn(job);
+
+        Optional<FileJobEntity> claimed = fileJobDao.claimNext("worker-1", now, now.plusSeconds(120));
+
+        assertTrue(claimed.isPresent());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(FileJobEntity.class));
+        String criteria = query.getValue().getQueryObject().toString();
+        assertTrue(criteria.contains("nextAttemptAt"));
+        assertTrue(criteria.contains("leaseExpiresAt"));
+        assertEquals("worker-1", update.getValue().getUpdateObject().get("$set", org.bson.Document.class).get("leaseOwner"));
+        assertEquals(1, update.getValue().getUpdateObject().get("$inc", org.bson.Document.class).get("attempts"));
+    }
+
+    @Test
+    void testComplete_RequiresLease() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(FileJobEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertFalse(fileJobDao.complete("file123", "worker-2", LocalDateTime.now()));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(FileJobEntity.class));
+        assertEquals("worker-2", query.getValue().getQueryObject().get("leaseOwner"));
+    }
+
+    @Test
+    void testReleaseExpiredLeases() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(FileJobEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+        assertEquals(2, fileJobDao.releaseExpiredLeases(LocalDateTime.now()));
+    }
+
+    @Test
+    void testEnqueueAll_OneBulkWrite() {
+        FileJobEntity second = new FileJobEntity();
+        second.setId("file456");
+        second.setFileId("file456");
+        BulkOperations bulk = mock(BulkOperations.class);
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FileJobEntity.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(result);
+        when(result.getUpserts()).thenReturn(List.of(new BulkWriteUpsert(0, new BsonString("file123"))));
+
+        assertEquals(1, fileJobDao.enqueueAll(List.of(job, second)));
+        verify(bulk, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(bulk).execute();
+    }
+
+    @Test
+    void testEnqueueAll_Empty() {
+        assertEquals(0, fileJobDao.enqueueAll(List.of()));
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,54 @@
+package com.cars24.fraud_detection.data.dao.impl;
+
+import com.cars24.fraud_detection.data.entity.StageResultEntity;
+import com.cars24.fraud_detection.repository.StageResultRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StageResultDaoImplTest {
+
+    @Mock
+    private StageResultRepository stageResultRepository;
+
+    @InjectMocks
+    private StageResultDaoImpl stageResultDao;
+
+    private StageResultEntity stageResult;
+
+    @BeforeEach
+    void setUp() {
+        stageResult = new StageResultEntity();
+        stageResult.setId("hash:OCR:v1:lead123");
+        stageResult.setResultJson("{}");
+    }
+
+    @Test
+    void testSave() {
+        when(stageResultRepository.save(stageResult)).thenReturn(stageResult);
+
+        StageResultEntity saved = stageResultDao.save(stageResult);
+
+        assertEquals("hash:OCR:v1:lead123", saved.getId());
+        verify(stageResultRepository).save(stageResult);
+    }
+
+    @Test
+    void testFindById() {
+        when(stageResultRepository.findById("hash:OCR:v1:lead123")).thenReturn(Optional.of(stageResult));
+
+        Optional<StageResultEntity> found = stageResultDao.findById("hash:OCR:v1:lead123");
+
+        assertTrue(found.isPresent());
+        assertEquals("{}", found.get().getResultJson());
+    }
+}
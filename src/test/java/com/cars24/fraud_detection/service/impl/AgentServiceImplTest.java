@@ -2,16 +2,12 @@ package com.cars24.fraud_detection.service.impl;
 
 import com.cars24.fraud_detection.data.dao.AgentDao;
 import com.cars24.fraud_detection.data.entity.AgentEntity;
-import com.cars24.fraud_detection.data.entity.AudioEntity;
-import com.cars24.fraud_detection.data.entity.DocumentEntity;
-import com.cars24.fraud_detection.data.entity.LeadEntity;
 import com.cars24.fraud_detection.data.request.AgentRequest;
 import com.cars24.fraud_detection.data.request.LoginRequest;
 import com.cars24.fraud_detection.data.response.AgentAnalysis;
 import com.cars24.fraud_detection.data.response.AgentResponse;
-import com.cars24.fraud_detection.data.response.LeadResponse;
 import com.cars24.fraud_detection.data.response.LoginResponse;
-import com.cars24.fraud_detection.service.LeadService;
+import com.cars24.fraud_detection.service.AgentStatsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,7 +16,6 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,7 +31,7 @@ class AgentServiceImplTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private LeadService leadService;
+    private AgentStatsService agentStatsService;
 
     @InjectMocks
     private AgentServiceImpl agentService;
@@ -113,4 +108,25 @@ class AgentServiceImplTest {
 
         assertThrows(IllegalArgumentException.class, () -> agentService.getAgentById("agent123"));
     }
+
+    @Test
+    void testAnalyzeAgent_ReadsRollup() {
+        AgentAnalysis rollup = new AgentAnalysis();
+        rollup.setTotalReferenceCalls(3);
+        rollup.setTotalAadhars(2);
+        when(agentStatsService.getAnalysis("agent123")).thenReturn(rollup);
+
+        AgentAnalysis analysis = agentService.analyzeAgent("agent123");
+
+        assertSame(rollup, analysis);
+        verify(agentStatsService).getAnalysis("agent123");
+    }
+
+    @Test
+    void testRebuildAgentAnalysis() {
+        AgentAnalysis rebuilt = new AgentAnalysis();
+        when(agentStatsService.rebuild("agent123")).thenReturn(rebuilt);
+
+        assertSame(rebuilt, agentService.rebuildAgentAnalysis("agent123"));
+    }
 }
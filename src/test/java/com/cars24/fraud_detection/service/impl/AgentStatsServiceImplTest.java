@@ -0,0 +1,194 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.AgentStatsDao;
+import com.cars24.fraud_detection.data.entity.AgentStatsEntity;
+import com.cars24.fraud_detection.data.entity.AudioEntity;
+import com.cars24.fraud_detection.data.entity.DocumentEntity;
+import com.cars24.fraud_detection.data.response.AgentAnalysis;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AgentStatsServiceImplTest {
+
+    @Mock
+    private AgentStatsDao agentStatsDao;
+
+    @InjectMocks
+    private AgentStatsServiceImpl agentStatsService;
+
+    @Test
+    void testRecordAudio_AddsCountsAndTalkTime() {
+        when(agentStatsDao.increment(any())).thenReturn(true);
+        agentStatsService.recordAudio(null, audio("accept", List.of(
+                Map.of("speaker", "SPEAKER_00", "start_time", 0.0, "end_time", 4.0),
+                Map.of("speaker", "SPEAKER_01", "start_time", 4.0, "end_time", 10.0),
+                Map.of("speaker", "SPEAKER_00", "start_time", 10.0)))); // Untimed utterances are ignored
+
+        AgentStatsEntity delta = capturedIncrement();
+        assertEquals("agent123", delta.getId());
+        assertEquals(1, delta.getTotalReferenceCalls());
+        assertEquals(1, delta.getAcceptedReferenceCalls());
+        assertEquals(0, delta.getRejectedReferenceCalls());
+        assertEquals(1, delta.getTranscribedReferenceCalls());
+        assertEquals(4.0, delta.getAgentTalkTime());
+        assertEquals(6.0, delta.getReferenceTalkTime());
+    }
+
+    @Test
+    void testRecordAudio_RetryReplacesEarlierResult() {
+        AudioEntity previous = audio("reject", List.of(Map.of("speaker", "SPEAKER_00", "start_time", 0.0, "end_time", 5.0)));
+        AudioEntity saved = audio("accept", List.of(Map.of("speaker", "SPEAKER_00", "start_time", 0.0, "end_time", 3.0)));
+        when(agentStatsDao.increment(any())).thenReturn(true);
+
+        agentStatsService.recordAudio(previous, saved);
+
+        AgentStatsEntity delta = capturedIncrement();
+        assertEquals(0, delta.getTotalReferenceCalls());
+        assertEquals(1, delta.getAcceptedReferenceCalls());
+        assertEquals(-1, delta.getRejectedReferenceCalls());
+        assertEquals(0, delta.getTranscribedReferenceCalls());
+        assertEquals(-2.0, delta.getAgentTalkTime());
+    }
+
+    @Test
+    void testRecordDocument_CountsRejectedAadhaar() {
+        DocumentEntity document = DocumentEntity.builder().agentId("agent123").documentType("Aadhaar").decision("Reject").build();
+        when(agentStatsDao.increment(any())).thenReturn(true);
+
+        agentStatsService.recordDocument(document);
+
+        AgentStatsEntity delta = capturedIncrement();
+        assertEquals(1, delta.getTotalAadhars());
+        assertEquals(1, delta.getRejectedAadhars());
+        assertEquals(0, delta.getTotalPans());
+    }
+
+    @Test
+    void testRecordDocument_FirstResultBackfillsRollup() {
+        AgentStatsEntity rebuilt = new AgentStatsEntity();
+        rebuilt.setId("agent123");
+        rebuilt.setTotalPans(4);
+        when(agentStatsDao.increment(any())).thenReturn(false);
+        when(agentStatsDao.findByAgentId("agent123")).thenReturn(Optional.empty());
+        when(agentStatsDao.aggregateFromSource("agent123")).thenReturn(rebuilt);
+        when(agentStatsDao.replace(rebuilt, null)).thenReturn(true);
+
+        agentStatsService.recordDocument(DocumentEntity.builder().agentId("agent123").documentType("PAN").build());
+
+        // The rollup is created from every stored result, including the one just saved, not from the delta
+        verify(agentStatsDao).replace(rebuilt, null);
+        assertEquals(4, rebuilt.getTotalPans());
+    }
+
+    @Test
+    void testRebuild_RetriesWhenIncrementLandsInBetween() {
+        AgentStatsEntity before = new AgentStatsEntity();
+        before.setRevision(4);
+        AgentStatsEntity after = new AgentStatsEntity();
+        after.setRevision(5);
+        when(agentStatsDao.findByAgentId("agent123")).thenReturn(Optional.of(before), Optional.of(after));
+        when(agentStatsDao.aggregateFromSource("agent123")).thenAnswer(invocation -> new AgentStatsEntity());
+        when(agentStatsDao.replace(any(), eq(4L))).thenReturn(false);
+        when(agentStatsDao.replace(any(), eq(5L))).thenReturn(true);
+
+        agentStatsService.rebuild("agent123");
+
+        verify(agentStatsDao, times(2)).aggregateFromSource("agent123");
+        verify(agentStatsDao).replace(any(), eq(5L));
+    }
+
+    @Test
+    void testRecordDocument_IgnoresOtherTypes() {
+        agentStatsService.recordDocument(DocumentEntity.builder().agentId("agent123").documentType("DL").build());
+
+        verifyNoInteractions(agentStatsDao);
+    }
+
+    @Test
+    void testRecord_FailureDoesNotPropagate() {
+        doThrow(new RuntimeException("Mongo down")).when(agentStatsDao).increment(any());
+
+        assertDoesNotThrow(() -> agentStatsService.recordDocument(
+                DocumentEntity.builder().agentId("agent123").documentType("PAN").decision("Approve").build()));
+    }
+
+    @Test
+    void testGetAnalysis_ReadsRollup() {
+        AgentStatsEntity stats = new AgentStatsEntity();
+        stats.setId("agent123");
+        stats.setTotalReferenceCalls(2);
+        stats.setTranscribedReferenceCalls(2);
+        stats.setAgentTalkTime(20.0);
+        stats.setTotalPans(3);
+        stats.setRejectedPans(1);
+        when(agentStatsDao.findByAgentId("agent123")).thenReturn(Optional.of(stats));
+
+        AgentAnalysis analysis = agentStatsService.getAnalysis("agent123");
+
+        assertEquals(2, analysis.getTotalReferenceCalls());
+        assertEquals(10.0, analysis.getAverageAgentTalkTime());
+        assertEquals(2, analysis.getAcceptedPans());
+        verify(agentStatsDao, never()).aggregateFromSource(any());
+    }
+
+    @Test
+    void testGetAnalysis_BackfillsMissingRollup() {
+        AgentStatsEntity rebuilt = new AgentStatsEntity();
+        rebuilt.setId("agent123");
+        rebuilt.setTotalAadhars(1);
+        when(agentStatsDao.findByAgentId("agent123")).thenReturn(Optional.empty());
+        when(agentStatsDao.aggregateFromSource("agent123")).thenReturn(rebuilt);
+        when(agentStatsDao.replace(rebuilt, null)).thenReturn(true);
+
+        AgentAnalysis analysis = agentStatsService.getAnalysis("agent123");
+
+        assertEquals(1, analysis.getTotalAadhars());
+        assertEquals(1, analysis.getAcceptedAadhars());
+        verify(agentStatsDao).replace(rebuilt, null);
+        assertNotNull(rebuilt.getRebuiltAt());
+    }
+
+    @Test
+    void testRebuildAll() {
+        when(agentStatsDao.findAgentIdsWithResults()).thenReturn(Set.of("agent1", "agent2"));
+        when(agentStatsDao.aggregateFromSource(any())).thenAnswer(invocation -> {
+            AgentStatsEntity stats = new AgentStatsEntity();
+            stats.setId(invocation.getArgument(0));
+            return stats;
+        });
+        when(agentStatsDao.replace(any(), isNull())).thenReturn(true);
+
+        assertEquals(2, agentStatsService.rebuildAll());
+        verify(agentStatsDao, times(2)).replace(any(AgentStatsEntity.class), isNull());
+    }
+
+    private AudioEntity audio(String status, List<Map<String, Object>> transcript) {
+        AudioEntity audio = new AudioEntity();
+        audio.setAgentId("agent123");
+        audio.setStatus(status);
+        audio.setLlmExtraction(Map.of("transcript", transcript));
+        return audio;
+    }
+
+    private AgentStatsEntity capturedIncrement() {
+        ArgumentCaptor<AgentStatsEntity> delta = ArgumentCaptor.forClass(AgentStatsEntity.class);
+        verify(agentStatsDao).increment(delta.capture());
+        return delta.getValue();
+    }
+}
@@ -8,16 +8,26 @@ import com.cars24.fraud_detection.data.entity.LeadEntity;
 import com.cars24.fraud_detection.data.request.AudioRequest;
 import com.cars24.fraud_detection.data.response.AudioResponse;
 import com.cars24.fraud_detection.exception.AudioProcessingException;
+import com.cars24.fraud_detection.service.AgentStatsService;
+import com.cars24.fraud_detection.service.AudioService.StoredAudio;
+import com.cars24.fraud_detection.service.BlobStore;
+import com.cars24.fraud_detection.service.BlobStore.StoredBlob;
+import com.cars24.fraud_detection.service.LeadInsightsCacheService;
+import com.cars24.fraud_detection.utils.FileSignature;
 import com.cars24.fraud_detection.workflow.WorkflowInitiator;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -39,6 +49,15 @@ class AudioServiceImplTest {
     @Mock
     private DocumentTypeConfig documentTypeConfig;
 
+    @Mock
+    private AgentStatsService agentStatsService;
+
+    @Mock
+    private LeadInsightsCacheService leadInsightsCache;
+
+    @Mock
+    private BlobStore blobStore;
+
     @InjectMocks
     private AudioServiceImpl audioService;
 
@@ -71,16 +90,79 @@ class AudioServiceImplTest {
     }
 
     @Test
-    void testProcessAudioRequest_Success() throws JsonProcessingException, AudioProcessingException {
+    void testProcessAudioRequest_Success(@TempDir Path tempDir) throws IOException, AudioProcessingException {
+        Path blobPath = Files.write(tempDir.resolve("blob.mp3"), new byte[]{1, 2, 3});
+        when(blobStore.put(any(), eq(FileSignature.AUDIO))).thenReturn(new StoredBlob("abc", 3, FileSignature.MP3, blobPath, false));
         when(leadDao.findLeadById("lead123")).thenReturn(Optional.of(leadEntity));
         when(workflowInitiator.processAudio(any(AudioRequest.class))).thenReturn(audioResponse);
         when(audioDao.saveAudio(any(AudioEntity.class))).thenReturn(audioEntity);
 
-        AudioResponse response = audioService.processAudioRequest(audioRequest);
+        Path placed = Path.of("src/main/resources/audio_storage", uuid + ".mp3");
+        try {
+            AudioResponse response = audioService.processAudioRequest(audioRequest);
+
+            assertNotNull(response);
+            assertEquals(uuid, response.getId());
+            ArgumentCaptor<AudioEntity> saved = ArgumentCaptor.forClass(AudioEntity.class);
+            verify(audioDao, times(1)).saveAudio(saved.capture());
+            assertEquals("abc", saved.getValue().getContentHash());
+            // The blob is exposed where the scripts look for the recording
+            assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(placed));
+            assertNotNull(audioRequest.getGroundTruth());
+            verify(agentStatsService).recordAudio(isNull(), any(AudioEntity.class));
+            verify(blobStore, never()).release(any());
+        } finally {
+            Files.deleteIfExists(placed);
+        }
+    }
 
-        assertNotNull(response);
-        assertEquals(uuid, response.getId());
-        verify(audioDao, times(1)).saveAudio(any(AudioEntity.class));
+    @Test
+    void testProcessAudioRequest_RetryHandsEarlierResultToRollup(@TempDir Path tempDir) throws IOException, AudioProcessingException {
+        AudioEntity earlier = new AudioEntity();
+        earlier.setId(uuid);
+        audioRequest.setAudioFile(null);
+        audioRequest.setAudioPath(Files.write(tempDir.resolve("upload.mp3"), new byte[]{1, 2, 3}));
+        when(leadDao.findLeadById("lead123")).thenReturn(Optional.of(leadEntity));
+        when(workflowInitiator.processAudio(any(AudioRequest.class))).thenReturn(audioResponse);
+        when(audioDao.getAudioById(uuid)).thenReturn(Optional.of(earlier));
+
+        try {
+            audioService.processAudioRequest(audioRequest);
+        } finally {
+            Files.deleteIfExists(Path.of("src/main/resources/audio_storage", uuid + ".mp3"));
+        }
+
+        verify(agentStatsService).recordAudio(same(earlier), any(AudioEntity.class));
+        verifyNoInteractions(blobStore);
+    }
+
+    @Test
+    void testPlaceAudio_StoredUploadIsLinkedNotReread(@TempDir Path tempDir) throws IOException, AudioProcessingException {
+        Path storedUpload = Files.write(tempDir.resolve("upload.mp3"), new byte[]{1, 2, 3});
+
+        Path placed = Path.of(audioService.placeAudio(storedUpload, uuid));
+        try {
+            assertEquals(uuid + ".mp3", placed.getFileName().toString());
+            assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(placed));
+            // Placing it again for a retried job keeps the existing file
+            assertEquals(placed.toString(), audioService.placeAudio(storedUpload, uuid));
+            assertTrue(Files.exists(storedUpload));
+        } finally {
+            Files.deleteIfExists(placed);
+        }
+    }
+
+    @Test
+    void testProcessAudioRequest_RejectedUploadIsNotProcessed() throws IOException {
+        when(leadDao.findLeadById("lead123")).thenReturn(Optional.of(leadEntity));
+        when(blobStore.put(any(), eq(FileSignature.AUDIO)))
+                .thenThrow(new IllegalArgumentException("File content is not one of [MP3, WAV]"));
+
+        AudioProcessingException e = assertThrows(AudioProcessingException.class, () -> audioService.processAudioRequest(audioRequest));
+
+        assertTrue(e.getMessage().contains("File content is not one of"));
+        verifyNoInteractions(workflowInitiator);
+        verify(audioDao, never()).saveAudio(any());
     }
 
     @Test
@@ -100,6 +182,38 @@ class AudioServiceImplTest {
         assertEquals(uuid, response.getId());
     }
 
+    @Test
+    void testFindAudioFile_ServesBlobUnderItsOwnExtension(@TempDir Path tempDir) throws IOException {
+        audioEntity.setContentHash("abcd");
+        Path blob = Files.write(tempDir.resolve("abcd.wav"), new byte[]{1, 2, 3});
+        when(audioDao.getAudioById(uuid)).thenReturn(Optional.of(audioEntity));
+        when(blobStore.localPath("abcd")).thenReturn(Optional.of(blob));
+
+        StoredAudio audio = audioService.findAudioFile(uuid).orElseThrow();
+
+        assertEquals(blob, audio.path());
+        assertEquals(uuid + ".wav", audio.fileName());
+        assertEquals("abcd", audio.contentHash());
+    }
+
+    @Test
+    void testFindAudioFile_WithoutHashFallsBackToAudioStorage() throws IOException {
+        Path placed = Files.write(Path.of("src/main/resources/audio_storage", uuid + ".mp3"), new byte[]{1, 2, 3});
+        when(audioDao.getAudioById(uuid)).thenReturn(Optional.of(audioEntity));
+
+        try {
+            StoredAudio audio = audioService.findAudioFile(uuid).orElseThrow();
+
+            assertEquals(placed, audio.path());
+            assertEquals(uuid + ".mp3", audio.fileName());
+            assertNull(audio.contentHash());
+            verifyNoInteractions(blobStore);
+        } finally {
+            Files.deleteIfExists(placed);
+        }
+        assertTrue(audioService.findAudioFile(uuid).isEmpty());
+    }
+
     @Test
     void testGetAudioResults_Fail_NotFound() {
         when(audioDao.getAudioById(uuid)).thenReturn(Optional.empty());
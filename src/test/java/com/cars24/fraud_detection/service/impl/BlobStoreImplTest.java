@@ -0,0 +1,140 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.BlobDao;
+import com.cars24.fraud_detection.data.entity.BlobEntity;
+import com.cars24.fraud_detection.service.BlobStore.StoredBlob;
+import com.cars24.fraud_detection.utils.FileSignature;
+import com.cars24.fraud_detection.utils.UploadIngestor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BlobStoreImplTest {
+
+    private static final byte[] JPEG_CONTENT = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F', 0, 1, 1, 2, 3};
+
+    @Mock
+    private BlobDao blobDao;
+
+    @TempDir
+    Path storeDir;
+
+    private BlobStoreImpl blobStore;
+
+    @BeforeEach
+    void setUp() {
+        LocalBlobBackend backend = new LocalBlobBackend();
+        ReflectionTestUtils.setField(backend, "storePath", storeDir.toString());
+        UploadIngestor uploadIngestor = new UploadIngestor();
+        ReflectionTestUtils.setField(uploadIngestor, "bufferBytes", 8192);
+        ReflectionTestUtils.setField(uploadIngestor, "maxBytes", 1024L);
+
+        blobStore = new BlobStoreImpl(backend, blobDao, uploadIngestor);
+        ReflectionTestUtils.setField(blobStore, "storePath", storeDir.toString());
+    }
+
+    private StoredBlob put(byte[] content) throws IOException {
+        return blobStore.put(new ByteArrayInputStream(content), Set.of(FileSignature.JPEG));
+    }
+
+    private long storedFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(storeDir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static BlobEntity blob(String sha256, long refCount) {
+        BlobEntity entity = new BlobEntity();
+        entity.setSha256(sha256);
+        entity.setSignature(FileSignature.JPEG.name());
+        entity.setRefCount(refCount);
+        return entity;
+    }
+
+    @Test
+    void testPut_StoresUnderTwoLevelFanOut() throws IOException {
+        when(blobDao.addReference(anyString(), eq((long) JPEG_CONTENT.length), eq("JPEG"))).thenReturn(true);
+
+        StoredBlob stored = put(JPEG_CONTENT);
+
+        String sha256 = stored.sha256();
+        assertEquals(64, sha256.length());
+        assertEquals(storeDir.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256 + ".jpg"), stored.path());
+        assertArrayEquals(JPEG_CONTENT, Files.readAllBytes(stored.path()));
+        assertFalse(stored.deduplicated());
+        assertEquals(1, storedFiles());
+    }
+
+    @Test
+    void testPut_IdenticalContentIsStoredOnce() throws IOException {
+        when(blobDao.addReference(anyString(), anyLong(), anyString())).thenReturn(true).thenReturn(false);
+
+        StoredBlob first = put(JPEG_CONTENT);
+        StoredBlob second = put(JPEG_CONTENT);
+
+        assertTrue(second.deduplicated());
+        assertEquals(first.path(), second.path());
+        assertEquals(1, storedFiles());
+        verify(blobDao, times(2)).addReference(eq(first.sha256()), anyLong(), anyString());
+    }
+
+    @Test
+    void testPut_RejectedContentLeavesNothing() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> put("%PDF-1.4".getBytes()));
+
+        assertEquals(0, storedFiles());
+        verifyNoInteractions(blobDao);
+    }
+
+    @Test
+    void testRelease_DeletesContentAndDerivedFilesWithLastReference() throws IOException {
+        when(blobDao.addReference(anyString(), anyLong(), anyString())).thenReturn(true);
+        StoredBlob stored = put(JPEG_CONTENT);
+        Path ocrJson = Files.writeString(stored.path().resolveSibling(stored.sha256() + "_ocr.json"), "{}");
+        when(blobDao.removeReference(stored.sha256()))
+                .thenReturn(Optional.of(blob(stored.sha256(), 1)))
+                .thenReturn(Optional.of(blob(stored.sha256(), 0)));
+        when(blobDao.deleteIfUnreferenced(stored.sha256())).thenReturn(true);
+
+        blobStore.release(stored.sha256());
+        assertTrue(Files.exists(stored.path()));
+        verify(blobDao, never()).deleteIfUnreferenced(any());
+
+        blobStore.release(stored.sha256());
+        assertFalse(Files.exists(stored.path()));
+        assertFalse(Files.exists(ocrJson));
+    }
+
+    @Test
+    void testKeyOf_OnlyRecognisesBlobsOfThisStore() {
+        String sha256 = "ab".repeat(32);
+
+        assertEquals(Optional.of(sha256), blobStore.keyOf(storeDir.resolve("ab/ab/" + sha256 + ".jpg")));
+        assertEquals(Optional.empty(), blobStore.keyOf(storeDir.resolve("ab/ab/upload.jpg")));
+        assertEquals(Optional.empty(), blobStore.keyOf(Path.of("elsewhere", sha256 + ".jpg")));
+    }
+
+    @Test
+    void testLocalPath_UnknownHashIsEmpty() throws IOException {
+        when(blobDao.findById("missing")).thenReturn(Optional.empty());
+
+        assertEquals(Optional.empty(), blobStore.localPath("missing"));
+    }
+}
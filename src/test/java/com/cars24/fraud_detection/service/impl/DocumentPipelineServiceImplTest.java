@@ -0,0 +1,326 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.DocumentJobDao;
+import com.cars24.fraud_detection.data.entity.DocumentJobEntity;
+import com.cars24.fraud_detection.data.request.DocumentRequest;
+import com.cars24.fraud_detection.data.response.DocumentJobResponse;
+import com.cars24.fraud_detection.data.response.DocumentPipelineStats;
+import com.cars24.fraud_detection.data.response.DocumentResponse;
+import com.cars24.fraud_detection.exception.DocumentProcessingException;
+import com.cars24.fraud_detection.service.BlobStore;
+import com.cars24.fraud_detection.service.DocumentPipelineService.Stage;
+import com.cars24.fraud_detection.service.DocumentService;
+import com.cars24.fraud_detection.utils.WorkerThreads;
+import com.cars24.fraud_detection.workflow.StageExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentPipelineServiceImplTest {
+
+    @Mock
+    private DocumentService documentService;
+
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private StageExecutor stageExecutor;
+
+    @Mock
+    private DocumentJobDao documentJobDao;
+
+    @TempDir
+    Path tempDir;
+
+    private final MockEnvironment environment = new MockEnvironment();
+
+    private DocumentPipelineServiceImpl pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new DocumentPipelineServiceImpl(documentService, blobStore, stageExecutor, documentJobDao, environment,
+                new WorkerThreads(environment));
+        ReflectionTestUtils.setField(pipeline, "jobRetentionSeconds", 3600L);
+        ReflectionTestUtils.setField(pipeline, "jobLeaseSeconds", 120L);
+        ReflectionTestUtils.setField(pipeline, "jobMaxAttempts", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    private static DocumentRequest request(String name) {
+        DocumentRequest request = new DocumentRequest();
+        request.setLeadId("lead1");
+        request.setDocumentType("AADHAAR");
+        request.setFileName(name);
+        request.setDocumentPath(Path.of("blobs", name));
+        request.setContentHash("hash-" + name);
+        return request;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the pipeline");
+            Thread.sleep(10);
+        }
+    }
+
+    private DocumentJobResponse.Status statusOf(String jobId) {
+        return pipeline.getJob(jobId).orElseThrow().getStatus();
+    }
+
+    @Test
+    void testSubmit_RunsEveryStageAndHandsUploadToDocument() throws InterruptedException {
+        DocumentResponse analysed = new DocumentResponse();
+        DocumentResponse saved = new DocumentResponse();
+        saved.setDocumentId("doc1");
+        when(documentService.analyseDocument(any())).thenReturn(analysed);
+        when(documentService.saveDocumentResult(any(), same(analysed))).thenReturn(saved);
+        pipeline.start();
+
+        DocumentJobResponse accepted = pipeline.submit(request("a.jpg"));
+        await(() -> statusOf(accepted.getJobId()) == DocumentJobResponse.Status.COMPLETED);
+
+        DocumentJobResponse job = pipeline.getJob(accepted.getJobId()).orElseThrow();
+        assertEquals("doc1", job.getResult().getDocumentId());
+        assertEquals("persist", job.getStage());
+        assertNotNull(job.getCompletedAt());
+        verify(documentService).prepareDocument(any());
+        verify(documentJobDao).insert(argThat(entity -> entity.getId().equals(accepted.getJobId())
+                && entity.getStatus() == DocumentJobEntity.Status.QUEUED && "blobs/a.jpg".equals(entity.getDocumentPath())));
+        verify(documentJobDao).markRunning(accepted.getJobId(), "persist");
+        verify(documentJobDao).finish(eq(accepted.getJobId()), eq(DocumentJobEntity.Status.COMPLETED),
+                argThat(json -> json.contains("\"documentId\":\"doc1\"")), isNull(), any());
+        // The saved document serves the upload, so its reference is kept
+        verify(blobStore, never()).release(any());
+
+        Map<Stage, ?> stages = pipeline.getStats().getStages();
+        assertEquals(3, stages.size());
+        assertEquals(1, pipeline.getStats().getStages().get(Stage.PERSIST).completed());
+        assertEquals(1, pipeline.getStats().getStages().get(Stage.ANALYSIS).completedLastMinute());
+    }
+
+    @Test
+    void testSubmit_FailedStageEndsJob() throws InterruptedException {
+        when(documentService.analyseDocument(any())).thenThrow(new DocumentProcessingException("OCR Extraction processing failed"));
+        pipeline.start();
+
+        DocumentJobResponse accepted = pipeline.submit(request("b.jpg"));
+        await(() -> statusOf(accepted.getJobId()) == DocumentJobResponse.Status.FAILED);
+
+        DocumentJobResponse job = pipeline.getJob(accepted.getJobId()).orElseThrow();
+        assertEquals("analysis", job.getStage());
+        // The exception's detail is logged, not handed to the client
+        assertEquals("Document processing failed in the analysis stage", job.getError());
+        assertNull(job.getResult());
+        verify(documentJobDao).finish(eq(accepted.getJobId()), eq(DocumentJobEntity.Status.FAILED), isNull(),
+                eq("Document processing failed in the analysis stage"), any());
+        verify(documentService, never()).saveDocumentResult(any(), any());
+        verify(blobStore).release("hash-b.jpg");
+        assertEquals(1, pipeline.getStats().getStages().get(Stage.ANALYSIS).failed());
+    }
+
+    @Test
+    void testSubmit_SlowStageBacksUpToIntake() throws InterruptedException {
+        environment.setProperty("document.pipeline.ingest.workers", "1");
+        environment.setProperty("document.pipeline.ingest.queue-capacity", "1");
+        environment.setProperty("document.pipeline.analysis.workers", "1");
+        environment.setProperty("document.pipeline.analysis.queue-capacity", "1");
+        CountDownLatch analysisBlocked = new CountDownLatch(1);
+        when(documentService.analyseDocument(any())).thenAnswer(invocation -> {
+            analysisBlocked.await(5, TimeUnit.SECONDS);
+            return new DocumentResponse();
+        });
+        pipeline.start();
+
+        // One in analysis, one queued for it, one held by the ingest worker, one queued for ingest
+        pipeline.submit(request("1.jpg"));
+        await(() -> pipeline.getStats().getStages().get(Stage.ANALYSIS).active() == 1);
+        pipeline.submit(request("2.jpg"));
+        await(() -> pipeline.getStats().getStages().get(Stage.ANALYSIS).queued() == 1);
+        pipeline.submit(request("3.jpg"));
+        await(() -> pipeline.getStats().getStages().get(Stage.INGEST).completed() == 3);
+        pipeline.submit(request("4.jpg"));
+
+        assertThrows(RejectedExecutionException.class, () -> pipeline.submit(request("5.jpg")));
+        verify(documentJobDao).deleteById(any());
+        DocumentPipelineStats stats = pipeline.getStats();
+        assertEquals(1, stats.getRejected());
+        assertEquals(1, stats.getStages().get(Stage.INGEST).queued());
+
+        analysisBlocked.countDown();
+        await(() -> pipeline.getStats().getStages().get(Stage.PERSIST).completed() == 4);
+        verify(blobStore, never()).release(any());
+    }
+
+    @Test
+    void testSubmit_ErrorInStageEndsJobAndKeepsWorker() throws InterruptedException {
+        environment.setProperty("document.pipeline.analysis.workers", "1");
+        when(documentService.analyseDocument(any()))
+                .thenThrow(new NoClassDefFoundError("org/opencv/core/Mat"))
+                .thenReturn(new DocumentResponse());
+        pipeline.start();
+
+        DocumentJobResponse broken = pipeline.submit(request("c.jpg"));
+        await(() -> statusOf(broken.getJobId()) == DocumentJobResponse.Status.FAILED);
+        DocumentJobResponse next = pipeline.submit(request("d.jpg"));
+
+        await(() -> statusOf(next.getJobId()) == DocumentJobResponse.Status.COMPLETED);
+        assertEquals("Document processing failed in the analysis stage", pipeline.getJob(broken.getJobId()).orElseThrow().getError());
+        verify(blobStore).release("hash-c.jpg");
+    }
+
+    @Test
+    void testStop_HandsUnfinishedJobsBack() throws InterruptedException {
+        environment.setProperty("document.pipeline.analysis.workers", "1");
+        CountDownLatch analysisStarted = new CountDownLatch(1);
+        when(documentService.analyseDocument(any())).thenAnswer(invocation -> {
+            analysisStarted.countDown();
+            Thread.sleep(5000);
+            return new DocumentResponse();
+        });
+        pipeline.start();
+        DocumentJobResponse running = pipeline.submit(request("1.jpg"));
+        assertTrue(analysisStarted.await(5, TimeUnit.SECONDS));
+        DocumentJobResponse queued = pipeline.submit(request("2.jpg"));
+        await(() -> pipeline.getStats().getStages().get(Stage.ANALYSIS).queued() == 1);
+
+        pipeline.stop();
+
+        // Neither job is finished, and both keep their upload for the pipeline that takes them up
+        verify(documentJobDao).release(List.of(queued.getJobId()));
+        verify(documentJobDao, timeout(5000)).release(List.of(running.getJobId()));
+        verify(documentJobDao, never()).finish(any(), any(), any(), any(), any());
+        verify(blobStore, never()).release(any());
+        assertThrows(RejectedExecutionException.class, () -> pipeline.submit(request("3.jpg")));
+    }
+
+    @Test
+    void testPurge_DropsJobsFinishedBeforeRetention() throws InterruptedException {
+        when(documentService.analyseDocument(any())).thenThrow(new DocumentProcessingException("OCR Extraction processing failed"));
+        pipeline.start();
+        DocumentJobResponse accepted = pipeline.submit(request("e.jpg"));
+        await(() -> statusOf(accepted.getJobId()) == DocumentJobResponse.Status.FAILED);
+
+        pipeline.purgeFinishedJobs();
+        assertTrue(pipeline.getJob(accepted.getJobId()).isPresent());
+
+        ReflectionTestUtils.setField(pipeline, "jobRetentionSeconds", -1L);
+        pipeline.purgeFinishedJobs();
+        assertTrue(pipeline.getJob(accepted.getJobId()).isEmpty());
+        verify(documentJobDao, times(2)).deleteFinishedBefore(any());
+    }
+
+    @Test
+    void testGetJob_ReadsStoredJobAfterRestart() {
+        DocumentJobEntity stored = storedJob("job1", "unused");
+        stored.setStatus(DocumentJobEntity.Status.COMPLETED);
+        stored.setStage("persist");
+        stored.setResultJson("{\"documentId\":\"doc1\",\"ocrResults\":{\"name.first\":\"A\"}}");
+        stored.setCompletedAt(LocalDateTime.now());
+        when(documentJobDao.findById("job1")).thenReturn(Optional.of(stored));
+
+        DocumentJobResponse job = pipeline.getJob("job1").orElseThrow();
+
+        assertEquals(DocumentJobResponse.Status.COMPLETED, job.getStatus());
+        assertEquals("doc1", job.getResult().getDocumentId());
+        assertEquals("A", job.getResult().getOcrResults().get("name.first"));
+        assertEquals("lead1", job.getLeadId());
+    }
+
+    @Test
+    void testStart_ResumesAbandonedJob() throws Exception {
+        Path upload = Files.writeString(tempDir.resolve("resumed.jpg"), "image");
+        DocumentJobEntity abandoned = storedJob("job1", upload.toString());
+        abandoned.setAttempts(2);
+        when(documentJobDao.claimAbandoned(any(), any())).thenReturn(Optional.of(abandoned)).thenReturn(Optional.empty());
+        DocumentResponse saved = new DocumentResponse();
+        saved.setDocumentId("doc1");
+        when(documentService.analyseDocument(any())).thenReturn(new DocumentResponse());
+        when(documentService.saveDocumentResult(any(), any())).thenReturn(saved);
+
+        pipeline.start();
+
+        await(() -> pipeline.getJob("job1").map(DocumentJobResponse::getStatus).orElse(null) == DocumentJobResponse.Status.COMPLETED);
+        verify(documentService).prepareDocument(argThat(request -> request.getLeadId().equals("lead1")
+                && request.getDocumentPath().equals(upload) && request.getContentHash().equals("hash-resumed")));
+        verify(documentJobDao).finish(eq("job1"), eq(DocumentJobEntity.Status.COMPLETED), any(), isNull(), any());
+    }
+
+    @Test
+    void testResume_GivesUpAfterMaxAttempts() throws Exception {
+        Path upload = Files.writeString(tempDir.resolve("poison.jpg"), "image");
+        DocumentJobEntity abandoned = storedJob("job1", upload.toString());
+        abandoned.setAttempts(4);
+        when(documentJobDao.claimAbandoned(any(), any())).thenReturn(Optional.of(abandoned)).thenReturn(Optional.empty());
+
+        pipeline.start();
+
+        verify(documentJobDao, timeout(5000)).finish(eq("job1"), eq(DocumentJobEntity.Status.FAILED), isNull(),
+                eq("Document processing failed"), any());
+        verify(blobStore).release("hash-resumed");
+        verify(documentService, never()).prepareDocument(any());
+    }
+
+    @Test
+    void testResume_FailsJobWhoseUploadIsGone() {
+        DocumentJobEntity abandoned = storedJob("job1", tempDir.resolve("missing.jpg").toString());
+        abandoned.setAttempts(2);
+        when(documentJobDao.claimAbandoned(any(), any())).thenReturn(Optional.of(abandoned)).thenReturn(Optional.empty());
+
+        pipeline.start();
+
+        verify(documentJobDao, timeout(5000)).finish(eq("job1"), eq(DocumentJobEntity.Status.FAILED), isNull(),
+                eq("Document processing failed"), any());
+        verify(documentService, never()).prepareDocument(any());
+    }
+
+    private static DocumentJobEntity storedJob(String id, String documentPath) {
+        DocumentJobEntity job = new DocumentJobEntity();
+        job.setId(id);
+        job.setStatus(DocumentJobEntity.Status.QUEUED);
+        job.setStage("ingest");
+        job.setLeadId("lead1");
+        job.setDocumentType("AADHAAR");
+        job.setFileName("resumed.jpg");
+        job.setDocumentPath(documentPath);
+        job.setContentHash("hash-resumed");
+        job.setSubmittedAt(LocalDateTime.now().minusMinutes(10));
+        return job;
+    }
+
+    @Test
+    void testGetJob_UnknownIdIsEmpty() {
+        pipeline.start();
+
+        assertTrue(pipeline.getJob("missing").isEmpty());
+    }
+}
@@ -6,18 +6,23 @@ import com.cars24.fraud_detection.data.dao.LeadDao;
 import com.cars24.fraud_detection.data.entity.DocumentEntity;
 import com.cars24.fraud_detection.data.entity.LeadEntity;
 import com.cars24.fraud_detection.data.entity.InsightsEntity;
+import com.cars24.fraud_detection.data.projection.DocumentSummary;
 import com.cars24.fraud_detection.data.request.DocumentRequest;
 import com.cars24.fraud_detection.data.response.DocumentResponse;
+import com.cars24.fraud_detection.data.response.PanGroundTruth;
 import com.cars24.fraud_detection.exception.DocumentProcessingException;
+import com.cars24.fraud_detection.service.AgentStatsService;
+import com.cars24.fraud_detection.service.LeadInsightsCacheService;
 import com.cars24.fraud_detection.workflow.WorkflowInitiator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Pageable;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -42,6 +47,12 @@ class DocumentServiceImplTest {
     @Mock
     private DocumentTypeConfig documentTypeConfig;
 
+    @Mock
+    private AgentStatsService agentStatsService;
+
+    @Mock
+    private LeadInsightsCacheService leadInsightsCache;
+
     @InjectMocks
     private DocumentServiceImpl documentService;
 
@@ -59,6 +70,7 @@ class DocumentServiceImplTest {
 
         documentRequest = new DocumentRequest();
         documentRequest.setLeadId("lead1");
+        documentRequest.setDocumentType("AADHAAR");
         documentRequest.setFileName("document1.jpg");
 
         documentResponse = DocumentResponse.builder()
@@ -87,6 +99,50 @@ class DocumentServiceImplTest {
         assertNotNull(response);
         assertEquals("123", response.getDocumentId());
         verify(documentDao).saveDocument(any(DocumentEntity.class));
+        verify(agentStatsService).recordDocument(documentEntity);
+        verify(leadInsightsCache).evict("lead1");
+    }
+
+    @Test
+    void testProcessDocument_FilePathFromRequest() {
+        documentRequest.setDocumentPath(Path.of("src/main/resources/blob_store/ab/cd/abcd.jpg"));
+        documentRequest.setContentHash("abcd");
+        when(leadDao.findLeadById("lead1")).thenReturn(Optional.of(new LeadEntity()));
+        when(workflowInitiator.processDocument(any(DocumentRequest.class))).thenReturn(documentResponse);
+        when(documentDao.saveDocument(any(DocumentEntity.class))).thenReturn(documentEntity);
+
+        documentService.processDocument(documentRequest);
+
+        ArgumentCaptor<DocumentEntity> saved = ArgumentCaptor.forClass(DocumentEntity.class);
+        verify(documentDao).saveDocument(saved.capture());
+        assertEquals(Path.of("src/main/resources/blob_store/ab/cd/abcd.jpg").toString(), saved.getValue().getFilePath());
+        assertEquals("abcd", saved.getValue().getContentHash());
+    }
+
+    @Test
+    void testProcessDocument_GroundTruthFromLead() {
+        LeadEntity lead = new LeadEntity();
+        lead.setName("Jane Doe");
+        lead.setPanNumber("ABCDE1234F");
+        documentRequest.setDocumentType("PAN");
+        when(leadDao.findLeadById("lead1")).thenReturn(Optional.of(lead));
+        when(workflowInitiator.processDocument(any(DocumentRequest.class))).thenReturn(documentResponse);
+        when(documentDao.saveDocument(any(DocumentEntity.class))).thenReturn(documentEntity);
+
+        documentService.processDocument(documentRequest);
+
+        PanGroundTruth groundTruth = assertInstanceOf(PanGroundTruth.class, documentRequest.getGroundTruth());
+        assertEquals("Jane Doe", groundTruth.getName());
+        assertEquals("ABCDE1234F", groundTruth.getId_number());
+    }
+
+    @Test
+    void testProcessDocument_UnsupportedDocumentType() {
+        documentRequest.setDocumentType("REFERENCE_CALL");
+        when(leadDao.findLeadById("lead1")).thenReturn(Optional.of(new LeadEntity()));
+
+        assertThrows(DocumentProcessingException.class, () -> documentService.processDocument(documentRequest));
+        verifyNoInteractions(workflowInitiator);
     }
 
     @Test
@@ -125,7 +181,9 @@ class DocumentServiceImplTest {
 
     @Test
     void testGetRecentDocumentNames() {
-        when(documentDao.getRecentDocumentsByLeadId(anyString(), anyInt())).thenReturn(Arrays.asList(documentEntity));
+        DocumentSummary summary = mock(DocumentSummary.class);
+        when(summary.getFileName()).thenReturn("document1.jpg");
+        when(documentDao.getRecentDocumentSummariesByLeadId(anyString(), anyInt())).thenReturn(Arrays.asList(summary));
 
         List<String> documentNames = documentService.getRecentDocumentNames("lead1", 5);
 
@@ -147,8 +205,10 @@ class DocumentServiceImplTest {
 
     @Test
     void testGetRecentPanId() {
-        when(documentDao.getRecentDocumentsByLeadIdAndType(anyString(), eq("Pan"), any(Pageable.class)))
-                .thenReturn(Arrays.asList(documentEntity));
+        DocumentSummary summary = mock(DocumentSummary.class);
+        when(summary.getId()).thenReturn("123");
+        when(documentDao.getRecentDocumentSummariesByLeadIdAndType(anyString(), eq("Pan"), eq(1)))
+                .thenReturn(Arrays.asList(summary));
 
         List<String> panIds = documentService.getRecentPanId("lead1", 1, "Pan");
 
@@ -158,8 +218,10 @@ class DocumentServiceImplTest {
 
     @Test
     void testGetRecentAadharId() {
-        when(documentDao.getRecentDocumentsByLeadIdAndType(anyString(), eq("Aadhaar"), any(Pageable.class)))
-                .thenReturn(Arrays.asList(documentEntity));
+        DocumentSummary summary = mock(DocumentSummary.class);
+        when(summary.getId()).thenReturn("123");
+        when(documentDao.getRecentDocumentSummariesByLeadIdAndType(anyString(), eq("Aadhaar"), eq(1)))
+                .thenReturn(Arrays.asList(summary));
 
         List<String> aadharIds = documentService.getRecentAadharId("lead1", 1, "Aadhaar");
 
@@ -0,0 +1,110 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.FileDao;
+import com.cars24.fraud_detection.data.dao.FileJobDao;
+import com.cars24.fraud_detection.data.entity.FileEntity;
+import com.cars24.fraud_detection.data.entity.FileJobEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileJobServiceImplTest {
+
+    @Mock
+    private FileJobDao fileJobDao;
+
+    @Mock
+    private FileDao fileDao;
+
+    @InjectMocks
+    private FileJobServiceImpl fileJobService;
+
+    private FileEntity fileEntity;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fileJobService, "maxAttempts", 3);
+        fileEntity = new FileEntity("agent1", "lead1", "aadhaar.jpg", "AADHAAR", "path/to/aadhaar.jpg");
+    }
+
+    @Test
+    void testEnqueue() {
+        when(fileJobDao.enqueue(any(FileJobEntity.class))).thenReturn(true);
+
+        fileJobService.enqueue(fileEntity);
+
+        ArgumentCaptor<FileJobEntity> job = ArgumentCaptor.forClass(FileJobEntity.class);
+        verify(fileJobDao).enqueue(job.capture());
+        assertEquals(fileEntity.getFileId(), job.getValue().getId());
+        assertEquals(FileJobEntity.JobType.DOCUMENT, job.getValue().getJobType());
+        assertEquals(FileJobEntity.Status.PENDING, job.getValue().getStatus());
+        assertEquals(3, job.getValue().getMaxAttempts());
+        assertNotNull(job.getValue().getNextAttemptAt());
+    }
+
+    @Test
+    void testEnqueue_ReferenceCallIsAudio() {
+        // The type key, as stored by uploads
+        fileEntity.setFileType("REFERENCE_CALL");
+
+        fileJobService.enqueue(fileEntity);
+
+        ArgumentCaptor<FileJobEntity> job = ArgumentCaptor.forClass(FileJobEntity.class);
+        verify(fileJobDao).enqueue(job.capture());
+        assertEquals(FileJobEntity.JobType.AUDIO, job.getValue().getJobType());
+    }
+
+    @Test
+    void testEnqueue_ReferenceCallDisplayNameIsAudio() {
+        fileEntity.setFileType("Reference Call");
+
+        fileJobService.enqueue(fileEntity);
+
+        ArgumentCaptor<FileJobEntity> job = ArgumentCaptor.forClass(FileJobEntity.class);
+        verify(fileJobDao).enqueue(job.capture());
+        assertEquals(FileJobEntity.JobType.AUDIO, job.getValue().getJobType());
+    }
+
+    @Test
+    void testResumeInterruptedJobs() {
+        FileEntity withJob = new FileEntity("agent1", "lead1", "pan.jpg", "PAN", "path/to/pan.jpg");
+        when(fileJobDao.releaseExpiredLeases(any())).thenReturn(2L);
+        when(fileDao.findByStatusIn(List.of("PENDING", "PROCESSING"))).thenReturn(List.of(fileEntity, withJob));
+        when(fileJobDao.findById(fileEntity.getFileId())).thenReturn(Optional.empty());
+        when(fileJobDao.findById(withJob.getFileId())).thenReturn(Optional.of(new FileJobEntity()));
+        when(fileJobDao.enqueue(any(FileJobEntity.class))).thenReturn(true);
+
+        int resumed = fileJobService.resumeInterruptedJobs();
+
+        assertEquals(3, resumed);
+        verify(fileJobDao, times(1)).enqueue(argThat(job -> job.getFileId().equals(fileEntity.getFileId())));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEnqueueAll_SingleBatch() {
+        FileEntity call = new FileEntity("agent1", "lead1", "call.mp3", "Reference Call", "path/to/call.mp3");
+        when(fileJobDao.enqueueAll(anyList())).thenReturn(2);
+
+        fileJobService.enqueueAll(List.of(fileEntity, call));
+
+        ArgumentCaptor<List<FileJobEntity>> jobs = ArgumentCaptor.forClass(List.class);
+        verify(fileJobDao).enqueueAll(jobs.capture());
+        assertEquals(List.of(FileJobEntity.JobType.DOCUMENT, FileJobEntity.JobType.AUDIO),
+                jobs.getValue().stream().map(FileJobEntity::getJobType).toList());
+        verify(fileJobDao, never()).enqueue(any());
+    }
+}
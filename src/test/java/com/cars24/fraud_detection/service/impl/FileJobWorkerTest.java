@@ -0,0 +1,188 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.FileDao;
+import com.cars24.fraud_detection.data.dao.FileJobDao;
+import com.cars24.fraud_detection.data.entity.FileEntity;
+import com.cars24.fraud_detection.data.entity.FileJobEntity;
+import com.cars24.fraud_detection.exception.DocumentProcessingException;
+import com.cars24.fraud_detection.service.FileJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileJobWorkerTest {
+
+    @Mock
+    private FileJobDao fileJobDao;
+
+    @Mock
+    private FileDao fileDao;
+
+    @Mock
+    private FileJobService fileJobService;
+
+    @Mock
+    private FileProcessingService fileProcessingService;
+
+    @InjectMocks
+    private FileJobWorker fileJobWorker;
+
+    private FileEntity fileEntity;
+    private FileJobEntity job;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fileJobWorker, "leaseSeconds", 120L);
+        ReflectionTestUtils.setField(fileJobWorker, "initialBackoffSeconds", 30L);
+        ReflectionTestUtils.setField(fileJobWorker, "maxBackoffSeconds", 900L);
+
+        fileEntity = new FileEntity("agent1", "lead1", "aadhaar.jpg", "AADHAAR", "path/to/aadhaar.jpg");
+
+        job = new FileJobEntity();
+        job.setId(fileEntity.getFileId());
+        job.setFileId(fileEntity.getFileId());
+        job.setJobType(FileJobEntity.JobType.DOCUMENT);
+        job.setStatus(FileJobEntity.Status.RUNNING);
+        job.setAttempts(1);
+        job.setMaxAttempts(3);
+    }
+
+    @Test
+    void testPollOnce_NoJobDue() {
+        when(fileJobDao.claimNext(anyString(), any(), any())).thenReturn(Optional.empty());
+
+        assertFalse(fileJobWorker.pollOnce());
+        verifyNoInteractions(fileProcessingService);
+    }
+
+    @Test
+    void testPollOnce_Success() throws Exception {
+        when(fileJobDao.claimNext(anyString(), any(), any())).thenReturn(Optional.of(job));
+        when(fileDao.findById(job.getFileId())).thenReturn(Optional.of(fileEntity));
+        when(fileJobDao.complete(eq(job.getId()), anyString(), any())).thenReturn(true);
+
+        assertTrue(fileJobWorker.pollOnce());
+
+        verify(fileProcessingService).process(fileEntity, FileJobEntity.JobType.DOCUMENT);
+        verify(fileDao).updateStatus(job.getFileId(), "PROCESSING");
+        verify(fileDao).updateStatus(job.getFileId(), "PROCESSED");
+    }
+
+    @Test
+    void testPollOnce_LeaseLostBeforeCompletion() throws Exception {
+        when(fileJobDao.claimNext(anyString(), any(), any())).thenReturn(Optional.of(job));
+        when(fileDao.findById(job.getFileId())).thenReturn(Optional.of(fileEntity));
+        when(fileJobDao.complete(eq(job.getId()), anyString(), any())).thenReturn(false);
+
+        fileJobWorker.pollOnce();
+
+        verify(fileDao, never()).updateStatus(job.getFileId(), "PROCESSED");
+    }
+
+    @Test
+    void testPollOnce_FailureIsRetriedWithBackoff() throws Exception {
+        when(fileJobDao.claimNext(anyString(), any(), any())).thenReturn(Optional.of(job));
+        when(fileDao.findById(job.getFileId())).thenReturn(Optional.of(fileEntity));
+        doThrow(new DocumentProcessingException("OCR timed out")).when(fileProcessingService).process(any(), any());
+        when(fileJobDao.reschedule(eq(job.getId()), anyString(), any(), anyString())).thenReturn(true);
+
+        LocalDateTime before = LocalDateTime.now();
+        fileJobWorker.pollOnce();
+
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<String> error = ArgumentCaptor.forClass(String.class);
+        verify(fileJobDao).reschedule(eq(job.getId()), anyString(), nextAttempt.capture(), error.capture());
+        assertFalse(nextAttempt.getValue().isBefore(before.plusSeconds(30)));
+        assertTrue(error.getValue().contains("OCR timed out"));
+        verify(fileDao, never()).updateStatus(job.getFileId(), "PENDING");
+        verify(fileJobDao, never()).deadLetter(any(), any(), any());
+    }
+
+    @Test
+    void testPollOnce_JobHandedOutAgainReclaimsItsFile() throws Exception {
+        job.setAttempts(2);
+        when(fileJobDao.claimNext(anyString(), any(), any())).thenReturn(Optional.of(job));
+        when(fileDao.findById(job.getFileId())).thenReturn(Optional.of(fileEntity));
+        when(fileDao.reclaimProcessing(job.getFileId())).thenReturn(Optional.of(fileEntity));
+        when(fileJobDao.complete(eq(job.getId()), anyString(), any())).thenReturn(true);
+
+        fileJobWorker.pollOnce();
+
+        verify(fileDao, never()).updateStatus(job.getFileId(), "PROCESSING");
+        verify(fileDao).updateStatus(job.getFileId(), "PROCESSED");
+    }
+
+    @Test
+    void testPollOnce_RetryOfFileNeverStartedMovesItFromPending() throws Exception {
+        // The attempt before died between claiming the job and starting the file
+        job.setAttempts(2);
+        when(fileJobDao.claimNext(anyString(), any(), any())).thenReturn(Optional.of(job));
+        when(fileDao.findById(job.getFileId())).thenReturn(Optional.of(fileEntity));
+        when(fileJobDao.complete(eq(job.getId()), anyString(), any())).thenReturn(true);
+
+        fileJobWorker.pollOnce();
+
+        verify(fileDao).reclaimProcessing(job.getFileId());
+        verify(fileDao).updateStatus(job.getFileId(), "PROCESSING");
+    }
+
+    @Test
+    void testPollOnce_LastAttemptIsDeadLettered() throws Exception {
+        job.setAttempts(3);
+        when(fileJobDao.claimNext(anyString(), any(), any())).thenReturn(Optional.of(job));
+        when(fileDao.findById(job.getFileId())).thenReturn(Optional.of(fileEntity));
+        doThrow(new DocumentProcessingException("Lead not found")).when(fileProcessingService).process(any(), any());
+        when(fileJobDao.deadLetter(eq(job.getId()), anyString(), anyString())).thenReturn(true);
+
+        fileJobWorker.pollOnce();
+
+        verify(fileJobDao, never()).reschedule(any(), any(), any(), any());
+        verify(fileDao).updateStatus(job.getFileId(), "FAILED");
+    }
+
+    @Test
+    void testPollOnce_JobThatKeepsLosingItsLeaseIsDeadLettered() {
+        job.setAttempts(4);
+        when(fileJobDao.claimNext(anyString(), any(), any())).thenReturn(Optional.of(job));
+        when(fileJobDao.deadLetter(eq(job.getId()), anyString(), anyString())).thenReturn(true);
+
+        fileJobWorker.pollOnce();
+
+        verifyNoInteractions(fileProcessingService);
+        verify(fileDao).updateStatus(job.getFileId(), "FAILED");
+    }
+
+    @Test
+    void testPollOnce_MissingFileIsDeadLettered() {
+        when(fileJobDao.claimNext(anyString(), any(), any())).thenReturn(Optional.of(job));
+        when(fileDao.findById(job.getFileId())).thenReturn(Optional.empty());
+
+        fileJobWorker.pollOnce();
+
+        verify(fileJobDao).deadLetter(eq(job.getId()), anyString(), contains("File not found"));
+        verifyNoInteractions(fileProcessingService);
+    }
+
+    @Test
+    void testBackoffDoublesUpToTheCap() {
+        assertEquals(Duration.ofSeconds(30), fileJobWorker.backoff(1));
+        assertEquals(Duration.ofSeconds(60), fileJobWorker.backoff(2));
+        assertEquals(Duration.ofSeconds(120), fileJobWorker.backoff(3));
+        assertEquals(Duration.ofSeconds(900), fileJobWorker.backoff(10));
+        assertEquals(Duration.ofSeconds(900), fileJobWorker.backoff(100));
+    }
+}
@@ -0,0 +1,132 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.FileDao;
+import com.cars24.fraud_detection.data.entity.FileEntity;
+import com.cars24.fraud_detection.data.entity.FileJobEntity;
+import com.cars24.fraud_detection.data.request.AudioRequest;
+import com.cars24.fraud_detection.data.request.DocumentRequest;
+import com.cars24.fraud_detection.data.response.AudioResponse;
+import com.cars24.fraud_detection.data.response.DocumentResponse;
+import com.cars24.fraud_detection.exception.AudioProcessingException;
+import com.cars24.fraud_detection.service.AudioService;
+import com.cars24.fraud_detection.service.BlobStore;
+import com.cars24.fraud_detection.service.DocumentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileProcessingServiceTest {
+
+    @Mock
+    private AudioService audioService;
+
+    @Mock
+    private DocumentService documentService;
+
+    @Mock
+    private FileDao fileDao;
+
+    @Mock
+    private BlobStore blobStore;
+
+    @InjectMocks
+    private FileProcessingService fileProcessingService;
+
+    @TempDir
+    Path tempDir;
+
+    private FileEntity fileEntity;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path storedFile = tempDir.resolve("upload.bin");
+        Files.write(storedFile, new byte[]{1, 2, 3, 4});
+
+        fileEntity = new FileEntity(
+                "agent1",
+                "lead1",
+                "upload.bin",
+                "AADHAAR",
+                storedFile.toString()
+        );
+    }
+
+    @Test
+    void testProcessAudio_Success() throws Exception {
+        AudioResponse response = new AudioResponse();
+        response.setId(fileEntity.getFileId());
+        when(audioService.processAudioRequest(any(AudioRequest.class))).thenReturn(response);
+
+        fileProcessingService.process(fileEntity, FileJobEntity.JobType.AUDIO);
+
+        ArgumentCaptor<AudioRequest> request = ArgumentCaptor.forClass(AudioRequest.class);
+        verify(audioService).processAudioRequest(request.capture());
+        assertEquals(fileEntity.getFileId(), request.getValue().getUuid());
+        assertEquals("lead1", request.getValue().getLeadId());
+        assertEquals(Path.of(fileEntity.getFilePath()), request.getValue().getAudioPath());
+        assertNull(request.getValue().getAudioFile());
+        verify(fileDao).linkResult(fileEntity.getFileId(), fileEntity.getFileId());
+        verifyNoInteractions(documentService);
+    }
+
+    @Test
+    void testProcessAudio_FailurePropagates() throws Exception {
+        when(audioService.processAudioRequest(any(AudioRequest.class))).thenThrow(new AudioProcessingException("Lead not found"));
+
+        assertThrows(AudioProcessingException.class, () -> fileProcessingService.process(fileEntity, FileJobEntity.JobType.AUDIO));
+    }
+
+    @Test
+    void testProcessDocument_Success() throws Exception {
+        when(documentService.processDocument(any(DocumentRequest.class)))
+                .thenReturn(DocumentResponse.builder().documentId("doc1").build());
+
+        fileProcessingService.process(fileEntity, FileJobEntity.JobType.DOCUMENT);
+
+        ArgumentCaptor<DocumentRequest> request = ArgumentCaptor.forClass(DocumentRequest.class);
+        verify(documentService).processDocument(request.capture());
+        assertEquals("AADHAAR", request.getValue().getDocumentType());
+        assertEquals(Path.of(fileEntity.getFilePath()), request.getValue().getDocumentPath());
+        verify(fileDao).linkResult(fileEntity.getFileId(), "doc1");
+        assertEquals("doc1", fileEntity.getResultId());
+        verifyNoInteractions(audioService);
+    }
+
+    @Test
+    void testProcessDocument_MissingFile() {
+        fileEntity.setFilePath(tempDir.resolve("missing.bin").toString());
+
+        assertThrows(IOException.class, () -> fileProcessingService.process(fileEntity, FileJobEntity.JobType.DOCUMENT));
+        verifyNoInteractions(documentService, fileDao, blobStore);
+    }
+
+    @Test
+    void testProcessDocument_FetchesBlobNotCachedLocally() throws Exception {
+        Path fetched = Files.write(tempDir.resolve("fetched.jpg"), new byte[]{5, 6});
+        fileEntity.setFilePath(tempDir.resolve("evicted.jpg").toString());
+        fileEntity.setContentHash("abc123");
+        when(blobStore.localPath("abc123")).thenReturn(Optional.of(fetched));
+        when(documentService.processDocument(any(DocumentRequest.class)))
+                .thenReturn(DocumentResponse.builder().documentId("doc1").build());
+
+        fileProcessingService.process(fileEntity, FileJobEntity.JobType.DOCUMENT);
+
+        ArgumentCaptor<DocumentRequest> request = ArgumentCaptor.forClass(DocumentRequest.class);
+        verify(documentService).processDocument(request.capture());
+        assertEquals(fetched, request.getValue().getDocumentPath());
+    }
+}
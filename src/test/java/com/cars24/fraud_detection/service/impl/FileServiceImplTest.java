@@ -1,22 +1,35 @@
 package com.cars24.fraud_detection.service.impl;
 
-import com.cars24.fraud_detection.config.DocumentTypeConfig;
 import com.cars24.fraud_detection.data.dao.FileDao;
 import com.cars24.fraud_detection.data.entity.FileEntity;
-import com.cars24.fraud_detection.data.response.FileResponse;
-import com.cars24.fraud_detection.service.impl.AsyncFileProcessingService;
+import com.cars24.fraud_detection.data.response.FileUploadResult;
+import com.cars24.fraud_detection.service.BlobStore;
+import com.cars24.fraud_detection.service.BlobStore.StoredBlob;
+import com.cars24.fraud_detection.service.FileJobService;
+import com.cars24.fraud_detection.utils.FileSignature;
+import com.cars24.fraud_detection.utils.WorkerThreads;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,10 +42,13 @@ class FileServiceImplTest {
     private FileDao fileDao;
 
     @Mock
-    private DocumentTypeConfig documentTypeConfig;
+    private FileJobService fileJobService;
 
     @Mock
-    private AsyncFileProcessingService asyncFileProcessingService;
+    private BlobStore blobStore;
+
+    @Spy
+    private WorkerThreads workerThreads = new WorkerThreads(new MockEnvironment());
 
     @InjectMocks
     private FileServiceImpl fileService;
@@ -41,6 +57,11 @@ class FileServiceImplTest {
     private String fileId;
     private MockMultipartFile mockMultipartFile;
 
+    @TempDir
+    Path blobDir;
+
+    private static final byte[] JPEG_CONTENT = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F', 0, 1, 1, 2, 3};
+
     @BeforeEach
     void setUp() {
         fileId = UUID.randomUUID().toString();
@@ -73,7 +94,7 @@ class FileServiceImplTest {
                 "lead1",
                 "PDF",
                 "document.pdf",
-                mockMultipartFile.getBytes()
+                new ByteArrayInputStream(mockMultipartFile.getBytes())
         );
 
         assertNotNull(savedFile);
@@ -81,6 +102,144 @@ class FileServiceImplTest {
         verify(fileDao, times(1)).save(any(FileEntity.class));
     }
 
+    @Test
+    void testUploadFile_QueuesProcessingJob() throws IOException {
+        StoredBlob blob = storedBlob();
+        when(blobStore.put(any(), eq(Set.of(FileSignature.JPEG)))).thenReturn(blob);
+        when(fileDao.insertActive(any(FileEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        FileEntity savedFile = fileService.uploadFile("agent1", "lead1", "AADHAAR", "aadhaar.jpg", new ByteArrayInputStream(JPEG_CONTENT));
+
+        assertEquals("PENDING", savedFile.getStatus());
+        assertEquals(JPEG_CONTENT.length, savedFile.getSizeBytes());
+        assertEquals(blob.sha256(), savedFile.getContentHash());
+        assertEquals(blob.path().toAbsolutePath().toString(), savedFile.getFilePath());
+        verify(fileJobService).enqueue(savedFile);
+        // Superseded files are deactivated in bulk by the DAO, not loaded and saved one by one
+        verify(fileDao, never()).findByAgentIdAndLeadIdAndFileType(any(), any(), any());
+        verify(fileDao, never()).save(any(FileEntity.class));
+        verify(blobStore, never()).release(any());
+    }
+
+    @Test
+    void testUploadFile_ReleasesBlobWhenRecordFails() throws IOException {
+        StoredBlob blob = storedBlob();
+        when(blobStore.put(any(), any())).thenReturn(blob);
+        when(fileDao.insertActive(any(FileEntity.class))).thenThrow(new IllegalStateException("write failed"));
+
+        assertThrows(IllegalStateException.class,
+                () -> fileService.uploadFile("agent1", "lead1", "AADHAAR", "aadhaar.jpg", new ByteArrayInputStream(JPEG_CONTENT)));
+
+        verify(blobStore).release(blob.sha256());
+        verifyNoInteractions(fileJobService);
+    }
+
+    private StoredBlob storedBlob() throws IOException {
+        String sha256 = "ab".repeat(32);
+        Path path = Files.write(blobDir.resolve(sha256 + ".jpg"), JPEG_CONTENT);
+        return new StoredBlob(sha256, JPEG_CONTENT.length, FileSignature.JPEG, path, false);
+    }
+
+    @Test
+    void testUploadFile_RejectsContentNotMatchingItsExtension() throws IOException {
+        when(blobStore.put(any(), eq(Set.of(FileSignature.JPEG))))
+                .thenThrow(new IllegalArgumentException("File content is not one of [JPEG]"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> fileService.uploadFile("agent1", "lead1", "AADHAAR", "aadhaar.jpg", new ByteArrayInputStream("%PDF-1.4".getBytes())));
+
+        assertTrue(e.getMessage().startsWith("File content is not one of"));
+        verify(fileDao, never()).insertActive(any());
+        verifyNoInteractions(fileJobService);
+    }
+
+    @Test
+    void testUploadFile_AcceptsEveryExtensionFileSignatureVerifies() throws IOException {
+        when(blobStore.put(any(), eq(Set.of(FileSignature.DOCX))))
+                .thenThrow(new IllegalArgumentException("File content is not one of [DOCX]"));
+
+        // .docx reaches the content check; .txt has no signature and is refused by name
+        IllegalArgumentException docx = assertThrows(IllegalArgumentException.class,
+                () -> fileService.uploadFile("agent1", "lead1", "PAN", "pan.DOCX", new ByteArrayInputStream(JPEG_CONTENT)));
+        IllegalArgumentException txt = assertThrows(IllegalArgumentException.class,
+                () -> fileService.uploadFile("agent1", "lead1", "PAN", "pan.txt", new ByteArrayInputStream(JPEG_CONTENT)));
+
+        assertTrue(docx.getMessage().startsWith("File content is not one of"));
+        assertEquals("Unsupported file type", txt.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUploadMultipleFiles_ReportsEachFileAndQueuesOneBatch() throws IOException {
+        ReflectionTestUtils.setField(fileService, "uploadParallelism", 2);
+        fileService.startUploadExecutor();
+        when(blobStore.put(any(), any())).thenReturn(storedBlob());
+        when(fileDao.insertActive(any(FileEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("files", "aadhaar.jpg", "image/jpeg", JPEG_CONTENT),
+                new MockMultipartFile("files", "licence.jpg", "image/jpeg", JPEG_CONTENT));
+
+        List<FileUploadResult> results = fileService.uploadMultipleFiles("agent1", "lead1", List.of("AADHAAR", "DL"), files);
+
+        try {
+            assertEquals(2, results.size());
+            assertTrue(results.get(0).isUploaded());
+            assertEquals("aadhaar.jpg", results.get(0).getOriginalFilename());
+            assertEquals("AADHAAR", results.get(0).getFile().getFileType());
+            assertFalse(results.get(1).isUploaded());
+            assertEquals("licence.jpg", results.get(1).getOriginalFilename());
+            assertEquals("Invalid file type", results.get(1).getError());
+
+            ArgumentCaptor<List<FileEntity>> queued = ArgumentCaptor.forClass(List.class);
+            verify(fileJobService).enqueueAll(queued.capture());
+            assertEquals(1, queued.getValue().size());
+            verify(fileJobService, never()).enqueue(any());
+        } finally {
+            fileService.stopUploadExecutor();
+        }
+    }
+
+    @Test
+    void testUploadMultipleFiles_QueuesEachFileWhenBatchFails() throws IOException {
+        fileService.startUploadExecutor();
+        when(blobStore.put(any(), any())).thenReturn(storedBlob());
+        when(fileDao.insertActive(any(FileEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new IllegalStateException("bulk write failed")).when(fileJobService).enqueueAll(any());
+        doNothing().doThrow(new IllegalStateException("mongodb://user:secret@db")).when(fileJobService).enqueue(any());
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("files", "aadhaar.jpg", "image/jpeg", JPEG_CONTENT),
+                new MockMultipartFile("files", "pan.jpg", "image/jpeg", JPEG_CONTENT));
+
+        try {
+            List<FileUploadResult> results = fileService.uploadMultipleFiles("agent1", "lead1", List.of("AADHAAR", "PAN"), files);
+
+            verify(fileJobService, times(2)).enqueue(any(FileEntity.class));
+            assertTrue(results.get(0).isUploaded());
+            assertFalse(results.get(1).isUploaded());
+            assertEquals("pan.jpg", results.get(1).getOriginalFilename());
+            assertEquals("File was stored but could not be queued for processing", results.get(1).getError());
+        } finally {
+            fileService.stopUploadExecutor();
+        }
+    }
+
+    @Test
+    void testUploadMultipleFiles_HidesUnexpectedErrors() throws IOException {
+        fileService.startUploadExecutor();
+        MultipartFile unreadable = mock(MultipartFile.class);
+        when(unreadable.getOriginalFilename()).thenReturn("aadhaar.jpg");
+        when(unreadable.getInputStream()).thenThrow(new IOException("/var/data/uploads/tmp-123 not readable"));
+
+        try {
+            List<FileUploadResult> results = fileService.uploadMultipleFiles("agent1", "lead1", List.of("AADHAAR"), List.of(unreadable));
+
+            assertFalse(results.get(0).isUploaded());
+            assertEquals("File upload failed", results.get(0).getError());
+        } finally {
+            fileService.stopUploadExecutor();
+        }
+    }
+
     @Test
     void testGetFile_Success() {
         when(fileDao.findById(fileId)).thenReturn(Optional.of(fileEntity));
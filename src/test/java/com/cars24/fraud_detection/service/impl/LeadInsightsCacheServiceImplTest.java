@@ -0,0 +1,82 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.entity.InsightsEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadInsightsCacheServiceImplTest {
+
+    private LeadInsightsCacheServiceImpl cacheService;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cacheService = new LeadInsightsCacheServiceImpl();
+        ReflectionTestUtils.setField(cacheService, "enabled", true);
+        ReflectionTestUtils.setField(cacheService, "maxEntries", 2);
+        ReflectionTestUtils.setField(cacheService, "ttlSeconds", 300L);
+        cacheService.init();
+        loads = new AtomicInteger();
+    }
+
+    private Supplier<List<InsightsEntity>> loader(String id) {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(InsightsEntity.builder().id(id).build());
+        };
+    }
+
+    @Test
+    void testGet_LoadsOnceUntilEvicted() {
+        assertEquals("doc1", cacheService.get("lead1", loader("doc1")).get(0).getId());
+        assertEquals("doc1", cacheService.get("lead1", loader("doc2")).get(0).getId());
+        assertEquals(1, loads.get());
+
+        cacheService.evict("lead1");
+
+        assertEquals("doc2", cacheService.get("lead1", loader("doc2")).get(0).getId());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGet_EvictionOfOtherLeadKeepsEntry() {
+        cacheService.get("lead1", loader("doc1"));
+        cacheService.evict("lead2");
+        cacheService.get("lead1", loader("doc1"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGet_SaveDuringLoadIsNotCached() {
+        cacheService.get("lead1", () -> {
+            loads.incrementAndGet();
+            cacheService.evict("lead1");
+            return List.of();
+        });
+        cacheService.get("lead1", loader("doc1"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGet_ExpiredEntryIsReloaded() {
+        ReflectionTestUtils.setField(cacheService, "ttlSeconds", 0L);
+        cacheService.get("lead1", loader("doc1"));
+        cacheService.get("lead1", loader("doc1"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGet_DisabledAlwaysLoads() {
+        ReflectionTestUtils.setField(cacheService, "enabled", false);
+        cacheService.get("lead1", loader("doc1"));
+        cacheService.get("lead1", loader("doc1"));
+        assertEquals(2, loads.get());
+    }
+}
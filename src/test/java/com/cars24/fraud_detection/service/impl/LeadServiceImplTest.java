@@ -1,13 +1,16 @@
 package com.cars24.fraud_detection.service.impl;
 
 import com.cars24.fraud_detection.config.DocumentTypeConfig;
+import com.cars24.fraud_detection.data.dao.AudioDao;
+import com.cars24.fraud_detection.data.dao.DocumentDao;
 import com.cars24.fraud_detection.data.dao.FileDao;
 import com.cars24.fraud_detection.data.dao.LeadDao;
 import com.cars24.fraud_detection.data.entity.*;
+import com.cars24.fraud_detection.data.projection.AudioSummary;
+import com.cars24.fraud_detection.data.projection.DocumentSummary;
 import com.cars24.fraud_detection.data.request.LeadRequest;
 import com.cars24.fraud_detection.data.response.LeadResponse;
-import com.cars24.fraud_detection.service.AudioService;
-import com.cars24.fraud_detection.service.DocumentService;
+import com.cars24.fraud_detection.service.LeadInsightsCacheService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,8 +18,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,14 +38,17 @@ class LeadServiceImplTest {
     private FileDao fileDao;
 
     @Mock
-    private DocumentService documentService;
+    private DocumentDao documentDao;
 
     @Mock
-    private AudioService audioService;
+    private AudioDao audioDao;
 
     @Mock
     private DocumentTypeConfig documentTypeConfig;
 
+    @Mock
+    private LeadInsightsCacheService leadInsightsCache;
+
     @InjectMocks
     private LeadServiceImpl leadService;
 
@@ -104,4 +114,97 @@ class LeadServiceImplTest {
         Exception exception = assertThrows(IllegalArgumentException.class, () -> leadService.getLeadName("lead123"));
         assertEquals("Lead not found with ID: lead123", exception.getMessage());
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetLeadInsights_GroupsDocumentsByType() {
+        Map<String, String> mapping = new LinkedHashMap<>();
+        mapping.put("AADHAAR", "Aadhaar");
+        mapping.put("PAN", "Pan");
+        mapping.put("REFERENCE_CALL", "Reference Call");
+        when(documentTypeConfig.getMapping()).thenReturn(mapping);
+        when(leadInsightsCache.get(eq("lead123"), any(Supplier.class)))
+                .thenAnswer(invocation -> ((Supplier<List<InsightsEntity>>) invocation.getArgument(1)).get());
+
+        DocumentSummary aadhaar = mock(DocumentSummary.class);
+        when(aadhaar.getId()).thenReturn("doc1");
+        when(aadhaar.getDocumentType()).thenReturn("AADHAAR");
+        when(documentDao.getDocumentSummariesByLeadId("lead123")).thenReturn(List.of(aadhaar));
+        AudioSummary call = mock(AudioSummary.class);
+        when(call.getId()).thenReturn("audio1");
+        when(audioDao.getAudioSummariesByLeadId("lead123")).thenReturn(List.of(call));
+
+        List<InsightsEntity> insights = leadService.getLeadInsights("lead123");
+
+        assertEquals(3, insights.size());
+        assertEquals("doc1", insights.get(0).getId());
+        assertEquals("Aadhaar", insights.get(0).getDocumentName());
+        assertNull(insights.get(1).getId());
+        assertEquals("PAN", insights.get(1).getDoctype());
+        assertEquals("Pending", insights.get(1).getStatus());
+        assertEquals("audio1", insights.get(2).getId());
+        verify(documentDao, times(1)).getDocumentSummariesByLeadId("lead123");
+        verify(audioDao, times(1)).getAudioSummariesByLeadId("lead123");
+    }
+
+    @Test
+    void testGetActiveLeadDetails_LoadsLinkedResultsById() {
+        FileEntity aadhaarFile = new FileEntity("agent1", "lead123", "a.jpg", "Aadhaar", "/tmp/a.jpg");
+        aadhaarFile.setResultId("doc1");
+        FileEntity callFile = new FileEntity("agent1", "lead123", "c.mp3", "Reference Call", "/tmp/c.mp3");
+        callFile.setResultId(callFile.getFileId());
+        FileEntity pendingPan = new FileEntity("agent1", "lead123", "p.jpg", "Pan", "/tmp/p.jpg");
+        when(leadDao.findByAgentIdAndId("agent1", "lead123")).thenReturn(leadEntity);
+        when(fileDao.findByAgentIdAndLeadIdAndIsActive("agent1", "lead123", true))
+                .thenReturn(List.of(aadhaarFile, callFile, pendingPan));
+
+        DocumentEntity aadhaar = new DocumentEntity();
+        aadhaar.setId("doc1");
+        aadhaar.setDocumentType("AADHAAR");
+        AudioEntity call = new AudioEntity();
+        call.setId(callFile.getFileId());
+        when(documentDao.findByIds(Set.of("doc1"))).thenReturn(List.of(aadhaar));
+        when(audioDao.findByIds(Set.of(callFile.getFileId()))).thenReturn(List.of(call));
+
+        LeadResponse response = leadService.getActiveLeadDetails("agent1", "lead123");
+
+        assertEquals(List.of(aadhaar), response.getAadhaar());
+        assertTrue(response.getPan().isEmpty());
+        assertEquals(List.of(call), response.getReferenceCalls());
+        verify(leadDao, never()).findDocumentsByAgentAndLead(anyString(), anyString());
+        verify(leadDao, never()).findAudioByAgentAndLead(anyString(), anyString());
+    }
+
+    @Test
+    void testGetActiveLeadDetails_UnlinkedProcessedFileMatchedByType() {
+        FileEntity panFile = new FileEntity("agent1", "lead123", "p.jpg", "Pan", "/tmp/p.jpg");
+        panFile.setStatus("PROCESSED");
+        when(leadDao.findByAgentIdAndId("agent1", "lead123")).thenReturn(leadEntity);
+        when(fileDao.findByAgentIdAndLeadIdAndIsActive("agent1", "lead123", true)).thenReturn(List.of(panFile));
+
+        DocumentEntity pan = new DocumentEntity();
+        pan.setId("doc2");
+        pan.setDocumentType("PAN");
+        DocumentEntity aadhaar = new DocumentEntity();
+        aadhaar.setId("doc3");
+        aadhaar.setDocumentType("AADHAAR");
+        when(documentDao.findByIds(Set.of())).thenReturn(List.of());
+        when(audioDao.findByIds(Set.of())).thenReturn(List.of());
+        when(leadDao.findDocumentsByAgentAndLead("agent1", "lead123")).thenReturn(List.of(pan, aadhaar));
+        when(leadDao.findAudioByAgentAndLead("agent1", "lead123")).thenReturn(List.of());
+
+        LeadResponse response = leadService.getActiveLeadDetails("agent1", "lead123");
+
+        assertEquals(List.of(pan), response.getPan());
+        assertTrue(response.getAadhaar().isEmpty());
+    }
+
+    @Test
+    void testGetLeadInsights_ServedFromCache() {
+        List<InsightsEntity> cached = List.of(InsightsEntity.builder().id("doc1").build());
+        when(leadInsightsCache.get(eq("lead123"), any())).thenReturn(cached);
+
+        assertSame(cached, leadService.getLeadInsights("lead123"));
+        verifyNoInteractions(documentDao, audioDao);
+    }
 }
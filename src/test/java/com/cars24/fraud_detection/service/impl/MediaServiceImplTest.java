@@ -0,0 +1,157 @@
+package com.cars24.fraud_detection.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaServiceImplTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D, 'I', 'H', 'D', 'R', 1, 2, 3, 4};
+
+    private final MediaServiceImpl mediaService = new MediaServiceImpl();
+
+    @TempDir
+    Path tempDir;
+
+    private Path image;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(mediaService, "metadataEntries", 10);
+        mediaService.init();
+        image = Files.write(tempDir.resolve("aadhaar.png"), PNG);
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        mediaService.serve(image, "aadhaar.png", "abc123", request, response);
+        return response;
+    }
+
+    @Test
+    void testServe_WholeFileWithValidators() throws IOException {
+
+        MockHttpServletResponse response = serve(new MockHttpServletRequest("GET", "/documents/image/doc1"));
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(PNG, response.getContentAsByteArray());
+        assertEquals(PNG.length, response.getContentLengthLong());
+        assertEquals("image/png", response.getContentType());
+        assertEquals("\"abc123\"", response.getHeader("ETag"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertNotNull(response.getHeader("Last-Modified"));
+        assertTrue(response.getHeader("Content-Disposition").startsWith("inline"));
+    }
+
+    @Test
+    void testServe_SingleRangeIsPartialContent() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/audio/file/a1");
+        request.addHeader("Range", "bytes=2-5");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/" + PNG.length, response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(PNG, 2, 6), response.getContentAsByteArray());
+
+        MockHttpServletRequest suffix = new MockHttpServletRequest("GET", "/audio/file/a1");
+        suffix.addHeader("Range", "bytes=-4");
+        MockHttpServletResponse tail = serve(suffix);
+        assertEquals(206, tail.getStatus());
+        assertArrayEquals(Arrays.copyOfRange(PNG, PNG.length - 4, PNG.length), tail.getContentAsByteArray());
+    }
+
+    @Test
+    void testServe_RangeBeyondEndIsNotSatisfiable() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/audio/file/a1");
+        request.addHeader("Range", "bytes=500-");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */" + PNG.length, response.getHeader("Content-Range"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testServe_StaleIfRangeSendsWholeFile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/audio/file/a1");
+        request.addHeader("Range", "bytes=2-5");
+        request.addHeader("If-Range", "\"older\"");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(PNG, response.getContentAsByteArray());
+    }
+
+    @Test
+    void testServe_ConditionalRequestsAreNotModified() throws IOException {
+        MockHttpServletRequest byTag = new MockHttpServletRequest("GET", "/audio/file/a1");
+        byTag.addHeader("If-None-Match", "\"other\", \"abc123\"");
+
+        MockHttpServletResponse response = serve(byTag);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals("\"abc123\"", response.getHeader("ETag"));
+
+        MockHttpServletRequest byDate = new MockHttpServletRequest("GET", "/audio/file/a1");
+        byDate.addHeader("If-Modified-Since", Files.getLastModifiedTime(image).toMillis() + 1000);
+        assertEquals(304, serve(byDate).getStatus());
+    }
+
+    @Test
+    void testServe_WithoutStoredHashTagIsWeak() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/documents/image/doc1");
+        request.addHeader("Range", "bytes=2-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        mediaService.serve(image, "aadhaar.png", null, request, response);
+
+        assertTrue(response.getHeader("ETag").startsWith("W/\""));
+        assertEquals(206, response.getStatus());
+
+        // A weak tag never resumes a partial download
+        MockHttpServletRequest ifRange = new MockHttpServletRequest("GET", "/documents/image/doc1");
+        ifRange.addHeader("Range", "bytes=2-5");
+        ifRange.addHeader("If-Range", response.getHeader("ETag"));
+        MockHttpServletResponse whole = new MockHttpServletResponse();
+        mediaService.serve(image, "aadhaar.png", null, ifRange, whole);
+        assertEquals(200, whole.getStatus());
+    }
+
+    @Test
+    void testServe_HandsBodyToContainerSendfile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/audio/file/a1");
+        request.setAttribute(MediaServiceImpl.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader("Range", "bytes=4-");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(image.toAbsolutePath().toString(), request.getAttribute(MediaServiceImpl.SENDFILE_FILENAME));
+        assertEquals(4L, request.getAttribute(MediaServiceImpl.SENDFILE_START));
+        assertEquals((long) PNG.length, request.getAttribute(MediaServiceImpl.SENDFILE_END));
+    }
+
+    @Test
+    void testServe_MissingFileIsNotFound() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        mediaService.serve(tempDir.resolve("missing.mp3"), "missing.mp3", "abc123", new MockHttpServletRequest(), response);
+
+        assertEquals(404, response.getStatus());
+    }
+}
@@ -0,0 +1,156 @@
+package com.cars24.fraud_detection.service.impl;
+
+import com.cars24.fraud_detection.data.dao.StageResultDao;
+import com.cars24.fraud_detection.data.entity.StageResultEntity;
+import com.cars24.fraud_detection.workflow.WorkflowStage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StageResultCacheServiceImplTest {
+
+    @Mock
+    private StageResultDao stageResultDao;
+
+    @InjectMocks
+    private StageResultCacheServiceImpl cacheService;
+
+    @TempDir
+    Path tempDir;
+
+    private String scriptPath;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(cacheService, "enabled", true);
+        ReflectionTestUtils.setField(cacheService, "memoryEntries", 2);
+        ReflectionTestUtils.setField(cacheService, "stages", "ocr,quality,forgery");
+        cacheService.init();
+
+        Path script = tempDir.resolve("DocumentQuality.py");
+        Files.writeString(script, "print('quality')");
+        scriptPath = script.toString();
+    }
+
+    @Test
+    void testHashContent() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                cacheService.hashContent("abc".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testHashFile_MatchesContentHash() throws Exception {
+        Path file = tempDir.resolve("audio.mp3");
+        Files.write(file, new byte[]{1, 2, 3});
+
+        assertEquals(Optional.of(cacheService.hashContent(new byte[]{1, 2, 3})), cacheService.hashFile(file));
+        assertTrue(cacheService.hashFile(tempDir.resolve("missing.mp3")).isEmpty());
+    }
+
+    @Test
+    void testStoreThenLookup_ServedFromMemory() {
+        Map<String, Object> result = Map.of("finalQualityScore", 0.9);
+
+        cacheService.store(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1", result);
+        Optional<Map<String, Object>> cached = cacheService.lookup(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1");
+
+        assertEquals(Optional.of(result), cached);
+        ArgumentCaptor<StageResultEntity> saved = ArgumentCaptor.forClass(StageResultEntity.class);
+        verify(stageResultDao).save(saved.capture());
+        assertTrue(saved.getValue().getId().startsWith("hash1:QUALITY:"));
+        assertEquals("lead1", saved.getValue().getLeadId());
+        verify(stageResultDao, never()).findById(anyString());
+    }
+
+    @Test
+    void testLookup_FallsBackToMongo() {
+        StageResultEntity stored = new StageResultEntity();
+        stored.setResultJson("{\"finalQualityScore\":0.8}");
+        when(stageResultDao.findById(startsWith("hash2:QUALITY:"))).thenReturn(Optional.of(stored));
+
+        Optional<Map<String, Object>> cached = cacheService.lookup(WorkflowStage.QUALITY, scriptPath, "hash2", "lead1");
+
+        assertEquals(Optional.of(Map.of("finalQualityScore", 0.8)), cached);
+    }
+
+    @Test
+    void testLookup_DifferentLeadMisses() {
+        cacheService.store(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1", Map.of("finalQualityScore", 0.9));
+        when(stageResultDao.findById(anyString())).thenReturn(Optional.empty());
+
+        assertTrue(cacheService.lookup(WorkflowStage.QUALITY, scriptPath, "hash1", "lead2").isEmpty());
+    }
+
+    @Test
+    void testLookup_DifferentInputsHashMisses() {
+        cacheService.store(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1", "truth1", Map.of("finalQualityScore", 0.9));
+        when(stageResultDao.findById(anyString())).thenReturn(Optional.empty());
+
+        assertTrue(cacheService.lookup(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1", "truth2").isEmpty());
+        assertTrue(cacheService.lookup(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1").isEmpty());
+        assertTrue(cacheService.lookup(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1", "truth1").isPresent());
+        ArgumentCaptor<StageResultEntity> saved = ArgumentCaptor.forClass(StageResultEntity.class);
+        verify(stageResultDao).save(saved.capture());
+        assertTrue(saved.getValue().getId().endsWith(":lead1:truth1"));
+        assertEquals("truth1", saved.getValue().getInputsHash());
+    }
+
+    @Test
+    void testScriptChangeRetiresEntries() throws Exception {
+        cacheService.store(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1", Map.of("finalQualityScore", 0.9));
+        Files.writeString(Path.of(scriptPath), "print('quality v2')");
+        Files.setLastModifiedTime(Path.of(scriptPath), java.nio.file.attribute.FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        when(stageResultDao.findById(anyString())).thenReturn(Optional.empty());
+
+        assertTrue(cacheService.lookup(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1").isEmpty());
+    }
+
+    @Test
+    void testErrorResultsAreNotCached() {
+        cacheService.store(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1", Map.of("error", "API Error", "finalQualityScore", 0.0));
+        cacheService.store(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1", Map.of("success", false));
+        cacheService.store(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1", Map.of("scoring_results", Map.of("error", "Failed to parse response")));
+        // A failed extraction call: nothing extracted, scored 0 and rejected, but no error key
+        cacheService.store(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1",
+                Map.of("extracted_result", Map.of(), "scoring_results", Map.of("overall_score", 0), "status", "reject"));
+
+        verifyNoInteractions(stageResultDao);
+    }
+
+    @Test
+    void testStagesNotListedAreNotCached() {
+        cacheService.store(WorkflowStage.VALIDATION, scriptPath, "hash1", "lead1", Map.of("finalValidationScore", 0.9));
+
+        assertTrue(cacheService.lookup(WorkflowStage.VALIDATION, scriptPath, "hash1", "lead1").isEmpty());
+        verifyNoInteractions(stageResultDao);
+    }
+
+    @Test
+    void testMemoryIsBoundedLru() {
+        when(stageResultDao.findById(anyString())).thenReturn(Optional.empty());
+        cacheService.store(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1", Map.of("finalQualityScore", 0.1));
+        cacheService.store(WorkflowStage.QUALITY, scriptPath, "hash2", "lead1", Map.of("finalQualityScore", 0.2));
+        cacheService.store(WorkflowStage.QUALITY, scriptPath, "hash3", "lead1", Map.of("finalQualityScore", 0.3));
+
+        // hash1 was evicted from memory, so the lookup goes to Mongo
+        assertTrue(cacheService.lookup(WorkflowStage.QUALITY, scriptPath, "hash1", "lead1").isEmpty());
+        assertTrue(cacheService.lookup(WorkflowStage.QUALITY, scriptPath, "hash3", "lead1").isPresent());
+        verify(stageResultDao, times(1)).findById(anyString());
+    }
+}
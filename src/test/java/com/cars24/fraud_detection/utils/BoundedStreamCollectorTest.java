@@ -0,0 +1,102 @@
+package com.cars24.fraud_detection.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedStreamCollectorTest {
+
+    @Test
+    void testHead_KeepsFirstBytesAndReadsToEnd() throws Exception {
+        InputStream in = stream("hello world");
+        BoundedStreamCollector collector = collect(in, 5, false);
+
+        assertEquals("hello", collector.getContent());
+        assertTrue(collector.isTruncated());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void testTail_KeepsLastBytesAcrossReads() throws Exception {
+        // Three bytes per read, so the ring wraps several times
+        BoundedStreamCollector collector = collect(trickle(stream("line 1\nline 2\nline 3\n"), 3), 8, true);
+
+        assertEquals("\nline 3\n", collector.getContent());
+        assertTrue(collector.isTruncated());
+    }
+
+    @Test
+    void testTail_SingleReadLongerThanLimit() throws Exception {
+        BoundedStreamCollector collector = collect(stream("0123456789"), 4, true);
+
+        assertEquals("6789", collector.getContent());
+        assertTrue(collector.isTruncated());
+    }
+
+    @Test
+    void testWithinLimit_NotTruncated() throws Exception {
+        assertEquals("abc", collect(stream("abc"), 8, true).getContent());
+        assertEquals("abc", collect(stream("abc"), 8, false).getContent());
+
+        BoundedStreamCollector exact = collect(trickle(stream("abcdefgh"), 3), 8, true);
+        assertEquals("abcdefgh", exact.getContent());
+        assertFalse(exact.isTruncated());
+    }
+
+    @Test
+    void testZeroLimit_DiscardsEverything() throws Exception {
+        BoundedStreamCollector collector = collect(stream("abc"), 0, true);
+
+        assertEquals("", collector.getContent());
+        assertTrue(collector.isTruncated());
+        assertEquals("", collect(stream(""), 0, true).getContent());
+    }
+
+    @Test
+    void testStreamClosedUnderneath_KeepsWhatWasRead() throws Exception {
+        // What a killed process looks like from the reading side
+        InputStream failing = new FilterInputStream(trickle(stream("partial output"), 7)) {
+            private int reads;
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (++reads > 1) {
+                    throw new IOException("Stream closed");
+                }
+                return super.read(b, off, len);
+            }
+        };
+
+        BoundedStreamCollector collector = collect(failing, 64, false);
+
+        assertEquals("partial", collector.getContent());
+        assertFalse(collector.isTruncated());
+    }
+
+    private static BoundedStreamCollector collect(InputStream in, int limit, boolean keepTail) throws InterruptedException {
+        BoundedStreamCollector collector = new BoundedStreamCollector(in, limit, keepTail);
+        Thread.ofPlatform().start(collector);
+        assertTrue(collector.await(5, TimeUnit.SECONDS));
+        return collector;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream trickle(InputStream in, int maxPerRead) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, maxPerRead));
+            }
+        };
+    }
+}
@@ -0,0 +1,156 @@
+package com.cars24.fraud_detection.utils;
+
+import com.cars24.fraud_detection.exception.PythonExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class PythonExecutorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PythonExecutor pythonExecutor;
+    private PythonProcessSlots processSlots;
+    private String sleepScript;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setProperty(PythonProcessSlots.MAX_CONCURRENT_PROPERTY, "1");
+        processSlots = new PythonProcessSlots(environment);
+        pythonExecutor = new PythonExecutor(mock(PythonWorkerPool.class), processSlots, environment, new WorkerThreads(environment));
+        // sh stands in for the interpreter so the test does not depend on a local Python install
+        ReflectionTestUtils.setField(pythonExecutor, "pythonCommand", "sh");
+        ReflectionTestUtils.setField(pythonExecutor, "defaultTimeoutSeconds", 120L);
+        ReflectionTestUtils.setField(pythonExecutor, "maxStdoutBytes", 1024);
+        ReflectionTestUtils.setField(pythonExecutor, "maxStderrBytes", 1024);
+
+        Path script = tempDir.resolve("sleep.sh");
+        Files.writeString(script, "sleep 5\n");
+        sleepScript = script.toString();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pythonExecutor.shutdown();
+    }
+
+    @Test
+    void testExecute_DrainsStdoutAndStderrConcurrently() throws Exception {
+        // Either stream alone is far larger than a pipe buffer; reading one after the other would hang
+        ReflectionTestUtils.setField(pythonExecutor, "defaultTimeoutSeconds", 20L);
+        ReflectionTestUtils.setField(pythonExecutor, "maxStdoutBytes", 2_000_000);
+        String script = script("chatty.sh", "i=0\nwhile [ $i -lt 20 ]; do\n"
+                + "  head -c 50000 /dev/zero | tr '\\0' e >&2\n"
+                + "  head -c 50000 /dev/zero | tr '\\0' o\n"
+                + "  i=$((i+1))\ndone\n");
+
+        PythonScriptResult result = pythonExecutor.execute(script);
+
+        assertFalse(result.isTimedOut());
+        assertEquals(0, result.getExitCode());
+        assertEquals(1_000_000, result.getStdout().length());
+        assertFalse(result.isStdoutTruncated());
+        assertEquals(1024, result.getStderr().length());
+        assertTrue(result.isStderrTruncated());
+    }
+
+    @Test
+    void testExecute_KeepsStdoutHeadAndStderrTail() throws Exception {
+        String script = script("lines.sh", "i=0\nwhile [ $i -lt 500 ]; do\n"
+                + "  echo \"out $i\"\n  echo \"err $i\" >&2\n  i=$((i+1))\ndone\nexit 3\n");
+
+        PythonScriptResult result = pythonExecutor.execute(script);
+
+        assertEquals(3, result.getExitCode());
+        assertTrue(result.getStdout().startsWith("out 0\n"));
+        assertTrue(result.isStdoutTruncated());
+        // The end of stderr, where a traceback's exception line is, survives the truncation
+        assertTrue(result.getStderr().endsWith("err 499\n"));
+        assertFalse(result.getStderr().contains("err 0\n"));
+        assertTrue(result.isStderrTruncated());
+    }
+
+    @Test
+    void testExecute_TimeoutKillsScriptAndItsChildren() throws Exception {
+        ReflectionTestUtils.setField(pythonExecutor, "defaultTimeoutSeconds", 1L);
+        Path pidFile = tempDir.resolve("child.pid");
+        String script = script("hang.sh", "sleep 30 &\necho $! > " + pidFile + "\nwait\n");
+
+        long start = System.nanoTime();
+        PythonScriptResult result = pythonExecutor.execute(script);
+
+        assertTrue(result.isTimedOut());
+        assertEquals(-1, result.getExitCode());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        long childPid = Long.parseLong(Files.readString(pidFile).trim());
+        for (int i = 0; i < 100 && ProcessHandle.of(childPid).map(ProcessHandle::isAlive).orElse(false); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(ProcessHandle.of(childPid).map(ProcessHandle::isAlive).orElse(false));
+        assertEquals(1, processSlots.available());
+    }
+
+    @Test
+    void testRunPythonScript_TimeoutIsThrown() {
+        ReflectionTestUtils.setField(pythonExecutor, "defaultTimeoutSeconds", 1L);
+
+        PythonExecutionException e = assertThrows(PythonExecutionException.class, () -> pythonExecutor.runPythonScript(sleepScript));
+
+        assertTrue(e.getMessage().contains("timed out"));
+    }
+
+    @Test
+    void testRunPythonScript_ParsesJsonOutput() throws Exception {
+        Map<String, Object> output = pythonExecutor.runPythonScript(script("json.sh", "echo '{\"ok\": true}'\n"));
+
+        assertEquals(Map.of("ok", true), output);
+    }
+
+    @Test
+    void testRunWithin_WaitForSlotCountsAgainstTimeout() throws Exception {
+        assertTrue(processSlots.tryAcquire());
+        CompletableFuture.runAsync(processSlots::release, CompletableFuture.delayedExecutor(600, TimeUnit.MILLISECONDS));
+
+        long start = System.nanoTime();
+        PythonExecutionException e = assertThrows(PythonExecutionException.class,
+                () -> pythonExecutor.runPythonScriptWithin(Duration.ofMillis(1000), sleepScript));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(e.getMessage().contains("timed out"));
+        assertTrue(elapsedMillis < 1400, "script ran for its full timeout after waiting: " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testRunWithin_NoSlotWithinTimeout() throws Exception {
+        assertTrue(processSlots.tryAcquire());
+        try {
+            PythonExecutionException e = assertThrows(PythonExecutionException.class,
+                    () -> pythonExecutor.runPythonScriptWithin(Duration.ofMillis(300), sleepScript));
+
+            assertTrue(e.getMessage().contains("was not started"));
+        } finally {
+            processSlots.release();
+        }
+    }
+
+    private String script(String name, String source) throws Exception {
+        Path script = tempDir.resolve(name);
+        Files.writeString(script, source);
+        return script.toString();
+    }
+}
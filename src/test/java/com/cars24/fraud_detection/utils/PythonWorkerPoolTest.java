@@ -0,0 +1,159 @@
+package com.cars24.fraud_detection.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the real PythonWorker.py under python3.
+ */
+class PythonWorkerPoolTest {
+
+    private static final String WORKER_SCRIPT = "src/main/resources/python_workflows/PythonWorker.py";
+
+    @TempDir
+    Path tempDir;
+
+    private PythonProcessSlots processSlots;
+    private PythonWorkerPool workerPool;
+    private String echoScript;
+    private String otherScript;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setProperty(PythonProcessSlots.MAX_CONCURRENT_PROPERTY, "1");
+        processSlots = new PythonProcessSlots(environment);
+        workerPool = new PythonWorkerPool(processSlots);
+        ReflectionTestUtils.setField(workerPool, "enabled", true);
+        ReflectionTestUtils.setField(workerPool, "pythonCommand", "python3");
+        ReflectionTestUtils.setField(workerPool, "workerScript", WORKER_SCRIPT);
+        ReflectionTestUtils.setField(workerPool, "poolSize", 1);
+        ReflectionTestUtils.setField(workerPool, "maxJobsPerWorker", 50);
+        ReflectionTestUtils.setField(workerPool, "acquireTimeoutSeconds", 5L);
+        ReflectionTestUtils.setField(workerPool, "startTimeoutSeconds", 30L);
+        ReflectionTestUtils.setField(workerPool, "healthCheckIntervalSeconds", 300L);
+        ReflectionTestUtils.setField(workerPool, "preloadModules", "");
+        workerPool.startHealthChecks();
+
+        echoScript = script("echo.py", "import sys, json\nprint(json.dumps({'args': sys.argv[1:]}))\n");
+        otherScript = script("other.py", "print('{}')\n");
+    }
+
+    @AfterEach
+    void tearDown() {
+        workerPool.shutdown();
+    }
+
+    @Test
+    void testWorkerHoldsProcessSlotWhileAlive() throws Exception {
+        PythonScriptResult result = workerPool.execute(echoScript, List.of("a"), 10_000).orElseThrow();
+
+        assertTrue(result.isPooled());
+        assertEquals(0, processSlots.available());
+
+        workerPool.shutdown();
+        awaitAvailableSlots(1);
+    }
+
+    @Test
+    void testIdleWorkerIsRetiredForAnotherScript() throws Exception {
+        workerPool.execute(echoScript, List.of("a"), 10_000).orElseThrow();
+
+        // The only slot belongs to the idle echo worker, which is stopped to make room
+        Optional<PythonScriptResult> other = workerPool.execute(otherScript, List.of(), 10_000);
+
+        assertTrue(other.isPresent());
+        assertEquals(0, other.get().getExitCode());
+        assertEquals(0, processSlots.available());
+        // Only the other script's worker is left
+        assertTrue(workerPool.retireIdleWorker());
+        assertFalse(workerPool.retireIdleWorker());
+    }
+
+    @Test
+    void testWorkerIsReusedAndRecycledAfterMaxJobs() throws Exception {
+        ReflectionTestUtils.setField(workerPool, "maxJobsPerWorker", 2);
+        String pidScript = script("pid.py", "import os\nprint(os.getpid())\n");
+
+        String first = workerPool.execute(pidScript, List.of(), 10_000).orElseThrow().getStdout().trim();
+        String second = workerPool.execute(pidScript, List.of(), 10_000).orElseThrow().getStdout().trim();
+        String third = workerPool.execute(pidScript, List.of(), 10_000).orElseThrow().getStdout().trim();
+
+        assertEquals(first, second);
+        assertNotEquals(second, third);
+    }
+
+    @Test
+    void testWorkerDyingMidRequestFailsWithoutRerunning() throws Exception {
+        Path runs = tempDir.resolve("runs.txt");
+        String dieScript = script("die.py", "import os, sys\n"
+                + "with open(sys.argv[1], 'a') as f:\n    f.write('run\\n')\n"
+                + "if sys.argv[2] == 'die':\n    os._exit(9)\n"
+                + "print('{}')\n");
+
+        Optional<PythonScriptResult> result = workerPool.execute(dieScript, List.of(runs.toString(), "die"), 10_000);
+
+        // The request reached the worker, so it is failed rather than handed back for a fork
+        assertTrue(result.isPresent());
+        assertEquals(-1, result.get().getExitCode());
+        assertFalse(result.get().isTimedOut());
+        assertEquals(1, Files.readAllLines(runs).size());
+
+        // A fresh worker takes the next call
+        PythonScriptResult next = workerPool.execute(dieScript, List.of(runs.toString(), "live"), 10_000).orElseThrow();
+        assertEquals(0, next.getExitCode());
+        assertEquals(2, Files.readAllLines(runs).size());
+    }
+
+    @Test
+    void testTimeoutKillsWorker() throws Exception {
+        String slowScript = script("slow.py", "import time\ntime.sleep(30)\n");
+
+        long start = System.nanoTime();
+        PythonScriptResult result = workerPool.execute(slowScript, List.of(), 500).orElseThrow();
+
+        assertTrue(result.isTimedOut());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        awaitAvailableSlots(1);
+        assertEquals(0, workerPool.execute(echoScript, List.of(), 10_000).orElseThrow().getExitCode());
+    }
+
+    @Test
+    void testWorkerStartIsBoundedByCallerTimeout() throws Exception {
+        // A worker that never reports ready must not hold the caller past its own timeout
+        ReflectionTestUtils.setField(workerPool, "workerScript", script("slow_worker.py", "import time\ntime.sleep(30)\n"));
+
+        long start = System.nanoTime();
+        Optional<PythonScriptResult> result = workerPool.execute(echoScript, List.of(), 500);
+
+        assertTrue(result.isEmpty());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000);
+        awaitAvailableSlots(1);
+    }
+
+    private void awaitAvailableSlots(int expected) throws InterruptedException {
+        // Slots come back when the process has exited, which is reported asynchronously
+        for (int i = 0; i < 100 && processSlots.available() != expected; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, processSlots.available());
+    }
+
+    private String script(String name, String source) throws Exception {
+        Path script = tempDir.resolve(name);
+        Files.writeString(script, source);
+        return script.toString();
+    }
+}
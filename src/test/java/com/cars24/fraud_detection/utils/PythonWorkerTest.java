@@ -0,0 +1,154 @@
+package com.cars24.fraud_detection.utils;
+
+import com.cars24.fraud_detection.exception.PythonExecutionException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Speaks the framed protocol with the real PythonWorker.py under python3.
+ */
+class PythonWorkerTest {
+
+    private static final String WORKER_SCRIPT = "src/main/resources/python_workflows/PythonWorker.py";
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ScheduledExecutorService scheduler;
+    private CountDownLatch exited;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        exited = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testRun_FramesArgsAndOutput() throws Exception {
+        PythonWorker worker = start(WORKER_SCRIPT, script("echo.py",
+                "import sys, json\nprint(json.dumps({'args': sys.argv[1:]}))\n"));
+        try {
+            PythonWorker.WorkerResult result = worker.run(List.of("a b", "ü"));
+
+            assertEquals(0, result.exitCode());
+            assertEquals("{\"args\": [\"a b\", \"\\u00fc\"]}", result.stdout().trim());
+            assertEquals(1, worker.getJobsCompleted());
+            assertTrue(worker.ping());
+        } finally {
+            worker.destroy();
+        }
+    }
+
+    @Test
+    void testRun_LargeOutputExitCodeAndStrayWrites() throws Exception {
+        // Bytes written straight to fd 1 must not corrupt the protocol stream
+        PythonWorker worker = start(WORKER_SCRIPT, script("big.py",
+                "import os, sys\nos.write(1, b'stray bytes\\n')\nsys.stdout.write('x' * 300000)\nsys.exit(3)\n"));
+        try {
+            PythonWorker.WorkerResult result = worker.run(List.of());
+
+            assertEquals(3, result.exitCode());
+            assertEquals(300000, result.stdout().length());
+            // The worker survives the script's sys.exit and takes the next request
+            assertEquals(3, worker.run(List.of()).exitCode());
+        } finally {
+            worker.destroy();
+        }
+    }
+
+    @Test
+    void testRun_ScriptExceptionReportedAsError() throws Exception {
+        PythonWorker worker = start(WORKER_SCRIPT, script("raise.py", "raise ValueError('bad input')\n"));
+        try {
+            PythonWorker.WorkerResult result = worker.run(List.of());
+
+            assertEquals(1, result.exitCode());
+            assertTrue(result.error().contains("ValueError: bad input"));
+        } finally {
+            worker.destroy();
+        }
+    }
+
+    @Test
+    void testRun_ExitedWorkerDoesNotTakeRequest() throws Exception {
+        PythonWorker worker = start(WORKER_SCRIPT, script("echo.py", "print('{}')\n"));
+        worker.kill();
+        assertTrue(exited.await(5, TimeUnit.SECONDS));
+
+        assertThrows(PythonWorker.RequestNotDeliveredException.class, () -> worker.run(List.of()));
+        assertFalse(worker.ping());
+    }
+
+    @Test
+    void testRun_WorkerDyingMidRequestIsNotReportedAsUndelivered() throws Exception {
+        PythonWorker worker = start(WORKER_SCRIPT, script("die.py", "import os\nos._exit(9)\n"));
+
+        IOException e = assertThrows(IOException.class, () -> worker.run(List.of()));
+
+        assertFalse(e instanceof PythonWorker.RequestNotDeliveredException);
+        assertTrue(exited.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testStart_NotReadyInTimeIsKilled() throws Exception {
+        String slowWorker = script("slow_worker.py", "import time\ntime.sleep(30)\n");
+
+        long start = System.nanoTime();
+        IOException e = assertThrows(IOException.class, () -> start(slowWorker, "unused.py", 300));
+
+        assertTrue(e.getMessage().contains("was not ready within 300 ms"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        assertTrue(exited.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testStart_InvalidFrameLengthRejected() throws Exception {
+        String badWorker = script("bad_worker.py",
+                "import sys, time\nsys.stdout.buffer.write(b'\\x7f\\xff\\xff\\xff')\nsys.stdout.flush()\ntime.sleep(30)\n");
+
+        assertThrows(PythonExecutionException.class, () -> start(badWorker, "unused.py", 10_000));
+        assertTrue(exited.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testStart_LaunchFailureRunsOnExit() {
+        assertThrows(IOException.class, () -> PythonWorker.start("no-such-python-binary", WORKER_SCRIPT, "unused.py", "",
+                objectMapper, scheduler, 1000, exited::countDown));
+        assertEquals(0, exited.getCount());
+    }
+
+    private PythonWorker start(String workerScript, String scriptName) throws IOException {
+        return start(workerScript, scriptName, 30_000);
+    }
+
+    private PythonWorker start(String workerScript, String scriptName, long readyTimeoutMillis) throws IOException {
+        return PythonWorker.start("python3", workerScript, scriptName, "", objectMapper, scheduler, readyTimeoutMillis,
+                exited::countDown);
+    }
+
+    private String script(String name, String source) throws IOException {
+        Path script = tempDir.resolve(name);
+        Files.writeString(script, source);
+        return script.toString();
+    }
+}
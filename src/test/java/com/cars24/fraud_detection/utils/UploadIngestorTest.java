@@ -0,0 +1,122 @@
+package com.cars24.fraud_detection.utils;
+
+import com.cars24.fraud_detection.utils.UploadIngestor.IngestedUpload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadIngestorTest {
+
+    private static final byte[] JPEG_HEADER = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F', 0, 1};
+
+    @TempDir
+    Path tempDir;
+
+    private UploadIngestor ingestor;
+
+    @BeforeEach
+    void setUp() {
+        ingestor = new UploadIngestor();
+        // A buffer much smaller than the content, so it is written over many reads
+        ReflectionTestUtils.setField(ingestor, "bufferBytes", 16);
+        ReflectionTestUtils.setField(ingestor, "maxBytes", 1024L);
+    }
+
+    private static byte[] jpeg(int size) {
+        byte[] content = Arrays.copyOf(JPEG_HEADER, size);
+        for (int i = JPEG_HEADER.length; i < size; i++) {
+            content[i] = (byte) i;
+        }
+        return content;
+    }
+
+    @Test
+    void testIngest_StreamsHashesAndDetectsType() throws Exception {
+        byte[] content = jpeg(1000);
+        Path target = tempDir.resolve("upload.jpg");
+
+        IngestedUpload upload = ingestor.ingest(new ByteArrayInputStream(content), target, FileSignature.DOCUMENTS);
+
+        assertEquals(target, upload.path());
+        assertEquals(1000, upload.size());
+        assertEquals(FileSignature.JPEG, upload.signature());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)), upload.sha256());
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(1, listFiles().length);
+    }
+
+    @Test
+    void testIngest_RejectsContentOfAnotherTypeBeforeWriting() {
+        Path target = tempDir.resolve("call.mp3");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ingestor.ingest(new ByteArrayInputStream(jpeg(100)), target, FileSignature.AUDIO));
+
+        assertTrue(e.getMessage().startsWith("File content is not one of"));
+        assertEquals(0, listFiles().length);
+    }
+
+    @Test
+    void testIngest_RejectsOversizedUploadAndKeepsExistingFile() throws IOException {
+        Path target = Files.write(tempDir.resolve("upload.jpg"), jpeg(50));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ingestor.ingest(new ByteArrayInputStream(jpeg(2000)), target, Set.of(FileSignature.JPEG)));
+
+        // The partial file is removed and the earlier upload left untouched
+        assertArrayEquals(jpeg(50), Files.readAllBytes(target));
+        assertEquals(1, listFiles().length);
+    }
+
+    @Test
+    void testIngest_RejectsEmptyUpload() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ingestor.ingest(new ByteArrayInputStream(new byte[0]), tempDir.resolve("empty.pdf"), FileSignature.DOCUMENTS));
+        assertEquals(0, listFiles().length);
+    }
+
+    @Test
+    void testDetect_RecognisesMagicBytes() {
+        assertEquals(Optional.of(FileSignature.PDF), FileSignature.detect("%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(Optional.of(FileSignature.PNG), FileSignature.detect(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A}));
+        assertEquals(Optional.of(FileSignature.WAV), FileSignature.detect("RIFF\0\0\0\0WAVE".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(Optional.of(FileSignature.MP3), FileSignature.detect("ID3\u0004".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(Optional.of(FileSignature.MP3), FileSignature.detect(new byte[]{(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0}));
+        assertEquals(Optional.of(FileSignature.DOCX), FileSignature.detect(new byte[]{'P', 'K', 3, 4}));
+        assertEquals(Optional.of(FileSignature.DOC), FileSignature.detect(
+                new byte[]{(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1}));
+        assertEquals(Optional.of(FileSignature.JPEG), FileSignature.detect(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+        // A truncated OLE2 header is not enough to call the file a DOC
+        assertEquals(Optional.empty(), FileSignature.detect(new byte[]{(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0}));
+        assertEquals(Optional.empty(), FileSignature.detect("RIFF\0\0\0\0AVI ".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(Optional.empty(), FileSignature.detect(new byte[]{1, 2, 3}));
+
+        assertEquals(Optional.of(FileSignature.JPEG), FileSignature.fromFileName("Scan.JPEG"));
+        assertEquals(Optional.of(FileSignature.DOC), FileSignature.fromFileName("letter.doc"));
+        assertEquals(Optional.of(FileSignature.DOCX), FileSignature.fromFileName("letter.docx"));
+        assertEquals(Optional.empty(), FileSignature.fromFileName("notes.txt"));
+    }
+
+    private Path[] listFiles() {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.toArray(Path[]::new);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.cars24.fraud_detection.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Drives the same blocking workload through both thread modes: requests that wait on I/O, and
+ * requests that each run a script, to show that virtual threads keep far more requests in flight
+ * while the number of interpreter processes stays at {@code python.process.max-concurrent}.
+ */
+class VirtualThreadLoadTest {
+
+    private static final int REQUESTS = 200;
+    private static final int PLATFORM_THREADS = 10;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testBlockingRequests_VirtualThreadsKeepMoreInFlight() throws Exception {
+        LoadResult platform = runBlockingRequests(false);
+        LoadResult virtual = runBlockingRequests(true);
+
+        // The platform pool is exhausted at its size and the rest of the requests queue behind it
+        assertEquals(PLATFORM_THREADS, platform.peakInFlight());
+        assertTrue(virtual.peakInFlight() >= REQUESTS / 2,
+                "only " + virtual.peakInFlight() + " requests were in flight on virtual threads");
+        assertTrue(virtual.elapsedMillis() < platform.elapsedMillis(),
+                "virtual " + virtual.elapsedMillis() + " ms, platform " + platform.elapsedMillis() + " ms");
+    }
+
+    @Test
+    void testScriptRequests_SubprocessCountStaysCapped() throws Exception {
+        int maxProcesses = 4;
+        int requests = 40;
+        MockEnvironment environment = new MockEnvironment();
+        environment.setProperty(WorkerThreads.VIRTUAL_THREADS_PROPERTY, "true");
+        environment.setProperty(PythonProcessSlots.MAX_CONCURRENT_PROPERTY, String.valueOf(maxProcesses));
+        WorkerThreads workerThreads = new WorkerThreads(environment);
+        PythonExecutor pythonExecutor = new PythonExecutor(mock(PythonWorkerPool.class), new PythonProcessSlots(environment),
+                environment, workerThreads);
+        // sh stands in for the interpreter so the test does not depend on a local Python install
+        ReflectionTestUtils.setField(pythonExecutor, "pythonCommand", "sh");
+        ReflectionTestUtils.setField(pythonExecutor, "defaultTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(pythonExecutor, "maxStdoutBytes", 1024);
+        ReflectionTestUtils.setField(pythonExecutor, "maxStderrBytes", 1024);
+        Path script = tempDir.resolve("io.sh");
+        Files.writeString(script, "sleep 0.2\necho '{\"ok\": true}'\n");
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        AtomicLong peakProcesses = new AtomicLong();
+        Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakProcesses.accumulateAndGet(ProcessHandle.current().children().count(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        ExecutorService requestThreads = workerThreads.executor("Request", PLATFORM_THREADS);
+        try {
+            List<Future<PythonScriptResult>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(requestThreads.submit(() -> {
+                    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        return pythonExecutor.execute(script.toString());
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }));
+            }
+            for (Future<PythonScriptResult> result : results) {
+                assertEquals(0, result.get(30, TimeUnit.SECONDS).getExitCode());
+            }
+        } finally {
+            sampler.interrupt();
+            requestThreads.shutdownNow();
+            pythonExecutor.shutdown();
+        }
+
+        // Every request was accepted at once; only the interpreters were rationed
+        assertTrue(peakInFlight.get() > maxProcesses, "only " + peakInFlight.get() + " requests were in flight");
+        assertTrue(peakProcesses.get() > 0);
+        assertTrue(peakProcesses.get() <= maxProcesses, peakProcesses.get() + " interpreters ran at once");
+    }
+
+    private LoadResult runBlockingRequests(boolean virtual) throws Exception {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setProperty(WorkerThreads.VIRTUAL_THREADS_PROPERTY, String.valueOf(virtual));
+        ExecutorService requestThreads = new WorkerThreads(environment).executor("Request", PLATFORM_THREADS);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> requests = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                requests.add(requestThreads.submit(() -> {
+                    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        // Stands in for a Mongo round trip or a wait on a script
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> request : requests) {
+                request.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            requestThreads.shutdownNow();
+        }
+        return new LoadResult(peakInFlight.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private record LoadResult(int peakInFlight, long elapsedMillis) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.cars24.fraud_detection.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkerThreadsTest {
+
+    private static WorkerThreads workerThreads(boolean virtualRequested) {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setProperty(WorkerThreads.VIRTUAL_THREADS_PROPERTY, String.valueOf(virtualRequested));
+        return new WorkerThreads(environment);
+    }
+
+    @Test
+    void testFactory_PlatformThreadsByDefault() {
+        WorkerThreads workerThreads = new WorkerThreads(new MockEnvironment());
+
+        Thread first = workerThreads.factory("Worker").newThread(() -> { });
+        Thread second = workerThreads.factory("Worker").newThread(() -> { });
+
+        assertFalse(workerThreads.isVirtual());
+        assertTrue(first.isDaemon());
+        assertEquals("Worker-1", first.getName());
+        assertEquals("Worker-1", second.getName());
+    }
+
+    @Test
+    void testVirtualRequested() {
+        WorkerThreads workerThreads = workerThreads(true);
+
+        Thread thread = workerThreads.factory("Worker").newThread(() -> { });
+
+        assertTrue(workerThreads.isVirtual());
+        assertTrue(thread.isVirtual());
+        assertTrue(thread.isDaemon());
+        assertEquals("Worker-1", thread.getName());
+    }
+
+    @Test
+    void testExecutor_RunsTasksOnNamedThreads() throws Exception {
+        ExecutorService executor = workerThreads(false).executor("Stage", 2);
+        try {
+            String name = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+            assertTrue(name.startsWith("Stage-"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
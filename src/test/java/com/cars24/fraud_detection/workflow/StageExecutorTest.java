@@ -0,0 +1,160 @@
+package com.cars24.fraud_detection.workflow;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageExecutorTest {
+
+    private StageExecutor stageExecutor;
+
+    @BeforeEach
+    void setUp() {
+        Map<WorkflowStage, Integer> concurrency = new EnumMap<>(WorkflowStage.class);
+        Map<WorkflowStage, Integer> queueCapacity = new EnumMap<>(WorkflowStage.class);
+        for (WorkflowStage stage : WorkflowStage.values()) {
+            concurrency.put(stage, 1);
+            queueCapacity.put(stage, 1);
+        }
+        concurrency.put(WorkflowStage.OCR, 2);
+        stageExecutor = new StageExecutor(Executors.newFixedThreadPool(5), concurrency, queueCapacity, Map.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        stageExecutor.shutdown();
+    }
+
+    @Test
+    void testStageConcurrencyIsCapped() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[3];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }, stageExecutor.forStage(WorkflowStage.OCR));
+        }
+
+        Thread.sleep(200);
+        StageExecutor.StageStats stats = stageExecutor.getStats().get(WorkflowStage.OCR);
+        assertEquals(2, stats.running());
+        assertEquals(1, stats.queued());
+
+        release.countDown();
+        CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+        assertEquals(2, maxRunning.get());
+        awaitIdle(WorkflowStage.OCR);
+        assertEquals(3, stageExecutor.getStats().get(WorkflowStage.OCR).completed());
+        assertEquals(0, stageExecutor.getStats().get(WorkflowStage.OCR).running());
+    }
+
+    @Test
+    void testTaskRejectedWhenStageQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(blocking, stageExecutor.forStage(WorkflowStage.QUALITY));
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(blocking, stageExecutor.forStage(WorkflowStage.QUALITY));
+
+        assertThrows(RejectedExecutionException.class,
+                () -> CompletableFuture.runAsync(blocking, stageExecutor.forStage(WorkflowStage.QUALITY)));
+        assertEquals(1, stageExecutor.getStats().get(WorkflowStage.QUALITY).rejected());
+
+        // Other stages keep their own capacity
+        CompletableFuture.runAsync(() -> { }, stageExecutor.forStage(WorkflowStage.FORGERY)).get(5, TimeUnit.SECONDS);
+
+        release.countDown();
+        CompletableFuture.allOf(first, queued).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testSubmitWithin_WaitsForTaskAndSkipsExpiredQueuedTask() throws Exception {
+        AtomicBoolean queuedStarted = new AtomicBoolean();
+        AtomicBoolean firstStopped = new AtomicBoolean();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CompletableFuture<Duration> first = stageExecutor.submitWithin(WorkflowStage.VALIDATION, remaining -> {
+            firstStarted.countDown();
+            sleep(600);
+            firstStopped.set(true);
+            return remaining;
+        }, Duration.ofMillis(300));
+        // Queue the second task only once the first holds the lane, however slowly its thread starts
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Duration> queued = stageExecutor.submitWithin(WorkflowStage.VALIDATION, remaining -> {
+            queuedStarted.set(true);
+            return remaining;
+        }, Duration.ofMillis(100));
+
+        // The queued task runs out of time before the lane frees up and gives its queue slot back
+        ExecutionException expired = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, expired.getCause());
+        StageExecutor.StageStats stats = stageExecutor.getStats().get(WorkflowStage.VALIDATION);
+        assertEquals(0, stats.queued());
+        assertEquals(1, stats.expired());
+        assertEquals(1, stats.running());
+        CompletableFuture<Duration> replacement = stageExecutor.submitWithin(WorkflowStage.VALIDATION,
+                remaining -> remaining, Duration.ofSeconds(2));
+
+        // The running task's future waits for the task, then reports the overrun
+        ExecutionException overran = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, overran.getCause());
+        assertTrue(firstStopped.get());
+        assertNotNull(replacement.get(5, TimeUnit.SECONDS));
+        awaitIdle(WorkflowStage.VALIDATION);
+
+        Duration given = stageExecutor.submitWithin(WorkflowStage.VALIDATION, remaining -> remaining, Duration.ofSeconds(2))
+                .get(5, TimeUnit.SECONDS);
+        assertTrue(given.compareTo(Duration.ofSeconds(2)) <= 0 && given.compareTo(Duration.ZERO) > 0);
+        assertFalse(queuedStarted.get());
+    }
+
+    private void awaitIdle(WorkflowStage stage) throws InterruptedException {
+        // Futures complete just before the lane books the task as finished
+        for (int i = 0; i < 250; i++) {
+            StageExecutor.StageStats stats = stageExecutor.getStats().get(stage);
+            if (stats.running() == 0 && stats.queued() == 0) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail(stage.getDisplayName() + " lane did not go idle");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,28 +1,48 @@
 package com.cars24.fraud_detection.workflow.impl;
 
 import com.cars24.fraud_detection.data.request.AudioRequest;
+import com.cars24.fraud_detection.data.response.AudioGroundTruth;
 import com.cars24.fraud_detection.data.response.AudioResponse;
+import com.cars24.fraud_detection.exception.PythonExecutionException;
+import com.cars24.fraud_detection.service.StageResultCacheService;
 import com.cars24.fraud_detection.utils.PythonExecutor;
+import com.cars24.fraud_detection.workflow.StageExecutor;
+import com.cars24.fraud_detection.workflow.WorkflowStage;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class AudioWorkflowTest {
 
+    private static final String LLM_SCRIPT = "LLMextractionvalidation.py";
+    private static final String ANALYSIS_SCRIPT = "AudioAnalysis.py";
+
     @Mock
     private PythonExecutor pythonExecutor;
 
-    @InjectMocks
+    @Mock
+    private StageResultCacheService resultCache;
+
+    private StageExecutor stageExecutor;
     private AudioWorkflow audioWorkflow;
 
     private AudioRequest audioRequest;
@@ -31,11 +51,22 @@ class AudioWorkflowTest {
 
     @BeforeEach
     void setUp() {
+        stageExecutor = new StageExecutor(Executors.newFixedThreadPool(4), Map.of(), Map.of(), Map.of());
+        audioWorkflow = new AudioWorkflow(pythonExecutor, stageExecutor, resultCache);
+        ReflectionTestUtils.setField(audioWorkflow, "llmScriptPath", LLM_SCRIPT);
+        ReflectionTestUtils.setField(audioWorkflow, "audioScriptPath", ANALYSIS_SCRIPT);
+        ReflectionTestUtils.setField(audioWorkflow, "deadlineSeconds", 5L);
+
         audioRequest = new AudioRequest();
         audioRequest.setUuid("test-audio-uuid");
         audioRequest.setAgentId("agent123");
         audioRequest.setLeadId("lead456");
 
+        AudioGroundTruth groundTruth = new AudioGroundTruth();
+        groundTruth.setReferenceName("John Doe");
+        groundTruth.setSubjectName("Jane Doe");
+        audioRequest.setGroundTruth(groundTruth);
+
         // Mock LLM Extraction Output
         mockLlmResponse = new HashMap<>();
         mockLlmResponse.put("status", "completed");
@@ -57,11 +88,15 @@ class AudioWorkflowTest {
         mockAudioAnalysis.put("clarity", "high");
     }
 
+    @AfterEach
+    void tearDown() {
+        stageExecutor.shutdown();
+    }
+
     @Test
     void testProcessAudio_Success() throws JsonProcessingException {
-        when(pythonExecutor.runPythonScript(anyString(), anyString(), anyString()))
-                .thenReturn(mockLlmResponse)
-                .thenReturn(mockAudioAnalysis); // Two calls: LLM & Audio Analysis
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(LLM_SCRIPT), anyString(), anyString())).thenReturn(mockLlmResponse);
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(ANALYSIS_SCRIPT), anyString(), anyString())).thenReturn(mockAudioAnalysis);
 
         AudioResponse response = audioWorkflow.processAudio(audioRequest);
 
@@ -76,12 +111,148 @@ class AudioWorkflowTest {
         assertEquals(mockAudioAnalysis, response.getAudioAnalysis());
         assertFalse(response.getTranscript().isEmpty());
 
-        verify(pythonExecutor, times(2)).runPythonScript(anyString(), anyString(), anyString());
+        verify(pythonExecutor, times(2)).runPythonScriptWithin(any(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testProcessAudio_GroundTruthPassedAsFile() throws JsonProcessingException {
+        List<Path> groundTruthPaths = new ArrayList<>();
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(LLM_SCRIPT), anyString(), anyString())).thenAnswer(invocation -> {
+            Path groundTruthPath = Path.of(invocation.<String>getArgument(3));
+            groundTruthPaths.add(groundTruthPath);
+            assertTrue(Files.readString(groundTruthPath).contains("\"referenceName\":\"John Doe\""));
+            return mockLlmResponse;
+        });
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(ANALYSIS_SCRIPT), eq("test-audio-uuid"), eq("lead456"))).thenReturn(mockAudioAnalysis);
+
+        audioWorkflow.processAudio(audioRequest);
+
+        verify(pythonExecutor).runPythonScriptWithin(any(), eq(LLM_SCRIPT), eq("test-audio-uuid"), anyString());
+        assertFalse(Files.exists(groundTruthPaths.get(0)));
+    }
+
+    @Test
+    void testProcessAudio_MissingGroundTruth() {
+        audioRequest.setGroundTruth(null);
+
+        assertThrows(PythonExecutionException.class, () -> audioWorkflow.processAudio(audioRequest));
+        verifyNoInteractions(pythonExecutor);
+    }
+
+    @Test
+    void testProcessAudio_ScriptsRunConcurrently() throws JsonProcessingException {
+        CountDownLatch analysisStarted = new CountDownLatch(1);
+        // The LLM branch only returns once analysis is running, which would hang if the scripts ran in sequence
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(LLM_SCRIPT), anyString(), anyString())).thenAnswer(invocation -> {
+            assertTrue(analysisStarted.await(3, TimeUnit.SECONDS), "audio analysis did not start alongside LLM extraction");
+            return mockLlmResponse;
+        });
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(ANALYSIS_SCRIPT), anyString(), anyString())).thenAnswer(invocation -> {
+            analysisStarted.countDown();
+            return mockAudioAnalysis;
+        });
+
+        AudioResponse response = audioWorkflow.processAudio(audioRequest);
+
+        assertNotNull(response);
+        assertEquals(mockAudioAnalysis, response.getAudioAnalysis());
+    }
+
+    @Test
+    void testProcessAudio_AnalysisFailureDegrades() throws JsonProcessingException {
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(LLM_SCRIPT), anyString(), anyString())).thenReturn(mockLlmResponse);
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(ANALYSIS_SCRIPT), anyString(), anyString()))
+                .thenThrow(new PythonExecutionException("librosa failed"));
+
+        AudioResponse response = audioWorkflow.processAudio(audioRequest);
+
+        assertNotNull(response);
+        assertEquals("completed", response.getStatus());
+        assertEquals("John Doe", response.getReferenceName());
+        assertEquals("unavailable", response.getAudioAnalysis().get("status"));
+        assertEquals("librosa failed", response.getAudioAnalysis().get("error"));
+    }
+
+    @Test
+    void testProcessAudio_AnalysisTimeoutDegrades() throws JsonProcessingException {
+        ReflectionTestUtils.setField(audioWorkflow, "deadlineSeconds", 1L);
+        AtomicBoolean analysisStopped = new AtomicBoolean();
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(LLM_SCRIPT), anyString(), anyString())).thenReturn(mockLlmResponse);
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(ANALYSIS_SCRIPT), anyString(), anyString())).thenAnswer(invocation -> {
+            // The script is only given what is left of the request's deadline, then killed
+            Duration given = invocation.getArgument(0);
+            assertTrue(given.compareTo(Duration.ofSeconds(1)) <= 0);
+            Thread.sleep(given.toMillis() + 100);
+            analysisStopped.set(true);
+            throw new PythonExecutionException("Python script AudioAnalysis.py timed out after " + given.toMillis() + " ms");
+        });
+
+        AudioResponse response = audioWorkflow.processAudio(audioRequest);
+
+        assertNotNull(response);
+        assertEquals("completed", response.getStatus());
+        assertEquals("timed out", response.getAudioAnalysis().get("error"));
+        assertTrue(analysisStopped.get(), "workflow returned while the analysis script was still running");
+    }
+
+    @Test
+    void testProcessAudio_BranchesShareOneDeadline() throws JsonProcessingException {
+        List<Duration> given = Collections.synchronizedList(new ArrayList<>());
+        when(pythonExecutor.runPythonScriptWithin(any(), anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            given.add(invocation.getArgument(0));
+            return LLM_SCRIPT.equals(invocation.getArgument(1)) ? mockLlmResponse : mockAudioAnalysis;
+        });
+
+        audioWorkflow.processAudio(audioRequest);
+
+        assertEquals(2, given.size());
+        // Counted from the start of the request, not granted afresh to each branch
+        given.forEach(timeout -> assertTrue(timeout.compareTo(Duration.ofSeconds(5)) < 0));
+    }
+
+    @Test
+    void testProcessAudio_CachedExtractionSkipsLlmCall() throws JsonProcessingException {
+        // The recording is hashed first, then the ground truth file
+        when(resultCache.hashFile(any())).thenReturn(Optional.of("audiohash"), Optional.of("truthhash"));
+        when(resultCache.lookup(WorkflowStage.LLM_EXTRACTION, LLM_SCRIPT, "audiohash", "lead456", "truthhash"))
+                .thenReturn(Optional.of(mockLlmResponse));
+        when(resultCache.lookup(WorkflowStage.AUDIO_ANALYSIS, ANALYSIS_SCRIPT, "audiohash", "lead456", null)).thenReturn(Optional.empty());
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(ANALYSIS_SCRIPT), anyString(), anyString())).thenReturn(mockAudioAnalysis);
+
+        AudioResponse response = audioWorkflow.processAudio(audioRequest);
+
+        assertNotNull(response);
+        assertEquals("John Doe", response.getReferenceName());
+        verify(pythonExecutor, never()).runPythonScriptWithin(any(), eq(LLM_SCRIPT), anyString(), anyString());
+        verify(resultCache).store(WorkflowStage.AUDIO_ANALYSIS, ANALYSIS_SCRIPT, "audiohash", "lead456", null, mockAudioAnalysis);
+    }
+
+    @Test
+    void testProcessAudio_ExtractionCachedUnderGroundTruthHash() throws JsonProcessingException {
+        when(resultCache.hashFile(any())).thenReturn(Optional.of("audiohash"), Optional.of("truthhash"));
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(LLM_SCRIPT), anyString(), anyString())).thenReturn(mockLlmResponse);
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(ANALYSIS_SCRIPT), anyString(), anyString())).thenReturn(mockAudioAnalysis);
+
+        audioWorkflow.processAudio(audioRequest);
+
+        verify(resultCache).store(WorkflowStage.LLM_EXTRACTION, LLM_SCRIPT, "audiohash", "lead456", "truthhash", mockLlmResponse);
+    }
+
+    @Test
+    void testProcessAudio_ExtractionNotCachedWithoutGroundTruthHash() throws JsonProcessingException {
+        when(resultCache.hashFile(any())).thenReturn(Optional.of("audiohash"), Optional.empty());
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(LLM_SCRIPT), anyString(), anyString())).thenReturn(mockLlmResponse);
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(ANALYSIS_SCRIPT), anyString(), anyString())).thenReturn(mockAudioAnalysis);
+
+        audioWorkflow.processAudio(audioRequest);
+
+        verify(resultCache).lookup(WorkflowStage.LLM_EXTRACTION, LLM_SCRIPT, null, "lead456", null);
+        verify(resultCache).store(WorkflowStage.LLM_EXTRACTION, LLM_SCRIPT, null, "lead456", null, mockLlmResponse);
     }
 
     @Test
     void testProcessAudio_EmptyResponse() throws JsonProcessingException {
-        when(pythonExecutor.runPythonScript(anyString(), anyString(), anyString())).thenReturn(Collections.emptyMap());
+        when(pythonExecutor.runPythonScriptWithin(any(), anyString(), anyString(), anyString())).thenReturn(Collections.emptyMap());
 
         AudioResponse response = audioWorkflow.processAudio(audioRequest);
 
@@ -90,15 +261,15 @@ class AudioWorkflowTest {
         assertNull(response.getReferenceName());
         assertTrue(response.getTranscript().isEmpty());
 
-        verify(pythonExecutor, times(1)).runPythonScript(anyString(), anyString(), anyString());
+        verify(pythonExecutor, times(1)).runPythonScriptWithin(any(), eq(LLM_SCRIPT), anyString(), anyString());
     }
 
     @Test
     void testProcessAudio_ExceptionHandling() throws JsonProcessingException {
-        when(pythonExecutor.runPythonScript(anyString(), anyString(), anyString())).thenThrow(new RuntimeException("Script execution failed"));
+        when(pythonExecutor.runPythonScriptWithin(any(), anyString(), anyString(), anyString())).thenThrow(new RuntimeException("Script execution failed"));
 
         assertThrows(RuntimeException.class, () -> audioWorkflow.processAudio(audioRequest));
 
-        verify(pythonExecutor, times(1)).runPythonScript(anyString(), anyString(), anyString());
+        verify(pythonExecutor, times(1)).runPythonScriptWithin(any(), eq(LLM_SCRIPT), anyString(), anyString());
     }
 }
@@ -1,61 +1,126 @@
 package com.cars24.fraud_detection.workflow.impl;
 
 import com.cars24.fraud_detection.data.request.DocumentRequest;
+import com.cars24.fraud_detection.data.response.AadhaarGroundTruth;
 import com.cars24.fraud_detection.data.response.DocumentResponse;
 import com.cars24.fraud_detection.exception.DocumentProcessingException;
+import com.cars24.fraud_detection.exception.PythonExecutionException;
+import com.cars24.fraud_detection.service.StageResultCacheService;
 import com.cars24.fraud_detection.utils.FileUtils;
 import com.cars24.fraud_detection.utils.PythonExecutor;
+import com.cars24.fraud_detection.workflow.StageExecutor;
+import com.cars24.fraud_detection.workflow.WorkflowStage;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
 class DocumentWorkflowTest {
 
+    private static final String OCR_SCRIPT = "DocumentOcr.py";
+    private static final String QUALITY_SCRIPT = "DocumentQuality.py";
+    private static final String FORGERY_SCRIPT = "DocumentForgery.py";
+    private static final String VALIDATION_SCRIPT = "DocumentValidation.py";
+
     @Mock
     private PythonExecutor pythonExecutor;
 
     @Mock
     private FileUtils fileUtils;
 
-    @InjectMocks
-    private DocumentWorkflow documentWorkflow;
+    @Mock
+    private StageResultCacheService resultCache;
 
+    @TempDir
+    Path tempDir;
+
+    private StageExecutor stageExecutor;
+    private DocumentWorkflow documentWorkflow;
     private DocumentRequest documentRequest;
+    private Path storedUpload;
+    private String documentPath;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
+        Map<WorkflowStage, Integer> concurrency = new EnumMap<>(WorkflowStage.class);
+        Map<WorkflowStage, Duration> timeouts = new EnumMap<>(WorkflowStage.class);
+        for (WorkflowStage stage : WorkflowStage.values()) {
+            concurrency.put(stage, 1);
+            timeouts.put(stage, Duration.ofSeconds(5));
+        }
+        stageExecutor = new StageExecutor(Executors.newFixedThreadPool(4), concurrency, Map.of(), timeouts);
+
+        documentWorkflow = new DocumentWorkflow(pythonExecutor, fileUtils, stageExecutor, resultCache);
+        ReflectionTestUtils.setField(documentWorkflow, "ocrScriptPath", OCR_SCRIPT);
+        ReflectionTestUtils.setField(documentWorkflow, "qualityScriptPath", QUALITY_SCRIPT);
+        ReflectionTestUtils.setField(documentWorkflow, "forgeryScriptPath", FORGERY_SCRIPT);
+        ReflectionTestUtils.setField(documentWorkflow, "validationScriptPath", VALIDATION_SCRIPT);
+
         documentRequest = new DocumentRequest();
         documentRequest.setAgentId("agent123");
         documentRequest.setLeadId("lead456");
         documentRequest.setDocumentType("Aadhaar");
         documentRequest.setFileName("test_document.jpg");
-        documentRequest.setDocumentData(new byte[]{1, 2, 3}); // Dummy byte array
+        storedUpload = Files.write(tempDir.resolve("stored.jpg"), new byte[]{1, 2, 3});
+        documentPath = storedUpload.toString();
+        documentRequest.setDocumentPath(storedUpload);
+        documentRequest.setContentHash("hash123");
+
+        AadhaarGroundTruth groundTruth = new AadhaarGroundTruth();
+        groundTruth.setDocument_type("Aadhaar");
+        groundTruth.setName("Jane Doe");
+        documentRequest.setGroundTruth(groundTruth);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stageExecutor.shutdown();
     }
 
     @Test
     void testProcessDocument_Success() throws Exception {
-        String documentPath = "src/main/resources/document_storage/test_document.jpg";
         String ocrJsonPath = "src/main/resources/document_storage/test_document_ocr.json";
 
         // Mock successful file operations
-        when(fileUtils.saveDocument(any(), anyString())).thenReturn(documentPath);
-        when(fileUtils.executeOcr(any(), eq(documentPath))).thenReturn(Map.of("ocr_json_path", ocrJsonPath));
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(OCR_SCRIPT), any())).thenReturn(Map.of("ocr_json_path", ocrJsonPath));
         when(fileUtils.extractOcrJsonPath(any())).thenReturn(ocrJsonPath);
-        when(fileUtils.executePythonTask(any(), anyString(), any(), anyString())).thenReturn(Collections.emptyMap());
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(QUALITY_SCRIPT), any())).thenReturn(Collections.emptyMap());
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(FORGERY_SCRIPT), any())).thenReturn(Collections.emptyMap());
+        List<String> groundTruthPaths = new ArrayList<>();
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(VALIDATION_SCRIPT), any(), any())).thenAnswer(invocation -> {
+            Path groundTruthPath = Path.of(invocation.<String>getArgument(3));
+            groundTruthPaths.add(groundTruthPath.toString());
+            assertTrue(Files.readString(groundTruthPath).contains("\"name\":\"Jane Doe\""));
+            return Collections.emptyMap();
+        });
         when(fileUtils.computeRiskScore(any(), any(), any())).thenReturn(0.75);
         when(fileUtils.createResponse(anyString(), anyString(), anyString(), anyDouble(), any(), any(), any(), any()))
                 .thenReturn(DocumentResponse.builder()
@@ -72,44 +137,145 @@ class DocumentWorkflowTest {
         assertEquals("Aadhaar", response.getDocumentType());
         assertEquals(0.75, response.getFinalRiskScore());
         assertTrue(response.isValid());
-        verify(fileUtils).saveDocument(any(), anyString());
+        verify(pythonExecutor).runPythonScriptWithin(any(), eq(VALIDATION_SCRIPT), eq(ocrJsonPath), anyString());
+        // The ground truth handed to validation is removed once the workflow is done
+        assertFalse(Files.exists(Path.of(groundTruthPaths.get(0))));
+    }
+
+    @Test
+    void testProcessDocument_QualityAndForgeryRunAlongsideOcr() throws Exception {
+        CountDownLatch branchesStarted = new CountDownLatch(2);
+        when(fileUtils.extractOcrJsonPath(any())).thenReturn("dummy/ocr.json");
+        // OCR only finishes once quality and forgery are both running, which deadlocks if the stages are serial
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(OCR_SCRIPT), any())).thenAnswer(invocation -> {
+            assertTrue(branchesStarted.await(3, TimeUnit.SECONDS), "quality and forgery did not start alongside OCR");
+            return Map.of("ocr_json_path", "dummy/ocr.json");
+        });
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(QUALITY_SCRIPT), any())).thenAnswer(invocation -> {
+            branchesStarted.countDown();
+            return Map.of("finalQualityScore", 0.9);
+        });
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(FORGERY_SCRIPT), any())).thenAnswer(invocation -> {
+            branchesStarted.countDown();
+            return Map.of("finalForgeryRiskScore", 0.1);
+        });
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(VALIDATION_SCRIPT), any(), any())).thenReturn(Map.of("finalValidationScore", 0.2));
+        when(fileUtils.createResponse(anyString(), anyString(), anyString(), anyDouble(), any(), any(), any(), any()))
+                .thenReturn(DocumentResponse.builder().documentType("Aadhaar").isValid(true).build());
+
+        DocumentResponse response = documentWorkflow.processDocument(documentRequest);
+
+        assertNotNull(response);
+        verify(fileUtils).computeRiskScore(Map.of("finalQualityScore", 0.9), Map.of("finalForgeryRiskScore", 0.1), Map.of("finalValidationScore", 0.2));
+    }
+
+    @Test
+    void testProcessDocument_CachedStagesAreSkipped() throws Exception {
+        Map<String, Object> cachedOcr = Map.of("ocr_json_path", "old/path_ocr.json", "structured_data", Map.of("name", "Jane"));
+        Map<String, Object> restoredOcr = Map.of("ocr_json_path", "dummy/path_ocr.json", "structured_data", Map.of("name", "Jane"));
+        when(resultCache.lookup(eq(WorkflowStage.OCR), eq(OCR_SCRIPT), eq("hash123"), eq("lead456"))).thenReturn(Optional.of(cachedOcr));
+        when(resultCache.lookup(eq(WorkflowStage.QUALITY), eq(QUALITY_SCRIPT), eq("hash123"), eq("lead456")))
+                .thenReturn(Optional.of(Map.of("finalQualityScore", 0.9)));
+        when(fileUtils.restoreOcrJson(cachedOcr, documentPath)).thenReturn(restoredOcr);
+        when(fileUtils.extractOcrJsonPath(restoredOcr)).thenReturn("dummy/path_ocr.json");
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(FORGERY_SCRIPT), any())).thenReturn(Map.of("finalForgeryRiskScore", 0.1));
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(VALIDATION_SCRIPT), any(), any())).thenReturn(Map.of("finalValidationScore", 0.2));
+        when(fileUtils.createResponse(anyString(), anyString(), anyString(), anyDouble(), any(), any(), any(), any()))
+                .thenReturn(DocumentResponse.builder().documentType("Aadhaar").isValid(true).build());
+
+        DocumentResponse response = documentWorkflow.processDocument(documentRequest);
+
+        assertNotNull(response);
+        verify(pythonExecutor, never()).runPythonScriptWithin(any(), eq(OCR_SCRIPT), any());
+        verify(pythonExecutor, never()).runPythonScriptWithin(any(), eq(QUALITY_SCRIPT), any());
+        verify(pythonExecutor).runPythonScriptWithin(any(), eq(VALIDATION_SCRIPT), eq("dummy/path_ocr.json"), anyString());
+        verify(resultCache).store(WorkflowStage.FORGERY, FORGERY_SCRIPT, "hash123", "lead456", Map.of("finalForgeryRiskScore", 0.1));
+        verify(resultCache, never()).store(eq(WorkflowStage.OCR), any(), any(), any(), any());
+    }
+
+    @Test
+    void testProcessDocument_StoredUploadIsReadInPlace() throws Exception {
+        documentRequest.setContentHash(null);
+        when(resultCache.hashFile(storedUpload)).thenReturn(Optional.of("hash123"));
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(OCR_SCRIPT), any())).thenReturn(Map.of("ocr_json_path", "dummy/ocr.json"));
+        when(fileUtils.extractOcrJsonPath(any())).thenReturn("dummy/ocr.json");
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(VALIDATION_SCRIPT), any(), any())).thenReturn(Collections.emptyMap());
+        when(fileUtils.createResponse(anyString(), anyString(), anyString(), anyDouble(), any(), any(), any(), any()))
+                .thenReturn(DocumentResponse.builder().documentType("Aadhaar").isValid(true).build());
+
+        DocumentResponse response = documentWorkflow.processDocument(documentRequest);
+
+        assertNotNull(response);
+        verify(pythonExecutor).runPythonScriptWithin(any(), eq(OCR_SCRIPT), eq(storedUpload.toString()));
+        verify(resultCache).lookup(WorkflowStage.OCR, OCR_SCRIPT, "hash123", "lead456");
+        // The stored upload belongs to the caller
+        assertTrue(Files.exists(storedUpload));
+    }
+
+    @Test
+    void testProcessDocument_MissingGroundTruth() {
+        documentRequest.setGroundTruth(null);
+
+        Exception exception = assertThrows(DocumentProcessingException.class, () -> documentWorkflow.processDocument(documentRequest));
+
+        assertTrue(exception.getMessage().contains("Ground truth missing"));
+        verifyNoInteractions(pythonExecutor);
     }
 
     @Test
     void testProcessDocument_OcrFailure() throws Exception {
-        when(fileUtils.saveDocument(any(), anyString())).thenReturn("dummy/path");
-        when(fileUtils.executeOcr(any(), anyString())).thenReturn(Collections.emptyMap());
+        when(pythonExecutor.runPythonScriptWithin(any(), anyString(), any())).thenReturn(Collections.emptyMap());
 
         Exception exception = assertThrows(DocumentProcessingException.class, () -> documentWorkflow.processDocument(documentRequest));
         assertTrue(exception.getMessage().contains("OCR JSON path not found"));
+        verify(pythonExecutor, never()).runPythonScriptWithin(any(), eq(VALIDATION_SCRIPT), any(), any());
     }
 
     @Test
     void testProcessDocument_ValidationFailure() throws Exception {
-        when(fileUtils.saveDocument(any(), anyString())).thenReturn("dummy/path");
-        when(fileUtils.executeOcr(any(), anyString())).thenReturn(Map.of("ocr_json_path", "dummy/ocr.json"));
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(OCR_SCRIPT), any())).thenReturn(Map.of("ocr_json_path", "dummy/ocr.json"));
         when(fileUtils.extractOcrJsonPath(any())).thenReturn("dummy/ocr.json");
-        when(fileUtils.executePythonTask(any(), anyString(), any(), anyString())).thenReturn(Collections.emptyMap());
-
-        doThrow(new DocumentProcessingException("Validation failed"))
-                .when(fileUtils).executePythonTask(any(), eq("src/main/resources/python_workflows/DocumentValidation.py"), any(), anyString());
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(QUALITY_SCRIPT), any())).thenReturn(Collections.emptyMap());
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(FORGERY_SCRIPT), any())).thenReturn(Collections.emptyMap());
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(VALIDATION_SCRIPT), any(), any()))
+                .thenThrow(new PythonExecutionException("Validation failed"));
 
         Exception exception = assertThrows(DocumentProcessingException.class, () -> documentWorkflow.processDocument(documentRequest));
         assertTrue(exception.getMessage().contains("Validation failed"));
     }
 
     @Test
-    void testProcessDocument_FileSaveFailure() throws Exception {
-        when(fileUtils.saveDocument(any(), anyString())).thenThrow(new RuntimeException("File save error"));
+    void testProcessDocument_StageTimeout() throws Exception {
+        Map<WorkflowStage, Duration> timeouts = new EnumMap<>(WorkflowStage.class);
+        timeouts.put(WorkflowStage.FORGERY, Duration.ofMillis(100));
+        StageExecutor shortTimeouts = new StageExecutor(Executors.newFixedThreadPool(4), Map.of(), Map.of(), timeouts);
+        ReflectionTestUtils.setField(documentWorkflow, "stageExecutor", shortTimeouts);
 
-        Exception exception = assertThrows(DocumentProcessingException.class, () -> documentWorkflow.processDocument(documentRequest));
-        assertTrue(exception.getMessage().contains("Document processing failed"));
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(OCR_SCRIPT), any())).thenReturn(Map.of("ocr_json_path", "dummy/ocr.json"));
+        when(fileUtils.extractOcrJsonPath(any())).thenReturn("dummy/ocr.json");
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(QUALITY_SCRIPT), any())).thenReturn(Collections.emptyMap());
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(VALIDATION_SCRIPT), any(), any())).thenReturn(Collections.emptyMap());
+        AtomicBoolean forgeryStopped = new AtomicBoolean();
+        when(pythonExecutor.runPythonScriptWithin(any(), eq(FORGERY_SCRIPT), any())).thenAnswer(invocation -> {
+            // The script is only given what is left of the stage timeout
+            assertTrue(invocation.<Duration>getArgument(0).toMillis() <= 100);
+            Thread.sleep(300);
+            forgeryStopped.set(true);
+            throw new PythonExecutionException("Python script DocumentForgery.py timed out after 100 ms");
+        });
+        try {
+            Exception exception = assertThrows(DocumentProcessingException.class, () -> documentWorkflow.processDocument(documentRequest));
+            assertTrue(exception.getMessage().contains("Forgery Detection processing timed out"));
+            // The caller releases the document once the workflow returns, so no script may still be reading it
+            assertTrue(forgeryStopped.get(), "workflow returned while the forgery script was still running");
+        } finally {
+            shortTimeouts.shutdown();
+        }
     }
 
     @Test
     void testProcessDocument_GeneralFailure() throws Exception {
-        when(fileUtils.saveDocument(any(), anyString())).thenReturn("dummy/path");
-        when(fileUtils.executeOcr(any(), anyString())).thenThrow(new RuntimeException("Unexpected error"));
+        when(pythonExecutor.runPythonScriptWithin(any(), anyString(), any())).thenThrow(new RuntimeException("Unexpected error"));
 
         Exception exception = assertThrows(DocumentProcessingException.class, () -> documentWorkflow.processDocument(documentRequest));
         assertTrue(exception.getMessage().contains("Document processing failed"));